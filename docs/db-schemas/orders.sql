@@ -0,0 +1,4 @@
+-- Заказы используют пулы id из последовательностей (allocationSize = 50 в Order/OrderItem),
+-- шаг последовательности должен совпадать с размером пула
+ALTER SEQUENCE IF EXISTS orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS order_items_id_seq INCREMENT BY 50;
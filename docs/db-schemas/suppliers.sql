@@ -0,0 +1,10 @@
+-- Журнал оценок поставщиков (SupplierRating): только добавление. SupplierRatingAggregator
+-- восстанавливает агрегаты проходом по id, suppliers.rating - среднее по журналу поставщика
+CREATE TABLE IF NOT EXISTS supplier_ratings (
+    id BIGSERIAL PRIMARY KEY,
+    supplier_id BIGINT NOT NULL REFERENCES suppliers (id) ON DELETE CASCADE,
+    rating DOUBLE PRECISION NOT NULL CHECK (rating >= 0.0 AND rating <= 5.0),
+    rated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_supplier_ratings_supplier ON supplier_ratings (supplier_id);
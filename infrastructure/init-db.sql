@@ -1,13 +1,112 @@
-CREATE TABLE inventory (
-                           product_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+-- Начальная схема и тестовые данные inventory-service. Схема совпадает с docs/db-schemas/inventory.sql:
+-- изменения таблиц вносятся в оба файла
+
+-- min_threshold - нижняя граница точки заказа продукта (ReorderPlanner)
+CREATE TABLE products (
+                          product_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                          name VARCHAR(255) NOT NULL,
+                          category VARCHAR(100),
+                          min_threshold INT
+);
+
+CREATE TABLE warehouse (
+                           warehouse_id BIGSERIAL PRIMARY KEY,
+                           code VARCHAR(32) NOT NULL UNIQUE,
                            name VARCHAR(255) NOT NULL,
-                           category VARCHAR(100),
-                           stock INT NOT NULL DEFAULT 0,
-                           min_threshold INT,
-                           last_updated TIMESTAMPTZ DEFAULT NOW()
+                           latitude DOUBLE PRECISION NOT NULL,
+                           longitude DOUBLE PRECISION NOT NULL,
+                           active BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+-- Позиция остатка: продукт x склад. Склад по умолчанию (inventory.warehouse.default-id)
+-- принимает операции, в которых склад не указан.
+-- Хэш-секционирование по product_id: все позиции продукта лежат в одной секции, запросы
+-- с условием на product_id затрагивают одну секцию. Ключ секционирования входит в PRIMARY KEY,
+-- уникальность inventory_id обеспечивает последовательность
+CREATE TABLE inventory (
+                           inventory_id BIGSERIAL,
+                           product_id UUID NOT NULL REFERENCES products,
+                           warehouse_id BIGINT NOT NULL REFERENCES warehouse,
+                           quantity INT NOT NULL CHECK (quantity >= 0),
+                           last_updated TIMESTAMPTZ DEFAULT NOW(),
+                           version BIGINT NOT NULL DEFAULT 0,
+                           PRIMARY KEY (inventory_id, product_id),
+                           UNIQUE (product_id, warehouse_id)
+) PARTITION BY HASH (product_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE inventory_h%s PARTITION OF inventory '
+                       'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+-- История остатков по месяцам (RANGE по created_at). Секции создает и архивирует
+-- HistoryPartitionManager (inventory.history.partitions.*); секция по умолчанию
+-- принимает строки, для которых месячная секция еще не создана
+CREATE TABLE inventory_history (
+                           history_id BIGSERIAL,
+                           inventory_id BIGINT,
+                           product_id UUID NOT NULL,
+                           warehouse_id BIGINT,
+                           action VARCHAR(32) NOT NULL,
+                           delta INT NOT NULL,
+                           reason VARCHAR(255),
+                           created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                           PRIMARY KEY (history_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE inventory_history_default PARTITION OF inventory_history DEFAULT;
+
+-- Индекс создается на каждой секции: отчеты и обучение читают историю по продукту и периоду
+CREATE INDEX idx_inventory_history_product_created ON inventory_history (product_id, created_at);
+
+-- Снимки журнала остатков (StockLedger): суммы движений каждой позиции с history_id до last_history_id.
+-- Восстановление и запросы на момент времени читают ближайший снимок и хвост истории после
+-- last_history_id; cutoff - время снятия границы, по нему выбирается снимок для момента времени
+CREATE TABLE stock_snapshot (
+                           snapshot_id BIGSERIAL PRIMARY KEY,
+                           cutoff TIMESTAMPTZ NOT NULL,
+                           last_history_id BIGINT NOT NULL,
+                           taken_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_stock_snapshot_cutoff ON stock_snapshot (cutoff);
+CREATE INDEX idx_stock_snapshot_last_history ON stock_snapshot (last_history_id);
+
+CREATE TABLE stock_snapshot_position (
+                           snapshot_id BIGINT NOT NULL REFERENCES stock_snapshot ON DELETE CASCADE,
+                           inventory_id BIGINT NOT NULL,
+                           product_id UUID NOT NULL,
+                           warehouse_id BIGINT,
+                           quantity BIGINT NOT NULL,
+                           PRIMARY KEY (snapshot_id, inventory_id)
 );
 
-INSERT INTO inventory (name, category, stock) VALUES
-                                                  ('Laptop Pro', 'Electronics', 50),
-                                                  ('Wireless Mouse', 'Accessories', 200),
-                                                  ('Ergonomic Chair', 'Furniture', 30);
\ No newline at end of file
+CREATE INDEX idx_stock_snapshot_position_product ON stock_snapshot_position (snapshot_id, product_id);
+
+-- Контрольная точка локального журнала движений (JournaledStockWriter): номер последней записи,
+-- примененной к inventory, обновляется в одной транзакции с остатком
+CREATE TABLE stock_journal_checkpoint (
+                           node_id VARCHAR(128) PRIMARY KEY,
+                           applied_sequence BIGINT NOT NULL
+);
+
+INSERT INTO warehouse (warehouse_id, code, name, latitude, longitude) VALUES
+    (1, 'MAIN', 'Main warehouse', 55.7558, 37.6173),
+    (2, 'NORTH', 'North warehouse', 59.9343, 30.3351);
+SELECT setval('warehouse_warehouse_id_seq', (SELECT MAX(warehouse_id) FROM warehouse));
+
+INSERT INTO products (name, category, min_threshold) VALUES
+    ('Laptop Pro', 'Electronics', 20),
+    ('Wireless Mouse', 'Accessories', 50),
+    ('Ergonomic Chair', 'Furniture', 10);
+
+INSERT INTO inventory (product_id, warehouse_id, quantity)
+SELECT p.product_id, w.warehouse_id, s.quantity
+FROM (VALUES ('Laptop Pro', 'MAIN', 30), ('Laptop Pro', 'NORTH', 20),
+             ('Wireless Mouse', 'MAIN', 120), ('Wireless Mouse', 'NORTH', 80),
+             ('Ergonomic Chair', 'MAIN', 30)) AS s(name, code, quantity)
+         JOIN products p ON p.name = s.name
+         JOIN warehouse w ON w.code = s.code;
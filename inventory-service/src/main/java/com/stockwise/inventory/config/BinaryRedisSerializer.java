@@ -0,0 +1,241 @@
+package com.stockwise.inventory.config;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Бинарный сериализатор значений кэша по зарегистрированным схемам (BinaryCodec).
+// Формат: [magic][тег типа][версия схемы][поля]; списки - [LIST][тег][версия][n][элементы].
+// Значения больше порога сжимаются LZ4. Незарегистрированные типы и записи, сохраненные
+// раньше в JSON, обрабатываются GenericJackson2JsonRedisSerializer
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+    static final byte MAGIC_PLAIN = (byte) 0xB1;
+    static final byte MAGIC_LZ4 = (byte) 0xB2;
+    private static final int TAG_NULL = 0;
+    private static final int TAG_LIST = 0xFE;
+    private static final int TAG_FALLBACK = 0xFF;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final Map<Class<?>, Registration<?>> byClass;
+    private final Registration<?>[] byTag;
+    private final int compressionThreshold;
+    private final RedisSerializer<Object> fallback;
+
+    private BinaryRedisSerializer(Builder builder) {
+        this.byClass = new HashMap<>(builder.byClass);
+        this.byTag = builder.byTag.clone();
+        this.compressionThreshold = builder.compressionThreshold;
+        this.fallback = builder.fallback;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        BinaryWriter out = new BinaryWriter(256);
+        out.writeByte(MAGIC_PLAIN);
+        writeValue(value, out);
+
+        if (compressionThreshold > 0 && out.size() > compressionThreshold) {
+            byte[] compressed = compress(out);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == MAGIC_PLAIN) {
+            return readValue(new BinaryReader(bytes, 1, bytes.length - 1));
+        }
+        if (bytes[0] == MAGIC_LZ4) {
+            BinaryReader header = new BinaryReader(bytes, 1, bytes.length - 1);
+            int length = header.readVarInt();
+            byte[] plain = new byte[length];
+            LZ4.fastDecompressor().decompress(bytes, header.position(), plain, 0, length);
+            return readValue(new BinaryReader(plain, 0, length));
+        }
+        // Запись в старом формате (JSON), сохраненная до переключения сериализатора
+        return fallback.deserialize(bytes);
+    }
+
+    private void writeValue(Object value, BinaryWriter out) {
+        if (value instanceof NullValue) {
+            out.writeByte(TAG_NULL);
+            return;
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            Registration<?> element = list.isEmpty() ? null : registration(list.get(0).getClass());
+            if (list.isEmpty() || (element != null && allOf(list, element))) {
+                out.writeByte(TAG_LIST);
+                out.writeByte(element != null ? element.tag : TAG_NULL);
+                out.writeByte(element != null ? element.version : 0);
+                out.writeVarInt(list.size());
+                for (Object item : list) {
+                    element.writeUnchecked(item, out);
+                }
+                return;
+            }
+        } else {
+            Registration<?> registration = registration(value.getClass());
+            if (registration != null) {
+                out.writeByte(registration.tag);
+                out.writeByte(registration.version);
+                registration.writeUnchecked(value, out);
+                return;
+            }
+        }
+
+        byte[] json = fallback.serialize(value);
+        out.writeByte(TAG_FALLBACK);
+        out.writeVarInt(json.length);
+        out.writeBytes(json, 0, json.length);
+    }
+
+    private Object readValue(BinaryReader in) {
+        int tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return NullValue.INSTANCE;
+            case TAG_LIST: {
+                int elementTag = in.readByte();
+                int version = in.readByte();
+                int size = in.readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                if (size == 0) {
+                    return list;
+                }
+                Registration<?> element = checkedRegistration(elementTag, version);
+                if (element == null) {
+                    return null;
+                }
+                for (int i = 0; i < size; i++) {
+                    list.add(element.codec.read(in));
+                }
+                return list;
+            }
+            case TAG_FALLBACK: {
+                return fallback.deserialize(in.readBytes(in.readVarInt()));
+            }
+            default: {
+                Registration<?> registration = checkedRegistration(tag, in.readByte());
+                return registration != null ? registration.codec.read(in) : null;
+            }
+        }
+    }
+
+    // Запись со старой версией схемы считается промахом кэша и перечитывается из БД
+    private Registration<?> checkedRegistration(int tag, int version) {
+        Registration<?> registration = byTag[tag];
+        if (registration == null || registration.version != version) {
+            return null;
+        }
+        return registration;
+    }
+
+    // Hibernate-прокси и подклассы ищутся по цепочке суперклассов
+    private Registration<?> registration(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            Registration<?> registration = byClass.get(current);
+            if (registration != null) {
+                return registration;
+            }
+        }
+        return null;
+    }
+
+    private boolean allOf(List<?> list, Registration<?> element) {
+        for (Object item : list) {
+            if (item == null || registration(item.getClass()) != element) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] compress(BinaryWriter out) {
+        int length = out.size() - 1;
+        LZ4Compressor compressor = LZ4.fastCompressor();
+        byte[] target = new byte[compressor.maxCompressedLength(length)];
+        int compressedLength = compressor.compress(out.buffer(), 1, length, target, 0, target.length);
+
+        BinaryWriter result = new BinaryWriter(compressedLength + 6);
+        result.writeByte(MAGIC_LZ4);
+        result.writeVarInt(length);
+        result.writeBytes(target, 0, compressedLength);
+        // Сжатие не окупилось: храним как есть
+        return result.size() < out.size() ? result.toByteArray() : null;
+    }
+
+    private static final class Registration<T> {
+        private final int tag;
+        private final int version;
+        private final BinaryCodec<T> codec;
+
+        Registration(int tag, int version, BinaryCodec<T> codec) {
+            this.tag = tag;
+            this.version = version;
+            this.codec = codec;
+        }
+
+        @SuppressWarnings("unchecked")
+        void writeUnchecked(Object value, BinaryWriter out) {
+            codec.write((T) value, out);
+        }
+    }
+
+    public static final class Builder {
+        private final Map<Class<?>, Registration<?>> byClass = new HashMap<>();
+        private final Registration<?>[] byTag = new Registration<?>[256];
+        private int compressionThreshold;
+        private RedisSerializer<Object> fallback = new GenericJackson2JsonRedisSerializer();
+
+        public <T> Builder register(int tag, Class<T> type, int version, BinaryCodec<T> codec) {
+            if (tag <= TAG_NULL || tag >= TAG_LIST) {
+                throw new IllegalArgumentException("Type tag must be in 1..253: " + tag);
+            }
+            if (byTag[tag] != null) {
+                throw new IllegalArgumentException("Type tag already registered: " + tag);
+            }
+            Registration<T> registration = new Registration<>(tag, version & 0xFF, codec);
+            byTag[tag] = registration;
+            byClass.put(type, registration);
+            return this;
+        }
+
+        // 0 - без сжатия
+        public Builder compressAbove(int bytes) {
+            this.compressionThreshold = bytes;
+            return this;
+        }
+
+        public Builder fallback(RedisSerializer<Object> fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        public BinaryRedisSerializer build() {
+            return new BinaryRedisSerializer(this);
+        }
+    }
+}
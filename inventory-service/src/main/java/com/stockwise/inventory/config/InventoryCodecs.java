@@ -0,0 +1,84 @@
+package com.stockwise.inventory.config;
+
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.model.Warehouse;
+
+// Бинарные схемы кэшируемых типов inventory-service. При изменении набора или порядка полей
+// нужно увеличить версию схемы: старые записи в Redis станут промахами, а не ошибками
+final class InventoryCodecs {
+    static final int PRODUCT_TAG = 1;
+    static final int INVENTORY_ITEM_TAG = 2;
+    static final int PREDICTION_TAG = 3;
+
+    static final BinaryCodec<Product> PRODUCT = new BinaryCodec<>() {
+        @Override
+        public void write(Product product, BinaryWriter out) {
+            out.writeUuid(product.getProductId());
+            out.writeString(product.getName());
+            out.writeString(product.getCategory());
+        }
+
+        @Override
+        public Product read(BinaryReader in) {
+            return new Product(in.readUuid(), in.readString(), in.readString());
+        }
+    };
+
+    // Продукт встраивается в запись остатка целиком: он нужен для событий и отчетов;
+    // склад хранится только идентификатором
+    static final BinaryCodec<InventoryItem> INVENTORY_ITEM = new BinaryCodec<>() {
+        @Override
+        public void write(InventoryItem item, BinaryWriter out) {
+            out.writeLong(item.getInventoryId());
+            out.writeBoolean(item.getProduct() != null);
+            if (item.getProduct() != null) {
+                PRODUCT.write(item.getProduct(), out);
+            }
+            out.writeLong(item.getWarehouse() != null ? item.getWarehouse().getWarehouseId() : null);
+            out.writeVarLong(item.getQuantity());
+            out.writeInstant(item.getLastUpdated());
+            out.writeVarLong(item.getVersion());
+        }
+
+        @Override
+        public InventoryItem read(BinaryReader in) {
+            InventoryItem item = new InventoryItem();
+            item.setInventoryId(in.readLong());
+            if (in.readBoolean()) {
+                item.setProduct(PRODUCT.read(in));
+            }
+            Long warehouseId = in.readLong();
+            if (warehouseId != null) {
+                item.setWarehouse(new Warehouse(warehouseId));
+            }
+            item.setQuantity((int) in.readVarLong());
+            item.setLastUpdated(in.readInstant());
+            item.setVersion(in.readVarLong());
+            return item;
+        }
+    };
+
+    // Прогнозы спроса кэшируются как double
+    static final BinaryCodec<Double> PREDICTION = new BinaryCodec<>() {
+        @Override
+        public void write(Double value, BinaryWriter out) {
+            out.writeDouble(value);
+        }
+
+        @Override
+        public Double read(BinaryReader in) {
+            return in.readDouble();
+        }
+    };
+
+    private InventoryCodecs() {
+    }
+
+    static BinaryRedisSerializer.Builder register(BinaryRedisSerializer.Builder builder) {
+        return builder
+                .register(PRODUCT_TAG, Product.class, 1, PRODUCT)
+                .register(INVENTORY_ITEM_TAG, InventoryItem.class, 3, INVENTORY_ITEM)
+                .register(PREDICTION_TAG, Double.class, 1, PREDICTION);
+    }
+}
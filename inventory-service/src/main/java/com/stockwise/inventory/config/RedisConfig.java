@@ -1,17 +1,20 @@
 package com.stockwise.inventory.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -20,22 +23,31 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
-    @Value("${spring.redis.host:localhost}")
-    private String redisHost;
+    @Bean
+    public RedisLatencyRecorder redisLatencyRecorder() {
+        return new RedisLatencyRecorder();
+    }
 
-    @Value("${spring.redis.port:6379}")
-    private int redisPort;
+    // Общие потоки ввода-вывода для всех подключений и сбор клиентских задержек команд
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources redisClientResources(RedisLatencyRecorder redisLatencyRecorder) {
+        return ClientResources.builder()
+                .commandLatencyRecorder(redisLatencyRecorder)
+                .build();
+    }
 
-    @Value("${spring.redis.password:}")
-    private String redisPassword;
+    // Топология задается spring.redis.mode: standalone (host/port), sentinel (sentinel.master,
+    // sentinel.nodes) или cluster (cluster.nodes); таймауты - spring.redis.timeout.*
+    @Bean
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory(Environment env, ClientResources redisClientResources) {
+        return RedisConnectionFactories.primary(env, redisClientResources);
+    }
 
+    // Отдельное подключение для кэша: попадания читаются с реплик (spring.redis.cache.read-from)
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        if (redisPassword != null && !redisPassword.isEmpty()) {
-            config.setPassword(redisPassword);
-        }
-        return new LettuceConnectionFactory(config);
+    public RedisConnectionFactory cacheRedisConnectionFactory(Environment env, ClientResources redisClientResources) {
+        return RedisConnectionFactories.cache(env, redisClientResources);
     }
 
     @Bean
@@ -54,24 +66,32 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(@Qualifier("cacheRedisConnectionFactory") RedisConnectionFactory connectionFactory,
+                                     Environment env) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30)) // TTL по умолчанию 30 минут
-                .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeKeysWith(SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
-                .withCacheConfiguration("inventory", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(10)))
-                .withCacheConfiguration("products", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofHours(1)))
-                .withCacheConfiguration("predictions", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(5)))
+                .withCacheConfiguration("inventory", config.entryTtl(Duration.ofMinutes(10))
+                        .serializeValuesWith(SerializationPair.fromSerializer(valueSerializer(env, "inventory"))))
+                .withCacheConfiguration("products", config.entryTtl(Duration.ofHours(1))
+                        .serializeValuesWith(SerializationPair.fromSerializer(valueSerializer(env, "products"))))
+                .withCacheConfiguration("predictions", config.entryTtl(Duration.ofMinutes(5))
+                        .serializeValuesWith(SerializationPair.fromSerializer(valueSerializer(env, "predictions"))))
                 .build();
     }
-}
-
-
-
 
+    // Формат значений выбирается для каждого кэша: binary (схемы InventoryCodecs) или json
+    static RedisSerializer<Object> valueSerializer(Environment env, String cacheName) {
+        String prefix = "inventory.cache." + cacheName;
+        if ("json".equalsIgnoreCase(env.getProperty(prefix + ".serializer", "binary"))) {
+            return new GenericJackson2JsonRedisSerializer();
+        }
+        return InventoryCodecs.register(BinaryRedisSerializer.builder())
+                .compressAbove(env.getProperty(prefix + ".compress-above-bytes", Integer.class, 1024))
+                .build();
+    }
+}
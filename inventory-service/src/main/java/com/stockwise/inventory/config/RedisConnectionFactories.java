@@ -0,0 +1,197 @@
+package com.stockwise.inventory.config;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.protocol.RedisCommand;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisNode;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Сборка LettuceConnectionFactory по свойствам spring.redis.*: топология (standalone, sentinel,
+// cluster), таймауты подключения и команд, чтение с реплик и общие ClientResources
+public final class RedisConnectionFactories {
+    static final Duration DEFAULT_COMMAND_TIMEOUT = Duration.ofMillis(500);
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(2);
+
+    public enum Mode { STANDALONE, SENTINEL, CLUSTER }
+
+    private RedisConnectionFactories() {
+    }
+
+    public static Mode mode(Environment env) {
+        return Mode.valueOf(env.getProperty("spring.redis.mode", "standalone").trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Основное подключение: записи и чтения, которым нужна согласованность, идут на мастер
+    public static LettuceConnectionFactory primary(Environment env, ClientResources resources) {
+        return create(env, resources, null);
+    }
+
+    // Подключение кэша: попадания можно читать с реплик, устаревание ограничено TTL записей
+    public static LettuceConnectionFactory cache(Environment env, ClientResources resources) {
+        String defaultReadFrom = mode(env) == Mode.STANDALONE ? "" : "replica-preferred";
+        String readFrom = env.getProperty("spring.redis.cache.read-from", defaultReadFrom).trim();
+        return create(env, resources, readFrom.isEmpty() ? null : ReadFrom.valueOf(readFrom.replace("-", "")));
+    }
+
+    static LettuceConnectionFactory create(Environment env, ClientResources resources, ReadFrom readFrom) {
+        Mode mode = mode(env);
+        Duration commandTimeout = duration(env, "spring.redis.timeout.command", DEFAULT_COMMAND_TIMEOUT);
+
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder client = LettuceClientConfiguration.builder()
+                .clientResources(resources)
+                .commandTimeout(commandTimeout)
+                .shutdownTimeout(duration(env, "spring.redis.timeout.shutdown", Duration.ofMillis(100)))
+                .clientOptions(clientOptions(env, mode, commandTimeout));
+        if (readFrom != null) {
+            // В standalone режиме Lettuce сам находит реплики мастера через INFO replication
+            client.readFrom(readFrom);
+        }
+
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration(env, mode), client.build());
+        // Неблокирующие команды мультиплексируются через одно соединение на фабрику
+        factory.setShareNativeConnection(env.getProperty("spring.redis.share-native-connection", Boolean.class, true));
+        return factory;
+    }
+
+    static RedisConfiguration configuration(Environment env, Mode mode) {
+        String password = env.getProperty("spring.redis.password", "");
+        switch (mode) {
+            case SENTINEL: {
+                RedisSentinelConfiguration config = new RedisSentinelConfiguration();
+                config.master(env.getProperty("spring.redis.sentinel.master", "mymaster"));
+                nodes(env, "spring.redis.sentinel.nodes").forEach(config::addSentinel);
+                String sentinelPassword = env.getProperty("spring.redis.sentinel.password", "");
+                if (StringUtils.hasText(sentinelPassword)) {
+                    config.setSentinelPassword(RedisPassword.of(sentinelPassword));
+                }
+                if (StringUtils.hasText(password)) {
+                    config.setPassword(password);
+                }
+                return config;
+            }
+            case CLUSTER: {
+                RedisClusterConfiguration config = new RedisClusterConfiguration();
+                nodes(env, "spring.redis.cluster.nodes").forEach(config::addClusterNode);
+                config.setMaxRedirects(env.getProperty("spring.redis.cluster.max-redirects", Integer.class, 3));
+                if (StringUtils.hasText(password)) {
+                    config.setPassword(password);
+                }
+                return config;
+            }
+            default: {
+                RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                        env.getProperty("spring.redis.host", "localhost"),
+                        env.getProperty("spring.redis.port", Integer.class, 6379));
+                if (StringUtils.hasText(password)) {
+                    config.setPassword(password);
+                }
+                return config;
+            }
+        }
+    }
+
+    static ClientOptions clientOptions(Environment env, Mode mode, Duration commandTimeout) {
+        SocketOptions socket = SocketOptions.builder()
+                .connectTimeout(duration(env, "spring.redis.timeout.connect", DEFAULT_CONNECT_TIMEOUT))
+                .keepAlive(true)
+                .build();
+        TimeoutOptions timeouts = TimeoutOptions.builder()
+                .timeoutSource(new PerCommandTimeout(commandTimeout, perCommandTimeouts(env)))
+                .build();
+        // При потере соединения команды отклоняются сразу, а не копятся в буфере до таймаута
+        ClientOptions.DisconnectedBehavior disconnected = ClientOptions.DisconnectedBehavior.REJECT_COMMANDS;
+
+        if (mode == Mode.CLUSTER) {
+            ClusterTopologyRefreshOptions refresh = ClusterTopologyRefreshOptions.builder()
+                    .enableAllAdaptiveRefreshTriggers()
+                    .enablePeriodicRefresh(duration(env, "spring.redis.cluster.refresh-period", Duration.ofSeconds(30)))
+                    .build();
+            return ClusterClientOptions.builder()
+                    .socketOptions(socket)
+                    .timeoutOptions(timeouts)
+                    .disconnectedBehavior(disconnected)
+                    .topologyRefreshOptions(refresh)
+                    .build();
+        }
+        return ClientOptions.builder()
+                .socketOptions(socket)
+                .timeoutOptions(timeouts)
+                .disconnectedBehavior(disconnected)
+                .build();
+    }
+
+    // spring.redis.timeout.per-command=<команда>=<длительность>,..., например keys=5s,mget=200ms
+    static Map<String, Duration> perCommandTimeouts(Environment env) {
+        Map<String, Duration> timeouts = new HashMap<>();
+        String list = env.getProperty("spring.redis.timeout.per-command", "");
+        for (String entry : StringUtils.commaDelimitedListToStringArray(list)) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length == 2) {
+                timeouts.put(parts[0].trim().toUpperCase(Locale.ROOT),
+                        DurationStyle.detectAndParse(parts[1].trim()));
+            }
+        }
+        return timeouts;
+    }
+
+    // Длительности в формате Spring Boot: 500ms, 2s, PT1M
+    private static Duration duration(Environment env, String property, Duration defaultValue) {
+        String value = env.getProperty(property, "");
+        return StringUtils.hasText(value) ? DurationStyle.detectAndParse(value.trim()) : defaultValue;
+    }
+
+    private static List<RedisNode> nodes(Environment env, String property) {
+        String value = env.getProperty(property, "");
+        if (!StringUtils.hasText(value)) {
+            throw new IllegalStateException("Property " + property + " is required for spring.redis.mode="
+                    + env.getProperty("spring.redis.mode"));
+        }
+        return StringUtils.commaDelimitedListToSet(value).stream()
+                .map(String::trim)
+                .map(RedisNode::fromString)
+                .collect(Collectors.toList());
+    }
+
+    // Таймаут команды по ее типу; для остальных команд действует общий spring.redis.timeout.command
+    static class PerCommandTimeout extends TimeoutOptions.TimeoutSource {
+        private final long defaultNanos;
+        private final Map<String, Long> nanosByCommand = new HashMap<>();
+
+        PerCommandTimeout(Duration defaultTimeout, Map<String, Duration> overrides) {
+            this.defaultNanos = defaultTimeout.toNanos();
+            overrides.forEach((command, timeout) -> nanosByCommand.put(command, timeout.toNanos()));
+        }
+
+        @Override
+        public long getTimeout(RedisCommand<?, ?, ?> command) {
+            return nanosByCommand.getOrDefault(command.getType().name(), defaultNanos);
+        }
+
+        @Override
+        public TimeUnit getTimeUnit() {
+            return TimeUnit.NANOSECONDS;
+        }
+    }
+}
@@ -53,29 +53,36 @@ public class InventoryController {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final JdbcTemplate jdbcTemplate;
-
-    public InventoryController(KafkaTemplate<String, String> kafkaTemplate, JdbcTemplate jdbcTemplate) {
+    private final InventoryService inventoryService;
+    private final RedisLatencyRecorder redisLatencyRecorder;
+    private final CacheWarmer cacheWarmer;
+    private final StockLedger stockLedger;
+    private final JournaledStockWriter journaledStockWriter;
+    private final DemandReportService demandReportService;
+    private final ReorderPlanner reorderPlanner;
+
+    public InventoryController(KafkaTemplate<String, String> kafkaTemplate, JdbcTemplate jdbcTemplate,
+                               InventoryService inventoryService, RedisLatencyRecorder redisLatencyRecorder,
+                               CacheWarmer cacheWarmer, StockLedger stockLedger,
+                               JournaledStockWriter journaledStockWriter, DemandReportService demandReportService,
+                               ReorderPlanner reorderPlanner) {
         this.kafkaTemplate = kafkaTemplate;
         this.jdbcTemplate = jdbcTemplate;
+        this.inventoryService = inventoryService;
+        this.redisLatencyRecorder = redisLatencyRecorder;
+        this.cacheWarmer = cacheWarmer;
+        this.stockLedger = stockLedger;
+        this.journaledStockWriter = journaledStockWriter;
+        this.demandReportService = demandReportService;
+        this.reorderPlanner = reorderPlanner;
     }
 
     @PostMapping("/adjust")
     public ResponseEntity<?> adjustInventory(
             @RequestBody InventoryAdjustmentRequest request
     ) {
-        // 1. Обновляем БД
-        jdbcTemplate.update(
-                "UPDATE inventory SET stock = stock + ? WHERE product_id = ?",
-                request.getDelta(), request.getProductId()
-        );
-
-        // 2. Отправляем событие в Kafka
-        InventoryEvent event = new InventoryEvent(
-                request.getProductId(),
-                request.getDelta(),
-                "MANUAL_ADJUSTMENT"
-        );
-        kafkaTemplate.send("inventory-updates", event.toJson());
+        // Запись через StockWriteGateway: БД, история, событие inventory-updates и кэш
+        inventoryService.adjustStock(request.getProductId(), request.getDelta(), "MANUAL_ADJUSTMENT");
 
         return ResponseEntity.ok().build();
     }
@@ -83,7 +90,9 @@ public class InventoryController {
     @GetMapping("/{productId}")
     public ResponseEntity<InventoryItem> getInventory(@PathVariable UUID productId) {
         InventoryItem item = jdbcTemplate.queryForObject(
-                "SELECT * FROM inventory WHERE product_id = ?",
+                "SELECT p.product_id, COALESCE(SUM(i.quantity), 0) AS stock FROM products p " +
+                        "LEFT JOIN inventory i ON i.product_id = p.product_id " +
+                        "WHERE p.product_id = ? GROUP BY p.product_id",
                 new Object[]{productId},
                 (rs, rowNum) -> new InventoryItem(
                         rs.getObject("product_id", UUID.class),
@@ -105,22 +114,14 @@ public class InventoryController {
                 );
             }
 
-            // 2. Обновление запасов
+            // 2. Обновление запасов (событие inventory-updates отправляет StockWriteGateway)
             int updatedStock = inventoryService.adjustStock(
                     request.getProductId(),
                     request.getDelta(),
                     request.getReason()
-            );
+            ).getQuantity();
 
-            // 3. Отправка события в Kafka
-            InventoryEvent event = new InventoryEvent(
-                    request.getProductId(),
-                    request.getDelta(),
-                    request.getReason()
-            );
-            kafkaTemplate.send("inventory-updates", event.toJson());
-
-            // 4. Аудит операции
+            // 3. Аудит операции
             auditService.logAdjustment(
                     request.getProductId(),
                     request.getDelta(),
@@ -143,6 +144,127 @@ public class InventoryController {
         }
     }
 
+    // Атомарное перемещение по нескольким ногам с одним составным событием
+    @PostMapping("/transfers")
+    public ResponseEntity<List<InventoryItem>> transferStock(@Valid @RequestBody StockTransferRequest request) {
+        return ResponseEntity.ok(inventoryService.transferStock(request.getLegs(), request.getReason()));
+    }
+
+    // Фиксация пересчитанного остатка: запись с проверкой версии и повтором при конфликте
+    @PutMapping("/{productId}/count")
+    public ResponseEntity<InventoryItem> recordStockCount(
+            @PathVariable UUID productId,
+            @RequestParam @Min(0) int quantity,
+            @RequestParam(required = false) Long warehouseId
+    ) {
+        return ResponseEntity.ok(inventoryService.recordStockCount(productId, warehouseId, quantity));
+    }
+
+    // Общий остаток продукта и разбивка по складам
+    @GetMapping("/{productId}/availability")
+    public ResponseEntity<StockAvailability> getAvailability(@PathVariable UUID productId) {
+        return ResponseEntity.ok(inventoryService.getAvailability(productId));
+    }
+
+    // Страховой запас, точка заказа и EOQ продукта по локальному прогнозу
+    @GetMapping("/{productId}/reorder")
+    public ResponseEntity<ReorderRecommendation> getReorderRecommendation(@PathVariable UUID productId) {
+        return ResponseEntity.ok(reorderPlanner.getRecommendation(productId));
+    }
+
+    // Изменение через локальный журнал: 202 после fsync журнала, применение к БД асинхронное
+    @PostMapping("/adjust/journaled")
+    public ResponseEntity<JournalReceipt> adjustInventoryJournaled(
+            @Valid @RequestBody InventoryAdjustmentRequest request,
+            @RequestParam(required = false) Long warehouseId
+    ) {
+        if (!journaledStockWriter.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.accepted().body(inventoryService.adjustStockJournaled(
+                    request.getProductId(), warehouseId, request.getDelta(), request.getReason()));
+        } catch (InsufficientStockException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/journal/status")
+    public ResponseEntity<JournalStatus> getJournalStatus() {
+        return ResponseEntity.ok(journaledStockWriter.getStatus());
+    }
+
+    // Остаток продукта на момент времени: ближайший снимок журнала и движения после него
+    @GetMapping("/{productId}/stock-at")
+    public ResponseEntity<StockAvailability> getStockAt(
+            @PathVariable UUID productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at
+    ) {
+        return ResponseEntity.ok(stockLedger.stockAt(productId, at));
+    }
+
+    // Текущий остаток из проекции журнала (режим inventory.ledger.enabled)
+    @GetMapping("/ledger/{productId}")
+    public ResponseEntity<StockAvailability> getLedgerStock(@PathVariable UUID productId) {
+        if (!stockLedger.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(stockLedger.currentStock(productId));
+    }
+
+    // Сверка таблицы inventory с журналом и восстановление остатков по журналу
+    @GetMapping("/ledger/verify")
+    public ResponseEntity<List<LedgerDiscrepancy>> verifyLedger() {
+        return ResponseEntity.ok(stockLedger.verify());
+    }
+
+    @PostMapping("/ledger/repair")
+    public ResponseEntity<List<LedgerDiscrepancy>> repairFromLedger() {
+        return ResponseEntity.ok(stockLedger.repair());
+    }
+
+    @PostMapping("/ledger/snapshots")
+    public ResponseEntity<Instant> takeLedgerSnapshot() {
+        return ResponseEntity.ok(stockLedger.takeSnapshot());
+    }
+
+    // Резервирование с ближайших складов, на которых есть остаток
+    @PostMapping("/allocate")
+    public ResponseEntity<StockAllocation> allocateStock(@Valid @RequestBody StockAllocationRequest request) {
+        try {
+            return ResponseEntity.ok(inventoryService.allocateStock(request.getProductId(),
+                    request.getQuantity(), request.getLatitude(), request.getLongitude()));
+        } catch (InsufficientStockException | OptimisticLockingFailureException ex) {
+            // Остатка нет или повторы исчерпаны конкурирующими списаниями - клиент может повторить
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // Остатки по набору продуктов за один проход по кэшу и БД
+    @PostMapping("/batch-get")
+    public ResponseEntity<InventoryBatchResponse> batchGetInventory(
+            @Valid @RequestBody InventoryBatchRequest request
+    ) {
+        Map<UUID, InventoryItem> items = inventoryService.getInventoryItems(request.getProductIds());
+        List<UUID> missing = request.getProductIds().stream()
+                .filter(productId -> !items.containsKey(productId))
+                .distinct()
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new InventoryBatchResponse(new ArrayList<>(items.values()), missing));
+    }
+
+    // Клиентские задержки команд Redis по типу команды
+    @GetMapping("/cache/redis-latency")
+    public ResponseEntity<List<RedisCommandLatency>> getRedisLatency() {
+        return ResponseEntity.ok(redisLatencyRecorder.snapshot());
+    }
+
+    // Ход и длительность прогрева кэшей при старте
+    @GetMapping("/cache/warmup")
+    public ResponseEntity<CacheWarmupStatus> getCacheWarmupStatus() {
+        return ResponseEntity.ok(cacheWarmer.getStatus());
+    }
+
     @PostMapping("/replenish")
     public ResponseEntity<ReplenishmentResponse> replenishInventory(
             @Valid @RequestBody ReplenishmentRequest request
@@ -167,27 +289,49 @@ public class InventoryController {
         }
     }
 
+    // Отчет о спросе пишется в поток ответа по мере чтения истории (pdf или csv)
     @GetMapping("/reports/demand")
-    public ResponseEntity<Resource> generateDemandReport(
+    public ResponseEntity<StreamingResponseBody> generateDemandReport(
             @RequestParam UUID productId,
-            @RequestParam(defaultValue = "30") int days
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "pdf") String format
+    ) {
+        ReportFormat reportFormat;
+        try {
+            reportFormat = ReportFormat.parse(format);
+            demandReportService.validate(days, 1);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=demand_report_" + productId + "." + reportFormat.getExtension())
+                .contentType(MediaType.parseMediaType(reportFormat.getContentType()))
+                .body(out -> demandReportService.writeDemandReport(productId, days, reportFormat, out));
+    }
+
+    // Отчет по нескольким продуктам: ряды считаются параллельно, разделы идут в порядке productIds
+    @GetMapping("/reports/demand/products")
+    public ResponseEntity<StreamingResponseBody> generateDemandReport(
+            @RequestParam List<UUID> productIds,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "pdf") String format
     ) {
+        ReportFormat reportFormat;
         try {
-            // 1. Генерация PDF
-            byte[] pdfContent = reportService.generateDemandReport(productId, days);
-
-            // 2. Создание ресурса для ответа
-            ByteArrayResource resource = new ByteArrayResource(pdfContent);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=demand_report_" + productId + ".pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(pdfContent.length)
-                    .body(resource);
-        } catch (Exception ex) {
-            return ResponseEntity.internalServerError().build();
+            reportFormat = ReportFormat.parse(format);
+            demandReportService.validate(days, productIds.size());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
         }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=demand_report_" + productIds.size() + "_products."
+                                + reportFormat.getExtension())
+                .contentType(MediaType.parseMediaType(reportFormat.getContentType()))
+                .body(out -> demandReportService.writeDemandReport(productIds, days, reportFormat, out));
     }
 
     // DTO классы
@@ -214,6 +358,54 @@ public class InventoryController {
         private InventoryItem item;
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InventoryBatchRequest {
+        @NotEmpty
+        @Size(max = 10000)
+        private List<UUID> productIds;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InventoryBatchResponse {
+        private List<InventoryItem> items;
+        private List<UUID> missingProductIds;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StockTransferRequest {
+        @NotEmpty
+        @Size(max = 100)
+        private List<@Valid TransferLeg> legs;
+
+        @NotBlank
+        private String reason;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StockAllocationRequest {
+        @NotNull
+        private UUID productId;
+
+        @Min(1)
+        private int quantity;
+
+        @DecimalMin("-90.0")
+        @DecimalMax("90.0")
+        private double latitude;
+
+        @DecimalMin("-180.0")
+        @DecimalMax("180.0")
+        private double longitude;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -6,6 +6,9 @@ public class InventoryEvent {
     private UUID productId;
     private int delta;
     private String reason;
+    // Запись inventory_history, породившая событие: по ней потребители отделяют движения,
+    // уже прочитанные из истории (DemandRollups)
+    private Long historyId;
 
     // Конструктор по умолчанию (необходим для Jackson)
     public InventoryEvent() {}
@@ -17,6 +20,11 @@ public class InventoryEvent {
         this.reason = reason;
     }
 
+    public InventoryEvent(UUID productId, int delta, String reason, Long historyId) {
+        this(productId, delta, reason);
+        this.historyId = historyId;
+    }
+
     // Геттеры и сеттеры
     public UUID getProductId() {
         return productId;
@@ -42,11 +50,25 @@ public class InventoryEvent {
         this.reason = reason;
     }
 
+    public Long getHistoryId() {
+        return historyId;
+    }
+
+    public void setHistoryId(Long historyId) {
+        this.historyId = historyId;
+    }
+
     // Метод для преобразования в JSON
     public String toJson() {
+        if (historyId == null) {
+            return String.format(
+                    "{\"productId\":\"%s\",\"delta\":%d,\"reason\":\"%s\"}",
+                    productId, delta, reason
+            );
+        }
         return String.format(
-                "{\"productId\":\"%s\",\"delta\":%d,\"reason\":\"%s\"}",
-                productId, delta, reason
+                "{\"productId\":\"%s\",\"delta\":%d,\"reason\":\"%s\",\"historyId\":%d}",
+                productId, delta, reason, historyId
         );
     }
 
@@ -57,6 +79,7 @@ public class InventoryEvent {
                 "productId=" + productId +
                 ", delta=" + delta +
                 ", reason='" + reason + '\'' +
+                ", historyId=" + historyId +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.stockwise.inventory.event;
+
+import com.stockwise.inventory.model.TransferLeg;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Одно событие на все перемещение: потребители видят все ноги вместе, без промежуточных состояний
+public class StockTransferEvent {
+    private final UUID transferId;
+    private final List<TransferLeg> legs;
+    private final String reason;
+    private final Instant occurredAt;
+
+    public StockTransferEvent(UUID transferId, List<TransferLeg> legs, String reason, Instant occurredAt) {
+        this.transferId = transferId;
+        this.legs = legs;
+        this.reason = reason;
+        this.occurredAt = occurredAt;
+    }
+
+    public UUID getTransferId() {
+        return transferId;
+    }
+
+    public List<TransferLeg> getLegs() {
+        return legs;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    // Метод для преобразования в JSON
+    public String toJson() {
+        StringBuilder json = new StringBuilder(64 + legs.size() * 64);
+        json.append("{\"transferId\":\"").append(transferId).append("\",\"reason\":");
+        appendString(json, reason);
+        json.append(",\"occurredAt\":\"").append(occurredAt).append("\",\"legs\":[");
+        for (int i = 0; i < legs.size(); i++) {
+            TransferLeg leg = legs.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format("{\"fromInventoryId\":%d,\"toInventoryId\":%d,\"quantity\":%d}",
+                    leg.getFromInventoryId(), leg.getToInventoryId(), leg.getQuantity()));
+        }
+        return json.append("]}").toString();
+    }
+
+    // Причина перемещения приходит из запроса: кавычки и управляющие символы экранируются
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return "StockTransferEvent{" +
+                "transferId=" + transferId +
+                ", legs=" + legs.size() +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
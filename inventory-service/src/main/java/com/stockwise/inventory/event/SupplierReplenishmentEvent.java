@@ -0,0 +1,107 @@
+package com.stockwise.inventory.event;
+
+import com.stockwise.inventory.model.ReplenishmentLine;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Один заказ поставщику по одному контракту со всеми строками прогона пополнения.
+// supplierId и contractId пустые, если активных контрактов нет и выбор остается поставщику
+public class SupplierReplenishmentEvent {
+    private final UUID orderId;
+    private final Long supplierId;
+    private final Long contractId;
+    private final List<ReplenishmentLine> lines;
+    private final String reason;
+    private final Instant createdAt;
+
+    public SupplierReplenishmentEvent(UUID orderId, Long supplierId, Long contractId, List<ReplenishmentLine> lines,
+                                      String reason, Instant createdAt) {
+        this.orderId = orderId;
+        this.supplierId = supplierId;
+        this.contractId = contractId;
+        this.lines = lines;
+        this.reason = reason;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public Long getContractId() {
+        return contractId;
+    }
+
+    public List<ReplenishmentLine> getLines() {
+        return lines;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getTotalQuantity() {
+        int total = 0;
+        for (ReplenishmentLine line : lines) {
+            total += line.getQuantity();
+        }
+        return total;
+    }
+
+    // Метод для преобразования в JSON
+    public String toJson() {
+        StringBuilder json = new StringBuilder(128 + lines.size() * 96);
+        json.append(String.format("{\"orderId\":\"%s\",\"supplierId\":%s,\"contractId\":%s,\"reason\":\"%s\","
+                + "\"createdAt\":\"%s\",\"lines\":[", orderId, supplierId, contractId, reason, createdAt));
+        for (int i = 0; i < lines.size(); i++) {
+            ReplenishmentLine line = lines.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"productId\":\"").append(line.getProductId()).append("\",\"productName\":");
+            appendString(json, line.getProductName());
+            json.append(",\"quantity\":").append(line.getQuantity()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    // Название продукта вводится пользователем: кавычки и управляющие символы экранируются
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return "SupplierReplenishmentEvent{" +
+                "orderId=" + orderId +
+                ", supplierId=" + supplierId +
+                ", contractId=" + contractId +
+                ", lines=" + lines.size() +
+                '}';
+    }
+}
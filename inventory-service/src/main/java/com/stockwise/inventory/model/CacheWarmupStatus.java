@@ -0,0 +1,43 @@
+package com.stockwise.inventory.model;
+
+import java.time.Instant;
+
+// Ход прогрева кэшей при старте сервиса
+public class CacheWarmupStatus {
+    public enum State { PENDING, RUNNING, COMPLETED, TIMED_OUT, FAILED, DISABLED }
+
+    private final State state;
+    private final String source;
+    private final int requestedProducts;
+    private final int totalBatches;
+    private final int completedBatches;
+    private final int warmedItems;
+    private final Instant startedAt;
+    private final long durationMillis;
+
+    public CacheWarmupStatus(State state, String source, int requestedProducts, int totalBatches,
+                             int completedBatches, int warmedItems, Instant startedAt, long durationMillis) {
+        this.state = state;
+        this.source = source;
+        this.requestedProducts = requestedProducts;
+        this.totalBatches = totalBatches;
+        this.completedBatches = completedBatches;
+        this.warmedItems = warmedItems;
+        this.startedAt = startedAt;
+        this.durationMillis = durationMillis;
+    }
+
+    public double getProgress() {
+        return totalBatches > 0 ? (double) completedBatches / totalBatches : 0.0;
+    }
+
+    // Getters
+    public State getState() { return state; }
+    public String getSource() { return source; }
+    public int getRequestedProducts() { return requestedProducts; }
+    public int getTotalBatches() { return totalBatches; }
+    public int getCompletedBatches() { return completedBatches; }
+    public int getWarmedItems() { return warmedItems; }
+    public Instant getStartedAt() { return startedAt; }
+    public long getDurationMillis() { return durationMillis; }
+}
@@ -0,0 +1,25 @@
+package com.stockwise.inventory.model;
+
+import java.time.LocalDate;
+
+// Движения продукта за один день (UTC): продано (списания) и поступило
+public class DailyDemand {
+    private final LocalDate day;
+    private final long sold;
+    private final long received;
+
+    public DailyDemand(LocalDate day, long sold, long received) {
+        this.day = day;
+        this.sold = sold;
+        this.received = received;
+    }
+
+    public long getNet() {
+        return received - sold;
+    }
+
+    // Getters
+    public LocalDate getDay() { return day; }
+    public long getSold() { return sold; }
+    public long getReceived() { return received; }
+}
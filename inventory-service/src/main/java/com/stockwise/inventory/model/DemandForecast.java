@@ -0,0 +1,39 @@
+package com.stockwise.inventory.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Локальный прогноз дневного спроса по ряду последних продаж
+public class DemandForecast {
+    // SES - экспоненциальное сглаживание, CROSTON - метод Кростона (SBA) для прерывистого спроса,
+    // NONE - продаж за окно не было
+    public enum Method { SES, CROSTON, NONE }
+
+    private final UUID productId;
+    private final double dailyDemand;
+    private final Method method;
+    private final double averageDailySales;
+    private final double demandVariance;
+    private final double averageDemandInterval;
+    private final Instant computedAt;
+
+    public DemandForecast(UUID productId, double dailyDemand, Method method, double averageDailySales,
+                          double demandVariance, double averageDemandInterval, Instant computedAt) {
+        this.productId = productId;
+        this.dailyDemand = dailyDemand;
+        this.method = method;
+        this.averageDailySales = averageDailySales;
+        this.demandVariance = demandVariance;
+        this.averageDemandInterval = averageDemandInterval;
+        this.computedAt = computedAt;
+    }
+
+    // Getters
+    public UUID getProductId() { return productId; }
+    public double getDailyDemand() { return dailyDemand; }
+    public Method getMethod() { return method; }
+    public double getAverageDailySales() { return averageDailySales; }
+    public double getDemandVariance() { return demandVariance; }
+    public double getAverageDemandInterval() { return averageDemandInterval; }
+    public Instant getComputedAt() { return computedAt; }
+}
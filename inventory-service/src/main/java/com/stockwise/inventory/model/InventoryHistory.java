@@ -0,0 +1,56 @@
+package com.stockwise.inventory.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+// Запись истории остатков. Таблица разбита на месячные секции по created_at, поэтому
+// product_id и warehouse_id хранятся в самой записи: чтения по продукту и периоду
+// не соединяются с inventory и затрагивают только секции нужных месяцев
+@Entity
+@Table(name = "inventory_history")
+public class InventoryHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long historyId;
+
+    // Внешнего ключа нет: секционированная inventory не имеет уникального индекса по inventory_id
+    @ManyToOne
+    @JoinColumn(name = "inventory_id")
+    private InventoryItem inventoryItem;
+
+    @Column(name = "product_id", nullable = false)
+    private UUID productId;
+
+    @Column(name = "warehouse_id")
+    private Long warehouseId;
+
+    private String action;
+    private int delta;
+    private String reason;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant timestamp;
+
+    // Getters and setters
+    public Long getHistoryId() { return historyId; }
+    public void setHistoryId(Long historyId) { this.historyId = historyId; }
+    public InventoryItem getInventoryItem() { return inventoryItem; }
+    public void setInventoryItem(InventoryItem inventoryItem) {
+        this.inventoryItem = inventoryItem;
+        this.productId = inventoryItem.getProduct().getProductId();
+        this.warehouseId = inventoryItem.getWarehouse() != null ? inventoryItem.getWarehouse().getWarehouseId() : null;
+    }
+    public UUID getProductId() { return productId; }
+    public void setProductId(UUID productId) { this.productId = productId; }
+    public Long getWarehouseId() { return warehouseId; }
+    public void setWarehouseId(Long warehouseId) { this.warehouseId = warehouseId; }
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+    public int getDelta() { return delta; }
+    public void setDelta(int delta) { this.delta = delta; }
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+}
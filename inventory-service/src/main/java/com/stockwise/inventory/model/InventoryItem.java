@@ -3,7 +3,10 @@ package com.stockwise.inventory.model;
 import jakarta.persistence.*;
 import java.time.Instant;
 
+// Позиция остатка: продукт на конкретном складе. Каждый склад пишет в свою строку,
+// общий остаток продукта считается суммой по складам
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "warehouse_id"}))
 public class InventoryItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,8 +16,44 @@ public class InventoryItem {
     @JoinColumn(name = "product_id")
     private Product product;
 
+    @ManyToOne
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
     private int quantity;
     private Instant lastUpdated = Instant.now();
 
-    // Конструкторы, геттеры, сеттеры
-}
\ No newline at end of file
+    // Версия для оптимистической блокировки: растет при каждой записи остатка
+    // (условный UPDATE увеличивает ее явно), по ней же кэш отбрасывает устаревшие значения
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    public InventoryItem() {
+    }
+
+    public InventoryItem(Product product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+
+    public InventoryItem(Product product, Warehouse warehouse, int quantity) {
+        this.product = product;
+        this.warehouse = warehouse;
+        this.quantity = quantity;
+    }
+
+    // Getters and setters
+    public Long getInventoryId() { return inventoryId; }
+    public void setInventoryId(Long inventoryId) { this.inventoryId = inventoryId; }
+    public Product getProduct() { return product; }
+    public void setProduct(Product product) { this.product = product; }
+    public Warehouse getWarehouse() { return warehouse; }
+    public void setWarehouse(Warehouse warehouse) { this.warehouse = warehouse; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public Instant getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(Instant lastUpdated) { this.lastUpdated = lastUpdated; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
@@ -0,0 +1,28 @@
+package com.stockwise.inventory.model;
+
+import java.util.UUID;
+
+// Подтверждение записи движения в локальный журнал: изменение надежно сохранено,
+// в БД и inventory-updates оно попадет асинхронно
+public class JournalReceipt {
+    private final long sequence;
+    private final UUID productId;
+    private final Long warehouseId;
+    private final int delta;
+    private final long projectedQuantity;
+
+    public JournalReceipt(long sequence, UUID productId, Long warehouseId, int delta, long projectedQuantity) {
+        this.sequence = sequence;
+        this.productId = productId;
+        this.warehouseId = warehouseId;
+        this.delta = delta;
+        this.projectedQuantity = projectedQuantity;
+    }
+
+    // Getters
+    public long getSequence() { return sequence; }
+    public UUID getProductId() { return productId; }
+    public Long getWarehouseId() { return warehouseId; }
+    public int getDelta() { return delta; }
+    public long getProjectedQuantity() { return projectedQuantity; }
+}
@@ -0,0 +1,33 @@
+package com.stockwise.inventory.model;
+
+// Состояние локального журнала движений: записано, надежно сохранено, применено к БД
+public class JournalStatus {
+    private final boolean enabled;
+    private final long appendedSequence;
+    private final long durableSequence;
+    private final long appliedSequence;
+    private final long rejected;
+    private final int segments;
+
+    public JournalStatus(boolean enabled, long appendedSequence, long durableSequence, long appliedSequence,
+                         long rejected, int segments) {
+        this.enabled = enabled;
+        this.appendedSequence = appendedSequence;
+        this.durableSequence = durableSequence;
+        this.appliedSequence = appliedSequence;
+        this.rejected = rejected;
+        this.segments = segments;
+    }
+
+    public long getLag() {
+        return Math.max(0, durableSequence - appliedSequence);
+    }
+
+    // Getters
+    public boolean isEnabled() { return enabled; }
+    public long getAppendedSequence() { return appendedSequence; }
+    public long getDurableSequence() { return durableSequence; }
+    public long getAppliedSequence() { return appliedSequence; }
+    public long getRejected() { return rejected; }
+    public int getSegments() { return segments; }
+}
@@ -0,0 +1,28 @@
+package com.stockwise.inventory.model;
+
+import java.util.UUID;
+
+// Расхождение между остатком в таблице inventory и суммой движений журнала
+public class LedgerDiscrepancy {
+    private final Long inventoryId;
+    private final UUID productId;
+    private final Long warehouseId;
+    private final Integer tableQuantity;
+    private final long ledgerQuantity;
+
+    public LedgerDiscrepancy(Long inventoryId, UUID productId, Long warehouseId,
+                             Integer tableQuantity, long ledgerQuantity) {
+        this.inventoryId = inventoryId;
+        this.productId = productId;
+        this.warehouseId = warehouseId;
+        this.tableQuantity = tableQuantity;
+        this.ledgerQuantity = ledgerQuantity;
+    }
+
+    // Getters
+    public Long getInventoryId() { return inventoryId; }
+    public UUID getProductId() { return productId; }
+    public Long getWarehouseId() { return warehouseId; }
+    public Integer getTableQuantity() { return tableQuantity; }
+    public long getLedgerQuantity() { return ledgerQuantity; }
+}
@@ -11,5 +11,20 @@ public class Product {
     private String name;
     private String category;
 
-    // Конструкторы, геттеры, сеттеры
-}
\ No newline at end of file
+    public Product() {
+    }
+
+    public Product(UUID productId, String name, String category) {
+        this.productId = productId;
+        this.name = name;
+        this.category = category;
+    }
+
+    // Getters and setters
+    public UUID getProductId() { return productId; }
+    public void setProductId(UUID productId) { this.productId = productId; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+}
@@ -0,0 +1,32 @@
+package com.stockwise.inventory.model;
+
+// Клиентские задержки одного типа команд Redis, микросекунды
+public class RedisCommandLatency {
+    private final String command;
+    private final long count;
+    private final long avgFirstResponseMicros;
+    private final long avgCompletionMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    public RedisCommandLatency(String command, long count, long avgFirstResponseMicros, long avgCompletionMicros,
+                               long p50Micros, long p99Micros, long maxMicros) {
+        this.command = command;
+        this.count = count;
+        this.avgFirstResponseMicros = avgFirstResponseMicros;
+        this.avgCompletionMicros = avgCompletionMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    // Getters
+    public String getCommand() { return command; }
+    public long getCount() { return count; }
+    public long getAvgFirstResponseMicros() { return avgFirstResponseMicros; }
+    public long getAvgCompletionMicros() { return avgCompletionMicros; }
+    public long getP50Micros() { return p50Micros; }
+    public long getP99Micros() { return p99Micros; }
+    public long getMaxMicros() { return maxMicros; }
+}
@@ -0,0 +1,44 @@
+package com.stockwise.inventory.model;
+
+import java.util.UUID;
+
+// Параметры пополнения продукта: страховой запас, точка заказа, EOQ и объем заказа сейчас
+public class ReorderRecommendation {
+    private final UUID productId;
+    private final double stock;
+    private final double dailyDemand;
+    private final double demandStdDev;
+    private final double leadTimeDays;
+    private final double serviceLevel;
+    private final double safetyStock;
+    private final double reorderPoint;
+    private final double economicOrderQuantity;
+    private final int orderQuantity;
+
+    public ReorderRecommendation(UUID productId, double stock, double dailyDemand, double demandStdDev,
+                                 double leadTimeDays, double serviceLevel, double safetyStock,
+                                 double reorderPoint, double economicOrderQuantity, int orderQuantity) {
+        this.productId = productId;
+        this.stock = stock;
+        this.dailyDemand = dailyDemand;
+        this.demandStdDev = demandStdDev;
+        this.leadTimeDays = leadTimeDays;
+        this.serviceLevel = serviceLevel;
+        this.safetyStock = safetyStock;
+        this.reorderPoint = reorderPoint;
+        this.economicOrderQuantity = economicOrderQuantity;
+        this.orderQuantity = orderQuantity;
+    }
+
+    // Getters
+    public UUID getProductId() { return productId; }
+    public double getStock() { return stock; }
+    public double getDailyDemand() { return dailyDemand; }
+    public double getDemandStdDev() { return demandStdDev; }
+    public double getLeadTimeDays() { return leadTimeDays; }
+    public double getServiceLevel() { return serviceLevel; }
+    public double getSafetyStock() { return safetyStock; }
+    public double getReorderPoint() { return reorderPoint; }
+    public double getEconomicOrderQuantity() { return economicOrderQuantity; }
+    public int getOrderQuantity() { return orderQuantity; }
+}
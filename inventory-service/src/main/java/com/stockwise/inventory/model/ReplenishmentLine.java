@@ -0,0 +1,21 @@
+package com.stockwise.inventory.model;
+
+import java.util.UUID;
+
+// Строка заказа на пополнение: сколько единиц продукта заказать у поставщика
+public class ReplenishmentLine {
+    private final UUID productId;
+    private final String productName;
+    private final int quantity;
+
+    public ReplenishmentLine(UUID productId, String productName, int quantity) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+    }
+
+    // Getters
+    public UUID getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public int getQuantity() { return quantity; }
+}
@@ -0,0 +1,28 @@
+package com.stockwise.inventory.model;
+
+import java.util.Locale;
+
+// Формат выгрузки отчета: тип содержимого и расширение файла
+public enum ReportFormat {
+    PDF("application/pdf", "pdf"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ReportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static ReportFormat parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported report format: " + value);
+        }
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+}
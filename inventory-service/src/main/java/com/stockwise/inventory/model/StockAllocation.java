@@ -0,0 +1,42 @@
+package com.stockwise.inventory.model;
+
+import java.util.List;
+import java.util.UUID;
+
+// Результат резервирования: с каких складов и в каком количестве списан товар
+public class StockAllocation {
+    private final UUID productId;
+    private final int quantity;
+    private final List<Line> lines;
+
+    public StockAllocation(UUID productId, int quantity, List<Line> lines) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.lines = lines;
+    }
+
+    // Getters
+    public UUID getProductId() { return productId; }
+    public int getQuantity() { return quantity; }
+    public List<Line> getLines() { return lines; }
+
+    public static class Line {
+        private final Long warehouseId;
+        private final String warehouseCode;
+        private final int quantity;
+        private final double distanceKm;
+
+        public Line(Long warehouseId, String warehouseCode, int quantity, double distanceKm) {
+            this.warehouseId = warehouseId;
+            this.warehouseCode = warehouseCode;
+            this.quantity = quantity;
+            this.distanceKm = distanceKm;
+        }
+
+        // Getters
+        public Long getWarehouseId() { return warehouseId; }
+        public String getWarehouseCode() { return warehouseCode; }
+        public int getQuantity() { return quantity; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
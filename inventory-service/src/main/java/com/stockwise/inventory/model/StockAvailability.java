@@ -0,0 +1,42 @@
+package com.stockwise.inventory.model;
+
+import java.util.List;
+import java.util.UUID;
+
+// Доступный остаток продукта: сумма по складам и разбивка по каждому складу
+public class StockAvailability {
+    private final UUID productId;
+    private final long totalQuantity;
+    private final List<LocationStock> locations;
+
+    public StockAvailability(UUID productId, long totalQuantity, List<LocationStock> locations) {
+        this.productId = productId;
+        this.totalQuantity = totalQuantity;
+        this.locations = locations;
+    }
+
+    // Getters
+    public UUID getProductId() { return productId; }
+    public long getTotalQuantity() { return totalQuantity; }
+    public List<LocationStock> getLocations() { return locations; }
+
+    public static class LocationStock {
+        private final Long inventoryId;
+        private final Long warehouseId;
+        private final String warehouseCode;
+        private final int quantity;
+
+        public LocationStock(Long inventoryId, Long warehouseId, String warehouseCode, int quantity) {
+            this.inventoryId = inventoryId;
+            this.warehouseId = warehouseId;
+            this.warehouseCode = warehouseCode;
+            this.quantity = quantity;
+        }
+
+        // Getters
+        public Long getInventoryId() { return inventoryId; }
+        public Long getWarehouseId() { return warehouseId; }
+        public String getWarehouseCode() { return warehouseCode; }
+        public int getQuantity() { return quantity; }
+    }
+}
@@ -0,0 +1,34 @@
+package com.stockwise.inventory.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// Одна нога перемещения: quantity единиц с позиции fromInventoryId на позицию toInventoryId.
+// Позиция - строка inventory, поэтому перемещать можно между складами и между продуктами
+public class TransferLeg {
+    @NotNull
+    private Long fromInventoryId;
+
+    @NotNull
+    private Long toInventoryId;
+
+    @Min(1)
+    private int quantity;
+
+    public TransferLeg() {
+    }
+
+    public TransferLeg(Long fromInventoryId, Long toInventoryId, int quantity) {
+        this.fromInventoryId = fromInventoryId;
+        this.toInventoryId = toInventoryId;
+        this.quantity = quantity;
+    }
+
+    // Getters and setters
+    public Long getFromInventoryId() { return fromInventoryId; }
+    public void setFromInventoryId(Long fromInventoryId) { this.fromInventoryId = fromInventoryId; }
+    public Long getToInventoryId() { return toInventoryId; }
+    public void setToInventoryId(Long toInventoryId) { this.toInventoryId = toInventoryId; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,56 @@
+package com.stockwise.inventory.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+@Entity
+public class Warehouse {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    @Id
+    private Long warehouseId;
+    private String code;
+    private String name;
+    private double latitude;
+    private double longitude;
+    private boolean active = true;
+
+    public Warehouse() {
+    }
+
+    public Warehouse(Long warehouseId) {
+        this.warehouseId = warehouseId;
+    }
+
+    public Warehouse(Long warehouseId, String code, String name, double latitude, double longitude) {
+        this.warehouseId = warehouseId;
+        this.code = code;
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    // Расстояние по дуге большого круга (формула гаверсинусов), км
+    public double distanceKm(double toLatitude, double toLongitude) {
+        double dLat = Math.toRadians(toLatitude - latitude);
+        double dLon = Math.toRadians(toLongitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(toLatitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    // Getters and setters
+    public Long getWarehouseId() { return warehouseId; }
+    public void setWarehouseId(Long warehouseId) { this.warehouseId = warehouseId; }
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+}
@@ -0,0 +1,31 @@
+package com.stockwise.inventory.repository;
+
+import com.stockwise.inventory.model.InventoryHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Все чтения истории ограничены полуинтервалом [from, to) по created_at без функций над столбцом:
+// планировщик отсекает месячные секции вне периода, в том числе для подготовленных запросов
+@Repository
+public interface HistoryRepository extends JpaRepository<InventoryHistory, Long> {
+
+    @Query("SELECT h FROM InventoryHistory h WHERE h.productId = :productId " +
+            "AND h.timestamp >= :from AND h.timestamp < :to ORDER BY h.timestamp")
+    List<InventoryHistory> findByProductInPeriod(@Param("productId") UUID productId,
+                                                 @Param("from") Instant from, @Param("to") Instant to);
+
+    // Дневной спрос по продукту: [день, продано, поступило]
+    @Query(value = "SELECT date_trunc('day', created_at) AS day, " +
+            "SUM(CASE WHEN delta < 0 THEN -delta ELSE 0 END) AS sold, " +
+            "SUM(CASE WHEN delta > 0 THEN delta ELSE 0 END) AS received " +
+            "FROM inventory_history WHERE product_id = :productId " +
+            "AND created_at >= :from AND created_at < :to GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> findDailyMovements(@Param("productId") UUID productId,
+                                      @Param("from") Instant from, @Param("to") Instant to);
+}
@@ -0,0 +1,75 @@
+package com.stockwise.inventory.repository;
+
+import com.stockwise.inventory.model.InventoryItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
+
+    // Позиция продукта на складе: строка (product_id, warehouse_id) уникальна
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product p " +
+            "WHERE p.productId = :productId AND i.warehouse.warehouseId = :warehouseId")
+    Optional<InventoryItem> findPosition(@Param("productId") UUID productId,
+                                         @Param("warehouseId") Long warehouseId);
+
+    // Все позиции продукта по складам - из них складывается общая доступность
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product p JOIN FETCH i.warehouse " +
+            "WHERE p.productId = :productId ORDER BY i.inventoryId")
+    List<InventoryItem> findAllByProductId(@Param("productId") UUID productId);
+
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product WHERE i.quantity < :threshold")
+    List<InventoryItem> findByQuantityLessThan(@Param("threshold") int threshold);
+
+    // Атомарное изменение остатка одним оператором: условие не дает уйти в минус,
+    // версия увеличивается так же, как при обновлении сущности
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InventoryItem i SET i.quantity = i.quantity + :delta, i.version = i.version + 1, " +
+            "i.lastUpdated = :now WHERE i.product.productId = :productId " +
+            "AND i.warehouse.warehouseId = :warehouseId AND i.quantity + :delta >= 0")
+    int adjustQuantityIfAvailable(@Param("productId") UUID productId, @Param("warehouseId") Long warehouseId,
+                                  @Param("delta") int delta, @Param("now") Instant now);
+
+    // То же условное изменение по идентификатору позиции (резервирование по нескольким складам);
+    // условие на продукт оставляет одну хэш-секцию inventory
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InventoryItem i SET i.quantity = i.quantity + :delta, i.version = i.version + 1, " +
+            "i.lastUpdated = :now WHERE i.inventoryId = :inventoryId AND i.product.productId = :productId " +
+            "AND i.quantity + :delta >= 0")
+    int adjustPositionIfAvailable(@Param("inventoryId") Long inventoryId, @Param("productId") UUID productId,
+                                  @Param("delta") int delta, @Param("now") Instant now);
+
+    // Блокировка позиций для перемещения: строки захватываются в порядке inventoryId,
+    // поэтому встречные перемещения ждут друг друга, а не взаимоблокируются
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.inventoryId IN :ids ORDER BY i.inventoryId")
+    List<InventoryItem> lockAllByInventoryIdIn(@Param("ids") Collection<Long> ids);
+
+    // Остатки набора продуктов на одном складе одним запросом, вместе с продуктами
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product p " +
+            "WHERE p.productId IN :productIds AND i.warehouse.warehouseId = :warehouseId")
+    List<InventoryItem> findByProductIdIn(@Param("productIds") Collection<UUID> productIds,
+                                          @Param("warehouseId") Long warehouseId);
+
+    // Самые активные продукты за окно: число записей истории (каждая корректировка пишет
+    // историю вместе с событием inventory-updates)
+    @Query(value = "SELECT product_id FROM inventory_history WHERE created_at >= :since " +
+            "GROUP BY product_id ORDER BY COUNT(*) DESC LIMIT :limit", nativeQuery = true)
+    List<UUID> findMostActiveProductIds(@Param("since") Instant since, @Param("limit") int limit);
+
+    @Query("SELECT p.productId FROM InventoryItem i JOIN i.product p " +
+            "GROUP BY p.productId ORDER BY MAX(i.lastUpdated) DESC")
+    List<UUID> findRecentlyUpdatedProductIds(Pageable pageable);
+}
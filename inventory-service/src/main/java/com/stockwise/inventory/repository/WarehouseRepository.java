@@ -0,0 +1,13 @@
+package com.stockwise.inventory.repository;
+
+import com.stockwise.inventory.model.Warehouse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+
+    List<Warehouse> findByActiveTrue();
+}
@@ -0,0 +1,148 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.CacheWarmupStatus;
+import com.stockwise.inventory.model.CacheWarmupStatus.State;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.repository.InventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Прогрев кэшей inventory и products после деплоя: top-N самых активных продуктов загружаются
+// параллельными пакетами (MGET + IN-запрос + конвейерная запись). ApplicationRunner выполняется
+// до ApplicationReadyEvent, поэтому readiness-проба проходит только после прогрева или таймаута
+@Component
+public class CacheWarmer implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final InventoryService inventoryService;
+    private final InventoryRepository repository;
+
+    @Value("${inventory.warmup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${inventory.warmup.top-n:5000}")
+    private int topN = 5000;
+
+    @Value("${inventory.warmup.window-days:7}")
+    private int windowDays = 7;
+
+    @Value("${inventory.warmup.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${inventory.warmup.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${inventory.warmup.timeout-seconds:60}")
+    private long timeoutSeconds = 60;
+
+    private final AtomicInteger completedBatches = new AtomicInteger();
+    private final AtomicInteger warmedItems = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile String source;
+    private volatile int requestedProducts;
+    private volatile int totalBatches;
+    private volatile Instant startedAt;
+    private volatile long startNanos;
+    private volatile long durationMillis;
+
+    public CacheWarmer(InventoryService inventoryService, InventoryRepository repository) {
+        this.inventoryService = inventoryService;
+        this.repository = repository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        startedAt = Instant.now();
+        startNanos = System.nanoTime();
+        state = State.RUNNING;
+        try {
+            List<UUID> productIds = selectHotProducts();
+            state = warm(productIds);
+        } catch (Exception e) {
+            // Прогрев - оптимизация: сбой не должен мешать старту сервиса
+            log.warn("Cache warm-up failed: {}", e.getMessage(), e);
+            state = State.FAILED;
+        }
+        durationMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("Cache warm-up {}: {} items in {}/{} batches, {} ms",
+                state, warmedItems.get(), completedBatches.get(), totalBatches, durationMillis);
+    }
+
+    public CacheWarmupStatus getStatus() {
+        long elapsed = state == State.RUNNING ? (System.nanoTime() - startNanos) / 1_000_000 : durationMillis;
+        return new CacheWarmupStatus(state, source, requestedProducts, totalBatches,
+                completedBatches.get(), warmedItems.get(), startedAt, elapsed);
+    }
+
+    // Горячие продукты - по числу изменений за окно; если истории нет, берем недавно измененные
+    List<UUID> selectHotProducts() {
+        List<UUID> productIds = repository.findMostActiveProductIds(
+                Instant.now().minus(Duration.ofDays(windowDays)), topN);
+        source = "inventory_history";
+        if (productIds.isEmpty()) {
+            productIds = repository.findRecentlyUpdatedProductIds(PageRequest.of(0, topN));
+            source = "last_updated";
+        }
+        return productIds;
+    }
+
+    private State warm(List<UUID> productIds) throws InterruptedException {
+        List<List<UUID>> batches = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            batches.add(productIds.subList(from, Math.min(productIds.size(), from + batchSize)));
+        }
+        requestedProducts = productIds.size();
+        totalBatches = batches.size();
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, batches.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<UUID> batch : batches) {
+                futures.add(workers.submit(() -> {
+                    Map<UUID, InventoryItem> items = inventoryService.getInventoryItems(batch);
+                    inventoryService.cacheProducts(items.values());
+                    warmedItems.addAndGet(items.size());
+                    completedBatches.incrementAndGet();
+                }));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Не успели за отведенное время: оставшиеся пакеты догреются обычным трафиком
+                    return State.TIMED_OUT;
+                } catch (ExecutionException e) {
+                    log.warn("Error warming cache batch: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return State.COMPLETED;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
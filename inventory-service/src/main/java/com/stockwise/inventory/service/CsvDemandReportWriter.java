@@ -0,0 +1,47 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DailyDemand;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Отчет в CSV: одна строка на продукт и день, итоги не пишутся (считаются на стороне потребителя)
+class CsvDemandReportWriter implements DemandReportWriter {
+    private final BufferedWriter writer;
+    private UUID productId;
+
+    CsvDemandReportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void beginProduct(UUID productId, LocalDate firstDay, LocalDate lastDay) throws IOException {
+        if (this.productId == null) {
+            writer.write("product_id,date,sold,received,net\n");
+        }
+        this.productId = productId;
+    }
+
+    @Override
+    public void day(DailyDemand demand) throws IOException {
+        writer.write(productId + "," + demand.getDay() + "," + demand.getSold() + ","
+                + demand.getReceived() + "," + demand.getNet() + "\n");
+    }
+
+    @Override
+    public void endProduct() {
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (productId == null) {
+            writer.write("product_id,date,sold,received,net\n");
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,192 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DemandForecast;
+import com.stockwise.inventory.model.DemandForecast.Method;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Прогноз спроса внутри JVM по дневным продажам из DemandRollups (закрытые дни, старые первыми).
+// Регулярный спрос - экспоненциальное сглаживание, прерывистый (средний интервал между продажами
+// больше 1.32 дня, граница Syntetos-Boylan) - метод Кростона с поправкой SBA.
+// Прогнозы всех продуктов пересчитываются параллельно по расписанию. Они служат быстрым путем
+// для медленно продающихся продуктов (ML-сервис не вызывается) и запасным прогнозом,
+// когда ML-сервис недоступен
+@Service
+public class DemandForecaster {
+    static final double INTERMITTENT_ADI = 1.32;
+    private static final Logger log = LoggerFactory.getLogger(DemandForecaster.class);
+
+    private final DemandRollups demandRollups;
+
+    @Value("${inventory.forecast.history-days:90}")
+    private int historyDays = 90;
+
+    @Value("${inventory.forecast.alpha:0.2}")
+    private double alpha = 0.2;
+
+    // Продукты со средними продажами ниже порога прогнозируются только локально
+    @Value("${inventory.forecast.ml-min-daily-demand:1.0}")
+    private double mlMinDailyDemand = 1.0;
+
+    @Value("${inventory.forecast.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${inventory.forecast.chunk-size:10000}")
+    private int chunkSize = 10000;
+
+    private volatile Map<UUID, DemandForecast> forecasts = new ConcurrentHashMap<>();
+
+    public DemandForecaster(DemandRollups demandRollups) {
+        this.demandRollups = demandRollups;
+    }
+
+    // Прогноз из последнего пересчета; продукт, появившийся после него, считается сразу.
+    // До заполнения сводок ряд продаж пуст: такой прогноз возвращается, но не кэшируется,
+    // иначе нулевой спрос продукта держался бы до следующего пересчета
+    public DemandForecast getForecast(UUID productId) {
+        DemandForecast forecast = forecasts.get(productId);
+        if (forecast != null) {
+            return forecast;
+        }
+        boolean ready = demandRollups.isReady();
+        forecast = forecast(productId, LocalDate.now(ZoneOffset.UTC).minusDays(1), Instant.now());
+        if (ready) {
+            forecasts.put(productId, forecast);
+        }
+        return forecast;
+    }
+
+    // Медленно продающиеся продукты не стоят HTTP-вызова: их прогноз считается локально.
+    // Без сводок или без продаж за окно локальному прогнозу не на что опереться - решает ML-сервис
+    public boolean isFastPath(UUID productId) {
+        if (!demandRollups.isReady()) {
+            return false;
+        }
+        DemandForecast forecast = getForecast(productId);
+        return forecast.getMethod() != Method.NONE && forecast.getAverageDailySales() < mlMinDailyDemand;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.forecast.refresh-interval-ms:3600000}")
+    public void refreshAll() throws InterruptedException {
+        if (!demandRollups.isReady()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        List<UUID> productIds = new ArrayList<>(demandRollups.getProductIds());
+        LocalDate lastDay = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        Instant now = Instant.now();
+        Map<UUID, DemandForecast> refreshed = new ConcurrentHashMap<>(productIds.size() * 4 / 3 + 1);
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < productIds.size(); from += chunkSize) {
+                List<UUID> chunk = productIds.subList(from, Math.min(productIds.size(), from + chunkSize));
+                futures.add(workers.submit(() -> {
+                    for (UUID productId : chunk) {
+                        refreshed.put(productId, forecast(productId, lastDay, now));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Пересчет не удался: остаются прежние прогнозы
+                    log.error("Error refreshing demand forecasts", e.getCause());
+                    return;
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        forecasts = refreshed;
+        log.info("Demand forecasts refreshed for {} products in {} ms", refreshed.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private DemandForecast forecast(UUID productId, LocalDate lastDay, Instant now) {
+        long[] sales = demandRollups.getDailySold(productId, lastDay, historyDays);
+        int demandDays = 0;
+        long total = 0;
+        for (long sold : sales) {
+            if (sold > 0) {
+                demandDays++;
+                total += sold;
+            }
+        }
+        double average = (double) total / sales.length;
+        if (demandDays == 0) {
+            return new DemandForecast(productId, 0, Method.NONE, 0, 0, Double.POSITIVE_INFINITY, now);
+        }
+        // Дисперсия дневных продаж за окно - разброс спроса для страхового запаса
+        double squares = 0;
+        for (long sold : sales) {
+            squares += (sold - average) * (sold - average);
+        }
+        double variance = sales.length > 1 ? squares / (sales.length - 1) : 0;
+        double adi = (double) sales.length / demandDays;
+        return adi > INTERMITTENT_ADI
+                ? new DemandForecast(productId, croston(sales, alpha), Method.CROSTON, average, variance, adi, now)
+                : new DemandForecast(productId, exponentialSmoothing(sales, alpha), Method.SES, average, variance,
+                        adi, now);
+    }
+
+    // Простое экспоненциальное сглаживание; начальный уровень - среднее первой недели
+    static double exponentialSmoothing(long[] sales, double alpha) {
+        if (sales.length == 0) {
+            return 0;
+        }
+        int warmup = Math.min(7, sales.length);
+        double level = 0;
+        for (int i = 0; i < warmup; i++) {
+            level += sales[i];
+        }
+        level /= warmup;
+        for (int i = warmup; i < sales.length; i++) {
+            level += alpha * (sales[i] - level);
+        }
+        return level;
+    }
+
+    // Кростон: отдельно сглаживаются размер ненулевой продажи и интервал между продажами,
+    // прогноз дневного спроса = размер / интервал с поправкой смещения (1 - alpha / 2)
+    static double croston(long[] sales, double alpha) {
+        double size = 0;
+        double interval = 0;
+        int sinceLast = 0;
+        boolean initialized = false;
+        for (long sold : sales) {
+            sinceLast++;
+            if (sold <= 0) {
+                continue;
+            }
+            if (!initialized) {
+                size = sold;
+                interval = sinceLast;
+                initialized = true;
+            } else {
+                size += alpha * (sold - size);
+                interval += alpha * (sinceLast - interval);
+            }
+            sinceLast = 0;
+        }
+        return initialized ? (1 - alpha / 2) * size / interval : 0;
+    }
+}
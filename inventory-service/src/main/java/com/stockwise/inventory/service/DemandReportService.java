@@ -0,0 +1,214 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DailyDemand;
+import com.stockwise.inventory.model.ReportFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Отчет о спросе, который не собирается в памяти целиком: история читается курсором
+// (fetch size в транзакции только на чтение), движения складываются по дням по мере чтения,
+// и каждый закрытый день сразу передается в DemandReportWriter, который пишет в поток ответа.
+// Если период покрыт дневными буферами DemandRollups, история не читается совсем; движения из истории
+// отбираются тем же фильтром спроса, что и в буферах, иначе отчеты по истории и по буферам разошлись бы.
+// Для нескольких продуктов ряды считаются параллельно, а пишутся в порядке запроса;
+// вперед считается не больше 2 x parallelism продуктов, поэтому память ограничена окном
+@Service
+public class DemandReportService {
+    private static final String DAILY_HISTORY = "SELECT created_at, delta FROM inventory_history " +
+            "WHERE product_id = ? AND created_at >= ? AND created_at < ? " +
+            "AND " + DemandRollups.DEMAND_HISTORY_FILTER + " ORDER BY created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DemandRollups demandRollups;
+    private final TransactionTemplate readTransaction;
+
+    @Value("${inventory.reports.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    @Value("${inventory.reports.max-days:3650}")
+    private int maxDays = 3650;
+
+    @Value("${inventory.reports.max-products:1000}")
+    private int maxProducts = 1000;
+
+    @Value("${inventory.reports.parallelism:4}")
+    private int parallelism = 4;
+
+    public DemandReportService(JdbcTemplate jdbcTemplate, DemandRollups demandRollups,
+                               PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.demandRollups = demandRollups;
+        // Курсор PostgreSQL (fetch size) работает только внутри транзакции
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    // Проверка параметров до начала ответа: после первой записанной страницы статус уже не изменить
+    public void validate(int days, int products) {
+        if (days < 1 || days > maxDays) {
+            throw new IllegalArgumentException("days must be between 1 and " + maxDays);
+        }
+        if (products < 1 || products > maxProducts) {
+            throw new IllegalArgumentException("Report covers 1 to " + maxProducts + " products");
+        }
+    }
+
+    public void writeDemandReport(UUID productId, int days, ReportFormat format, OutputStream out) throws IOException {
+        validate(days, 1);
+        LocalDate lastDay = LocalDate.now(ZoneOffset.UTC);
+        LocalDate firstDay = lastDay.minusDays(days - 1);
+        DemandReportWriter writer = DemandReportWriter.create(format, out);
+
+        writer.beginProduct(productId, firstDay, lastDay);
+        List<DailyDemand> rolledUp = demandRollups.getDailyDemand(productId, firstDay, lastDay);
+        if (rolledUp != null) {
+            for (DailyDemand day : rolledUp) {
+                writer.day(day);
+            }
+            writer.endProduct();
+            writer.finish();
+            return;
+        }
+        try {
+            readTransaction.executeWithoutResult(status -> readDailyDemand(productId, firstDay, lastDay, day -> {
+                try {
+                    writer.day(day);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // Клиент закрыл соединение: чтение курсора прекращается вместе с транзакцией
+            throw e.getCause();
+        }
+        writer.endProduct();
+        writer.finish();
+    }
+
+    public void writeDemandReport(List<UUID> productIds, int days, ReportFormat format, OutputStream out)
+            throws IOException {
+        validate(days, productIds.size());
+        LocalDate lastDay = LocalDate.now(ZoneOffset.UTC);
+        LocalDate firstDay = lastDay.minusDays(days - 1);
+        DemandReportWriter writer = DemandReportWriter.create(format, out);
+
+        int window = Math.max(1, parallelism) * 2;
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, productIds.size())));
+        try {
+            Iterator<UUID> pending = productIds.iterator();
+            Deque<Future<List<DailyDemand>>> inFlight = new ArrayDeque<>();
+            for (UUID productId : productIds) {
+                while (inFlight.size() < window && pending.hasNext()) {
+                    UUID next = pending.next();
+                    inFlight.add(workers.submit(() -> {
+                        List<DailyDemand> rolledUp = demandRollups.getDailyDemand(next, firstDay, lastDay);
+                        return rolledUp != null ? rolledUp : readTransaction.execute(status -> {
+                            List<DailyDemand> series = new ArrayList<>(days);
+                            readDailyDemand(next, firstDay, lastDay, series::add);
+                            return series;
+                        });
+                    }));
+                }
+                List<DailyDemand> series = await(inFlight.poll());
+                writer.beginProduct(productId, firstDay, lastDay);
+                for (DailyDemand day : series) {
+                    writer.day(day);
+                }
+                writer.endProduct();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        writer.finish();
+    }
+
+    private static List<DailyDemand> await(Future<List<DailyDemand>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building demand report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Error building demand report", e.getCause());
+        }
+    }
+
+    // Один проход курсора по движениям продукта; дни без движений выдаются с нулями,
+    // чтобы ряд был непрерывным от firstDay до lastDay
+    private void readDailyDemand(UUID productId, LocalDate firstDay, LocalDate lastDay, DayConsumer consumer) {
+        DayAccumulator accumulator = new DayAccumulator(firstDay, consumer);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DAILY_HISTORY);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, productId);
+            statement.setTimestamp(2, Timestamp.from(firstDay.atStartOfDay().toInstant(ZoneOffset.UTC)));
+            statement.setTimestamp(3, Timestamp.from(lastDay.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)));
+            return statement;
+        }, rs -> {
+            LocalDate day = rs.getTimestamp(1).toInstant().atOffset(ZoneOffset.UTC).toLocalDate();
+            accumulator.add(day, rs.getInt(2));
+        });
+        accumulator.closeThrough(lastDay);
+    }
+
+    private interface DayConsumer {
+        void accept(DailyDemand demand);
+    }
+
+    // Сумма текущего дня; при переходе на следующий день закрытые дни отдаются потребителю
+    private static class DayAccumulator {
+        private final DayConsumer consumer;
+        private LocalDate current;
+        private long sold;
+        private long received;
+
+        DayAccumulator(LocalDate firstDay, DayConsumer consumer) {
+            this.current = firstDay;
+            this.consumer = consumer;
+        }
+
+        void add(LocalDate day, int delta) {
+            if (day.isAfter(current)) {
+                closeThrough(day.minusDays(1));
+            }
+            if (delta < 0) {
+                sold -= delta;
+            } else {
+                received += delta;
+            }
+        }
+
+        void closeThrough(LocalDate day) {
+            while (!current.isAfter(day)) {
+                consumer.accept(new DailyDemand(current, sold, received));
+                sold = 0;
+                received = 0;
+                current = current.plusDays(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DailyDemand;
+import com.stockwise.inventory.model.ReportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Потоковая запись отчета о спросе: строки уходят в выходной поток по мере агрегации,
+// в памяти держится не больше одной страницы
+interface DemandReportWriter {
+
+    void beginProduct(UUID productId, LocalDate firstDay, LocalDate lastDay) throws IOException;
+
+    void day(DailyDemand demand) throws IOException;
+
+    void endProduct() throws IOException;
+
+    // Завершает документ и сбрасывает буферы; сам поток закрывает вызывающий
+    void finish() throws IOException;
+
+    static DemandReportWriter create(ReportFormat format, OutputStream out) {
+        switch (format) {
+            case CSV:
+                return new CsvDemandReportWriter(out);
+            case PDF:
+                return new PdfDemandReportWriter(out);
+            default:
+                throw new IllegalArgumentException("Unsupported report format: " + format);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.stockwise.inventory.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.inventory.model.DailyDemand;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Предагрегированный спрос по продуктам: продажи и поступления по дням (UTC) и продажи
+// по неделям (с понедельника) в кольцевых буферах int[] фиксированной длины.
+// Буферы пополняются событиями inventory-updates (у каждого экземпляра своя группа потребителей,
+// поэтому видны изменения всех экземпляров); при старте заполняются из inventory_history до
+// границы history_id (HistoryWatermark), события с history_id до границы пропускаются - каждое
+// движение учитывается ровно одним путем. Закрытые дни периодически сверяются с историей,
+// что исправляет потерянные или повторно доставленные события.
+// Спросом считаются только продажи и поставки (DEMAND_REASONS) - одинаково в истории и в событиях.
+// Признаки прогноза и отчеты читают окно за O(окно) без обращения к истории
+@Service
+public class DemandRollups implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DemandRollups.class);
+
+    static final String UPDATES_TOPIC = "inventory-updates";
+
+    // Причины движений спроса: списание по заказу, резервирование под доставку, автопополнение.
+    // Перемещения, пересчеты (STOCK_COUNT), начальные остатки (OPENING) и ручные корректировки
+    // не продажи и не поставки
+    static final Set<String> DEMAND_REASONS = Set.of("ORDER_EVENT", "ALLOCATION", "AUTO_REPLENISHMENT");
+
+    // Тот же отбор в SQL: действие исключает перемещения с произвольной причиной
+    static final String DEMAND_HISTORY_FILTER = "action IN ('ADJUSTMENT', 'ALLOCATION') " +
+            "AND reason IN ('ORDER_EVENT', 'ALLOCATION', 'AUTO_REPLENISHMENT')";
+
+    private static final String DAILY_HISTORY = "SELECT product_id, " +
+            "CAST(created_at AT TIME ZONE 'UTC' AS DATE) AS day, " +
+            "SUM(CASE WHEN delta < 0 THEN -delta ELSE 0 END) AS sold, " +
+            "SUM(CASE WHEN delta > 0 THEN delta ELSE 0 END) AS received " +
+            "FROM inventory_history WHERE created_at >= ? AND created_at < ? AND history_id <= ? " +
+            "AND " + DEMAND_HISTORY_FILTER + " GROUP BY 1, 2";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate watermarkTransaction;
+
+    @Value("${inventory.rollups.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${inventory.rollups.daily-days:120}")
+    private int dailyDays = 120;
+
+    @Value("${inventory.rollups.weekly-weeks:104}")
+    private int weeklyWeeks = 104;
+
+    // Сколько закрытых дней перечитывается из истории при сверке
+    @Value("${inventory.rollups.reconcile-days:2}")
+    private int reconcileDays = 2;
+
+    @Value("${inventory.rollups.watermark-lock-timeout-ms:5000}")
+    private long watermarkLockTimeoutMs = 5000;
+
+    private final Map<UUID, Series> series = new ConcurrentHashMap<>();
+    // Граница загрузки истории; до ее снятия события пропускаются - загрузка возьмет их движения
+    private volatile HistoryWatermark loadedUntil;
+    private volatile boolean ready;
+
+    public DemandRollups(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.watermarkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Set<UUID> getProductIds() {
+        return Collections.unmodifiableSet(series.keySet());
+    }
+
+    // Сколько последних дней покрывают дневные буферы (включая текущий день)
+    public int getDailyDays() {
+        return dailyDays;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        // Недельный буфер длиннее дневного: история читается на всю его глубину
+        HistoryWatermark watermark = watermarkTransaction.execute(
+                status -> HistoryWatermark.capture(jdbcTemplate, watermarkLockTimeoutMs));
+        loadedUntil = watermark;
+        LocalDate firstDay = weekStart(today().minusWeeks(weeklyWeeks - 1));
+        long startedAt = System.nanoTime();
+        int[] rows = new int[1];
+        jdbcTemplate.query(DAILY_HISTORY, rs -> {
+            record(rs.getObject("product_id", UUID.class), rs.getObject("day", LocalDate.class),
+                    rs.getLong("sold"), rs.getLong("received"));
+            rows[0]++;
+        }, Timestamp.from(firstDay.atStartOfDay().toInstant(ZoneOffset.UTC)),
+                Timestamp.from(today().plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)),
+                watermark.getLastHistoryId());
+        ready = true;
+        log.info("Demand rollups loaded {} product-days for {} products in {} ms", rows[0], series.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @KafkaListener(topics = UPDATES_TOPIC, groupId = "inventory-rollups-${HOSTNAME:inventory-service}",
+            properties = "auto.offset.reset=latest", autoStartup = "${inventory.rollups.enabled:true}")
+    public void onInventoryUpdate(ConsumerRecord<String, String> record) {
+        Instant timestamp = Instant.ofEpochMilli(record.timestamp());
+        HistoryWatermark watermark = loadedUntil;
+        if (watermark == null) {
+            return;
+        }
+        try {
+            JsonNode event = objectMapper.readTree(record.value());
+            int delta = event.path("delta").asInt();
+            if (delta == 0 || !event.hasNonNull("productId")
+                    || !DEMAND_REASONS.contains(event.path("reason").asText())) {
+                return;
+            }
+            // Движение до границы учтено загрузкой истории. Событие без historyId (старый формат)
+            // сравнивается по времени - возможный дубль исправит сверка закрытых дней
+            boolean loaded = event.hasNonNull("historyId")
+                    ? event.get("historyId").asLong() <= watermark.getLastHistoryId()
+                    : timestamp.isBefore(watermark.getCapturedAt());
+            if (loaded) {
+                return;
+            }
+            UUID productId = UUID.fromString(event.get("productId").asText());
+            LocalDate day = timestamp.atOffset(ZoneOffset.UTC).toLocalDate();
+            record(productId, day, delta < 0 ? -delta : 0, delta > 0 ? delta : 0);
+        } catch (Exception e) {
+            log.warn("Error applying inventory update to demand rollups: {}", e.getMessage());
+        }
+    }
+
+    // Сверка закрытых дней с историей: значения дней заменяются, а не добавляются
+    @Scheduled(cron = "${inventory.rollups.reconcile-cron:0 15 0 * * *}", zone = "UTC")
+    public void reconcile() {
+        if (!ready) {
+            return;
+        }
+        LocalDate today = today();
+        LocalDate from = today.minusDays(reconcileDays);
+        Map<UUID, List<DailyDemand>> actual = new ConcurrentHashMap<>();
+        jdbcTemplate.query(DAILY_HISTORY, rs -> {
+            actual.computeIfAbsent(rs.getObject("product_id", UUID.class), id -> new ArrayList<>())
+                    .add(new DailyDemand(rs.getObject("day", LocalDate.class), rs.getLong("sold"),
+                            rs.getLong("received")));
+        }, Timestamp.from(from.atStartOfDay().toInstant(ZoneOffset.UTC)),
+                Timestamp.from(today.atStartOfDay().toInstant(ZoneOffset.UTC)), Long.MAX_VALUE);
+
+        int corrected = 0;
+        for (Map.Entry<UUID, Series> entry : series.entrySet()) {
+            corrected += entry.getValue().replace(from, today.minusDays(1), actual.remove(entry.getKey()));
+        }
+        for (Map.Entry<UUID, List<DailyDemand>> entry : actual.entrySet()) {
+            corrected += series(entry.getKey()).replace(from, today.minusDays(1), entry.getValue());
+        }
+        if (corrected > 0) {
+            log.info("Demand rollups reconciled {} product-days", corrected);
+        }
+    }
+
+    // Продажи за days дней, закончившихся lastDay включительно (старые первыми)
+    public long[] getDailySold(UUID productId, LocalDate lastDay, int days) {
+        Series product = series.get(productId);
+        return product == null ? new long[days] : product.daily.read(lastDay.toEpochDay(), days, false);
+    }
+
+    // Дневной ряд для отчета; null, если окно не покрыто буферами (тогда отчет читает историю)
+    public List<DailyDemand> getDailyDemand(UUID productId, LocalDate firstDay, LocalDate lastDay) {
+        int days = (int) (lastDay.toEpochDay() - firstDay.toEpochDay() + 1);
+        if (!ready || firstDay.isBefore(today().minusDays(dailyDays - 1))) {
+            return null;
+        }
+        Series product = series.get(productId);
+        long[] sold = product == null ? new long[days] : product.daily.read(lastDay.toEpochDay(), days, false);
+        long[] received = product == null ? new long[days] : product.daily.read(lastDay.toEpochDay(), days, true);
+        List<DailyDemand> demand = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            demand.add(new DailyDemand(firstDay.plusDays(i), sold[i], received[i]));
+        }
+        return demand;
+    }
+
+    // Продажи за weeks недель, последняя - неделя, в которую входит lastDay (старые первыми)
+    public long[] getWeeklySold(UUID productId, LocalDate lastDay, int weeks) {
+        Series product = series.get(productId);
+        return product == null ? new long[weeks] : product.weekly.read(weekIndex(lastDay), weeks, false);
+    }
+
+    private void record(UUID productId, LocalDate day, long sold, long received) {
+        series(productId).add(day, sold, received);
+    }
+
+    private Series series(UUID productId) {
+        return series.computeIfAbsent(productId, id -> new Series(dailyDays, weeklyWeeks));
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return LocalDate.ofEpochDay(weekIndex(day) * 7 - 3);
+    }
+
+    // Номер недели с понедельника: 1970-01-01 - четверг, понедельник той недели - день -3
+    private static long weekIndex(LocalDate day) {
+        return Math.floorDiv(day.toEpochDay() + 3, 7);
+    }
+
+    // Ряды одного продукта; изменения и чтения синхронизированы на продукте
+    private static class Series {
+        private final Ring daily;
+        private final Ring weekly;
+
+        Series(int days, int weeks) {
+            this.daily = new Ring(days, true);
+            this.weekly = new Ring(weeks, false);
+        }
+
+        synchronized void add(LocalDate day, long sold, long received) {
+            daily.add(day.toEpochDay(), sold, received);
+            weekly.add(weekIndex(day), sold, 0);
+        }
+
+        // Замена дней [from, to] значениями из истории; недельные суммы правятся на разницу
+        synchronized int replace(LocalDate from, LocalDate to, List<DailyDemand> actual) {
+            int corrected = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                long sold = 0;
+                long received = 0;
+                if (actual != null) {
+                    for (DailyDemand demand : actual) {
+                        if (demand.getDay().equals(day)) {
+                            sold = demand.getSold();
+                            received = demand.getReceived();
+                        }
+                    }
+                }
+                long index = day.toEpochDay();
+                long soldDiff = sold - daily.get(index, false);
+                long receivedDiff = received - daily.get(index, true);
+                if (soldDiff != 0 || receivedDiff != 0) {
+                    daily.add(index, soldDiff, receivedDiff);
+                    weekly.add(weekIndex(day), soldDiff, 0);
+                    corrected++;
+                }
+            }
+            return corrected;
+        }
+    }
+
+    // Кольцевой буфер по номеру периода: слот = номер % длина. При переходе на новый период
+    // слоты пропущенных периодов обнуляются; периоды старше глубины буфера отбрасываются
+    private static class Ring {
+        private final int[] sold;
+        private final int[] received;
+        private long last = Long.MIN_VALUE;
+
+        Ring(int capacity, boolean withReceived) {
+            this.sold = new int[capacity];
+            this.received = withReceived ? new int[capacity] : null;
+        }
+
+        synchronized void add(long index, long soldDelta, long receivedDelta) {
+            if (last == Long.MIN_VALUE) {
+                last = index;
+            } else if (index > last) {
+                for (long skipped = Math.max(last + 1, index - sold.length + 1); skipped <= index; skipped++) {
+                    clear(slot(skipped));
+                }
+                last = index;
+            } else if (index <= last - sold.length) {
+                return;
+            }
+            int slot = slot(index);
+            sold[slot] = (int) Math.min(Integer.MAX_VALUE, sold[slot] + soldDelta);
+            if (received != null) {
+                received[slot] = (int) Math.min(Integer.MAX_VALUE, received[slot] + receivedDelta);
+            }
+        }
+
+        synchronized long get(long index, boolean ofReceived) {
+            if (last == Long.MIN_VALUE || index > last || index <= last - sold.length) {
+                return 0;
+            }
+            return (ofReceived ? received : sold)[slot(index)];
+        }
+
+        // count значений, заканчивающихся периодом lastIndex; вне буфера - нули
+        synchronized long[] read(long lastIndex, int count, boolean ofReceived) {
+            long[] values = new long[count];
+            int[] source = ofReceived ? received : sold;
+            for (int i = 0; i < count; i++) {
+                long index = lastIndex - count + 1 + i;
+                if (last != Long.MIN_VALUE && index <= last && index > last - sold.length) {
+                    values[i] = source[slot(index)];
+                }
+            }
+            return values;
+        }
+
+        private void clear(int slot) {
+            sold[slot] = 0;
+            if (received != null) {
+                received[slot] = 0;
+            }
+        }
+
+        private int slot(long index) {
+            return (int) Math.floorMod(index, (long) sold.length);
+        }
+    }
+}
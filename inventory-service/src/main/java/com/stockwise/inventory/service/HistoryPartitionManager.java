@@ -0,0 +1,106 @@
+package com.stockwise.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Обслуживание месячных секций inventory_history: секции на monthsAhead месяцев вперед
+// создаются заранее (запись не должна попадать в секцию по умолчанию), секции старше
+// retentionMonths отсоединяются и переносятся в схему архива, откуда их можно выгрузить или удалить
+@Component
+public class HistoryPartitionManager implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(HistoryPartitionManager.class);
+    static final String PARENT = "inventory_history";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARENT + "_p(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${inventory.history.partitions.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${inventory.history.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    @Value("${inventory.history.partitions.retention-months:24}")
+    private int retentionMonths = 24;
+
+    @Value("${inventory.history.partitions.archive-schema:history_archive}")
+    private String archiveSchema = "history_archive";
+
+    public HistoryPartitionManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        maintain();
+    }
+
+    @Scheduled(cron = "${inventory.history.partitions.cron:0 30 2 * * *}")
+    public synchronized void maintain() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : attachedPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches() && YearMonth.parse(matcher.group(1), SUFFIX).isBefore(oldestKept)) {
+                archivePartition(partition);
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String sql = "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + PARENT
+                + " FOR VALUES FROM ('" + month.atDay(1) + " 00:00:00+00') TO ('"
+                + month.plusMonths(1).atDay(1) + " 00:00:00+00')";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (Exception e) {
+            // Например, в секции по умолчанию уже есть строки за этот месяц: их нужно перенести вручную
+            log.error("Error creating history partition {}: {}", partitionName(month), e.getMessage());
+        }
+    }
+
+    // Отсоединение снимает секцию с родителя: запросы по истории ее больше не видят,
+    // а данные остаются доступны в схеме архива
+    private void archivePartition(String partition) {
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+            jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+            log.info("History partition {} archived to {}", partition, archiveSchema);
+        } catch (Exception e) {
+            log.error("Error archiving history partition {}: {}", partition, e.getMessage());
+        }
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = '" + PARENT + "'::regclass ORDER BY c.relname",
+                String.class);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARENT + "_p" + month.format(SUFFIX);
+    }
+}
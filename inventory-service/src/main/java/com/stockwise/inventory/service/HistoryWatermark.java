@@ -0,0 +1,37 @@
+package com.stockwise.inventory.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+
+// Граница истории остатков по порядку коммитов. SHARE ROW EXCLUSIVE на inventory_history ждет
+// коммита (или отката) транзакций, уже вставивших движения, и не пускает новые вставки, пока
+// читается MAX(history_id). history_id выдается при INSERT (IDENTITY), поэтому все движения с id
+// до границы уже закоммичены или откачены, а любое движение, закоммиченное позже, получит id больше.
+// Блокировка держится до конца транзакции вызывающего: границу снимают в короткой отдельной транзакции
+final class HistoryWatermark {
+    private final long lastHistoryId;
+    private final Instant capturedAt;
+
+    private HistoryWatermark(long lastHistoryId, Instant capturedAt) {
+        this.lastHistoryId = lastHistoryId;
+        this.capturedAt = capturedAt;
+    }
+
+    // lockTimeoutMs - сколько ждать пишущие транзакции; по таймауту - исключение, граница не снята
+    static HistoryWatermark capture(JdbcTemplate jdbcTemplate, long lockTimeoutMs) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + Math.max(1, lockTimeoutMs));
+        jdbcTemplate.execute("LOCK TABLE inventory_history IN SHARE ROW EXCLUSIVE MODE");
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(history_id), 0), clock_timestamp() FROM inventory_history",
+                (row, rowNum) -> new HistoryWatermark(row.getLong(1), row.getTimestamp(2).toInstant()));
+    }
+
+    long getLastHistoryId() {
+        return lastHistoryId;
+    }
+
+    Instant getCapturedAt() {
+        return capturedAt;
+    }
+}
@@ -1,54 +1,162 @@
 package com.stockwise.inventory.service;
 
 import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.JournalReceipt;
 import com.stockwise.inventory.model.Product;
-import com.stockwise.inventory.model.InventoryHistory;
+import com.stockwise.inventory.model.StockAllocation;
+import com.stockwise.inventory.model.StockAvailability;
+import com.stockwise.inventory.model.TransferLeg;
 import com.stockwise.inventory.repository.InventoryRepository;
 import com.stockwise.inventory.repository.ProductRepository;
-import com.stockwise.inventory.repository.HistoryRepository;
-import com.stockwise.inventory.event.InventoryEvent;
-import com.stockwise.inventory.event.ReplenishmentEvent;
-import com.stockwise.inventory.exception.InsufficientStockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.Instant;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @Transactional
 public class InventoryService {
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    static final String PRODUCTS_CACHE = "products";
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
     private final InventoryRepository repository;
     private final ProductRepository productRepository;
-    private final HistoryRepository historyRepository;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final RestTemplate restTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheManager cacheManager;
+    private final StockWriteGateway stockWriteGateway;
+    private final VersionedStockCache stockCache;
+    private final WarehouseService warehouseService;
+    private final JournaledStockWriter journaledStockWriter;
+    private final DemandForecaster demandForecaster;
 
     public InventoryService(
             InventoryRepository repository,
             ProductRepository productRepository,
-            HistoryRepository historyRepository,
             KafkaTemplate<String, String> kafkaTemplate,
-            RestTemplate restTemplate
+            RestTemplate restTemplate,
+            RedisTemplate<String, Object> redisTemplate,
+            CacheManager cacheManager,
+            StockWriteGateway stockWriteGateway,
+            VersionedStockCache stockCache,
+            WarehouseService warehouseService,
+            JournaledStockWriter journaledStockWriter,
+            DemandForecaster demandForecaster
     ) {
         this.repository = repository;
         this.productRepository = productRepository;
-        this.historyRepository = historyRepository;
         this.kafkaTemplate = kafkaTemplate;
         this.restTemplate = restTemplate;
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.stockWriteGateway = stockWriteGateway;
+        this.stockCache = stockCache;
+        this.warehouseService = warehouseService;
+        this.journaledStockWriter = journaledStockWriter;
+        this.demandForecaster = demandForecaster;
     }
 
-    @Cacheable(value = "inventory", key = "#productId")
+    // Чтение через версионный кэш: промах загружается из БД и кладется в кэш,
+    // только если за это время не была записана более новая версия.
+    // Операции по продукту без указания склада работают со складом по умолчанию
+    @Transactional(readOnly = true)
     public InventoryItem getInventoryItem(UUID productId) {
-        return repository.findByProductProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product: " + productId));
+        return getInventoryItem(productId, warehouseService.getDefaultWarehouseId());
+    }
+
+    @Transactional(readOnly = true)
+    public InventoryItem getInventoryItem(UUID productId, Long warehouseId) {
+        InventoryItem cached = stockCache.get(productId, warehouseId);
+        if (cached != null) {
+            return cached;
+        }
+        InventoryItem item = repository.findPosition(productId, warehouseId)
+                .orElseThrow(() -> new RuntimeException(
+                        "Inventory not found for product " + productId + " in warehouse " + warehouseId));
+        stockCache.putIfNewer(item);
+        return item;
+    }
+
+    // Общая доступность - сумма счетчиков по складам; читается из БД, чтобы итог
+    // и разбивка по складам были согласованы между собой
+    @Transactional(readOnly = true)
+    public StockAvailability getAvailability(UUID productId) {
+        List<InventoryItem> positions = repository.findAllByProductId(productId);
+        if (positions.isEmpty()) {
+            throw new RuntimeException("Inventory not found for product: " + productId);
+        }
+        long total = 0;
+        List<StockAvailability.LocationStock> locations = new ArrayList<>(positions.size());
+        for (InventoryItem item : positions) {
+            total += item.getQuantity();
+            locations.add(new StockAvailability.LocationStock(item.getInventoryId(),
+                    item.getWarehouse().getWarehouseId(), item.getWarehouse().getCode(), item.getQuantity()));
+        }
+        return new StockAvailability(productId, total, locations);
+    }
+
+    // Пакетное чтение остатков: один MGET на чанк ключей кэша "inventory", один IN-запрос
+    // на все промахи чанка и одна конвейерная запись загруженных остатков обратно в кэш
+    // с проверкой версии, как у getInventoryItem
+    @Transactional(readOnly = true)
+    public Map<UUID, InventoryItem> getInventoryItems(Collection<UUID> productIds) {
+        Long warehouseId = warehouseService.getDefaultWarehouseId();
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<UUID, InventoryItem> found = new HashMap<>(ids.size() * 2);
+
+        for (List<UUID> chunk : chunks(ids)) {
+            Map<UUID, InventoryItem> cached = stockCache.getAll(chunk, warehouseId);
+            found.putAll(cached);
+            List<UUID> misses = new ArrayList<>();
+            for (UUID id : chunk) {
+                if (!cached.containsKey(id)) {
+                    misses.add(id);
+                }
+            }
+
+            if (!misses.isEmpty()) {
+                List<InventoryItem> loaded = repository.findByProductIdIn(misses, warehouseId);
+                for (InventoryItem item : loaded) {
+                    found.put(item.getProduct().getProductId(), item);
+                }
+                stockCache.putAllIfNewer(loaded);
+            }
+        }
+
+        Map<UUID, InventoryItem> result = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            InventoryItem item = found.get(id);
+            if (item != null) {
+                result.put(id, item);
+            }
+        }
+        return result;
     }
 
     @Cacheable(value = "products", key = "#productId")
@@ -57,66 +165,94 @@ public class InventoryService {
                 .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
     }
 
-    @Transactional
-    @CacheEvict(value = "inventory", key = "#productId")
-    @CachePut(value = "inventory", key = "#productId")
-    public InventoryItem adjustStock(UUID productId, int delta, String reason) {
-        InventoryItem item = getInventoryItem(productId);
-        int oldQuantity = item.getQuantity();
-        int newQuantity = oldQuantity + delta;
-
-        if (newQuantity < 0) {
-            throw new InsufficientStockException(
-                    "Cannot reduce stock below zero. Product: " + item.getProduct().getName()
-            );
+    // Прогрев кэша продуктов продуктами уже загруженных остатков одной конвейерной записью;
+    // существующие записи не перезаписываются
+    public void cacheProducts(Collection<InventoryItem> items) {
+        Map<UUID, Object> products = new LinkedHashMap<>();
+        for (InventoryItem item : items) {
+            products.put(item.getProduct().getProductId(), item.getProduct());
         }
+        writeCache(cacheConfiguration(PRODUCTS_CACHE), PRODUCTS_CACHE, products,
+                RedisStringCommands.SetOption.ifAbsent());
+    }
 
-        item.setQuantity(newQuantity);
-        InventoryItem updatedItem = repository.save(item);
-
-        // Запись в историю
-        recordHistory(item, "ADJUSTMENT", delta, reason);
+    // Все изменения остатков идут через StockWriteGateway: он же обновляет кэш после коммита
+    public InventoryItem adjustStock(UUID productId, int delta, String reason) {
+        return stockWriteGateway.adjust(productId, delta, reason);
+    }
 
-        // Отправка события в Kafka
-        sendInventoryEvent(item, delta, reason);
+    // Перемещение между двумя позициями - частный случай многоногого перемещения
+    public List<InventoryItem> transferStock(Long fromId, Long toId, int quantity) {
+        return stockWriteGateway.transfer(List.of(new TransferLeg(fromId, toId, quantity)), "TRANSFER");
+    }
 
-        return updatedItem;
+    public List<InventoryItem> transferStock(List<TransferLeg> legs, String reason) {
+        return stockWriteGateway.transfer(legs, reason);
     }
 
-    @Transactional
-    @CacheEvict(value = "inventory", key = "#productId")
-    public void createReplenishmentOrder(UUID productId, int quantity) {
-        InventoryItem item = getInventoryItem(productId);
+    // Резервирование под доставку с ближайших к точке складов. Вне транзакции класса,
+    // как recordStockCount: иначе allocate не повторяет план после конкурирующего списания
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockAllocation allocateStock(UUID productId, int quantity, double latitude, double longitude) {
+        return stockWriteGateway.allocate(productId, quantity, latitude, longitude, "ALLOCATION");
+    }
 
-        // Создаем заказ на пополнение
-        ReplenishmentOrder order = new ReplenishmentOrder();
-        order.setProduct(item.getProduct());
-        order.setQuantity(quantity);
-        order.setStatus("PENDING");
-        order.setCreatedAt(Instant.now());
+    // Фактический остаток по результатам инвентаризации склада (по умолчанию - основного).
+    // Вне транзакции класса: setQuantity повторяет конфликт версий в собственной транзакции,
+    // а внутри внешней сделал бы одну попытку и вернул конфликт вызывающему
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public InventoryItem recordStockCount(UUID productId, Long warehouseId, int quantity) {
+        Long warehouse = warehouseId != null ? warehouseId : warehouseService.getDefaultWarehouseId();
+        return stockWriteGateway.setQuantity(productId, warehouse, quantity, "STOCK_COUNT");
+    }
 
-        // Сохраняем и отправляем событие
-        replenishmentOrderRepository.save(order);
-        sendReplenishmentEvent(order);
+    // Изменение остатка по событию заказа (списание при выполнении, возврат при отмене).
+    // С включенным журналом (inventory.journal.enabled) событие подтверждается после записи
+    // в локальный журнал, а в БД применяется асинхронно
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void adjustStockByProduct(UUID productId, int delta) {
+        if (journaledStockWriter.isEnabled()) {
+            journaledStockWriter.adjust(productId, warehouseService.getDefaultWarehouseId(), delta, "ORDER_EVENT");
+        } else {
+            stockWriteGateway.adjust(productId, delta, "ORDER_EVENT");
+        }
+    }
 
-        // Автоматическое пополнение
-        adjustStock(productId, quantity, "AUTO_REPLENISHMENT");
+    // Изменение через журнал: ответ после fsync журнала, без ожидания БД.
+    // Вне транзакции, чтобы ожидание группового fsync не удерживало соединение
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JournalReceipt adjustStockJournaled(UUID productId, Long warehouseId, int delta, String reason) {
+        Long warehouse = warehouseId != null ? warehouseId : warehouseService.getDefaultWarehouseId();
+        return journaledStockWriter.adjust(productId, warehouse, delta, reason);
     }
 
-    @Cacheable(value = "predictions", key = "#productId")
+    // В кэш predictions попадает только ответ ML-сервиса. Локальный прогноз (быстрый путь и fallback)
+    // дешев и не кэшируется: иначе нулевой прогноз до заполнения сводок держался бы весь TTL
     public double getDemandPrediction(UUID productId) {
+        // Медленно продающиеся продукты прогнозируются локально, без вызова ML-сервиса
+        if (demandForecaster.isFastPath(productId)) {
+            return demandForecaster.getForecast(productId).getDailyDemand();
+        }
+        Cache predictions = cacheManager.getCache("predictions");
+        Double cached = predictions.get(productId, Double.class);
+        if (cached != null) {
+            return cached;
+        }
         try {
             // Получение прогноза из ML-сервиса
             String url = "http://ml-service:5000/api/ml/predict";
             PredictionRequest request = new PredictionRequest(productId.toString());
             
             PredictionResponse response = restTemplate.postForObject(url, request, PredictionResponse.class);
-            return response != null ? response.getPrediction() : 0.0;
-            
+            if (response != null) {
+                predictions.put(productId, response.getPrediction());
+                return response.getPrediction();
+            }
         } catch (Exception e) {
-            // Fallback: простая эвристика
-            return 10.0;
+            // Переход к локальному прогнозу ниже
         }
+        // Fallback: локальный прогноз по последним продажам продукта
+        return demandForecaster.getForecast(productId).getDailyDemand();
     }
 
     @Cacheable(value = "inventory", key = "'low_stock'")
@@ -124,55 +260,42 @@ public class InventoryService {
         return repository.findByQuantityLessThan(minThreshold);
     }
 
-    @Scheduled(fixedRate = 3600000) // Каждый час
-    public void autoReplenish() {
-        List<InventoryItem> lowStockItems = getLowStockItems();
-
-        for (InventoryItem item : lowStockItems) {
-            double prediction = getDemandPrediction(item.getProduct().getProductId());
-            int requiredQuantity = calculateRequiredQuantity(item, prediction);
-            
-            if (requiredQuantity > 0) {
-                createReplenishmentOrder(
-                        item.getProduct().getProductId(),
-                        requiredQuantity
-                );
-            }
+    private void writeCache(RedisCacheConfiguration cacheConfig, String cacheName, Map<UUID, Object> values,
+                            RedisStringCommands.SetOption option) {
+        if (values.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                values.forEach((productId, value) -> {
+                    Duration ttl = cacheConfig.getTtlFunction().getTimeToLive(productId, value);
+                    connection.stringCommands().set(cacheKey(cacheConfig, cacheName, productId),
+                            ByteUtils.getBytes(cacheConfig.getValueSerializationPair().write(value)),
+                            ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl),
+                            option);
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Error writing {} cache: {}", cacheName, e.getMessage());
         }
     }
 
-    private int calculateRequiredQuantity(InventoryItem item, double prediction) {
-        int safetyStock = (int) Math.ceil(prediction * 1.2); // +20% буфер
-        return Math.max(0, safetyStock - item.getQuantity());
-    }
-
-    private void recordHistory(InventoryItem item, String action, int delta, String reason) {
-        InventoryHistory history = new InventoryHistory();
-        history.setInventoryItem(item);
-        history.setAction(action);
-        history.setDelta(delta);
-        history.setReason(reason);
-        history.setTimestamp(Instant.now());
-        historyRepository.save(history);
+    private RedisCacheConfiguration cacheConfiguration(String cacheName) {
+        return ((RedisCache) cacheManager.getCache(cacheName)).getCacheConfiguration();
     }
 
-    private void sendInventoryEvent(InventoryItem item, int delta, String reason) {
-        InventoryEvent event = new InventoryEvent(
-                item.getProduct().getProductId(),
-                delta,
-                reason
-        );
-        kafkaTemplate.send("inventory-updates", event.toJson());
+    private static byte[] cacheKey(RedisCacheConfiguration cacheConfig, String cacheName, UUID productId) {
+        String key = cacheConfig.getKeyPrefixFor(cacheName) + productId;
+        return ByteUtils.getBytes(cacheConfig.getKeySerializationPair().write(key));
     }
 
-    private void sendReplenishmentEvent(ReplenishmentOrder order) {
-        ReplenishmentEvent event = new ReplenishmentEvent(
-                order.getOrderId(),
-                order.getProduct().getProductId(),
-                order.getQuantity(),
-                order.getStatus()
-        );
-        kafkaTemplate.send("replenishment-orders", event.toJson());
+    private static List<List<UUID>> chunks(List<UUID> ids) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + BATCH_CHUNK_SIZE)));
+        }
+        return chunks;
     }
 
     // Вспомогательные классы для ML-интеграции
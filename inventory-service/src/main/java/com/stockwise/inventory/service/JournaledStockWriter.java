@@ -0,0 +1,293 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.JournalReceipt;
+import com.stockwise.inventory.model.JournalStatus;
+import com.stockwise.inventory.repository.InventoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Paths;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Быстрый путь изменения остатка: движение пишется в локальный журнал (StockJournal) и подтверждается
+// после группового fsync, а в PostgreSQL и inventory-updates попадает асинхронно через
+// StockWriteGateway. Номер последней примененной записи хранится в stock_journal_checkpoint
+// и обновляется в той же транзакции, что и остаток, поэтому после перезапуска повторяются
+// ровно неприменные записи.
+// Проверка остатка до подтверждения идет по локальной проекции (StockProjections: остаток из БД +
+// неприменные изменения), прямые записи этого экземпляра через StockWriteGateway тоже учитываются
+// в ней. Записи других экземпляров проекция не видит, поэтому позиции журнального пути должны
+// изменяться одним экземпляром сервиса; окончательную проверку все равно делает условный UPDATE,
+// отклоненные записи уходят в inventory-dlq
+@Service
+public class JournaledStockWriter implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(JournaledStockWriter.class);
+
+    static final String DLQ_TOPIC = "inventory-dlq";
+    private static final long RETRY_BACKOFF_MIN_MS = 100;
+    private static final long RETRY_BACKOFF_MAX_MS = 30_000;
+
+    private final StockWriteGateway stockWriteGateway;
+    private final InventoryRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockProjections projections;
+
+    @Value("${inventory.journal.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${inventory.journal.dir:/var/lib/stockwise/journal}")
+    private String directory = "/var/lib/stockwise/journal";
+
+    @Value("${inventory.journal.segment-size-mb:64}")
+    private int segmentSizeMb = 64;
+
+    // Пауза после fsync, за которую копится следующая группа; 0 - fsync сразу
+    @Value("${inventory.journal.flush-interval-micros:100}")
+    private long flushIntervalMicros = 100;
+
+    @Value("${inventory.journal.apply-batch-size:200}")
+    private int applyBatchSize = 200;
+
+    @Value("${inventory.journal.node-id:${HOSTNAME:inventory-service}}")
+    private String nodeId = "inventory-service";
+
+    private volatile StockJournal journal;
+    private volatile Thread applier;
+    private final AtomicLong appliedSequence = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public JournaledStockWriter(StockWriteGateway stockWriteGateway,
+                                InventoryRepository repository,
+                                JdbcTemplate jdbcTemplate,
+                                KafkaTemplate<String, String> kafkaTemplate,
+                                PlatformTransactionManager transactionManager,
+                                StockProjections projections) {
+        this.stockWriteGateway = stockWriteGateway;
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.projections = projections;
+    }
+
+    public boolean isEnabled() {
+        return enabled && journal != null;
+    }
+
+    // Открытие журнала и повтор записей после контрольной точки до начала приема новых движений
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        StockJournal opened = new StockJournal(Paths.get(directory), segmentSizeMb * 1024 * 1024, flushIntervalMicros);
+        appliedSequence.set(loadCheckpoint());
+        List<StockJournal.Entry> unapplied = new ArrayList<>();
+        opened.replay(appliedSequence.get(), unapplied::add);
+        for (int from = 0; from < unapplied.size(); from += applyBatchSize) {
+            applyBatch(unapplied.subList(from, Math.min(unapplied.size(), from + applyBatchSize)));
+        }
+        if (!unapplied.isEmpty()) {
+            log.info("Stock journal replayed {} unapplied movements", unapplied.size());
+        }
+        opened.release(appliedSequence.get());
+        journal = opened;
+
+        applier = new Thread(() -> applyLoop(opened), "stock-journal-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    // Подтверждение после fsync журнала; остаток проверяется по локальной проекции позиции
+    public JournalReceipt adjust(UUID productId, Long warehouseId, int delta, String reason) {
+        StockJournal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("Stock journal is not enabled");
+        }
+        long projected = projections.reserveJournaled(productId, warehouseId, delta,
+                () -> repository.findPosition(productId, warehouseId)
+                        .orElseThrow(() -> new RuntimeException(
+                                "Inventory not found for product " + productId + " in warehouse " + warehouseId)));
+
+        long sequence;
+        try {
+            sequence = current.append(productId, warehouseId, delta, reason);
+            current.awaitDurable(sequence);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for journal flush", e);
+        } catch (RuntimeException e) {
+            projections.settleJournaled(productId, warehouseId, -delta);
+            throw e;
+        }
+        return new JournalReceipt(sequence, productId, warehouseId, delta, projected);
+    }
+
+    // Применяющий поток не завершается из-за ошибок БД: непримененный остаток пакета
+    // повторяется с нарастающей паузой, записи до appliedSequence уже в БД и пропускаются
+    private void applyLoop(StockJournal journal) {
+        List<StockJournal.Entry> pending = List.of();
+        long backoffMs = RETRY_BACKOFF_MIN_MS;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (pending.isEmpty()) {
+                    pending = journal.pollDurable(applyBatchSize, 100, TimeUnit.MILLISECONDS);
+                }
+                if (!pending.isEmpty()) {
+                    applyBatch(unapplied(pending));
+                    pending = List.of();
+                    journal.release(appliedSequence.get());
+                }
+                backoffMs = RETRY_BACKOFF_MIN_MS;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error applying stock journal, retrying in {} ms", backoffMs, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                backoffMs = Math.min(RETRY_BACKOFF_MAX_MS, backoffMs * 2);
+            }
+        }
+    }
+
+    private List<StockJournal.Entry> unapplied(List<StockJournal.Entry> batch) {
+        long applied = appliedSequence.get();
+        int from = 0;
+        while (from < batch.size() && batch.get(from).getSequence() <= applied) {
+            from++;
+        }
+        return batch.subList(from, batch.size());
+    }
+
+    // Пакет применяется одной транзакцией вместе с контрольной точкой; если одна запись
+    // не проходит проверку остатка, пакет применяется по одной записи. Ошибки инфраструктуры
+    // (нет соединения, не открылась транзакция) пробрасываются: запись не виновата, ее нужно повторить
+    void applyBatch(List<StockJournal.Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (StockJournal.Entry entry : batch) {
+                    applyEntry(entry);
+                }
+                saveCheckpoint(batch.get(batch.size() - 1).getSequence());
+            });
+        } catch (RuntimeException e) {
+            if (isInfrastructureFailure(e)) {
+                throw e;
+            }
+            // Недостаточно остатка, позиция не найдена и т.п.: виновная запись ищется по одной
+            if (batch.size() == 1) {
+                reject(batch.get(0), e);
+                return;
+            }
+            for (StockJournal.Entry entry : batch) {
+                applyBatch(List.of(entry));
+            }
+            return;
+        }
+        appliedSequence.set(batch.get(batch.size() - 1).getSequence());
+        for (StockJournal.Entry entry : batch) {
+            projections.settleJournaled(entry.getProductId(), entry.getWarehouseId(), 0);
+        }
+    }
+
+    // Отказ, после которого повтор той же записи может пройти: соединение, открытие или коммит
+    // транзакции, временная ошибка БД. Такие записи не отклоняются
+    static boolean isInfrastructureFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof TransactionSystemException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void applyEntry(StockJournal.Entry entry) {
+        stockWriteGateway.applyJournaled(entry.getProductId(), entry.getWarehouseId(), entry.getDelta(), entry.getReason());
+    }
+
+    // Отклоненная БД запись уже подтверждена клиенту: контрольная точка сдвигается, затем
+    // запись уходит в inventory-dlq для разбора и проекция позиции откатывается. Если сдвинуть
+    // точку не удалось, ошибка пробрасывается и запись будет проверена снова - без второго DLQ
+    private void reject(StockJournal.Entry entry, RuntimeException cause) {
+        transactionTemplate.executeWithoutResult(status -> saveCheckpoint(entry.getSequence()));
+        appliedSequence.set(entry.getSequence());
+        rejected.incrementAndGet();
+        log.error("Stock journal entry {} rejected", entry.getSequence(), cause);
+        kafkaTemplate.send(DLQ_TOPIC, entry.getProductId().toString(), String.format(
+                "{\"journalSequence\":%d,\"productId\":\"%s\",\"warehouseId\":%d,\"delta\":%d,\"reason\":\"%s\"}",
+                entry.getSequence(), entry.getProductId(), entry.getWarehouseId(), entry.getDelta(), entry.getReason()));
+        projections.settleJournaled(entry.getProductId(), entry.getWarehouseId(), -entry.getDelta());
+    }
+
+    private long loadCheckpoint() {
+        List<Long> applied = jdbcTemplate.queryForList(
+                "SELECT applied_sequence FROM stock_journal_checkpoint WHERE node_id = ?", Long.class, nodeId);
+        return applied.isEmpty() ? 0 : applied.get(0);
+    }
+
+    private void saveCheckpoint(long sequence) {
+        jdbcTemplate.update("INSERT INTO stock_journal_checkpoint (node_id, applied_sequence) VALUES (?, ?) " +
+                "ON CONFLICT (node_id) DO UPDATE SET applied_sequence = EXCLUDED.applied_sequence", nodeId, sequence);
+    }
+
+    public JournalStatus getStatus() {
+        StockJournal current = journal;
+        if (current == null) {
+            return new JournalStatus(false, 0, 0, appliedSequence.get(), rejected.get(), 0);
+        }
+        return new JournalStatus(true, current.getAppendedSequence(), current.getDurableSequence(),
+                appliedSequence.get(), rejected.get(), current.getSegmentCount());
+    }
+
+    // Остановка: прием закрывается, применяющий поток останавливается, хвост журнала
+    // сбрасывается на диск и будет применен после перезапуска
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        StockJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        journal = null;
+        if (applier != null) {
+            applier.interrupt();
+            applier.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        current.close();
+    }
+}
@@ -0,0 +1,182 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DailyDemand;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+// Отчет в PDF, который пишется постранично: каждая заполненная страница сразу уходит в поток,
+// после документа пишутся дерево страниц и таблица xref по накопленным смещениям объектов.
+// Текст - моноширинный Courier (базовый шрифт PDF, встраивать не нужно), только ASCII
+class PdfDemandReportWriter implements DemandReportWriter {
+    private static final int LINES_PER_PAGE = 62;
+    private static final String COLUMNS = String.format("%-10s %12s %12s %12s", "Date", "Sold", "Received", "Net");
+
+    // Номера объектов, которые известны заранее; содержимое и страницы получают следующие номера
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT = 3;
+
+    private final OutputStream out;
+    private long position;
+    private long[] offsets = new long[64];
+    private int lastObject = FONT;
+    private final List<Integer> pageObjects = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>(LINES_PER_PAGE);
+
+    private UUID productId;
+    private long totalSold;
+    private long totalReceived;
+    private int dayCount;
+
+    PdfDemandReportWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+    }
+
+    @Override
+    public void beginProduct(UUID productId, LocalDate firstDay, LocalDate lastDay) throws IOException {
+        if (position == 0) {
+            writeHeader();
+        }
+        // Каждый продукт начинается с новой страницы
+        flushPage();
+        this.productId = productId;
+        totalSold = 0;
+        totalReceived = 0;
+        dayCount = 0;
+        lines.add("Demand report: product " + productId);
+        lines.add("Period: " + firstDay + " .. " + lastDay + " (UTC)");
+        lines.add("");
+        lines.add(COLUMNS);
+    }
+
+    @Override
+    public void day(DailyDemand demand) throws IOException {
+        totalSold += demand.getSold();
+        totalReceived += demand.getReceived();
+        dayCount++;
+        addLine(String.format("%-10s %12d %12d %12d",
+                demand.getDay(), demand.getSold(), demand.getReceived(), demand.getNet()));
+    }
+
+    @Override
+    public void endProduct() throws IOException {
+        addLine("");
+        addLine(String.format("%-10s %12d %12d %12d", "Total", totalSold, totalReceived, totalReceived - totalSold));
+        double averageSold = dayCount == 0 ? 0.0 : (double) totalSold / dayCount;
+        addLine(String.format(Locale.ROOT, "Average daily sold: %.2f", averageSold));
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (position == 0) {
+            writeHeader();
+        }
+        if (pageObjects.isEmpty() && lines.isEmpty()) {
+            lines.add("No products in report");
+        }
+        flushPage();
+
+        startObject(PAGES);
+        write("<< /Type /Pages /Count " + pageObjects.size() + " /Kids [");
+        for (int page : pageObjects) {
+            write(page + " 0 R ");
+        }
+        write("] >>\nendobj\n");
+        startObject(CATALOG);
+        write("<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+
+        long xref = position;
+        write("xref\n0 " + (lastObject + 1) + "\n0000000000 65535 f \n");
+        for (int object = 1; object <= lastObject; object++) {
+            write(String.format("%010d 00000 n \n", offsets[object]));
+        }
+        write("trailer\n<< /Size " + (lastObject + 1) + " /Root " + CATALOG + " 0 R >>\nstartxref\n"
+                + xref + "\n%%EOF\n");
+        out.flush();
+    }
+
+    private void writeHeader() throws IOException {
+        write("%PDF-1.4\n");
+        // Байты выше 127 во второй строке - признак двоичного файла для транспортов
+        out.write(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+        position += 6;
+        startObject(FONT);
+        write("<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>\nendobj\n");
+    }
+
+    // Строки таблицы, не поместившиеся на страницу, переносятся на следующую с повтором заголовка колонок
+    private void addLine(String line) throws IOException {
+        if (lines.size() == LINES_PER_PAGE) {
+            flushPage();
+            lines.add("Demand report: product " + productId + " (continued)");
+            lines.add(COLUMNS);
+        }
+        lines.add(line);
+    }
+
+    private void flushPage() throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        StringBuilder content = new StringBuilder("BT\n/F1 9 Tf\n12 TL\n40 800 Td\n");
+        for (String line : lines) {
+            content.append('(').append(escape(line)).append(") Tj T*\n");
+        }
+        content.append("ET\n");
+        byte[] bytes = content.toString().getBytes(StandardCharsets.ISO_8859_1);
+        lines.clear();
+
+        int contents = startObject(++lastObject);
+        write("<< /Length " + bytes.length + " >>\nstream\n");
+        out.write(bytes);
+        position += bytes.length;
+        write("endstream\nendobj\n");
+
+        int page = startObject(++lastObject);
+        write("<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 595 842] "
+                + "/Resources << /Font << /F1 " + FONT + " 0 R >> >> /Contents " + contents + " 0 R >>\nendobj\n");
+        pageObjects.add(page);
+        // Готовая страница сразу уходит клиенту
+        out.flush();
+    }
+
+    private int startObject(int object) throws IOException {
+        if (object >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, object + 1));
+        }
+        offsets[object] = position;
+        write(object + " 0 obj\n");
+        return object;
+    }
+
+    private void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    // Экранирование строки PDF: скобки и обратная косая черта, символы вне ASCII заменяются на ?
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 32 || c > 126) {
+                escaped.append('?');
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
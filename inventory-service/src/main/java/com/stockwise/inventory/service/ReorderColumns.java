@@ -0,0 +1,45 @@
+package com.stockwise.inventory.service;
+
+import java.util.UUID;
+
+// Каталог в колоночном виде для ReorderCalculator: i-й элемент каждого массива относится
+// к productIds[i]. Каждый показатель - отдельный плотный double[], поэтому расчет идет
+// последовательным проходом по памяти без объекта на продукт
+class ReorderColumns {
+    final int size;
+    final UUID[] productIds;
+
+    // Входы
+    final double[] stock;
+    final double[] demandMean;
+    final double[] demandVariance;
+    final double[] leadTimeDays;
+    final double[] zScore;
+    final double[] orderCost;
+    final double[] holdingCost;
+    // Минимальный остаток продукта (products.min_threshold): точка заказа не опускается ниже него
+    final double[] minThreshold;
+
+    // Результаты
+    final double[] safetyStock;
+    final double[] reorderPoint;
+    final double[] economicOrderQuantity;
+    final double[] orderQuantity;
+
+    ReorderColumns(int size) {
+        this.size = size;
+        this.productIds = new UUID[size];
+        this.stock = new double[size];
+        this.demandMean = new double[size];
+        this.demandVariance = new double[size];
+        this.leadTimeDays = new double[size];
+        this.zScore = new double[size];
+        this.orderCost = new double[size];
+        this.holdingCost = new double[size];
+        this.minThreshold = new double[size];
+        this.safetyStock = new double[size];
+        this.reorderPoint = new double[size];
+        this.economicOrderQuantity = new double[size];
+        this.orderQuantity = new double[size];
+    }
+}
@@ -0,0 +1,150 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DemandForecast;
+import com.stockwise.inventory.model.ReorderRecommendation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Сборка колонок каталога для ReorderCalculator: остаток по всем складам и минимальный остаток
+// продукта (один проход курсора по products и inventory), прогноз и дисперсия дневного спроса
+// из DemandForecaster, срок поставки по контракту, z-оценка уровня сервиса. Уточнение объема
+// заказа прогнозом ML-сервиса пересчитывает строку готового плана без запросов в БД
+@Service
+public class ReorderPlanner {
+    private static final Logger log = LoggerFactory.getLogger(ReorderPlanner.class);
+
+    private static final String STOCK_BY_PRODUCT = "SELECT p.product_id, COALESCE(SUM(i.quantity), 0), " +
+            "COALESCE(p.min_threshold, 0) FROM products p LEFT JOIN inventory i ON i.product_id = p.product_id " +
+            "GROUP BY p.product_id, p.min_threshold";
+    private static final String PRODUCT_STOCK = "SELECT COALESCE(SUM(i.quantity), 0), " +
+            "COALESCE(MAX(p.min_threshold), 0) FROM products p LEFT JOIN inventory i ON i.product_id = p.product_id " +
+            "WHERE p.product_id = ?";
+
+    // Связи продукт - контракт в схеме нет: берется контракт, который выбрал бы поставщик
+    // (SupplierService.getBestContractForProduct - активный с наименьшей ценой)
+    private static final String LEAD_TIME = "SELECT delivery_days FROM contracts " +
+            "WHERE is_active = true AND status = 'ACTIVE' AND delivery_days IS NOT NULL " +
+            "ORDER BY terms ASC LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DemandForecaster demandForecaster;
+    private final TransactionTemplate readTransaction;
+
+    @Value("${inventory.reorder.service-level:0.95}")
+    private double serviceLevel = 0.95;
+
+    // Стоимость размещения одного заказа и хранения единицы товара в год (для EOQ)
+    @Value("${inventory.reorder.order-cost:50}")
+    private double orderCost = 50;
+
+    @Value("${inventory.reorder.holding-cost:2}")
+    private double holdingCost = 2;
+
+    @Value("${inventory.reorder.default-lead-time-days:7}")
+    private int defaultLeadTimeDays = 7;
+
+    @Value("${inventory.reorder.fetch-size:10000}")
+    private int fetchSize = 10000;
+
+    public ReorderPlanner(JdbcTemplate jdbcTemplate, DemandForecaster demandForecaster,
+                          PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.demandForecaster = demandForecaster;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    // План пополнения всего каталога по локальным прогнозам
+    ReorderColumns plan() {
+        long startedAt = System.nanoTime();
+        List<UUID> productIds = new ArrayList<>();
+        double[][] stock = {new double[1024]};
+        double[][] minThreshold = {new double[1024]};
+        readTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STOCK_BY_PRODUCT);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, rs -> {
+            int i = productIds.size();
+            if (i == stock[0].length) {
+                stock[0] = Arrays.copyOf(stock[0], i * 2);
+                minThreshold[0] = Arrays.copyOf(minThreshold[0], i * 2);
+            }
+            productIds.add(rs.getObject(1, UUID.class));
+            stock[0][i] = rs.getLong(2);
+            minThreshold[0][i] = rs.getInt(3);
+        }));
+
+        ReorderColumns columns = new ReorderColumns(productIds.size());
+        double leadTime = leadTimeDays();
+        double z = ReorderCalculator.zScore(serviceLevel);
+        for (int i = 0; i < columns.size; i++) {
+            DemandForecast forecast = demandForecaster.getForecast(productIds.get(i));
+            columns.productIds[i] = productIds.get(i);
+            columns.stock[i] = stock[0][i];
+            columns.minThreshold[i] = minThreshold[0][i];
+            columns.demandMean[i] = forecast.getDailyDemand();
+            columns.demandVariance[i] = forecast.getDemandVariance();
+        }
+        Arrays.fill(columns.leadTimeDays, leadTime);
+        Arrays.fill(columns.zScore, z);
+        Arrays.fill(columns.orderCost, orderCost);
+        Arrays.fill(columns.holdingCost, holdingCost);
+
+        ReorderCalculator.calculate(columns);
+        log.info("Reorder plan for {} products in {} ms", columns.size, (System.nanoTime() - startedAt) / 1_000_000);
+        return columns;
+    }
+
+    // Объем заказа для продукта i плана при другом прогнозе дневного спроса (прогноз ML-сервиса);
+    // остаток, минимальный остаток, разброс спроса и срок поставки берутся из плана
+    int requiredQuantity(ReorderColumns plan, int i, double dailyDemand) {
+        return (int) calculate(plan.productIds[i], plan.stock[i], plan.minThreshold[i], dailyDemand,
+                plan.demandVariance[i], plan.leadTimeDays[i]).orderQuantity[0];
+    }
+
+    public ReorderRecommendation getRecommendation(UUID productId) {
+        double[] stock = jdbcTemplate.queryForObject(PRODUCT_STOCK,
+                (rs, rowNum) -> new double[]{rs.getLong(1), rs.getInt(2)}, productId);
+        DemandForecast forecast = demandForecaster.getForecast(productId);
+        ReorderColumns columns = calculate(productId, stock[0], stock[1], forecast.getDailyDemand(),
+                forecast.getDemandVariance(), leadTimeDays());
+        return new ReorderRecommendation(productId, columns.stock[0], columns.demandMean[0],
+                Math.sqrt(columns.demandVariance[0]), columns.leadTimeDays[0], serviceLevel,
+                columns.safetyStock[0], columns.reorderPoint[0], columns.economicOrderQuantity[0],
+                (int) columns.orderQuantity[0]);
+    }
+
+    // Расчет одной строки по готовым входам: запросы и прогноз - на стороне вызывающего
+    private ReorderColumns calculate(UUID productId, double stock, double minThreshold, double dailyDemand,
+                                     double demandVariance, double leadTimeDays) {
+        ReorderColumns columns = new ReorderColumns(1);
+        columns.productIds[0] = productId;
+        columns.stock[0] = stock;
+        columns.minThreshold[0] = minThreshold;
+        columns.demandMean[0] = dailyDemand;
+        columns.demandVariance[0] = demandVariance;
+        columns.leadTimeDays[0] = leadTimeDays;
+        columns.zScore[0] = ReorderCalculator.zScore(serviceLevel);
+        columns.orderCost[0] = orderCost;
+        columns.holdingCost[0] = holdingCost;
+        ReorderCalculator.calculate(columns);
+        return columns;
+    }
+
+    private double leadTimeDays() {
+        List<Integer> days = jdbcTemplate.queryForList(LEAD_TIME, Integer.class);
+        return days.isEmpty() ? defaultLeadTimeDays : days.get(0);
+    }
+}
@@ -0,0 +1,222 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.event.SupplierReplenishmentEvent;
+import com.stockwise.inventory.model.ReplenishmentLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Консолидация прогона пополнения: потребности всех продуктов собираются вместе, каждая строка
+// назначается самому дешевому активному контракту, допускающему ее объем (min_order_quantity /
+// max_order_quantity, как в ContractRepository.findSuitableContracts), и строки одного контракта
+// уходят одним заказом. Вместо события и коммита на продукт - одно событие replenishment-orders
+// и одна транзакция на заказ поставщику. Это единственное место консолидации: supplier-service
+// принимает заказ как есть и только проверяет его контракт
+@Service
+public class ReplenishmentConsolidator {
+    private static final Logger log = LoggerFactory.getLogger(ReplenishmentConsolidator.class);
+
+    static final String TOPIC = "replenishment-orders";
+
+    private static final String ACTIVE_CONTRACTS = "SELECT id, supplier_id, min_order_quantity, max_order_quantity " +
+            "FROM contracts WHERE is_active = true AND status = 'ACTIVE' ORDER BY terms ASC, id";
+    private static final String PRODUCT_NAMES = "SELECT product_id, name FROM products WHERE product_id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final StockWriteGateway stockWriteGateway;
+    private final TransactionTemplate transactionTemplate;
+
+    // Ограничение размера одного сообщения: больше строк - следующий заказ тому же поставщику
+    @Value("${inventory.replenishment.max-lines-per-order:1000}")
+    private int maxLinesPerOrder = 1000;
+
+    public ReplenishmentConsolidator(JdbcTemplate jdbcTemplate, KafkaTemplate<String, String> kafkaTemplate,
+                                     StockWriteGateway stockWriteGateway,
+                                     PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.stockWriteGateway = stockWriteGateway;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Заказы по потребностям прогона (продукт -> требуемый объем). Остаток увеличивается
+    // (предварительно, как и раньше) в одной транзакции на заказ; событие отправляется после
+    // ее коммита. Ошибка одного заказа не останавливает остальные. Без действующего контракта
+    // заказать не у кого: остаток не меняется и заказы не отправляются
+    public List<SupplierReplenishmentEvent> submit(Map<UUID, Integer> required, String reason) {
+        if (required.isEmpty()) {
+            return List.of();
+        }
+        long startedAt = System.nanoTime();
+        List<ContractTerms> contracts = activeContracts();
+        if (contracts.isEmpty()) {
+            log.warn("Replenishment run skipped: no valid active contract for {} products", required.size());
+            return List.of();
+        }
+        Map<UUID, String> names = productNames(required.keySet());
+        List<ReplenishmentLine> lines = new ArrayList<>(required.size());
+        required.forEach((productId, quantity) -> {
+            if (quantity > 0) {
+                lines.add(new ReplenishmentLine(productId, names.get(productId), quantity));
+            }
+        });
+
+        List<SupplierReplenishmentEvent> orders = consolidate(lines, contracts, maxLinesPerOrder,
+                reason, Instant.now());
+        List<SupplierReplenishmentEvent> sent = new ArrayList<>(orders.size());
+        for (SupplierReplenishmentEvent order : orders) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (ReplenishmentLine line : order.getLines()) {
+                        stockWriteGateway.adjust(line.getProductId(), line.getQuantity(), reason);
+                    }
+                });
+                kafkaTemplate.send(TOPIC, order.getSupplierId().toString(), order.toJson());
+                sent.add(order);
+            } catch (Exception e) {
+                log.error("Error creating replenishment order {}", order.getOrderId(), e);
+            }
+        }
+        log.info("Replenishment run: {} products in {} supplier orders, {} ms", lines.size(), sent.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+        return sent;
+    }
+
+    // Назначение строк контрактам и группировка по контракту. Контракты - в порядке цены.
+    // В одном заказе продукт встречается не больше одного раза, иначе ограничение
+    // max_order_quantity обходилось бы повтором строки. Без контрактов заказов нет
+    static List<SupplierReplenishmentEvent> consolidate(List<ReplenishmentLine> lines, List<ContractTerms> contracts,
+                                                        int maxLinesPerOrder, String reason, Instant createdAt) {
+        if (contracts.isEmpty()) {
+            return List.of();
+        }
+        Map<ContractTerms, List<Map<UUID, ReplenishmentLine>>> byContract = new LinkedHashMap<>();
+        for (ReplenishmentLine line : lines) {
+            int remaining = line.getQuantity();
+            while (remaining > 0) {
+                ContractTerms suitable = null;
+                ContractTerms raised = null;
+                for (ContractTerms contract : contracts) {
+                    if (contract.maxQuantity < remaining) {
+                        continue;
+                    }
+                    if (contract.minQuantity <= remaining) {
+                        suitable = contract;
+                        break;
+                    }
+                    if (raised == null || contract.minQuantity < raised.minQuantity) {
+                        raised = contract;
+                    }
+                }
+                if (suitable != null) {
+                    add(byContract, suitable, withQuantity(line, remaining), maxLinesPerOrder);
+                    break;
+                }
+                if (raised != null) {
+                    // Объем ниже минимальной партии всех подходящих контрактов - округляется до партии
+                    add(byContract, raised, withQuantity(line, raised.minQuantity), maxLinesPerOrder);
+                    break;
+                }
+                // Объем больше максимума любого контракта - делится на партии по самому крупному
+                ContractTerms largest = contracts.get(0);
+                for (ContractTerms contract : contracts) {
+                    if (contract.maxQuantity > largest.maxQuantity) {
+                        largest = contract;
+                    }
+                }
+                add(byContract, largest, withQuantity(line, largest.maxQuantity), maxLinesPerOrder);
+                remaining -= largest.maxQuantity;
+            }
+        }
+
+        List<SupplierReplenishmentEvent> orders = new ArrayList<>();
+        byContract.forEach((contract, contractOrders) -> {
+            for (Map<UUID, ReplenishmentLine> order : contractOrders) {
+                orders.add(new SupplierReplenishmentEvent(UUID.randomUUID(), contract.supplierId, contract.id,
+                        List.copyOf(order.values()), reason, createdAt));
+            }
+        });
+        return orders;
+    }
+
+    private static void add(Map<ContractTerms, List<Map<UUID, ReplenishmentLine>>> byContract, ContractTerms contract,
+                            ReplenishmentLine line, int maxLinesPerOrder) {
+        List<Map<UUID, ReplenishmentLine>> contractOrders = byContract.computeIfAbsent(contract, c -> new ArrayList<>());
+        for (Map<UUID, ReplenishmentLine> order : contractOrders) {
+            if (order.size() < maxLinesPerOrder && !order.containsKey(line.getProductId())) {
+                order.put(line.getProductId(), line);
+                return;
+            }
+        }
+        Map<UUID, ReplenishmentLine> order = new LinkedHashMap<>();
+        order.put(line.getProductId(), line);
+        contractOrders.add(order);
+    }
+
+    private static ReplenishmentLine withQuantity(ReplenishmentLine line, int quantity) {
+        return quantity == line.getQuantity()
+                ? line
+                : new ReplenishmentLine(line.getProductId(), line.getProductName(), quantity);
+    }
+
+    private List<ContractTerms> activeContracts() {
+        return jdbcTemplate.query(ACTIVE_CONTRACTS, (rs, rowNum) -> new ContractTerms(
+                rs.getLong(1),
+                rs.getLong(2),
+                (Integer) rs.getObject(3),
+                (Integer) rs.getObject(4)
+        )).stream().filter(ContractTerms::isValid).collect(Collectors.toList());
+    }
+
+    // Названия всех продуктов прогона одним запросом
+    private Map<UUID, String> productNames(Iterable<UUID> productIds) {
+        List<UUID> ids = new ArrayList<>();
+        productIds.forEach(ids::add);
+        Map<UUID, String> names = new HashMap<>(ids.size() * 4 / 3 + 1);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(PRODUCT_NAMES);
+            Array array = connection.createArrayOf("uuid", ids.toArray());
+            statement.setArray(1, array);
+            return statement;
+        }, rs -> {
+            names.put(rs.getObject(1, UUID.class), rs.getString(2));
+        });
+        return names;
+    }
+
+    // Условия контракта, влияющие на объем строки; пустые границы - без ограничения
+    static class ContractTerms {
+        final long id;
+        final long supplierId;
+        final int minQuantity;
+        final int maxQuantity;
+
+        ContractTerms(long id, long supplierId, Integer minOrderQuantity, Integer maxOrderQuantity) {
+            this.id = id;
+            this.supplierId = supplierId;
+            this.minQuantity = minOrderQuantity != null ? Math.max(1, minOrderQuantity) : 1;
+            this.maxQuantity = maxOrderQuantity != null ? maxOrderQuantity : Integer.MAX_VALUE;
+        }
+
+        boolean isValid() {
+            return maxQuantity >= minQuantity;
+        }
+    }
+}
@@ -2,46 +2,59 @@
 public class ReplenishmentService {
 
     private final RestTemplate restTemplate;
-    private final JdbcTemplate jdbcTemplate;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final DemandRollups demandRollups;
+    private final DemandForecaster demandForecaster;
+    private final ReorderPlanner reorderPlanner;
+    private final ReplenishmentConsolidator replenishmentConsolidator;
+
+    // Глубина ряда prev_sales, который передается в ML-сервис
+    @org.springframework.beans.factory.annotation.Value("${inventory.replenishment.feature-days:30}")
+    private int featureDays = 30;
 
     public ReplenishmentService(
             RestTemplateBuilder restTemplateBuilder,
-            JdbcTemplate jdbcTemplate,
-            KafkaTemplate<String, String> kafkaTemplate
+            DemandRollups demandRollups,
+            DemandForecaster demandForecaster,
+            ReorderPlanner reorderPlanner,
+            ReplenishmentConsolidator replenishmentConsolidator
     ) {
         this.restTemplate = restTemplateBuilder.build();
-        this.jdbcTemplate = jdbcTemplate;
-        this.kafkaTemplate = kafkaTemplate;
+        this.demandRollups = demandRollups;
+        this.demandForecaster = demandForecaster;
+        this.reorderPlanner = reorderPlanner;
+        this.replenishmentConsolidator = replenishmentConsolidator;
     }
 
+    // Пополнение по плану для всего каталога: точка заказа и EOQ считаются одним проходом
+    // по локальным прогнозам, для отобранных продуктов объем уточняется прогнозом ML-сервиса.
+    // Потребности прогона объединяются в заказы по контрактам поставщиков. Это единственное плановое
+    // пополнение: остаток продукта - сумма по всем складам, и каждый заказ фиксируется событием
+    // replenishment-orders с его orderId только после коммита транзакции заказа
     @Scheduled(fixedRate = 3600000) // Каждый час
     public void checkAndReplenish() {
-        List<InventoryItem> lowStockItems = getLowStockItems();
+        ReorderColumns plan = reorderPlanner.plan();
+        Map<UUID, Integer> required = new LinkedHashMap<>();
 
-        for (InventoryItem item : lowStockItems) {
-            double prediction = getDemandPrediction(item.getProductId());
-            int required = calculateRequiredQuantity(item, prediction);
+        for (int i = 0; i < plan.size; i++) {
+            if (plan.orderQuantity[i] <= 0) {
+                continue;
+            }
+            UUID productId = plan.productIds[i];
+            double prediction = getDemandPrediction(productId);
+            int quantity = reorderPlanner.requiredQuantity(plan, i, prediction);
 
-            if (required > 0) {
-                createReplenishmentOrder(item, required);
+            if (quantity > 0) {
+                required.put(productId, quantity);
             }
         }
-    }
-
-    private List<InventoryItem> getLowStockItems() {
-        return jdbcTemplate.query(
-                "SELECT * FROM inventory WHERE stock < min_threshold",
-                (rs, rowNum) -> new InventoryItem(
-                        rs.getObject("product_id", UUID.class),
-                        rs.getString("name"),
-                        rs.getInt("stock"),
-                        rs.getInt("min_threshold")
-                )
-        );
+        replenishmentConsolidator.submit(required, "AUTO_REPLENISHMENT");
     }
 
     private double getDemandPrediction(UUID productId) {
+        // Медленно продающиеся продукты прогнозируются локально, без вызова ML-сервиса
+        if (demandForecaster.isFastPath(productId)) {
+            return demandForecaster.getForecast(productId).getDailyDemand();
+        }
         try {
             String url = "http://localhost:5000/predict";
             PredictionRequest request = new PredictionRequest(productId.toString(), getFeatures(productId));
@@ -51,32 +64,21 @@ public class ReplenishmentService {
 
             return response.getBody().getPrediction();
         } catch (Exception e) {
-            // Fallback: минимальный прогноз
-            return 10;
+            // Fallback: локальный прогноз по последним продажам продукта
+            return demandForecaster.getForecast(productId).getDailyDemand();
         }
     }
 
-    private int calculateRequiredQuantity(InventoryItem item, double prediction) {
-        int safetyStock = (int) Math.ceil(prediction * 1.2); // +20% буфер
-        return Math.max(0, safetyStock - item.getStock());
-    }
-
-    private void createReplenishmentOrder(InventoryItem item, int quantity) {
-        ReplenishmentEvent event = new ReplenishmentEvent(
-                UUID.randomUUID(),
-                item.getProductId(),
-                item.getName(),
-                quantity,
-                "AUTO"
-        );
-
-        kafkaTemplate.send("replenishment-orders", event.toJson());
-
-        // Обновление запасов (предварительное)
-        jdbcTemplate.update(
-                "UPDATE inventory SET stock = stock + ? WHERE product_id = ?",
-                quantity, item.getProductId()
-        );
+    // Признаки для predict.py из предагрегированных рядов: prev_sales - дневные продажи
+    // до вчерашнего дня включительно (старые первыми), prev_weekly_sales - закрытые недели
+    private Map<String, Object> getFeatures(UUID productId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<String, Object> features = new HashMap<>();
+        features.put("day_of_week", today.getDayOfWeek().getValue() - 1);
+        features.put("month", today.getMonthValue());
+        features.put("prev_sales", demandRollups.getDailySold(productId, today.minusDays(1), featureDays));
+        features.put("prev_weekly_sales", demandRollups.getWeeklySold(productId, today.minusWeeks(1), 8));
+        return features;
     }
 
     // Вспомогательные классы
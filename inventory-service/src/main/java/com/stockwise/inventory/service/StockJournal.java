@@ -0,0 +1,405 @@
+package com.stockwise.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Локальный журнал движений остатков: файлы-сегменты фиксированного размера, отображенные в память.
+// Запись: [длина][CRC32][sequence, productId, warehouseId, delta, время, причина]; длина 0 - конец данных.
+// Групповой коммит: писатели только копируют запись в отображение, отдельный поток делает force()
+// для всего накопленного и будит всех, чьи записи стали надежными, - один fsync на группу записей.
+// Надежные записи в порядке sequence выдаются применяющему потоку через pollDurable
+public class StockJournal implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(StockJournal.class);
+
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER = 8;
+    private static final int FIXED_PAYLOAD = 8 + 16 + 8 + 4 + 8 + 2;
+    private static final int MAX_REASON_BYTES = 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition durableChanged = appendLock.newCondition();
+    private final Condition appended = appendLock.newCondition();
+    private final ArrayDeque<Entry> undelivered = new ArrayDeque<>();
+    private final List<MappedByteBuffer> unforced = new ArrayList<>();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+    private long appendedSequence;
+    private long durableSequence;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+    private final Thread flusher;
+
+    public StockJournal(Path directory, int segmentSize, long flushIntervalMicros) {
+        if (segmentSize < HEADER + FIXED_PAYLOAD + MAX_REASON_BYTES + 4) {
+            throw new IllegalArgumentException("Journal segment is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = TimeUnit.MICROSECONDS.toNanos(flushIntervalMicros);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock journal in " + directory, e);
+        }
+        this.flusher = new Thread(this::flushLoop, "stock-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Запись в отображение; надежной она становится после ближайшего группового fsync
+    public long append(UUID productId, long warehouseId, int delta, String reason) {
+        byte[] reasonBytes = reason != null ? reason.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (reasonBytes.length > MAX_REASON_BYTES) {
+            throw new IllegalArgumentException("Journal reason is too long: " + reasonBytes.length + " bytes");
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Stock journal is closed");
+            }
+            int length = FIXED_PAYLOAD + reasonBytes.length;
+            // Должно остаться место под нулевую длину - маркер конца сегмента
+            if (segment.remaining() < HEADER + length + 4) {
+                roll();
+            }
+            long sequence = nextSequence++;
+            long journaledAt = System.currentTimeMillis();
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            payload.putLong(sequence)
+                    .putLong(productId.getMostSignificantBits())
+                    .putLong(productId.getLeastSignificantBits())
+                    .putLong(warehouseId)
+                    .putInt(delta)
+                    .putLong(journaledAt)
+                    .putShort((short) reasonBytes.length)
+                    .put(reasonBytes)
+                    .flip();
+            int checksum = crc(payload.duplicate());
+            int start = segment.position();
+            segment.position(start + HEADER);
+            segment.put(payload);
+            // Длина пишется последней: частично записанная запись не выглядит завершенной
+            segment.putInt(start + 4, checksum);
+            segment.putInt(start, length);
+
+            appendedSequence = sequence;
+            undelivered.add(new Entry(sequence, productId, warehouseId, delta, reason, journaledAt));
+            appended.signal();
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) throws InterruptedException {
+        appendLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new IllegalStateException("Stock journal flush failed", failure);
+                }
+                durableChanged.await();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Надежные, но еще не выданные записи по порядку; ждет не дольше timeout, если их нет
+    public List<Entry> pollDurable(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        appendLock.lock();
+        try {
+            while (undelivered.isEmpty() || undelivered.peek().sequence > durableSequence) {
+                if (remaining <= 0 || closed) {
+                    return List.of();
+                }
+                remaining = durableChanged.awaitNanos(remaining);
+            }
+            List<Entry> batch = new ArrayList<>(Math.min(max, undelivered.size()));
+            while (batch.size() < max && !undelivered.isEmpty() && undelivered.peek().sequence <= durableSequence) {
+                batch.add(undelivered.poll());
+            }
+            return batch;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Групповой коммит: пока идет force(), новые записи продолжают копиться и уйдут следующим fsync
+    private void flushLoop() {
+        while (true) {
+            long target;
+            List<MappedByteBuffer> toForce;
+            appendLock.lock();
+            try {
+                while (appendedSequence <= durableSequence && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (closed && appendedSequence <= durableSequence) {
+                    return;
+                }
+                target = appendedSequence;
+                toForce = new ArrayList<>(unforced);
+                unforced.clear();
+                toForce.add(segment);
+            } finally {
+                appendLock.unlock();
+            }
+
+            try {
+                for (MappedByteBuffer buffer : toForce) {
+                    buffer.force();
+                }
+            } catch (RuntimeException e) {
+                // Без fsync подтверждать нечего: ожидающие писатели получают ошибку
+                log.error("Stock journal flush failed", e);
+                appendLock.lock();
+                try {
+                    failure = e;
+                    closed = true;
+                    durableChanged.signalAll();
+                } finally {
+                    appendLock.unlock();
+                }
+                return;
+            }
+
+            appendLock.lock();
+            try {
+                durableSequence = Math.max(durableSequence, target);
+                durableChanged.signalAll();
+            } finally {
+                appendLock.unlock();
+            }
+            if (flushIntervalNanos > 0) {
+                // Короткая пауза собирает в следующий fsync больше записей
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    // Повтор всех записей с sequence больше afterSequence из всех сегментов на диске
+    public void replay(long afterSequence, Consumer<Entry> consumer) {
+        for (Path path : segments()) {
+            try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                Entry entry;
+                while ((entry = readEntry(buffer)) != null) {
+                    if (entry.sequence > afterSequence) {
+                        consumer.accept(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot replay journal segment " + path, e);
+            }
+        }
+    }
+
+    // Удаление сегментов, все записи которых уже применены (следующий сегмент начинается не позже)
+    public int release(long appliedSequence) {
+        List<Path> segments = segments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) - 1 > appliedSequence) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segments.get(i));
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Error deleting journal segment {}: {}", segments.get(i), e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    public long getAppendedSequence() {
+        appendLock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long getDurableSequence() {
+        appendLock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments().size();
+    }
+
+    // Открытие: последняя целая запись последнего сегмента задает следующий sequence;
+    // хвост после нее (оборванная запись) обнуляется
+    private void recover() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            openSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        long lastSequence = firstSequence(last) - 1;
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+        Entry entry;
+        while ((entry = readEntry(segment)) != null) {
+            lastSequence = entry.sequence;
+        }
+        int end = segment.position();
+        if (end + 4 <= segment.limit() && segment.getInt(end) != 0) {
+            for (int i = end; i < segment.limit(); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        nextSequence = lastSequence + 1;
+        appendedSequence = lastSequence;
+        durableSequence = lastSequence;
+    }
+
+    private void roll() {
+        unforced.add(segment);
+        try {
+            channel.close();
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll stock journal segment", e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    // Чтение записи с текущей позиции; null - конец данных или поврежденная запись
+    private static Entry readEntry(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.limit() - start < HEADER) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length < FIXED_PAYLOAD || length > FIXED_PAYLOAD + MAX_REASON_BYTES
+                || start + HEADER + length > buffer.limit()) {
+            return null;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER).limit(start + HEADER + length);
+        if (crc(payload.duplicate()) != buffer.getInt(start + 4)) {
+            return null;
+        }
+        long sequence = payload.getLong();
+        UUID productId = new UUID(payload.getLong(), payload.getLong());
+        long warehouseId = payload.getLong();
+        int delta = payload.getInt();
+        long journaledAt = payload.getLong();
+        byte[] reason = new byte[payload.getShort()];
+        payload.get(reason);
+        buffer.position(start + HEADER + length);
+        return new Entry(sequence, productId, warehouseId, delta,
+                new String(reason, StandardCharsets.UTF_8), journaledAt);
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list journal segments in " + directory, e);
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    // Остановка: оставшиеся записи сбрасываются на диск последним fsync
+    @Override
+    public void close() throws InterruptedException {
+        appendLock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+            durableChanged.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+        flusher.join();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing stock journal: {}", e.getMessage());
+        }
+    }
+
+    public static class Entry {
+        private final long sequence;
+        private final UUID productId;
+        private final long warehouseId;
+        private final int delta;
+        private final String reason;
+        private final long journaledAt;
+
+        public Entry(long sequence, UUID productId, long warehouseId, int delta, String reason, long journaledAt) {
+            this.sequence = sequence;
+            this.productId = productId;
+            this.warehouseId = warehouseId;
+            this.delta = delta;
+            this.reason = reason;
+            this.journaledAt = journaledAt;
+        }
+
+        // Getters
+        public long getSequence() { return sequence; }
+        public UUID getProductId() { return productId; }
+        public long getWarehouseId() { return warehouseId; }
+        public int getDelta() { return delta; }
+        public String getReason() { return reason; }
+        public long getJournaledAt() { return journaledAt; }
+    }
+}
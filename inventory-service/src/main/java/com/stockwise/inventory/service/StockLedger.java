@@ -0,0 +1,454 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.InventoryHistory;
+import com.stockwise.inventory.model.LedgerDiscrepancy;
+import com.stockwise.inventory.model.StockAvailability;
+import com.stockwise.inventory.model.Warehouse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Режим учета остатков по журналу движений: inventory_history (строки с inventory_id, их пишет
+// только StockWriteGateway) - источник истины, остаток позиции = сумма ее движений.
+// Периодические снимки фиксируют суммы движений до границы last_history_id, поэтому восстановление
+// и запросы на момент времени читают последний снимок и только хвост журнала после него.
+// Граница снимка - по порядку коммитов, а не по часам: history_id, снятый под блокировкой истории,
+// после которой все движения с меньшим id закоммичены, а все новые получат id больше (HistoryWatermark)
+@Service
+public class StockLedger implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private static final long SNAPSHOT_LOCK_KEY = 0x5354_4f43_4bL;
+
+    // Снимок = предыдущий снимок + движения с history_id в (prevLastHistoryId, lastHistoryId] по каждой позиции
+    private static final String SNAPSHOT_POSITIONS =
+            "INSERT INTO stock_snapshot_position (snapshot_id, inventory_id, product_id, warehouse_id, quantity) " +
+            "SELECT ?, inventory_id, product_id, MAX(warehouse_id), SUM(quantity) FROM (" +
+            "  SELECT inventory_id, product_id, warehouse_id, quantity FROM stock_snapshot_position " +
+            "  WHERE snapshot_id = ? " +
+            "  UNION ALL " +
+            "  SELECT inventory_id, product_id, warehouse_id, delta FROM inventory_history " +
+            "  WHERE inventory_id IS NOT NULL AND history_id > ? AND history_id <= ?" +
+            ") m GROUP BY inventory_id, product_id";
+
+    // Сумма движений одной позиции: снимок + хвост журнала после его границы
+    private static final String LEDGER_POSITION = "SELECT COALESCE(SUM(quantity), 0) FROM (" +
+            "  SELECT quantity FROM stock_snapshot_position WHERE snapshot_id = ? AND inventory_id = ? " +
+            "  UNION ALL " +
+            "  SELECT delta FROM inventory_history WHERE product_id = ? AND inventory_id = ? AND history_id > ?" +
+            ") m";
+
+    // Действие движений начального остатка: не продажи и не поставки, читатели спроса их пропускают
+    static final String OPENING_ACTION = "OPENING";
+
+    // Движения, которые привели таблицу inventory к текущему состоянию до включения режима
+    private static final String OPENING_BALANCES =
+            "INSERT INTO inventory_history (inventory_id, product_id, warehouse_id, action, delta, reason, created_at) " +
+            "SELECT i.inventory_id, i.product_id, i.warehouse_id, '" + OPENING_ACTION + "', " +
+            "i.quantity - COALESCE(h.total, 0), " +
+            "'LEDGER_BOOTSTRAP', now() FROM inventory i LEFT JOIN (" +
+            "  SELECT inventory_id, SUM(delta) AS total FROM inventory_history " +
+            "  WHERE inventory_id IS NOT NULL GROUP BY inventory_id" +
+            ") h ON h.inventory_id = i.inventory_id WHERE i.quantity <> COALESCE(h.total, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WarehouseService warehouseService;
+    private final VersionedStockCache stockCache;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate watermarkTransaction;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled = false;
+
+    // Сколько снимок ждет завершения пишущих транзакций под блокировкой истории; при таймауте
+    // снимок пропускается до следующего запуска
+    @Value("${inventory.ledger.watermark-lock-timeout-ms:5000}")
+    private long watermarkLockTimeoutMs = 5000;
+
+    // Полная частота снимков хранится retention-days, более старые прореживаются до одного в сутки
+    @Value("${inventory.ledger.snapshot-retention-days:7}")
+    private int retentionDays = 7;
+
+    // Проекция текущих остатков: продукт -> (inventoryId -> позиция). Пересборка подменяет карту
+    // целиком, движения, закоммиченные во время пересборки, копятся в pending
+    private volatile Map<UUID, Map<Long, Position>> projection = new ConcurrentHashMap<>();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentLinkedQueue<Movement> pending;
+
+    public StockLedger(JdbcTemplate jdbcTemplate, WarehouseService warehouseService,
+                       VersionedStockCache stockCache, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.warehouseService = warehouseService;
+        this.stockCache = stockCache;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readTransaction.setReadOnly(true);
+        this.watermarkTransaction = new TransactionTemplate(transactionManager);
+        this.watermarkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        bootstrap();
+        rebuild();
+    }
+
+    // Вызывается StockWriteGateway для каждой записи истории: проекция меняется только после коммита
+    public void recordAfterCommit(InventoryHistory history) {
+        if (!enabled) {
+            return;
+        }
+        Movement movement = new Movement(history.getHistoryId(), history.getInventoryItem().getInventoryId(),
+                history.getProductId(), history.getWarehouseId(), history.getDelta());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(movement);
+                }
+            });
+        } else {
+            apply(movement);
+        }
+    }
+
+    private void apply(Movement movement) {
+        rebuildLock.readLock().lock();
+        try {
+            ConcurrentLinkedQueue<Movement> buffer = pending;
+            if (buffer != null) {
+                buffer.add(movement);
+            } else {
+                apply(projection, movement);
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private static void apply(Map<UUID, Map<Long, Position>> target, Movement movement) {
+        target.computeIfAbsent(movement.productId, id -> new ConcurrentHashMap<>())
+                .compute(movement.inventoryId, (id, position) -> position == null
+                        ? new Position(movement.warehouseId, movement.delta)
+                        : position.plus(movement.delta));
+    }
+
+    // Пересборка проекции: последний снимок + хвост журнала, прочитанные в одной транзакции
+    // REPEATABLE READ. Движения хвоста читаются построчно: по их id отбрасываются дубликаты
+    // из pending, пришедшие через afterCommit во время чтения
+    public synchronized int rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            pending = new ConcurrentLinkedQueue<>();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+
+        Map<UUID, Map<Long, Position>> rebuilt = new ConcurrentHashMap<>();
+        Set<Long> replayed = new HashSet<>();
+        boolean loaded = false;
+        try {
+            readTransaction.executeWithoutResult(status -> {
+                Snapshot snapshot = latestSnapshot(null);
+                jdbcTemplate.query("SELECT inventory_id, product_id, warehouse_id, quantity " +
+                                "FROM stock_snapshot_position WHERE snapshot_id = ?",
+                        row -> {
+                            rebuilt.computeIfAbsent(row.getObject(2, UUID.class), id -> new ConcurrentHashMap<>())
+                                    .put(row.getLong(1), new Position((Long) row.getObject(3), row.getLong(4)));
+                        }, snapshot.id);
+                jdbcTemplate.query("SELECT history_id, inventory_id, product_id, warehouse_id, delta " +
+                                "FROM inventory_history WHERE inventory_id IS NOT NULL AND history_id > ?",
+                        row -> {
+                            Movement movement = new Movement(row.getLong(1), row.getLong(2),
+                                    row.getObject(3, UUID.class), (Long) row.getObject(4), row.getInt(5));
+                            replayed.add(movement.historyId);
+                            apply(rebuilt, movement);
+                        }, snapshot.lastHistoryId);
+            });
+            loaded = true;
+        } finally {
+            // При сбое чтения остается прежняя проекция, накопленные движения применяются к ней
+            rebuildLock.writeLock().lock();
+            try {
+                Map<UUID, Map<Long, Position>> target = loaded ? rebuilt : projection;
+                for (Movement movement : pending) {
+                    if (!loaded || !replayed.contains(movement.historyId)) {
+                        apply(target, movement);
+                    }
+                }
+                projection = target;
+                pending = null;
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+        }
+        return replayed.size();
+    }
+
+    // Первое включение режима: недостающие суммы записываются движениями OPENING, чтобы журнал
+    // объяснял текущие остатки, и сразу снимается первый снимок. SHARE ROW EXCLUSIVE блокирует
+    // запись остатков и параллельный bootstrap другого экземпляра
+    private void bootstrap() {
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE inventory IN SHARE ROW EXCLUSIVE MODE");
+            Integer snapshots = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_snapshot", Integer.class);
+            if (snapshots != null && snapshots > 0) {
+                return;
+            }
+            int opened = jdbcTemplate.update(OPENING_BALANCES);
+            log.info("Stock ledger bootstrap: {} opening movements", opened);
+            // Граница - в этой же транзакции: она уже держит вставку в историю, новая блокировала бы сама себя
+            insertSnapshot(captureWatermark());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshot-interval-ms:900000}")
+    public void scheduledSnapshot() {
+        if (enabled) {
+            takeSnapshot();
+        }
+    }
+
+    // Снимок строится в БД из предыдущего снимка и движений между их границами; advisory-блокировка
+    // не дает нескольким экземплярам снимать одновременно. Граница снимается в отдельной короткой
+    // транзакции, чтобы блокировка истории не держалась на время построения снимка
+    public Instant takeSnapshot() {
+        return writeTransaction.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                    Boolean.class, SNAPSHOT_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return null;
+            }
+            Snapshot watermark = watermarkTransaction.execute(watermarkStatus -> captureWatermark());
+            Instant cutoff = insertSnapshot(watermark);
+            jdbcTemplate.update("DELETE FROM stock_snapshot WHERE cutoff < ? AND snapshot_id NOT IN (" +
+                            "SELECT MIN(snapshot_id) FROM stock_snapshot GROUP BY date_trunc('day', cutoff))",
+                    Timestamp.from(Instant.now().minus(Duration.ofDays(retentionDays))));
+            return cutoff;
+        });
+    }
+
+    // Граница снимка по порядку коммитов (HistoryWatermark); время границы (cutoff) служит
+    // только для выбора снимка в запросах на момент времени
+    private Snapshot captureWatermark() {
+        HistoryWatermark watermark = HistoryWatermark.capture(jdbcTemplate, watermarkLockTimeoutMs);
+        return new Snapshot(-1L, watermark.getLastHistoryId(), watermark.getCapturedAt());
+    }
+
+    private Instant insertSnapshot(Snapshot watermark) {
+        Snapshot previous = latestSnapshot(null);
+        Long snapshotId = jdbcTemplate.queryForObject(
+                "INSERT INTO stock_snapshot (cutoff, last_history_id, taken_at) VALUES (?, ?, now()) " +
+                        "RETURNING snapshot_id",
+                Long.class, Timestamp.from(watermark.cutoff), watermark.lastHistoryId);
+        jdbcTemplate.update(SNAPSHOT_POSITIONS, snapshotId, previous.id,
+                previous.lastHistoryId, watermark.lastHistoryId);
+        return watermark.cutoff;
+    }
+
+    // Текущий остаток продукта из проекции, без обращения к БД
+    public StockAvailability currentStock(UUID productId) {
+        List<StockAvailability.LocationStock> locations = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<Long, Position> entry : projection.getOrDefault(productId, Map.of()).entrySet()) {
+            Position position = entry.getValue();
+            total += position.quantity;
+            locations.add(location(entry.getKey(), position.warehouseId, position.quantity));
+        }
+        locations.sort((a, b) -> Long.compare(a.getInventoryId(), b.getInventoryId()));
+        return new StockAvailability(productId, total, locations);
+    }
+
+    // Остаток на момент времени: ближайший снимок не позже момента плюс движения продукта после
+    // его границы с created_at до at. Хвост ограничен интервалом снимков (для старых дат - сутками)
+    public StockAvailability stockAt(UUID productId, Instant at) {
+        return readTransaction.execute(status -> {
+            Snapshot snapshot = latestSnapshot(at);
+            List<StockAvailability.LocationStock> locations = new ArrayList<>();
+            long[] total = new long[1];
+            jdbcTemplate.query("SELECT inventory_id, MAX(warehouse_id), SUM(quantity) FROM (" +
+                            "  SELECT inventory_id, warehouse_id, quantity FROM stock_snapshot_position " +
+                            "  WHERE snapshot_id = ? AND product_id = ? " +
+                            "  UNION ALL " +
+                            "  SELECT inventory_id, warehouse_id, delta FROM inventory_history " +
+                            "  WHERE product_id = ? AND inventory_id IS NOT NULL AND history_id > ? AND created_at < ?" +
+                            ") m GROUP BY inventory_id ORDER BY inventory_id",
+                    row -> {
+                        long quantity = row.getLong(3);
+                        total[0] += quantity;
+                        locations.add(location(row.getLong(1), (Long) row.getObject(2), quantity));
+                    },
+                    snapshot.id, productId, productId, snapshot.lastHistoryId, Timestamp.from(at));
+            return new StockAvailability(productId, total[0], locations);
+        });
+    }
+
+    // Сверка таблицы inventory с журналом в одном снимке БД: история и остаток пишутся
+    // в одной транзакции, поэтому любое расхождение - запись в обход StockWriteGateway или порча
+    public List<LedgerDiscrepancy> verify() {
+        return readTransaction.execute(status -> {
+            Snapshot snapshot = latestSnapshot(null);
+            return jdbcTemplate.query("SELECT COALESCE(i.inventory_id, l.inventory_id), " +
+                            "COALESCE(i.product_id, l.product_id), COALESCE(i.warehouse_id, l.warehouse_id), " +
+                            "i.quantity, COALESCE(l.quantity, 0) FROM inventory i FULL JOIN (" +
+                            "  SELECT inventory_id, product_id, MAX(warehouse_id) AS warehouse_id, " +
+                            "  SUM(quantity) AS quantity FROM (" +
+                            "    SELECT inventory_id, product_id, warehouse_id, quantity FROM stock_snapshot_position " +
+                            "    WHERE snapshot_id = ? " +
+                            "    UNION ALL " +
+                            "    SELECT inventory_id, product_id, warehouse_id, delta FROM inventory_history " +
+                            "    WHERE inventory_id IS NOT NULL AND history_id > ?" +
+                            "  ) m GROUP BY inventory_id, product_id" +
+                            ") l ON l.inventory_id = i.inventory_id " +
+                            "WHERE i.quantity IS DISTINCT FROM COALESCE(l.quantity, 0)",
+                    (row, rowNum) -> new LedgerDiscrepancy(row.getLong(1), row.getObject(2, UUID.class),
+                            (Long) row.getObject(3), (Integer) row.getObject(4), row.getLong(5)),
+                    snapshot.id, snapshot.lastHistoryId);
+        });
+    }
+
+    // Восстановление таблицы по журналу: остаток позиции перезаписывается суммой движений,
+    // версия растет, чтобы кэш не принял прежнее значение. Новых движений не пишется.
+    // verify() дает только кандидатов: каждая позиция блокируется FOR UPDATE, и сумма журнала
+    // пересчитывается в той же транзакции. Шлюз меняет остаток и пишет движение под блокировкой
+    // строки, поэтому под FOR UPDATE таблица и журнал позиции согласованы; UPDATE дополнительно
+    // проверяет версию. Возвращаются только исправленные позиции
+    public List<LedgerDiscrepancy> repair() {
+        List<LedgerDiscrepancy> candidates = verify();
+        List<LedgerDiscrepancy> repaired = new ArrayList<>();
+        writeTransaction.executeWithoutResult(status -> {
+            Snapshot snapshot = latestSnapshot(null);
+            for (LedgerDiscrepancy candidate : candidates) {
+                if (candidate.getTableQuantity() == null) {
+                    continue; // Позиция удалена из таблицы: восстанавливается вручную
+                }
+                List<long[]> locked = jdbcTemplate.query("SELECT quantity, version FROM inventory " +
+                                "WHERE inventory_id = ? AND product_id = ? FOR UPDATE",
+                        (row, rowNum) -> new long[]{row.getLong(1), row.getLong(2)},
+                        candidate.getInventoryId(), candidate.getProductId());
+                if (locked.isEmpty()) {
+                    continue;
+                }
+                long tableQuantity = locked.get(0)[0];
+                long version = locked.get(0)[1];
+                Long ledgerQuantity = jdbcTemplate.queryForObject(LEDGER_POSITION, Long.class,
+                        snapshot.id, candidate.getInventoryId(), candidate.getProductId(),
+                        candidate.getInventoryId(), snapshot.lastHistoryId);
+                if (ledgerQuantity == null || ledgerQuantity == tableQuantity) {
+                    continue; // Расхождение было гонкой с записью, закоммиченной между сверкой и блокировкой
+                }
+                int updated = jdbcTemplate.update("UPDATE inventory SET quantity = ?, version = version + 1, " +
+                                "last_updated = now() WHERE inventory_id = ? AND product_id = ? AND version = ?",
+                        ledgerQuantity, candidate.getInventoryId(), candidate.getProductId(), version);
+                if (updated == 1) {
+                    repaired.add(new LedgerDiscrepancy(candidate.getInventoryId(), candidate.getProductId(),
+                            candidate.getWarehouseId(), (int) tableQuantity, ledgerQuantity));
+                }
+            }
+        });
+        for (LedgerDiscrepancy discrepancy : repaired) {
+            stockCache.evict(discrepancy.getProductId() + "@" + discrepancy.getWarehouseId());
+        }
+        stockCache.evict(StockWriteGateway.LOW_STOCK_KEY);
+        return repaired;
+    }
+
+    // Последний снимок с cutoff не позже момента (null - последний вообще);
+    // без снимков журнал читается с начала
+    private Snapshot latestSnapshot(Instant notAfter) {
+        List<Snapshot> snapshots = notAfter == null
+                ? jdbcTemplate.query("SELECT snapshot_id, last_history_id, cutoff FROM stock_snapshot " +
+                        "ORDER BY last_history_id DESC LIMIT 1", StockLedger::snapshot)
+                : jdbcTemplate.query("SELECT snapshot_id, last_history_id, cutoff FROM stock_snapshot " +
+                        "WHERE cutoff <= ? ORDER BY last_history_id DESC LIMIT 1", StockLedger::snapshot,
+                Timestamp.from(notAfter));
+        return snapshots.isEmpty() ? new Snapshot(-1L, 0L, Instant.EPOCH) : snapshots.get(0);
+    }
+
+    private static Snapshot snapshot(ResultSet row, int rowNum) throws SQLException {
+        return new Snapshot(row.getLong(1), row.getLong(2), row.getTimestamp(3).toInstant());
+    }
+
+    private StockAvailability.LocationStock location(Long inventoryId, Long warehouseId, long quantity) {
+        Warehouse warehouse = warehouseId != null ? warehouseService.getActive(warehouseId) : null;
+        return new StockAvailability.LocationStock(inventoryId, warehouseId,
+                warehouse != null ? warehouse.getCode() : null, (int) quantity);
+    }
+
+    private static class Snapshot {
+        private final long id;
+        private final long lastHistoryId;
+        private final Instant cutoff;
+
+        Snapshot(long id, long lastHistoryId, Instant cutoff) {
+            this.id = id;
+            this.lastHistoryId = lastHistoryId;
+            this.cutoff = cutoff;
+        }
+    }
+
+    private static class Movement {
+        private final long historyId;
+        private final long inventoryId;
+        private final UUID productId;
+        private final Long warehouseId;
+        private final int delta;
+
+        Movement(long historyId, long inventoryId, UUID productId, Long warehouseId, int delta) {
+            this.historyId = historyId;
+            this.inventoryId = inventoryId;
+            this.productId = productId;
+            this.warehouseId = warehouseId;
+            this.delta = delta;
+        }
+    }
+
+    private static class Position {
+        private final Long warehouseId;
+        private final long quantity;
+
+        Position(Long warehouseId, long quantity) {
+            this.warehouseId = warehouseId;
+            this.quantity = quantity;
+        }
+
+        Position plus(long delta) {
+            return new Position(warehouseId, quantity + delta);
+        }
+    }
+}
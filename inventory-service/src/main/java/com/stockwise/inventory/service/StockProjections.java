@@ -0,0 +1,139 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.exception.InsufficientStockException;
+import com.stockwise.inventory.model.InventoryItem;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Локальная проекция остатка позиций, у которых есть неприменные движения журнала:
+// остаток из БД на момент загрузки + все изменения, подтвержденные после нее. По ней журнал
+// проверяет остаток до подтверждения, и через нее же проходят прямые записи StockWriteGateway
+// (ручная корректировка, пополнение, перемещение, резервирование, пересчет): прямая запись
+// резервирует изменение в проекции до UPDATE, после отката возвращает его, а если проекцию
+// успели перечитать из БД до коммита - добавляет изменение по версии позиции.
+// Без включенного журнала проекций нет и прямые записи ничего не делают
+@Component
+public class StockProjections {
+    private final Map<String, Projection> projections = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong();
+
+    // Движение журнала: проверка и резервирование по проекции, при первом движении позиции
+    // проекция загружается из БД. Возвращает остаток позиции с учетом движения
+    long reserveJournaled(UUID productId, long warehouseId, int delta, Supplier<InventoryItem> loader) {
+        String key = key(productId, warehouseId);
+        long[] projected = new long[1];
+        Projection reserved = null;
+        while (reserved == null) {
+            if (!projections.containsKey(key)) {
+                // Загрузка вне compute: в ConcurrentHashMap нельзя держать блокировку на время запроса в БД
+                InventoryItem item = loader.get();
+                projections.putIfAbsent(key, new Projection(item.getQuantity(), 0, item.getVersion(),
+                        generations.incrementAndGet()));
+            }
+            // null - проекцию успели удалить между загрузкой и резервированием, загружаем снова
+            reserved = projections.computeIfPresent(key, (k, value) -> {
+                if (value.quantity + delta < 0) {
+                    throw new InsufficientStockException(
+                            "Cannot reduce stock below zero. Product: " + productId
+                    );
+                }
+                projected[0] = value.quantity + delta;
+                return value.with(projected[0], value.inFlight + 1);
+            });
+        }
+        return projected[0];
+    }
+
+    // Движение журнала применено (correction 0) или отклонено (correction = -delta): когда у позиции
+    // не остается неприменных движений, проекция удаляется и при следующем движении перечитывается
+    void settleJournaled(UUID productId, long warehouseId, int correction) {
+        projections.computeIfPresent(key(productId, warehouseId), (k, value) -> value.inFlight <= 1
+                ? null
+                : value.with(value.quantity + correction, value.inFlight - 1));
+    }
+
+    // Прямая запись до UPDATE: если у позиции есть проекция, изменение резервируется в ней.
+    // checked = false - изменение принимается без проверки (пересчет фиксирует факт)
+    Change reserveDirect(UUID productId, long warehouseId, int delta, boolean checked) {
+        long[] generation = {0};
+        projections.computeIfPresent(key(productId, warehouseId), (k, value) -> {
+            if (checked && delta < 0 && value.quantity + delta < 0) {
+                throw new InsufficientStockException(
+                        "Cannot reduce stock below zero, unapplied journal movements pending. Product: " + productId
+                );
+            }
+            generation[0] = value.generation;
+            return value.with(value.quantity + delta, value.inFlight);
+        });
+        return new Change(productId, warehouseId, delta, generation[0]);
+    }
+
+    // После коммита прямой записи: резерв в той же проекции уже учтен; проекция, загруженная
+    // из БД до коммита (версия меньше версии записи), изменения еще не видела
+    void committed(Change change) {
+        projections.computeIfPresent(key(change.productId, change.warehouseId), (k, value) ->
+                value.generation != change.generation && change.version > value.baseVersion
+                        ? value.with(value.quantity + change.delta, value.inFlight)
+                        : value);
+    }
+
+    void rolledBack(Change change) {
+        projections.computeIfPresent(key(change.productId, change.warehouseId), (k, value) ->
+                value.generation == change.generation
+                        ? value.with(value.quantity - change.delta, value.inFlight)
+                        : value);
+    }
+
+    // Остаток по проекции; null - у позиции нет неприменных движений журнала
+    Long projectedQuantity(UUID productId, long warehouseId) {
+        Projection projection = projections.get(key(productId, warehouseId));
+        return projection != null ? projection.quantity : null;
+    }
+
+    private static String key(UUID productId, long warehouseId) {
+        return productId + "@" + warehouseId;
+    }
+
+    // Изменение позиции прямой записью; версия позиции известна после UPDATE
+    static class Change {
+        private final UUID productId;
+        private final long warehouseId;
+        private final int delta;
+        private final long generation;
+        private volatile long version = Long.MAX_VALUE;
+
+        private Change(UUID productId, long warehouseId, int delta, long generation) {
+            this.productId = productId;
+            this.warehouseId = warehouseId;
+            this.delta = delta;
+            this.generation = generation;
+        }
+
+        void setVersion(long version) {
+            this.version = version;
+        }
+    }
+
+    private static class Projection {
+        private final long quantity;
+        private final int inFlight;
+        private final long baseVersion;
+        private final long generation;
+
+        Projection(long quantity, int inFlight, long baseVersion, long generation) {
+            this.quantity = quantity;
+            this.inFlight = inFlight;
+            this.baseVersion = baseVersion;
+            this.generation = generation;
+        }
+
+        Projection with(long quantity, int inFlight) {
+            return new Projection(quantity, inFlight, baseVersion, generation);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.InventoryHistory;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.StockAllocation;
+import com.stockwise.inventory.model.TransferLeg;
+import com.stockwise.inventory.model.Warehouse;
+import com.stockwise.inventory.repository.HistoryRepository;
+import com.stockwise.inventory.repository.InventoryRepository;
+import com.stockwise.inventory.event.InventoryEvent;
+import com.stockwise.inventory.event.StockTransferEvent;
+import com.stockwise.inventory.exception.InsufficientStockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Единственная точка записи остатков: все изменения количества (API, пополнение, события заказов)
+// проходят здесь. Каждая запись увеличивает версию остатка и пишет историю, а после коммита
+// отправляет событие inventory-updates и кладет новое значение в кэш с проверкой версии.
+// Остаток хранится по позициям продукт x склад, поэтому записи на разных складах
+// не сериализуются на одной строке продукта.
+// Прямые записи учитываются в проекциях журнала (StockProjections): изменение резервируется
+// в проекции до UPDATE и снимается при откате, поэтому проверка журнального пути видит их сразу
+@Service
+public class StockWriteGateway {
+    private static final Logger log = LoggerFactory.getLogger(StockWriteGateway.class);
+
+    static final String LOW_STOCK_KEY = "low_stock";
+    static final String TRANSFERS_TOPIC = "inventory-transfers";
+
+    private final InventoryRepository repository;
+    private final HistoryRepository historyRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final VersionedStockCache stockCache;
+    private final WarehouseService warehouseService;
+    private final StockLedger stockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final StockProjections projections;
+
+    @Value("${inventory.stock.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${inventory.stock.backoff-base-ms:5}")
+    private long backoffBaseMs = 5;
+
+    @Value("${inventory.stock.backoff-max-ms:200}")
+    private long backoffMaxMs = 200;
+
+    public StockWriteGateway(InventoryRepository repository,
+                             HistoryRepository historyRepository,
+                             KafkaTemplate<String, String> kafkaTemplate,
+                             VersionedStockCache stockCache,
+                             WarehouseService warehouseService,
+                             StockLedger stockLedger,
+                             PlatformTransactionManager transactionManager,
+                             StockProjections projections) {
+        this.repository = repository;
+        this.historyRepository = historyRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.stockCache = stockCache;
+        this.warehouseService = warehouseService;
+        this.stockLedger = stockLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.projections = projections;
+    }
+
+    // Изменение на delta одним условным UPDATE: нет чтения перед записью и потерянных обновлений,
+    // уход в минус отсекается условием quantity + delta >= 0 в самой БД
+    @Transactional
+    public InventoryItem adjust(UUID productId, int delta, String reason) {
+        return adjust(productId, warehouseService.getDefaultWarehouseId(), delta, reason);
+    }
+
+    @Transactional
+    public InventoryItem adjust(UUID productId, Long warehouseId, int delta, String reason) {
+        StockProjections.Change change = reserveProjection(productId, warehouseId, delta, true);
+        InventoryItem item = applyAdjust(productId, warehouseId, delta, reason);
+        change.setVersion(item.getVersion());
+        return item;
+    }
+
+    // Применение движения журнала: оно уже учтено в проекции позиции при подтверждении
+    @Transactional
+    public InventoryItem applyJournaled(UUID productId, Long warehouseId, int delta, String reason) {
+        return applyAdjust(productId, warehouseId, delta, reason);
+    }
+
+    private InventoryItem applyAdjust(UUID productId, Long warehouseId, int delta, String reason) {
+        int updated = repository.adjustQuantityIfAvailable(productId, warehouseId, delta, Instant.now());
+        InventoryItem item = repository.findPosition(productId, warehouseId)
+                .orElseThrow(() -> new RuntimeException(
+                        "Inventory not found for product " + productId + " in warehouse " + warehouseId));
+        if (updated == 0) {
+            throw new InsufficientStockException(
+                    "Cannot reduce stock below zero. Product: " + item.getProduct().getName()
+            );
+        }
+
+        InventoryHistory history = recordHistory(item, "ADJUSTMENT", delta, reason);
+        sendInventoryEvent(history, delta, reason);
+        writeThroughAfterCommit(List.of(item));
+        return item;
+    }
+
+    // Атомарное перемещение по нескольким ногам: все позиции блокируются одним запросом
+    // в порядке inventoryId, к каждой применяется суммарное изменение по всем ногам,
+    // проверка на минус выполняется по итоговому остатку. Одна транзакция, одна запись
+    // в кэш на позицию и одно составное событие inventory-transfers
+    @Transactional
+    public List<InventoryItem> transfer(List<TransferLeg> legs, String reason) {
+        if (legs.isEmpty()) {
+            throw new IllegalArgumentException("Transfer must have at least one leg");
+        }
+        Map<Long, Integer> netDelta = new TreeMap<>();
+        for (TransferLeg leg : legs) {
+            if (leg.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Transfer quantity must be positive: " + leg.getQuantity());
+            }
+            if (Objects.equals(leg.getFromInventoryId(), leg.getToInventoryId())) {
+                throw new IllegalArgumentException("Cannot transfer to the same position: " + leg.getFromInventoryId());
+            }
+            netDelta.merge(leg.getFromInventoryId(), -leg.getQuantity(), Integer::sum);
+            netDelta.merge(leg.getToInventoryId(), leg.getQuantity(), Integer::sum);
+        }
+
+        List<InventoryItem> locked = repository.lockAllByInventoryIdIn(netDelta.keySet());
+        if (locked.size() != netDelta.size()) {
+            locked.forEach(item -> netDelta.remove(item.getInventoryId()));
+            throw new RuntimeException("Inventory not found: " + netDelta.keySet());
+        }
+
+        Instant now = Instant.now();
+        List<InventoryItem> changed = new ArrayList<>();
+        List<StockProjections.Change> changes = new ArrayList<>();
+        for (InventoryItem item : locked) {
+            int delta = netDelta.get(item.getInventoryId());
+            if (delta == 0) {
+                continue; // Транзитная позиция: сколько пришло, столько ушло
+            }
+            if (item.getQuantity() + delta < 0) {
+                throw new InsufficientStockException(
+                        "Cannot transfer more than available. Product: " + item.getProduct().getName()
+                );
+            }
+            changes.add(reserveProjection(item.getProduct().getProductId(), item.getWarehouse().getWarehouseId(),
+                    delta, true));
+            item.setQuantity(item.getQuantity() + delta);
+            item.setLastUpdated(now);
+            changed.add(item);
+        }
+        // Версии позиций увеличиваются при сбросе, до записи истории и события
+        repository.flush();
+        for (int i = 0; i < changed.size(); i++) {
+            changes.get(i).setVersion(changed.get(i).getVersion());
+        }
+
+        for (InventoryItem item : changed) {
+            recordHistory(item, "TRANSFER", netDelta.get(item.getInventoryId()), reason);
+        }
+        sendTransferEvent(new StockTransferEvent(UUID.randomUUID(), List.copyOf(legs), reason, now));
+        writeThroughAfterCommit(changed);
+        return locked;
+    }
+
+    // Резервирование с ближайших складов: план строится по снимку позиций без блокировок
+    // (ближайший склад с остатком, затем следующий), затем каждая строка плана списывается
+    // условным UPDATE в порядке inventoryId. Если параллельная запись успела забрать остаток,
+    // транзакция откатывается и план строится заново с повтором, как у setQuantity
+    public StockAllocation allocate(UUID productId, int quantity, double latitude, double longitude,
+                                    String reason) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Allocation quantity must be positive: " + quantity);
+        }
+        return withRetry(() -> allocateOnce(productId, quantity, latitude, longitude, reason));
+    }
+
+    private StockAllocation allocateOnce(UUID productId, int quantity, double latitude, double longitude,
+                                         String reason) {
+        Map<Long, InventoryItem> byWarehouse = new HashMap<>();
+        for (InventoryItem item : repository.findAllByProductId(productId)) {
+            byWarehouse.put(item.getWarehouse().getWarehouseId(), item);
+        }
+        if (byWarehouse.isEmpty()) {
+            throw new RuntimeException("Inventory not found for product: " + productId);
+        }
+
+        Map<Long, Integer> plan = new TreeMap<>();
+        Map<Long, Long> planWarehouses = new HashMap<>();
+        List<StockAllocation.Line> lines = new ArrayList<>();
+        int remaining = quantity;
+        for (Warehouse warehouse : warehouseService.byDistance(latitude, longitude)) {
+            InventoryItem item = byWarehouse.get(warehouse.getWarehouseId());
+            if (remaining == 0 || item == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            int take = Math.min(remaining, item.getQuantity());
+            plan.put(item.getInventoryId(), take);
+            planWarehouses.put(item.getInventoryId(), warehouse.getWarehouseId());
+            lines.add(new StockAllocation.Line(warehouse.getWarehouseId(), warehouse.getCode(), take,
+                    warehouse.distanceKm(latitude, longitude)));
+            remaining -= take;
+        }
+        if (remaining > 0) {
+            throw new InsufficientStockException(
+                    "Cannot allocate " + quantity + " units, available " + (quantity - remaining)
+                            + ". Product: " + productId
+            );
+        }
+
+        Instant now = Instant.now();
+        Map<Long, StockProjections.Change> changes = new HashMap<>();
+        plan.forEach((inventoryId, take) -> {
+            changes.put(inventoryId, reserveProjection(productId, planWarehouses.get(inventoryId), -take, true));
+            if (repository.adjustPositionIfAvailable(inventoryId, productId, -take, now) == 0) {
+                throw new OptimisticLockingFailureException(
+                        "Stock of position " + inventoryId + " changed during allocation");
+            }
+        });
+
+        // Условные UPDATE очистили контекст: перечитываем позиции с новыми версиями
+        List<InventoryItem> changed = new ArrayList<>();
+        for (InventoryItem item : repository.findAllByProductId(productId)) {
+            Integer take = plan.get(item.getInventoryId());
+            if (take != null) {
+                changes.get(item.getInventoryId()).setVersion(item.getVersion());
+                InventoryHistory history = recordHistory(item, "ALLOCATION", -take, reason);
+                // Событие на каждую списанную позицию со своим изменением
+                sendInventoryEvent(history, -take, reason);
+                changed.add(item);
+            }
+        }
+        writeThroughAfterCommit(changed);
+        return new StockAllocation(productId, quantity, lines);
+    }
+
+    // Установка остатка по результатам пересчета: чтение-изменение-запись с проверкой @Version.
+    // При конфликте транзакция повторяется (не больше maxAttempts) с экспоненциальной задержкой
+    // и случайным разбросом, чтобы конкурирующие писатели не сталкивались снова одновременно
+    public InventoryItem setQuantity(UUID productId, Long warehouseId, int quantity, String reason) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative: " + quantity);
+        }
+        return withRetry(() -> setQuantityOnce(productId, warehouseId, quantity, reason));
+    }
+
+    private InventoryItem setQuantityOnce(UUID productId, Long warehouseId, int quantity, String reason) {
+        InventoryItem item = repository.findPosition(productId, warehouseId)
+                .orElseThrow(() -> new RuntimeException(
+                        "Inventory not found for product " + productId + " in warehouse " + warehouseId));
+        int delta = quantity - item.getQuantity();
+        // Пересчет фиксирует фактический остаток: проекция сдвигается без проверки на минус
+        StockProjections.Change change = reserveProjection(productId, warehouseId, delta, false);
+        item.setQuantity(quantity);
+        item.setLastUpdated(Instant.now());
+        // Конфликт версий обнаруживается здесь, до отправки события
+        InventoryItem saved = repository.saveAndFlush(item);
+        change.setVersion(saved.getVersion());
+
+        InventoryHistory history = recordHistory(saved, "STOCK_COUNT", delta, reason);
+        sendInventoryEvent(history, delta, reason);
+        writeThroughAfterCommit(List.of(saved));
+        return saved;
+    }
+
+    private <T> T withRetry(Supplier<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Внутри транзакции вызывающего повтор невозможен: конфликт передается ему
+            return operation.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying stock update", e);
+        }
+    }
+
+    // Кэш обновляется только после коммита: читатели не видят незакоммиченный остаток,
+    // а проверка версии не дает параллельной записи с меньшей версией победить
+    private void writeThroughAfterCommit(List<InventoryItem> items) {
+        afterCommit(() -> {
+            stockCache.putAllIfNewer(items);
+            stockCache.evict(LOW_STOCK_KEY);
+        });
+    }
+
+    // Действие после коммита текущей транзакции (без транзакции - сразу). После отката
+    // ничего не выполняется, поэтому повтор транзакции не дает дублей событий
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Резерв прямой записи в проекции журнала: после коммита изменение остается в проекции
+    // (или добавляется в проекцию, перечитанную из БД до коммита), после отката снимается
+    private StockProjections.Change reserveProjection(UUID productId, long warehouseId, int delta, boolean checked) {
+        StockProjections.Change change = projections.reserveDirect(productId, warehouseId, delta, checked);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        projections.committed(change);
+                    } else {
+                        projections.rolledBack(change);
+                    }
+                }
+            });
+        }
+        return change;
+    }
+
+    private InventoryHistory recordHistory(InventoryItem item, String action, int delta, String reason) {
+        InventoryHistory history = new InventoryHistory();
+        history.setInventoryItem(item);
+        history.setAction(action);
+        history.setDelta(delta);
+        history.setReason(reason);
+        history.setTimestamp(Instant.now());
+        historyRepository.save(history);
+        // Запись истории - движение журнала остатков: проекция обновится после коммита
+        stockLedger.recordAfterCommit(history);
+        return history;
+    }
+
+    // Событие уходит только после коммита: откаченное перемещение не должно быть видно потребителям
+    private void sendTransferEvent(StockTransferEvent event) {
+        afterCommit(() -> {
+            try {
+                kafkaTemplate.send(TRANSFERS_TOPIC, event.getTransferId().toString(), event.toJson());
+            } catch (Exception e) {
+                log.error("Error sending transfer event {}", event.getTransferId(), e);
+            }
+        });
+    }
+
+    private void sendInventoryEvent(InventoryHistory history, int delta, String reason) {
+        InventoryEvent event = new InventoryEvent(
+                history.getProductId(),
+                delta,
+                reason,
+                history.getHistoryId()
+        );
+        afterCommit(() -> {
+            try {
+                kafkaTemplate.send("inventory-updates", event.toJson());
+            } catch (Exception e) {
+                // Остаток уже закоммичен: ошибка отправки не должна выглядеть как ошибка записи
+                log.error("Error sending inventory event for history {}", history.getHistoryId(), e);
+            }
+        });
+    }
+}
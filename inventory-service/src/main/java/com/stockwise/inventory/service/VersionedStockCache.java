@@ -0,0 +1,153 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.InventoryItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Кэш остатков "inventory" с записью по версии: значение заменяется, только если его версия
+// не меньше уже записанной. Поздний промах чтения, загрузивший из БД старую версию, не может
+// затереть более свежую запись StockWriteGateway. Формат ключей и значений берется
+// из конфигурации кэша, поэтому записи совместимы с RedisCache. Ключ - позиция
+// "productId@warehouseId": записи разных складов не конкурируют за один ключ
+@Component
+public class VersionedStockCache {
+    private static final Logger log = LoggerFactory.getLogger(VersionedStockCache.class);
+
+    static final String CACHE_NAME = "inventory";
+
+    // KEYS[1] - запись кэша, KEYS[2] - версия; ARGV: версия, значение, TTL в мс (0 - без TTL)
+    private static final byte[] COMPARE_AND_SET = (
+            "local current = tonumber(redis.call('GET', KEYS[2]) or '-1') " +
+            "local version = tonumber(ARGV[1]) " +
+            "if version < current then return 0 end " +
+            "local ttl = tonumber(ARGV[3]) " +
+            "if ttl > 0 then " +
+            "  redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl) " +
+            "  redis.call('SET', KEYS[2], ARGV[1], 'PX', ttl) " +
+            "else " +
+            "  redis.call('SET', KEYS[1], ARGV[2]) " +
+            "  redis.call('SET', KEYS[2], ARGV[1]) " +
+            "end " +
+            "return 1").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheManager cacheManager;
+
+    public VersionedStockCache(RedisTemplate<String, Object> redisTemplate, CacheManager cacheManager) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    public InventoryItem get(UUID productId, Long warehouseId) {
+        return getAll(List.of(productId), warehouseId).get(productId);
+    }
+
+    // Один MGET на набор продуктов одного склада; ошибки Redis превращаются в промахи
+    public Map<UUID, InventoryItem> getAll(List<UUID> productIds, Long warehouseId) {
+        RedisCacheConfiguration config = configuration();
+        byte[][] keys = new byte[productIds.size()][];
+        for (int i = 0; i < productIds.size(); i++) {
+            keys[i] = key(config, position(productIds.get(i), warehouseId));
+        }
+
+        List<byte[]> cached;
+        try {
+            cached = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(keys));
+        } catch (Exception e) {
+            log.warn("Error reading inventory cache: {}", e.getMessage());
+            return Map.of();
+        }
+
+        Map<UUID, InventoryItem> found = new HashMap<>(productIds.size() * 2);
+        for (int i = 0; cached != null && i < productIds.size(); i++) {
+            byte[] bytes = cached.get(i);
+            Object value = bytes != null ? config.getValueSerializationPair().read(ByteBuffer.wrap(bytes)) : null;
+            if (value instanceof InventoryItem) {
+                found.put(productIds.get(i), (InventoryItem) value);
+            }
+        }
+        return found;
+    }
+
+    public void putIfNewer(InventoryItem item) {
+        putAllIfNewer(List.of(item));
+    }
+
+    // Конвейерная условная запись; устаревшие значения молча отбрасываются сервером
+    public void putAllIfNewer(Collection<InventoryItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        RedisCacheConfiguration config = configuration();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (InventoryItem item : items) {
+                    String position = position(item.getProduct().getProductId(),
+                            item.getWarehouse().getWarehouseId());
+                    Duration ttl = config.getTtlFunction().getTimeToLive(position, item);
+                    long ttlMillis = ttl.isNegative() ? 0 : ttl.toMillis();
+                    connection.scriptingCommands().eval(COMPARE_AND_SET, ReturnType.INTEGER, 2,
+                            key(config, position),
+                            versionKey(config, position),
+                            ascii(item.getVersion()),
+                            ByteUtils.getBytes(config.getValueSerializationPair().write(item)),
+                            ascii(ttlMillis));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Запись в кэш - лучшее усилие: при сбое читатели получат промах или значение с прежней версией
+            log.warn("Error writing inventory cache: {}", e.getMessage());
+        }
+    }
+
+    // Списки (например, low_stock) не версионируются и после записи просто удаляются
+    public void evict(Object key) {
+        try {
+            cacheManager.getCache(CACHE_NAME).evict(key);
+        } catch (Exception e) {
+            log.warn("Error evicting inventory cache: {}", e.getMessage());
+        }
+    }
+
+    private RedisCacheConfiguration configuration() {
+        return ((RedisCache) cacheManager.getCache(CACHE_NAME)).getCacheConfiguration();
+    }
+
+    private static String position(UUID productId, Long warehouseId) {
+        return productId + "@" + warehouseId;
+    }
+
+    private static byte[] key(RedisCacheConfiguration config, String position) {
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(
+                config.getKeyPrefixFor(CACHE_NAME) + position));
+    }
+
+    // Hash tag {ключ записи}: версия попадает в тот же слот кластера, что и сама запись
+    private static byte[] versionKey(RedisCacheConfiguration config, String position) {
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(
+                "{" + config.getKeyPrefixFor(CACHE_NAME) + position + "}:version"));
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+}
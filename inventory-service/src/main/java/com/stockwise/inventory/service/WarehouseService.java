@@ -0,0 +1,58 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.Warehouse;
+import com.stockwise.inventory.repository.WarehouseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Справочник складов: складов немного, поэтому список держится в памяти и периодически перечитывается
+@Service
+public class WarehouseService {
+    private final WarehouseRepository warehouseRepository;
+    private final long defaultWarehouseId;
+    private volatile Map<Long, Warehouse> active;
+
+    public WarehouseService(WarehouseRepository warehouseRepository,
+                            @Value("${inventory.warehouse.default-id:1}") long defaultWarehouseId) {
+        this.warehouseRepository = warehouseRepository;
+        this.defaultWarehouseId = defaultWarehouseId;
+    }
+
+    // Склад для операций без указания склада (API по продукту, пополнение, события заказов)
+    public long getDefaultWarehouseId() {
+        return defaultWarehouseId;
+    }
+
+    public Warehouse getActive(Long warehouseId) {
+        return activeWarehouses().get(warehouseId);
+    }
+
+    // Активные склады от ближайшего к точке доставки
+    public List<Warehouse> byDistance(double latitude, double longitude) {
+        return activeWarehouses().values().stream()
+                .sorted(Comparator.comparingDouble(warehouse -> warehouse.distanceKm(latitude, longitude)))
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.warehouse.refresh-interval-ms:300000}")
+    public void refresh() {
+        active = warehouseRepository.findByActiveTrue().stream()
+                .collect(Collectors.toMap(Warehouse::getWarehouseId, Function.identity()));
+    }
+
+    private Map<Long, Warehouse> activeWarehouses() {
+        Map<Long, Warehouse> current = active;
+        if (current == null) {
+            refresh();
+            current = active;
+        }
+        return current;
+    }
+}
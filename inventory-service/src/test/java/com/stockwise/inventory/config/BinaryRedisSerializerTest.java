@@ -0,0 +1,96 @@
+package com.stockwise.inventory.config;
+
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.model.Warehouse;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRedisSerializerTest {
+    private final BinaryRedisSerializer serializer = InventoryCodecs.register(BinaryRedisSerializer.builder())
+            .compressAbove(1024)
+            .build();
+
+    @Test
+    void testInventoryItemRoundTripKeepsProductAndWarehouse() {
+        InventoryItem item = sampleItem(1);
+        InventoryItem restored = (InventoryItem) serializer.deserialize(serializer.serialize(item));
+
+        assertEquals(item.getInventoryId(), restored.getInventoryId());
+        assertEquals(item.getQuantity(), restored.getQuantity());
+        assertEquals(item.getLastUpdated(), restored.getLastUpdated());
+        assertEquals(item.getVersion(), restored.getVersion());
+        assertEquals(item.getProduct().getProductId(), restored.getProduct().getProductId());
+        assertEquals("Widget 1", restored.getProduct().getName());
+        assertNull(restored.getProduct().getCategory());
+        assertEquals(3L, restored.getWarehouse().getWarehouseId());
+    }
+
+    @Test
+    void testItemWithoutProductOrWarehouse() {
+        InventoryItem item = new InventoryItem();
+        item.setInventoryId(9L);
+        item.setQuantity(0);
+        InventoryItem restored = (InventoryItem) serializer.deserialize(serializer.serialize(item));
+
+        assertNull(restored.getProduct());
+        assertNull(restored.getWarehouse());
+    }
+
+    @Test
+    void testListsPredictionsAndNullValues() {
+        List<?> page = (List<?>) serializer.deserialize(serializer.serialize(List.of(sampleItem(1), sampleItem(2))));
+        assertEquals(2, page.size());
+        assertEquals(2L, ((InventoryItem) page.get(1)).getInventoryId());
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<>())));
+
+        assertEquals(12.5, serializer.deserialize(serializer.serialize(12.5)));
+        assertSame(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+    }
+
+    @Test
+    void testLargeValuesAreCompressed() {
+        List<InventoryItem> page = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            page.add(sampleItem(i));
+        }
+        byte[] bytes = serializer.serialize(page);
+        assertEquals(BinaryRedisSerializer.MAGIC_LZ4, bytes[0]);
+        assertEquals(200, ((List<?>) serializer.deserialize(bytes)).size());
+    }
+
+    @Test
+    void testUnregisteredTypesAndLegacyJsonUseFallback() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        Map<String, String> value = new HashMap<>(Map.of("key", "value"));
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        assertEquals("legacy", serializer.deserialize(json.serialize("legacy")));
+    }
+
+    @Test
+    void testSchemaVersionMismatchIsCacheMiss() {
+        BinaryRedisSerializer newer = BinaryRedisSerializer.builder()
+                .register(InventoryCodecs.INVENTORY_ITEM_TAG, InventoryItem.class, 4, InventoryCodecs.INVENTORY_ITEM)
+                .build();
+        assertNull(newer.deserialize(serializer.serialize(sampleItem(1))));
+    }
+
+    private static InventoryItem sampleItem(long id) {
+        InventoryItem item = new InventoryItem(
+                new Product(new UUID(0, id), "Widget " + id, null), new Warehouse(3L), 40);
+        item.setInventoryId(id);
+        item.setLastUpdated(Instant.parse("2024-03-01T12:00:00Z"));
+        item.setVersion(5);
+        return item;
+    }
+}
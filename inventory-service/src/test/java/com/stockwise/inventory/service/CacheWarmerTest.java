@@ -0,0 +1,130 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.CacheWarmupStatus;
+import com.stockwise.inventory.model.CacheWarmupStatus.State;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Прогрев кэшей: выбор горячих продуктов, пакеты, сбои и таймаут не мешают старту
+class CacheWarmerTest {
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final InventoryRepository repository = mock(InventoryRepository.class);
+    private final CacheWarmer warmer = new CacheWarmer(inventoryService, repository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(warmer, "batchSize", 2);
+        ReflectionTestUtils.setField(warmer, "parallelism", 2);
+        when(inventoryService.getInventoryItems(anyCollection()))
+                .thenAnswer(invocation -> items(invocation.getArgument(0)));
+    }
+
+    @Test
+    void testHotProductsAreWarmedInBatches() {
+        List<UUID> hot = productIds(5);
+        when(repository.findMostActiveProductIds(any(Instant.class), eq(5000))).thenReturn(hot);
+
+        warmer.run(null);
+
+        CacheWarmupStatus status = warmer.getStatus();
+        assertEquals(State.COMPLETED, status.getState());
+        assertEquals("inventory_history", status.getSource());
+        assertEquals(5, status.getRequestedProducts());
+        assertEquals(3, status.getTotalBatches());
+        assertEquals(3, status.getCompletedBatches());
+        assertEquals(5, status.getWarmedItems());
+        verify(inventoryService, times(3)).cacheProducts(anyCollection());
+        verify(repository, never()).findRecentlyUpdatedProductIds(any(Pageable.class));
+    }
+
+    @Test
+    void testRecentlyUpdatedProductsWhenHistoryIsEmpty() {
+        when(repository.findMostActiveProductIds(any(Instant.class), anyInt())).thenReturn(List.of());
+        when(repository.findRecentlyUpdatedProductIds(any(Pageable.class))).thenReturn(productIds(2));
+
+        warmer.run(null);
+
+        assertEquals("last_updated", warmer.getStatus().getSource());
+        assertEquals(2, warmer.getStatus().getWarmedItems());
+    }
+
+    @Test
+    void testFailedBatchDoesNotFailWarmUp() {
+        List<UUID> hot = productIds(4);
+        when(repository.findMostActiveProductIds(any(Instant.class), anyInt())).thenReturn(hot);
+        when(inventoryService.getInventoryItems(List.of(hot.get(0), hot.get(1))))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        warmer.run(null);
+
+        CacheWarmupStatus status = warmer.getStatus();
+        assertEquals(State.COMPLETED, status.getState());
+        assertEquals(1, status.getCompletedBatches());
+        assertEquals(2, status.getWarmedItems());
+    }
+
+    @Test
+    void testSlowWarmUpTimesOut() throws Exception {
+        ReflectionTestUtils.setField(warmer, "timeoutSeconds", 0L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findMostActiveProductIds(any(Instant.class), anyInt())).thenReturn(productIds(2));
+        when(inventoryService.getInventoryItems(anyCollection())).thenAnswer(invocation -> {
+            release.await();
+            return Map.of();
+        });
+
+        warmer.run(null);
+        release.countDown();
+
+        assertEquals(State.TIMED_OUT, warmer.getStatus().getState());
+        assertEquals(0, warmer.getStatus().getCompletedBatches());
+    }
+
+    @Test
+    void testSelectionFailureIsReportedAndDisabledSkipsWork() {
+        when(repository.findMostActiveProductIds(any(Instant.class), anyInt()))
+                .thenThrow(new IllegalStateException("db down"));
+        warmer.run(null);
+        assertEquals(State.FAILED, warmer.getStatus().getState());
+
+        CacheWarmer disabled = new CacheWarmer(inventoryService, repository);
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        disabled.run(null);
+        assertEquals(State.DISABLED, disabled.getStatus().getState());
+        verify(repository, times(1)).findMostActiveProductIds(any(Instant.class), anyInt());
+    }
+
+    private static List<UUID> productIds(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            ids.add(new UUID(0, i));
+        }
+        return ids;
+    }
+
+    private static Map<UUID, InventoryItem> items(Collection<UUID> productIds) {
+        Map<UUID, InventoryItem> items = new LinkedHashMap<>();
+        for (UUID productId : productIds) {
+            items.put(productId, new InventoryItem(new Product(productId, "Product", null), 10));
+        }
+        return items;
+    }
+}
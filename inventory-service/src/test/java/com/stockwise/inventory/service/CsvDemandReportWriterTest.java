@@ -0,0 +1,46 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DailyDemand;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Отчет в CSV: один заголовок на документ, строка на продукт и день
+class CsvDemandReportWriterTest {
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void testRowsForSeveralProductsShareOneHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvDemandReportWriter writer = new CsvDemandReportWriter(out);
+
+        writer.beginProduct(FIRST, DAY, DAY.plusDays(1));
+        writer.day(new DailyDemand(DAY, 5, 2));
+        writer.day(new DailyDemand(DAY.plusDays(1), 0, 10));
+        writer.endProduct();
+        writer.beginProduct(SECOND, DAY, DAY);
+        writer.day(new DailyDemand(DAY, 1, 0));
+        writer.endProduct();
+        writer.finish();
+
+        assertEquals("product_id,date,sold,received,net\n"
+                + FIRST + ",2024-03-01,5,2,-3\n"
+                + FIRST + ",2024-03-02,0,10,10\n"
+                + SECOND + ",2024-03-01,1,0,-1\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEmptyReportHasHeaderOnly() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CsvDemandReportWriter(out).finish();
+
+        assertEquals("product_id,date,sold,received,net\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,78 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DemandForecast.Method;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Локальный прогноз спроса: сглаживание, Кростон и быстрый путь до и после заполнения сводок
+class DemandForecasterTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final DemandRollups demandRollups = mock(DemandRollups.class);
+    private final DemandForecaster forecaster = new DemandForecaster(demandRollups);
+
+    @Test
+    void testExponentialSmoothingStartsFromFirstWeekAverage() {
+        assertEquals(5.5, DemandForecaster.exponentialSmoothing(new long[]{2, 2, 2, 2, 2, 2, 2, 9}, 0.5), 1e-9);
+        assertEquals(2.0, DemandForecaster.exponentialSmoothing(new long[]{1, 3}, 0.5), 1e-9);
+        assertEquals(0.0, DemandForecaster.exponentialSmoothing(new long[0], 0.5), 1e-9);
+    }
+
+    @Test
+    void testCrostonSmoothsSizeAndIntervalWithBiasCorrection() {
+        // Размер 4 -> 3, интервал 3 -> 2.5; (1 - 0.5 / 2) * 3 / 2.5
+        assertEquals(0.9, DemandForecaster.croston(new long[]{0, 0, 4, 0, 2}, 0.5), 1e-9);
+        assertEquals(0.0, DemandForecaster.croston(new long[]{0, 0, 0}, 0.5), 1e-9);
+    }
+
+    @Test
+    void testIntermittentDemandUsesCroston() {
+        when(demandRollups.isReady()).thenReturn(true);
+        when(demandRollups.getDailySold(eq(PRODUCT), any(), anyInt())).thenReturn(new long[]{0, 0, 4, 0, 2, 0});
+
+        assertEquals(Method.CROSTON, forecaster.getForecast(PRODUCT).getMethod());
+    }
+
+    @Test
+    void testRegularDemandUsesExponentialSmoothing() {
+        when(demandRollups.isReady()).thenReturn(true);
+        when(demandRollups.getDailySold(eq(PRODUCT), any(), anyInt())).thenReturn(new long[]{3, 1, 2, 4, 2, 3});
+
+        assertEquals(Method.SES, forecaster.getForecast(PRODUCT).getMethod());
+    }
+
+    @Test
+    void testForecastIsNotCachedBeforeRollupsAreReady() {
+        when(demandRollups.getDailySold(eq(PRODUCT), any(), anyInt())).thenReturn(new long[]{0, 0, 0});
+
+        assertFalse(forecaster.isFastPath(PRODUCT));
+        assertEquals(Method.NONE, forecaster.getForecast(PRODUCT).getMethod());
+
+        // Сводки заполнены: прогноз пересчитывается по реальному ряду и только теперь кэшируется
+        when(demandRollups.isReady()).thenReturn(true);
+        when(demandRollups.getDailySold(eq(PRODUCT), any(), anyInt())).thenReturn(new long[]{0, 1, 0, 1, 0, 1});
+        assertEquals(Method.CROSTON, forecaster.getForecast(PRODUCT).getMethod());
+        forecaster.getForecast(PRODUCT);
+        verify(demandRollups, times(2)).getDailySold(eq(PRODUCT), any(), anyInt());
+    }
+
+    @Test
+    void testFastPathOnlyForSlowSellersWithSales() {
+        when(demandRollups.isReady()).thenReturn(true);
+        UUID silent = UUID.randomUUID();
+        UUID slow = UUID.randomUUID();
+        UUID fast = UUID.randomUUID();
+        when(demandRollups.getDailySold(eq(silent), any(), anyInt())).thenReturn(new long[]{0, 0, 0, 0});
+        when(demandRollups.getDailySold(eq(slow), any(), anyInt())).thenReturn(new long[]{0, 1, 0, 1});
+        when(demandRollups.getDailySold(eq(fast), any(), anyInt())).thenReturn(new long[]{5, 7, 6, 8});
+
+        assertFalse(forecaster.isFastPath(silent));
+        assertTrue(forecaster.isFastPath(slow));
+        assertFalse(forecaster.isFastPath(fast));
+    }
+}
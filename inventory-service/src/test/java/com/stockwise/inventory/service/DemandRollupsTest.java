@@ -0,0 +1,128 @@
+package com.stockwise.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Сводки спроса: отбор продаж и поставок, граница загрузки истории по history_id
+class DemandRollupsTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final long WATERMARK = 100;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final DemandRollups rollups = new DemandRollups(jdbcTemplate, new ObjectMapper(), transactionManager);
+    private final Instant capturedAt = Instant.now();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        ResultSet watermark = mock(ResultSet.class);
+        when(watermark.getLong(1)).thenReturn(WATERMARK);
+        when(watermark.getTimestamp(2)).thenReturn(Timestamp.from(capturedAt));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COALESCE(MAX(history_id)"), any(RowMapper.class)))
+                .thenAnswer(invocation -> invocation.<RowMapper<?>>getArgument(1).mapRow(watermark, 0));
+    }
+
+    @Test
+    void testSeedIsBoundedByWatermarkAndFiltersDemand() throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("product_id", UUID.class)).thenReturn(PRODUCT);
+        when(row.getObject("day", LocalDate.class)).thenReturn(today());
+        when(row.getLong("sold")).thenReturn(4L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any(), any());
+
+        rollups.run(null);
+
+        verify(jdbcTemplate).execute("LOCK TABLE inventory_history IN SHARE ROW EXCLUSIVE MODE");
+        verify(jdbcTemplate).query(argThat((String sql) -> sql.contains("history_id <= ?")
+                        && sql.contains(DemandRollups.DEMAND_HISTORY_FILTER)),
+                any(RowCallbackHandler.class), any(), any(), eq(WATERMARK));
+        assertTrue(rollups.isReady());
+        assertEquals(4, soldToday());
+    }
+
+    @Test
+    void testEventsUpToWatermarkAreNotCountedTwice() {
+        rollups.run(null);
+
+        // Время события позже границы, но движение уже в загруженной истории
+        rollups.onInventoryUpdate(event(-3, "ORDER_EVENT", WATERMARK, capturedAt.plusSeconds(5)));
+        assertEquals(0, soldToday());
+
+        rollups.onInventoryUpdate(event(-2, "ORDER_EVENT", WATERMARK + 1, capturedAt.minusSeconds(5)));
+        assertEquals(2, soldToday());
+    }
+
+    @Test
+    void testEventsBeforeSeedAreLeftToHistory() {
+        rollups.onInventoryUpdate(event(-2, "ORDER_EVENT", WATERMARK + 1, capturedAt));
+
+        rollups.run(null);
+        assertEquals(0, soldToday());
+    }
+
+    @Test
+    void testOnlySalesAndReplenishmentAreCounted() {
+        rollups.run(null);
+
+        for (String reason : new String[]{"TRANSFER", "STOCK_COUNT", "MANUAL_ADJUSTMENT", "MANUAL", "OPENING"}) {
+            rollups.onInventoryUpdate(event(-5, reason, WATERMARK + 1, capturedAt));
+        }
+        assertEquals(0, soldToday());
+
+        rollups.onInventoryUpdate(event(-1, "ORDER_EVENT", WATERMARK + 1, capturedAt));
+        rollups.onInventoryUpdate(event(-2, "ALLOCATION", WATERMARK + 2, capturedAt));
+        rollups.onInventoryUpdate(event(7, "AUTO_REPLENISHMENT", WATERMARK + 3, capturedAt));
+        assertEquals(3, soldToday());
+        assertEquals(7, rollups.getDailyDemand(PRODUCT, today(), today()).get(0).getReceived());
+    }
+
+    @Test
+    void testEventWithoutHistoryIdFallsBackToTimestamp() {
+        rollups.run(null);
+
+        rollups.onInventoryUpdate(event(-3, "ORDER_EVENT", null, capturedAt.minusSeconds(1)));
+        assertEquals(0, soldToday());
+        rollups.onInventoryUpdate(event(-2, "ORDER_EVENT", null, capturedAt.plusSeconds(1)));
+        assertEquals(2, soldToday());
+    }
+
+    private long soldToday() {
+        return rollups.getDailySold(PRODUCT, today(), 1)[0];
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private static ConsumerRecord<String, String> event(int delta, String reason, Long historyId, Instant timestamp) {
+        String json = String.format("{\"productId\":\"%s\",\"delta\":%d,\"reason\":\"%s\"%s}", PRODUCT, delta,
+                reason, historyId != null ? ",\"historyId\":" + historyId : "");
+        return new ConsumerRecord<>(DemandRollups.UPDATES_TOPIC, 0, 0, timestamp.toEpochMilli(),
+                TimestampType.CREATE_TIME, 0, 0, PRODUCT.toString(), json, new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,187 @@
+package com.stockwise.inventory.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Сравнение чтений истории в одной таблице и в месячных секциях на большом объеме (по умолчанию 100M строк).
+// Запуск: STOCK_BENCH_JDBC_URL=jdbc:postgresql://localhost:5432/stockwise STOCK_BENCH_USER=...
+// STOCK_BENCH_PASSWORD=... HISTORY_BENCH_ROWS=100000000 mvn test -Dtest=HistoryPartitionBenchmarkTest
+// Данные генерируются на сервере (generate_series): 24 месяца, HISTORY_BENCH_PRODUCTS продуктов
+@EnabledIfEnvironmentVariable(named = "STOCK_BENCH_JDBC_URL", matches = ".+")
+class HistoryPartitionBenchmarkTest {
+    private static final long ROWS = Long.parseLong(env("HISTORY_BENCH_ROWS", "100000000"));
+    private static final int PRODUCTS = Integer.parseInt(env("HISTORY_BENCH_PRODUCTS", "10000"));
+    private static final int MONTHS = 24;
+    private static final int RUNS = 5;
+
+    private static final YearMonth FIRST_MONTH = YearMonth.now(ZoneOffset.UTC).minusMonths(MONTHS - 1);
+    private static final Instant START = FIRST_MONTH.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    private static final Instant END = FIRST_MONTH.plusMonths(MONTHS).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+    // Тот же запрос, что и HistoryRepository.findDailyMovements
+    private static final String DAILY_MOVEMENTS = "SELECT date_trunc('day', created_at), "
+            + "SUM(CASE WHEN delta < 0 THEN -delta ELSE 0 END), SUM(CASE WHEN delta > 0 THEN delta ELSE 0 END) "
+            + "FROM %s WHERE product_id = ? AND created_at >= ? AND created_at < ? GROUP BY 1 ORDER BY 1";
+
+    @BeforeAll
+    static void load() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            dropTables(statement);
+            String columns = "(history_id BIGINT NOT NULL, product_id UUID NOT NULL, action VARCHAR(32) NOT NULL, "
+                    + "delta INT NOT NULL, created_at TIMESTAMPTZ NOT NULL)";
+            statement.execute("CREATE TABLE bench_history_flat " + columns);
+            statement.execute("CREATE TABLE bench_history_part " + columns + " PARTITION BY RANGE (created_at)");
+            for (int i = 0; i < MONTHS; i++) {
+                YearMonth month = FIRST_MONTH.plusMonths(i);
+                statement.execute("CREATE TABLE " + partition(month) + " PARTITION OF bench_history_part "
+                        + "FOR VALUES FROM ('" + month.atDay(1) + " 00:00:00+00') TO ('"
+                        + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+            }
+
+            // Продукт - детерминированный UUID из номера, время равномерно по всему периоду
+            long spanSeconds = END.getEpochSecond() - START.getEpochSecond();
+            String generate = "SELECT g, md5((g % " + PRODUCTS + ")::text)::uuid, "
+                    + "CASE WHEN g % 5 = 0 THEN 'PURCHASE' ELSE 'SALE' END, "
+                    + "CASE WHEN g % 5 = 0 THEN 10 ELSE -1 END, "
+                    + "to_timestamp(" + START.getEpochSecond() + " + (g * 7919) % " + spanSeconds + ") "
+                    + "FROM generate_series(1, " + ROWS + ") g";
+            long startedAt = System.nanoTime();
+            statement.execute("INSERT INTO bench_history_flat " + generate);
+            statement.execute("INSERT INTO bench_history_part " + generate);
+            statement.execute("CREATE INDEX ON bench_history_flat (product_id, created_at)");
+            statement.execute("CREATE INDEX ON bench_history_part (product_id, created_at)");
+            statement.execute("ANALYZE bench_history_flat");
+            statement.execute("ANALYZE bench_history_part");
+            System.out.printf("loaded %d rows x2 in %d s%n", ROWS, (System.nanoTime() - startedAt) / 1_000_000_000);
+        }
+    }
+
+    @AfterAll
+    static void drop() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            dropTables(statement);
+        }
+    }
+
+    @Test
+    void testDemandReadTouchesOnlyPeriodPartitions() throws SQLException {
+        UUID productId = productId(42);
+        Instant to = END;
+        Instant from = to.minus(30, ChronoUnit.DAYS);
+
+        double flat = timeQuery("bench_history_flat", productId, from, to);
+        double partitioned = timeQuery("bench_history_part", productId, from, to);
+        System.out.printf("30-day demand read: flat %.1f ms, partitioned %.1f ms%n", flat, partitioned);
+
+        // Подготовленный запрос с параметрами: секции отсекаются при выполнении
+        String plan = explain(String.format(DAILY_MOVEMENTS, "bench_history_part"), productId, from, to);
+        long scanned = plan.lines().filter(line -> line.contains("bench_history_part_p")).count();
+        assertTrue(scanned <= 2, "30 days span at most two monthly partitions, plan:\n" + plan);
+    }
+
+    @Test
+    void testDetachIsCheaperThanDelete() throws SQLException {
+        YearMonth oldest = FIRST_MONTH;
+        Timestamp from = Timestamp.from(oldest.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        Timestamp to = Timestamp.from(oldest.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        try (Connection connection = connect()) {
+            long startedAt = System.nanoTime();
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM bench_history_flat WHERE created_at >= ? AND created_at < ?")) {
+                delete.setTimestamp(1, from);
+                delete.setTimestamp(2, to);
+                delete.executeUpdate();
+            }
+            double deleteMillis = (System.nanoTime() - startedAt) / 1e6;
+
+            startedAt = System.nanoTime();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE bench_history_part DETACH PARTITION " + partition(oldest));
+            }
+            double detachMillis = (System.nanoTime() - startedAt) / 1e6;
+            System.out.printf("drop oldest month: DELETE %.1f ms, DETACH %.1f ms%n", deleteMillis, detachMillis);
+            assertTrue(detachMillis < deleteMillis);
+        }
+    }
+
+    private double timeQuery(String table, UUID productId, Instant from, Instant to) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement query = connection.prepareStatement(String.format(DAILY_MOVEMENTS, table))) {
+            query.setObject(1, productId);
+            query.setTimestamp(2, Timestamp.from(from));
+            query.setTimestamp(3, Timestamp.from(to));
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                long startedAt = System.nanoTime();
+                try (ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getLong(2);
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - startedAt);
+            }
+            return best / 1e6;
+        }
+    }
+
+    private static String explain(String sql, UUID productId, Instant from, Instant to) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN (ANALYZE, COSTS OFF) " + sql)) {
+            explain.setObject(1, productId);
+            explain.setTimestamp(2, Timestamp.from(from));
+            explain.setTimestamp(3, Timestamp.from(to));
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rows = explain.executeQuery()) {
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static UUID productId(int n) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery("SELECT md5('" + n + "')::uuid")) {
+            row.next();
+            return row.getObject(1, UUID.class);
+        }
+    }
+
+    private static void dropTables(Statement statement) throws SQLException {
+        statement.execute("DROP TABLE IF EXISTS bench_history_flat");
+        statement.execute("DROP TABLE IF EXISTS bench_history_part");
+        statement.execute("DROP TABLE IF EXISTS " + partition(FIRST_MONTH));
+    }
+
+    private static String partition(YearMonth month) {
+        return "bench_history_part_p" + month.toString().replace("-", "");
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(System.getenv("STOCK_BENCH_JDBC_URL"),
+                env("STOCK_BENCH_USER", "postgres"), env("STOCK_BENCH_PASSWORD", ""));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
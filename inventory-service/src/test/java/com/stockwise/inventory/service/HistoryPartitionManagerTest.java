@@ -0,0 +1,85 @@
+package com.stockwise.inventory.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Месячные секции истории: создание вперед и архивирование секций старше срока хранения
+class HistoryPartitionManagerTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final HistoryPartitionManager manager = new HistoryPartitionManager(jdbcTemplate);
+    private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+    @Test
+    void testPartitionNameUsesYearAndMonth() {
+        assertEquals("inventory_history_p202403", HistoryPartitionManager.partitionName(YearMonth.of(2024, 3)));
+    }
+
+    @Test
+    void testCurrentAndUpcomingMonthsAreCreated() {
+        attached();
+
+        manager.maintain();
+
+        for (int i = 0; i <= 3; i++) {
+            YearMonth month = current.plusMonths(i);
+            verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS " + HistoryPartitionManager.partitionName(month)
+                    + " PARTITION OF inventory_history FOR VALUES FROM ('" + month.atDay(1)
+                    + " 00:00:00+00') TO ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+        }
+        verify(jdbcTemplate, times(4)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+    }
+
+    @Test
+    void testOnlyPartitionsOlderThanRetentionAreArchived() {
+        String expired = HistoryPartitionManager.partitionName(current.minusMonths(25));
+        String kept = HistoryPartitionManager.partitionName(current.minusMonths(24));
+        attached(expired, kept, "inventory_history_default");
+
+        manager.maintain();
+
+        verify(jdbcTemplate).execute("ALTER TABLE inventory_history DETACH PARTITION " + expired);
+        verify(jdbcTemplate).execute("CREATE SCHEMA IF NOT EXISTS history_archive");
+        verify(jdbcTemplate).execute("ALTER TABLE " + expired + " SET SCHEMA history_archive");
+        verify(jdbcTemplate, times(1)).execute(startsWith("ALTER TABLE inventory_history DETACH"));
+    }
+
+    @Test
+    void testFailuresDoNotStopMaintenance() {
+        String first = HistoryPartitionManager.partitionName(current.minusMonths(30));
+        String second = HistoryPartitionManager.partitionName(current.minusMonths(29));
+        attached(first, second);
+        doThrow(new DataAccessResourceFailureException("rows in default partition"))
+                .when(jdbcTemplate).execute(contains(HistoryPartitionManager.partitionName(current) + " PARTITION OF"));
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(jdbcTemplate).execute("ALTER TABLE inventory_history DETACH PARTITION " + first);
+
+        manager.maintain();
+
+        verify(jdbcTemplate, times(4)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+        verify(jdbcTemplate, never()).execute("ALTER TABLE " + first + " SET SCHEMA history_archive");
+        verify(jdbcTemplate).execute("ALTER TABLE " + second + " SET SCHEMA history_archive");
+    }
+
+    @Test
+    void testDisabledManagerDoesNothing() {
+        ReflectionTestUtils.setField(manager, "enabled", false);
+
+        manager.run(null);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void attached(String... partitions) {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(List.of(partitions));
+    }
+}
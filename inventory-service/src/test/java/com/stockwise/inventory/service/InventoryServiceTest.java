@@ -0,0 +1,142 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DemandForecast;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.model.Warehouse;
+import com.stockwise.inventory.repository.InventoryRepository;
+import com.stockwise.inventory.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Пакетное чтение остатков для POST /inventory/batch-get: попадания из кэша,
+// один IN-запрос на промахи чанка и запись загруженного обратно в кэш; кэширование прогноза спроса
+class InventoryServiceTest {
+    private static final Long WAREHOUSE = 1L;
+
+    private final InventoryRepository repository = mock(InventoryRepository.class);
+    private final VersionedStockCache stockCache = mock(VersionedStockCache.class);
+    private final WarehouseService warehouseService = mock(WarehouseService.class);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final CacheManager cacheManager = mock(CacheManager.class);
+    private final DemandForecaster demandForecaster = mock(DemandForecaster.class);
+    private final Cache predictions = new ConcurrentMapCache("predictions");
+    @SuppressWarnings("unchecked")
+    private final InventoryService service = new InventoryService(repository, mock(ProductRepository.class),
+            mock(KafkaTemplate.class), restTemplate, mock(RedisTemplate.class), cacheManager,
+            mock(StockWriteGateway.class), stockCache, warehouseService, mock(JournaledStockWriter.class),
+            demandForecaster);
+
+    @BeforeEach
+    void setUp() {
+        when(cacheManager.getCache("predictions")).thenReturn(predictions);
+        when(warehouseService.getDefaultWarehouseId()).thenReturn(WAREHOUSE);
+        when(stockCache.getAll(anyList(), eq(WAREHOUSE))).thenReturn(Map.of());
+        when(repository.findByProductIdIn(anyList(), eq(WAREHOUSE))).thenAnswer(invocation -> {
+            List<InventoryItem> items = new ArrayList<>();
+            for (UUID productId : invocation.<List<UUID>>getArgument(0)) {
+                items.add(item(productId, 10));
+            }
+            return items;
+        });
+    }
+
+    @Test
+    void testMissesAreLoadedInOneQueryAndBackfilled() {
+        UUID hit = product(1);
+        UUID miss = product(2);
+        UUID unknown = product(3);
+        InventoryItem cached = item(hit, 40);
+        when(stockCache.getAll(anyList(), eq(WAREHOUSE))).thenReturn(Map.of(hit, cached));
+        InventoryItem loaded = item(miss, 7);
+        when(repository.findByProductIdIn(anyList(), eq(WAREHOUSE))).thenReturn(List.of(loaded));
+
+        Map<UUID, InventoryItem> items = service.getInventoryItems(List.of(miss, hit, unknown, miss));
+
+        // Порядок запроса без повторов; неизвестный продукт просто отсутствует
+        assertEquals(List.of(miss, hit), new ArrayList<>(items.keySet()));
+        assertSame(cached, items.get(hit));
+        verify(stockCache).getAll(List.of(miss, hit, unknown), WAREHOUSE);
+        verify(repository).findByProductIdIn(List.of(miss, unknown), WAREHOUSE);
+        verify(stockCache).putAllIfNewer(List.of(loaded));
+    }
+
+    @Test
+    void testAllHitsSkipDatabase() {
+        UUID hit = product(1);
+        when(stockCache.getAll(anyList(), eq(WAREHOUSE))).thenReturn(Map.of(hit, item(hit, 40)));
+
+        assertEquals(1, service.getInventoryItems(List.of(hit)).size());
+
+        verifyNoInteractions(repository);
+        verify(stockCache, never()).putAllIfNewer(any());
+    }
+
+    @Test
+    void testLargeRequestsAreChunked() {
+        List<UUID> productIds = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            productIds.add(product(i));
+        }
+
+        Map<UUID, InventoryItem> items = service.getInventoryItems(productIds);
+
+        assertEquals(2500, items.size());
+        verify(stockCache, times(3)).getAll(anyList(), eq(WAREHOUSE));
+        verify(repository).findByProductIdIn(productIds.subList(0, 1000), WAREHOUSE);
+        verify(repository).findByProductIdIn(productIds.subList(1000, 2000), WAREHOUSE);
+        verify(repository).findByProductIdIn(productIds.subList(2000, 2500), WAREHOUSE);
+        verify(stockCache, times(3)).putAllIfNewer(anyCollection());
+    }
+
+    @Test
+    void testFallbackPredictionIsNotCached() {
+        UUID productId = product(1);
+        when(restTemplate.postForObject(anyString(), any(), eq(InventoryService.PredictionResponse.class)))
+                .thenThrow(new RuntimeException("ml-service unavailable"));
+        when(demandForecaster.getForecast(productId)).thenReturn(forecast(productId, 0.0));
+
+        assertEquals(0.0, service.getDemandPrediction(productId));
+        assertNull(predictions.get(productId));
+
+        // ML-сервис вернулся: следующий вызов получает его прогноз, а не закэшированный fallback
+        InventoryService.PredictionResponse response = new InventoryService.PredictionResponse();
+        ReflectionTestUtils.setField(response, "prediction", 12.5);
+        reset(restTemplate);
+        when(restTemplate.postForObject(anyString(), any(), eq(InventoryService.PredictionResponse.class)))
+                .thenReturn(response);
+
+        assertEquals(12.5, service.getDemandPrediction(productId));
+        assertEquals(12.5, service.getDemandPrediction(productId));
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(InventoryService.PredictionResponse.class));
+    }
+
+    private static UUID product(int i) {
+        return new UUID(0, i);
+    }
+
+    private static InventoryItem item(UUID productId, int quantity) {
+        return new InventoryItem(new Product(productId, "Product", null), new Warehouse(WAREHOUSE), quantity);
+    }
+
+    private static DemandForecast forecast(UUID productId, double dailyDemand) {
+        return new DemandForecast(productId, dailyDemand, DemandForecast.Method.NONE, 0, 0, 0, Instant.now());
+    }
+}
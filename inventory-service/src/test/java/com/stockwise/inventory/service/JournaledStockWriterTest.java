@@ -0,0 +1,71 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Применение журнала: отказ БД повторяется, а не отклоняет подтвержденные движения
+class JournaledStockWriterTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final StockWriteGateway gateway = mock(StockWriteGateway.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final JournaledStockWriter writer = new JournaledStockWriter(gateway, mock(InventoryRepository.class),
+            jdbcTemplate, kafkaTemplate, transactionManager, new StockProjections());
+
+    @Test
+    void testConnectionFailureIsRetriedNotRejected() {
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"));
+
+        assertThrows(CannotCreateTransactionException.class, () -> writer.applyBatch(List.of(entry(1, -5))));
+        verifyNoInteractions(kafkaTemplate);
+        assertEquals(0, writer.getStatus().getRejected());
+        assertEquals(0, writer.getStatus().getAppliedSequence());
+    }
+
+    @Test
+    void testFailedEntryIsRejectedOnceAndOthersApplied() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(gateway.applyJournaled(eq(PRODUCT), eq(1L), eq(-50), anyString()))
+                .thenThrow(new IllegalStateException("Cannot reduce stock below zero"));
+
+        writer.applyBatch(List.of(entry(1, -5), entry(2, -50), entry(3, 7)));
+
+        verify(kafkaTemplate, times(1)).send(eq(JournaledStockWriter.DLQ_TOPIC), eq(PRODUCT.toString()),
+                contains("\"journalSequence\":2"));
+        assertEquals(1, writer.getStatus().getRejected());
+        assertEquals(3, writer.getStatus().getAppliedSequence());
+    }
+
+    @Test
+    void testInfrastructureFailuresAreClassifiedThroughCauses() {
+        assertTrue(JournaledStockWriter.isInfrastructureFailure(new CannotCreateTransactionException("down")));
+        assertTrue(JournaledStockWriter.isInfrastructureFailure(new DataAccessResourceFailureException("down")));
+        assertTrue(JournaledStockWriter.isInfrastructureFailure(
+                new RuntimeException(new SQLTransientConnectionException("timeout"))));
+        assertFalse(JournaledStockWriter.isInfrastructureFailure(new DataIntegrityViolationException("fk")));
+        assertFalse(JournaledStockWriter.isInfrastructureFailure(new IllegalStateException("not found")));
+    }
+
+    private static StockJournal.Entry entry(long sequence, int delta) {
+        return new StockJournal.Entry(sequence, PRODUCT, 1L, delta, "ORDER_EVENT", 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DailyDemand;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Постраничный PDF: перенос таблицы на новые страницы, экранирование строк, корректная таблица xref
+class PdfDemandReportWriterTest {
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void testEscapesStringDelimitersAndNonAscii() {
+        assertEquals("\\(UTC\\) a\\\\b", PdfDemandReportWriter.escape("(UTC) a\\b"));
+        assertEquals("caf? ?", PdfDemandReportWriter.escape("café \t"));
+        assertEquals("Total", PdfDemandReportWriter.escape("Total"));
+    }
+
+    @Test
+    void testLongTableContinuesOnNextPageAndProductsStartNewPage() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfDemandReportWriter writer = new PdfDemandReportWriter(out);
+
+        // 4 строки заголовка + 100 дней + 3 строки итогов: две страницы по 62 строки
+        writer.beginProduct(FIRST, DAY, DAY.plusDays(99));
+        for (int i = 0; i < 100; i++) {
+            writer.day(new DailyDemand(DAY.plusDays(i), 1, 0));
+        }
+        writer.endProduct();
+        writer.beginProduct(SECOND, DAY, DAY);
+        writer.day(new DailyDemand(DAY, 3, 7));
+        writer.endProduct();
+        writer.finish();
+
+        String pdf = out.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-1.4\n"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+        assertTrue(pdf.contains("/Type /Pages /Count 3 "));
+        assertEquals(1, count(pdf, "product " + FIRST + " \\(continued\\)"));
+        assertEquals(0, count(pdf, "product " + SECOND + " \\(continued\\)"));
+        assertTrue(pdf.contains("(Period: 2024-01-01 .. 2024-04-09 \\(UTC\\)) Tj"));
+        assertTrue(pdf.contains("(Total               100            0         -100) Tj"));
+        assertXrefPointsAtObjects(pdf);
+    }
+
+    @Test
+    void testEmptyReportIsSinglePage() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PdfDemandReportWriter(out).finish();
+
+        String pdf = out.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.contains("/Type /Pages /Count 1 "));
+        assertTrue(pdf.contains("(No products in report) Tj"));
+        assertXrefPointsAtObjects(pdf);
+    }
+
+    private static void assertXrefPointsAtObjects(String pdf) {
+        int xref = Integer.parseInt(pdf.substring(pdf.lastIndexOf("startxref\n") + 10, pdf.lastIndexOf("\n%%EOF")));
+        assertTrue(pdf.startsWith("xref\n", xref));
+        Matcher entries = Pattern.compile("(\\d{10}) 00000 n ").matcher(pdf.substring(xref));
+        int object = 0;
+        while (entries.find()) {
+            object++;
+            assertTrue(pdf.startsWith(object + " 0 obj\n", Integer.parseInt(entries.group(1))),
+                    "xref offset of object " + object);
+        }
+        assertTrue(pdf.contains("/Size " + (object + 1) + " "));
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
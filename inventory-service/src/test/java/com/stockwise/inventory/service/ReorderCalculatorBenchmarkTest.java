@@ -0,0 +1,176 @@
+package com.stockwise.inventory.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Расчет точки заказа и EOQ: проверка формул и замер на каталоге из 1M продуктов - колоночный
+// проход ReorderCalculator против того же расчета по объекту на продукт.
+// Замер: STOCK_BENCH_REORDER=true mvn test -Dtest=ReorderCalculatorBenchmarkTest
+// (JMH в сборке нет; лучший из RUNS прогонов после WARMUP прогревочных)
+class ReorderCalculatorBenchmarkTest {
+    private static final int SKUS = Integer.parseInt(env("REORDER_BENCH_SKUS", "1000000"));
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    @Test
+    void testZScoreMatchesNormalQuantiles() {
+        assertEquals(1.2816, ReorderCalculator.zScore(0.90), 1e-4);
+        assertEquals(1.6449, ReorderCalculator.zScore(0.95), 1e-4);
+        assertEquals(2.3263, ReorderCalculator.zScore(0.99), 1e-4);
+        assertEquals(-2.3263, ReorderCalculator.zScore(0.01), 1e-4);
+        assertEquals(0.0, ReorderCalculator.zScore(0.5), 1e-9);
+    }
+
+    @Test
+    void testReorderPointAndEconomicOrderQuantity() {
+        ReorderColumns columns = new ReorderColumns(2);
+        // Спрос 10 +- 3 в день, поставка 4 дня, z = 1.6449
+        for (int i = 0; i < 2; i++) {
+            columns.demandMean[i] = 10;
+            columns.demandVariance[i] = 9;
+            columns.leadTimeDays[i] = 4;
+            columns.zScore[i] = ReorderCalculator.zScore(0.95);
+            columns.orderCost[i] = 50;
+            columns.holdingCost[i] = 2;
+        }
+        columns.stock[0] = 30;
+        columns.stock[1] = 100;
+        ReorderCalculator.calculate(columns);
+
+        double safety = 1.6449 * 3 * 2;
+        double eoq = Math.sqrt(2 * 365 * 10 * 50 / 2.0);
+        assertEquals(safety, columns.safetyStock[0], 1e-3);
+        assertEquals(40 + safety, columns.reorderPoint[0], 1e-3);
+        assertEquals(eoq, columns.economicOrderQuantity[0], 1e-9);
+        // Остаток ниже точки заказа - заказывается EOQ; выше - ничего
+        assertEquals(Math.ceil(eoq), columns.orderQuantity[0]);
+        assertEquals(0, columns.orderQuantity[1]);
+    }
+
+    @Test
+    void testMinThresholdIsFloorOfReorderPoint() {
+        ReorderColumns columns = new ReorderColumns(2);
+        // Спроса нет: точку заказа задает только минимальный остаток продукта
+        for (int i = 0; i < 2; i++) {
+            columns.leadTimeDays[i] = 4;
+            columns.zScore[i] = ReorderCalculator.zScore(0.95);
+            columns.orderCost[i] = 50;
+            columns.holdingCost[i] = 2;
+            columns.minThreshold[i] = 20;
+        }
+        columns.stock[0] = 5;
+        columns.stock[1] = 25;
+        ReorderCalculator.calculate(columns);
+
+        assertEquals(20, columns.reorderPoint[0], 1e-9);
+        assertEquals(15, columns.orderQuantity[0]);
+        assertEquals(0, columns.orderQuantity[1]);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "STOCK_BENCH_REORDER", matches = "true")
+    void testMillionSkuCatalogue() {
+        ReorderColumns columns = catalogue(SKUS);
+        Sku[] skus = new Sku[SKUS];
+        for (int i = 0; i < SKUS; i++) {
+            skus[i] = new Sku(columns.stock[i], columns.demandMean[i], columns.demandVariance[i],
+                    columns.leadTimeDays[i], columns.zScore[i], columns.orderCost[i], columns.holdingCost[i]);
+        }
+        // Объекты перемешаны, как после загрузки из разных источников
+        shuffle(skus);
+
+        long columnar = best(() -> ReorderCalculator.calculate(columns));
+        long objects = best(() -> {
+            for (Sku sku : skus) {
+                sku.calculate();
+            }
+        });
+        System.out.printf("%d SKUs: columnar %.2f ms (%.2f ns/SKU), object per SKU %.2f ms (%.2f ns/SKU)%n",
+                SKUS, columnar / 1e6, (double) columnar / SKUS, objects / 1e6, (double) objects / SKUS);
+
+        double ordered = Arrays.stream(columns.orderQuantity).sum();
+        double orderedByObjects = Arrays.stream(skus).mapToDouble(sku -> sku.orderQuantity).sum();
+        assertEquals(ordered, orderedByObjects, 1e-6 * ordered);
+    }
+
+    private static long best(Runnable pass) {
+        for (int i = 0; i < WARMUP; i++) {
+            pass.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long startedAt = System.nanoTime();
+            pass.run();
+            best = Math.min(best, System.nanoTime() - startedAt);
+        }
+        return best;
+    }
+
+    private static ReorderColumns catalogue(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        ReorderColumns columns = new ReorderColumns(size);
+        double z = ReorderCalculator.zScore(0.95);
+        for (int i = 0; i < size; i++) {
+            double mean = random.nextDouble() < 0.7 ? random.nextDouble(0, 2) : random.nextDouble(2, 200);
+            columns.demandMean[i] = mean;
+            columns.demandVariance[i] = mean * random.nextDouble(0.5, 3);
+            columns.stock[i] = random.nextInt(0, 2000);
+            columns.leadTimeDays[i] = random.nextInt(1, 30);
+            columns.zScore[i] = z;
+            columns.orderCost[i] = 50;
+            columns.holdingCost[i] = random.nextDouble(0.5, 10);
+        }
+        return columns;
+    }
+
+    private static void shuffle(Sku[] skus) {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = skus.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Sku swap = skus[i];
+            skus[i] = skus[j];
+            skus[j] = swap;
+        }
+    }
+
+    // Тот же расчет по объекту на продукт - для сравнения с колоночным проходом
+    private static class Sku {
+        final double stock;
+        final double demandMean;
+        final double demandVariance;
+        final double leadTimeDays;
+        final double zScore;
+        final double orderCost;
+        final double holdingCost;
+        double orderQuantity;
+
+        Sku(double stock, double demandMean, double demandVariance, double leadTimeDays, double zScore,
+            double orderCost, double holdingCost) {
+            this.stock = stock;
+            this.demandMean = demandMean;
+            this.demandVariance = demandVariance;
+            this.leadTimeDays = leadTimeDays;
+            this.zScore = zScore;
+            this.orderCost = orderCost;
+            this.holdingCost = holdingCost;
+        }
+
+        void calculate() {
+            double safety = zScore * Math.sqrt(demandVariance * leadTimeDays);
+            double rop = demandMean * leadTimeDays + safety;
+            double eoq = Math.sqrt(2 * ReorderCalculator.DAYS_PER_YEAR * demandMean * orderCost / holdingCost);
+            double shortfall = rop - stock;
+            orderQuantity = shortfall >= 0 ? Math.ceil(Math.max(eoq, shortfall)) : 0;
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
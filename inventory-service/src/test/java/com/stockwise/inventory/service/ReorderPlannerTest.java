@@ -0,0 +1,67 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.DemandForecast;
+import com.stockwise.inventory.model.ReorderRecommendation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// План пополнения: минимальный остаток продукта и пересчет строки плана без повторных запросов
+class ReorderPlannerTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DemandForecaster demandForecaster = mock(DemandForecaster.class);
+    private final ReorderPlanner planner = new ReorderPlanner(jdbcTemplate, demandForecaster,
+            mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT delivery_days"), eq(Integer.class))).thenReturn(List.of(4));
+        when(demandForecaster.getForecast(PRODUCT)).thenReturn(new DemandForecast(PRODUCT, 0.0,
+                DemandForecast.Method.NONE, 0.0, 0.0, 0.0, Instant.now()));
+    }
+
+    @Test
+    void testRecommendationUsesMinThresholdAsReorderPointFloor() throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong(1)).thenReturn(3L);
+        when(row.getInt(2)).thenReturn(10);
+        when(jdbcTemplate.queryForObject(contains("min_threshold"), any(RowMapper.class), eq(PRODUCT)))
+                .thenAnswer(invocation -> invocation.<RowMapper<?>>getArgument(1).mapRow(row, 0));
+
+        ReorderRecommendation recommendation = planner.getRecommendation(PRODUCT);
+
+        assertEquals(10, recommendation.getReorderPoint(), 1e-9);
+        assertEquals(7, recommendation.getOrderQuantity());
+        verify(demandForecaster, times(1)).getForecast(PRODUCT);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class));
+    }
+
+    @Test
+    void testRequiredQuantityRecalculatesPlanRowWithoutQueries() {
+        ReorderColumns plan = new ReorderColumns(1);
+        plan.productIds[0] = PRODUCT;
+        plan.stock[0] = 30;
+        plan.demandVariance[0] = 9;
+        plan.leadTimeDays[0] = 4;
+        plan.minThreshold[0] = 5;
+
+        // Прогноз ML-сервиса 10 в день: точка заказа 40 + страховой запас, заказ - EOQ
+        int quantity = planner.requiredQuantity(plan, 0, 10);
+
+        assertEquals((int) Math.ceil(Math.sqrt(2 * 365 * 10 * 50 / 2.0)), quantity);
+        verifyNoInteractions(jdbcTemplate, demandForecaster);
+    }
+}
@@ -0,0 +1,125 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.event.SupplierReplenishmentEvent;
+import com.stockwise.inventory.model.ReplenishmentLine;
+import com.stockwise.inventory.service.ReplenishmentConsolidator.ContractTerms;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Консолидация прогона пополнения: строки по контрактам с учетом минимальной и максимальной партии
+class ReplenishmentConsolidatorTest {
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void testRunOfFiveThousandSkusBecomesOneOrderPerContract() {
+        // Дешевый контракт на партии 10..500, дорогой - на крупные партии от 501
+        List<ContractTerms> contracts = List.of(
+                new ContractTerms(1, 100, 10, 500),
+                new ContractTerms(2, 200, 501, null));
+        SplittableRandom random = new SplittableRandom(42);
+        List<ReplenishmentLine> lines = new ArrayList<>();
+        long requested = 0;
+        for (int i = 0; i < 5000; i++) {
+            int quantity = random.nextInt(10, 1000);
+            requested += quantity;
+            lines.add(new ReplenishmentLine(UUID.randomUUID(), "Product " + i, quantity));
+        }
+
+        List<SupplierReplenishmentEvent> orders = ReplenishmentConsolidator.consolidate(lines, contracts, 5000,
+                "AUTO_REPLENISHMENT", NOW);
+
+        assertEquals(2, orders.size());
+        long ordered = 0;
+        for (SupplierReplenishmentEvent order : orders) {
+            assertEquals(order.getContractId() == 1 ? 100L : 200L, order.getSupplierId());
+            for (ReplenishmentLine line : order.getLines()) {
+                assertTrue(order.getContractId() == 1 ? line.getQuantity() <= 500 : line.getQuantity() >= 501);
+            }
+            ordered += order.getTotalQuantity();
+        }
+        assertEquals(requested, ordered);
+    }
+
+    @Test
+    void testQuantityIsRaisedToMinimumAndSplitAboveMaximum() {
+        List<ContractTerms> contracts = List.of(new ContractTerms(1, 100, 50, 200));
+        UUID small = UUID.randomUUID();
+        UUID large = UUID.randomUUID();
+        List<ReplenishmentLine> lines = List.of(
+                new ReplenishmentLine(small, "Small", 7),
+                new ReplenishmentLine(large, "Large", 450));
+
+        List<SupplierReplenishmentEvent> orders = ReplenishmentConsolidator.consolidate(lines, contracts, 1000,
+                "AUTO_REPLENISHMENT", NOW);
+
+        // 450 = 200 + 200 + 50: продукт не повторяется в одном заказе, поэтому партии - в разных заказах
+        assertEquals(3, orders.size());
+        assertEquals(50, orders.get(0).getLines().get(0).getQuantity());
+        assertEquals(small, orders.get(0).getLines().get(0).getProductId());
+        assertEquals(200, orders.get(0).getLines().get(1).getQuantity());
+        assertEquals(200, orders.get(1).getLines().get(0).getQuantity());
+        assertEquals(50, orders.get(2).getLines().get(0).getQuantity());
+        for (SupplierReplenishmentEvent order : orders) {
+            Set<UUID> products = new HashSet<>();
+            for (ReplenishmentLine line : order.getLines()) {
+                assertTrue(products.add(line.getProductId()));
+            }
+        }
+    }
+
+    @Test
+    void testOrdersAreLimitedInLines() {
+        List<ReplenishmentLine> lines = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            lines.add(new ReplenishmentLine(UUID.randomUUID(), "Product \"" + i + "\"", 3));
+        }
+
+        List<SupplierReplenishmentEvent> orders = ReplenishmentConsolidator.consolidate(lines,
+                List.of(new ContractTerms(1, 100, null, null)), 10, "AUTO_REPLENISHMENT", NOW);
+
+        assertEquals(3, orders.size());
+        assertEquals(5, orders.get(2).getLines().size());
+        assertEquals(100L, orders.get(0).getSupplierId());
+        assertTrue(orders.get(0).toJson().contains("\"productName\":\"Product \\\"0\\\"\""));
+    }
+
+    @Test
+    void testNoOrdersWithoutContracts() {
+        List<ReplenishmentLine> lines = List.of(new ReplenishmentLine(UUID.randomUUID(), "Product", 3));
+
+        assertTrue(ReplenishmentConsolidator.consolidate(lines, List.of(), 10, "AUTO_REPLENISHMENT", NOW).isEmpty());
+    }
+
+    @Test
+    void testRunWithoutValidContractNeitherAdjustsStockNorPublishes() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        StockWriteGateway stockWriteGateway = mock(StockWriteGateway.class);
+        // Единственный контракт недействителен: минимальная партия больше максимальной
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+                .thenReturn(List.of(new ContractTerms(1, 100, 500, 10)));
+        ReplenishmentConsolidator consolidator = new ReplenishmentConsolidator(jdbcTemplate, kafkaTemplate,
+                stockWriteGateway, mock(PlatformTransactionManager.class));
+
+        List<SupplierReplenishmentEvent> sent = consolidator.submit(Map.of(UUID.randomUUID(), 40), "AUTO_REPLENISHMENT");
+
+        assertTrue(sent.isEmpty());
+        verifyNoInteractions(stockWriteGateway, kafkaTemplate);
+    }
+}
@@ -0,0 +1,215 @@
+package com.stockwise.inventory.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Нагрузочное сравнение стратегий записи остатка на одном "горячем" SKU в PostgreSQL.
+// Запуск: STOCK_BENCH_JDBC_URL=jdbc:postgresql://localhost:5432/stockwise STOCK_BENCH_USER=...
+// STOCK_BENCH_PASSWORD=... mvn test -Dtest=StockContentionBenchmarkTest
+// Каждый поток списывает по единице; запаса хватает ровно на половину операций
+@EnabledIfEnvironmentVariable(named = "STOCK_BENCH_JDBC_URL", matches = ".+")
+class StockContentionBenchmarkTest {
+    private static final int THREADS = Integer.parseInt(env("STOCK_BENCH_THREADS", "16"));
+    private static final int OPS_PER_THREAD = Integer.parseInt(env("STOCK_BENCH_OPS", "1000"));
+    private static final int INITIAL_STOCK = THREADS * OPS_PER_THREAD / 2;
+    private static final int MAX_ATTEMPTS = 5;
+
+    // Те же условия, что и в InventoryRepository.adjustQuantityIfAvailable и @Version сущности
+    private static final String CONDITIONAL_UPDATE =
+            "UPDATE stock_bench SET quantity = quantity + ?, version = version + 1 WHERE id = 1 AND quantity + ? >= 0";
+    private static final String VERSIONED_UPDATE =
+            "UPDATE stock_bench SET quantity = ?, version = version + 1 WHERE id = 1 AND version = ?";
+    private static final String PLAIN_UPDATE = "UPDATE stock_bench SET quantity = ? WHERE id = 1";
+    private static final String SELECT = "SELECT quantity, version FROM stock_bench WHERE id = 1";
+
+    private interface Strategy {
+        // 1 - списано, 0 - недостаточно остатка, -1 - исчерпаны повторы
+        int decrement(Connection connection, AtomicLong retries) throws SQLException;
+    }
+
+    @BeforeAll
+    static void createTable() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS stock_bench (id INT PRIMARY KEY, "
+                    + "quantity INT NOT NULL, version BIGINT NOT NULL)");
+        }
+    }
+
+    @AfterAll
+    static void dropTable() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS stock_bench");
+        }
+    }
+
+    @Test
+    void testConditionalUpdateNeverOversells() throws Exception {
+        Result result = run("conditional UPDATE", (connection, retries) -> {
+            try (PreparedStatement update = connection.prepareStatement(CONDITIONAL_UPDATE)) {
+                update.setInt(1, -1);
+                update.setInt(2, -1);
+                return update.executeUpdate();
+            }
+        });
+        assertEquals(INITIAL_STOCK, result.decremented);
+        assertEquals(0, result.finalStock);
+        assertEquals(0, result.failed);
+    }
+
+    @Test
+    void testVersionedUpdateWithRetryStaysConsistent() throws Exception {
+        Result result = run("versioned + retry", (connection, retries) -> {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                int quantity;
+                long version;
+                try (PreparedStatement select = connection.prepareStatement(SELECT);
+                     ResultSet row = select.executeQuery()) {
+                    row.next();
+                    quantity = row.getInt(1);
+                    version = row.getLong(2);
+                }
+                if (quantity < 1) {
+                    return 0;
+                }
+                try (PreparedStatement update = connection.prepareStatement(VERSIONED_UPDATE)) {
+                    update.setInt(1, quantity - 1);
+                    update.setLong(2, version);
+                    if (update.executeUpdate() == 1) {
+                        return 1;
+                    }
+                }
+                retries.incrementAndGet();
+                sleepWithJitter(attempt);
+            }
+            return -1;
+        });
+        assertTrue(result.finalStock >= 0);
+        assertEquals(INITIAL_STOCK - result.decremented, result.finalStock, "no lost updates");
+    }
+
+    // Прежнее поведение adjustStock: чтение, проверка и запись без условия
+    @Test
+    void testReadModifyWriteLosesUpdates() throws Exception {
+        assumeTrue(THREADS > 1, "lost updates need concurrent writers");
+        Result result = run("read-modify-write", (connection, retries) -> {
+            int quantity;
+            try (PreparedStatement select = connection.prepareStatement(SELECT);
+                 ResultSet row = select.executeQuery()) {
+                row.next();
+                quantity = row.getInt(1);
+            }
+            if (quantity < 1) {
+                return 0;
+            }
+            try (PreparedStatement update = connection.prepareStatement(PLAIN_UPDATE)) {
+                update.setInt(1, quantity - 1);
+                update.executeUpdate();
+            }
+            return 1;
+        });
+        int lost = result.decremented - (INITIAL_STOCK - result.finalStock);
+        System.out.printf("  read-modify-write lost updates: %d%n", lost);
+        assertTrue(lost > 0, "read-modify-write under contention is expected to lose updates");
+    }
+
+    private Result run(String name, Strategy strategy) throws Exception {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM stock_bench");
+            statement.execute("INSERT INTO stock_bench VALUES (1, " + INITIAL_STOCK + ", 0)");
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong retries = new AtomicLong();
+        List<Future<int[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(workers.submit(() -> {
+                int[] outcomes = new int[3];
+                try (Connection connection = connect()) {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        outcomes[strategy.decrement(connection, retries) + 1]++;
+                    }
+                }
+                return outcomes;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        int failed = 0;
+        int rejected = 0;
+        int decremented = 0;
+        for (Future<int[]> future : futures) {
+            int[] outcomes = future.get();
+            failed += outcomes[0];
+            rejected += outcomes[1];
+            decremented += outcomes[2];
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        workers.shutdown();
+
+        int finalStock;
+        try (Connection connection = connect(); Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery(SELECT)) {
+            row.next();
+            finalStock = row.getInt(1);
+        }
+
+        int operations = THREADS * OPS_PER_THREAD;
+        System.out.printf("%-20s %d threads: %8.0f ops/s, decremented %d, rejected %d, failed %d, "
+                        + "retries %d, final stock %d%n", name, THREADS, operations * 1e9 / elapsedNanos,
+                decremented, rejected, failed, retries.get(), finalStock);
+        return new Result(decremented, failed, finalStock);
+    }
+
+    private static void sleepWithJitter(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(Math.min(200, 5L << (attempt - 1)) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(System.getenv("STOCK_BENCH_JDBC_URL"),
+                env("STOCK_BENCH_USER", "postgres"), env("STOCK_BENCH_PASSWORD", ""));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    private static class Result {
+        private final int decremented;
+        private final int failed;
+        private final int finalStock;
+
+        Result(int decremented, int failed, int finalStock) {
+            this.decremented = decremented;
+            this.failed = failed;
+            this.finalStock = finalStock;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.stockwise.inventory.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Задержка подтверждения изменения остатка: синхронная запись в PostgreSQL (условный UPDATE +
+// INSERT истории + коммит, как StockWriteGateway.adjust) против записи в локальный журнал
+// с групповым fsync. Журнал лежит в STOCK_BENCH_JOURNAL_DIR (по умолчанию во временном каталоге;
+// для честного сравнения - на том же классе диска, что и БД).
+// Запуск: STOCK_BENCH_JDBC_URL=jdbc:postgresql://localhost:5432/stockwise STOCK_BENCH_USER=...
+// STOCK_BENCH_PASSWORD=... mvn test -Dtest=StockJournalBenchmarkTest
+@EnabledIfEnvironmentVariable(named = "STOCK_BENCH_JDBC_URL", matches = ".+")
+class StockJournalBenchmarkTest {
+    private static final int THREADS = Integer.parseInt(env("STOCK_BENCH_THREADS", "16"));
+    private static final int OPS_PER_THREAD = Integer.parseInt(env("STOCK_BENCH_OPS", "1000"));
+    private static final int POSITIONS = 1000;
+
+    private static final String UPDATE =
+            "UPDATE journal_bench_stock SET quantity = quantity + ?, version = version + 1 WHERE id = ? AND quantity + ? >= 0";
+    private static final String HISTORY =
+            "INSERT INTO journal_bench_history (position_id, delta, reason, created_at) VALUES (?, ?, ?, now())";
+
+    private interface Operation {
+        void adjust(int position) throws Exception;
+    }
+
+    @BeforeAll
+    static void createTables() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS journal_bench_stock, journal_bench_history");
+            statement.execute("CREATE TABLE journal_bench_stock (id INT PRIMARY KEY, quantity INT NOT NULL, "
+                    + "version BIGINT NOT NULL)");
+            statement.execute("CREATE TABLE journal_bench_history (id BIGSERIAL PRIMARY KEY, position_id INT, "
+                    + "delta INT, reason VARCHAR(64), created_at TIMESTAMPTZ)");
+            statement.execute("INSERT INTO journal_bench_stock SELECT g, 1000000, 0 FROM generate_series(0, "
+                    + (POSITIONS - 1) + ") g");
+        }
+    }
+
+    @AfterAll
+    static void dropTables() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS journal_bench_stock, journal_bench_history");
+        }
+    }
+
+    @Test
+    void testJournalCutsAcknowledgementLatency() throws Exception {
+        long[] database = run("postgres", () -> {
+            Connection connection = connect();
+            connection.setAutoCommit(false);
+            return position -> {
+                try (PreparedStatement update = connection.prepareStatement(UPDATE);
+                     PreparedStatement history = connection.prepareStatement(HISTORY)) {
+                    update.setInt(1, -1);
+                    update.setInt(2, position);
+                    update.setInt(3, -1);
+                    update.executeUpdate();
+                    history.setInt(1, position);
+                    history.setInt(2, -1);
+                    history.setString(3, "ORDER_EVENT");
+                    history.executeUpdate();
+                    connection.commit();
+                }
+            };
+        });
+
+        Path directory = journalDirectory();
+        UUID[] products = new UUID[POSITIONS];
+        Arrays.setAll(products, i -> UUID.randomUUID());
+        long[] journaled;
+        StockJournal journal = new StockJournal(directory, 64 * 1024 * 1024, 100);
+        try {
+            journaled = run("journal", () -> position -> {
+                long sequence = journal.append(products[position], 1, -1, "ORDER_EVENT");
+                journal.awaitDurable(sequence);
+            });
+        } finally {
+            journal.close();
+        }
+
+        // После перезапуска журнал отдает все подтвержденные записи
+        StockJournal reopened = new StockJournal(directory, 64 * 1024 * 1024, 100);
+        long[] replayed = new long[1];
+        try {
+            reopened.replay(0, entry -> replayed[0]++);
+        } finally {
+            reopened.close();
+            deleteRecursively(directory);
+        }
+        assertEquals((long) THREADS * OPS_PER_THREAD, replayed[0]);
+
+        long databaseP99 = percentile(database, 0.99);
+        long journalP99 = percentile(journaled, 0.99);
+        System.out.printf("p99 acknowledgement: postgres %d us, journal %d us (x%.1f)%n",
+                databaseP99 / 1000, journalP99 / 1000, (double) databaseP99 / journalP99);
+        assertTrue(journalP99 < databaseP99, "journal p99 should beat the synchronous database write");
+    }
+
+    private interface OperationFactory {
+        Operation create() throws Exception;
+    }
+
+    // Каждый поток делает OPS_PER_THREAD изменений по случайным позициям; возвращает все задержки
+    private long[] run(String name, OperationFactory factory) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            futures.add(workers.submit(() -> {
+                Operation operation = factory.create();
+                long[] latencies = new long[OPS_PER_THREAD];
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    long startedAt = System.nanoTime();
+                    operation.adjust((seed * 7919 + i * 31) % POSITIONS);
+                    latencies[i] = System.nanoTime() - startedAt;
+                }
+                return latencies;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * OPS_PER_THREAD];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        System.out.printf("%-10s %d threads: %8.0f ops/s, p50 %d us, p99 %d us, max %d us%n", name, THREADS,
+                all.length * 1e9 / elapsedNanos, percentile(all, 0.5) / 1000, percentile(all, 0.99) / 1000,
+                percentile(all, 1.0) / 1000);
+        return all;
+    }
+
+    private static long percentile(long[] values, double quantile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static Path journalDirectory() throws IOException {
+        String configured = System.getenv("STOCK_BENCH_JOURNAL_DIR");
+        return configured != null && !configured.isEmpty()
+                ? Files.createDirectories(Paths.get(configured).resolve("bench-" + System.nanoTime()))
+                : Files.createTempDirectory("stock-journal-bench");
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(System.getenv("STOCK_BENCH_JDBC_URL"),
+                env("STOCK_BENCH_USER", "postgres"), env("STOCK_BENCH_PASSWORD", ""));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
@@ -0,0 +1,161 @@
+package com.stockwise.inventory.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Журнал движений на временном каталоге: восстановление после перезапуска, обрезка
+// оборванного хвоста, смена сегментов и удаление примененных
+class StockJournalTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    // Минимальный сегмент: 16 записей с причиной ORDER_EVENT (65 байт)
+    private static final int SEGMENT_SIZE = 8 + 46 + 1024 + 4;
+    private static final int ENTRY_SIZE = 8 + 46 + "ORDER_EVENT".length();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDurableEntriesAreReplayedAfterRestart() throws Exception {
+        StockJournal journal = open();
+        for (int i = 1; i <= 3; i++) {
+            journal.awaitDurable(journal.append(PRODUCT, 1L, -i, "ORDER_EVENT"));
+        }
+        journal.close();
+
+        StockJournal reopened = open();
+        List<StockJournal.Entry> replayed = replay(reopened, 1);
+        assertEquals(List.of(2L, 3L), sequences(replayed));
+        assertEquals(-3, replayed.get(1).getDelta());
+        assertEquals("ORDER_EVENT", replayed.get(1).getReason());
+        assertEquals(PRODUCT, replayed.get(1).getProductId());
+        // Нумерация продолжается после последней записи
+        assertEquals(4, reopened.append(PRODUCT, 1L, 5, "MANUAL"));
+        reopened.close();
+    }
+
+    @Test
+    void testTornTailIsTruncatedAndOverwritten() throws Exception {
+        StockJournal journal = open();
+        for (int i = 1; i <= 3; i++) {
+            journal.awaitDurable(journal.append(PRODUCT, 1L, -i, "ORDER_EVENT"));
+        }
+        journal.close();
+
+        // Последняя запись повреждена (CRC не сходится), за ней - мусор с ненулевой длиной
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 2L * ENTRY_SIZE + 20);
+            channel.write(ByteBuffer.allocate(4).putInt(0, 60), 3L * ENTRY_SIZE);
+        }
+
+        StockJournal reopened = open();
+        assertEquals(List.of(1L, 2L), sequences(replay(reopened, 0)));
+        assertEquals(2, reopened.getDurableSequence());
+        reopened.awaitDurable(reopened.append(PRODUCT, 1L, 7, "MANUAL"));
+        reopened.close();
+
+        StockJournal recovered = open();
+        List<StockJournal.Entry> replayed = replay(recovered, 0);
+        assertEquals(List.of(1L, 2L, 3L), sequences(replayed));
+        assertEquals(7, replayed.get(2).getDelta());
+        recovered.close();
+    }
+
+    @Test
+    void testSegmentRollsWhenFullAndReplaysAcrossSegments() throws Exception {
+        StockJournal journal = open();
+        long last = 0;
+        for (int i = 0; i < 40; i++) {
+            last = journal.append(PRODUCT, 1L, 1, "ORDER_EVENT");
+        }
+        journal.awaitDurable(last);
+        assertEquals(3, journal.getSegmentCount());
+        journal.close();
+
+        List<Path> segments = segments();
+        assertEquals("00000000000000000001.journal", segments.get(0).getFileName().toString());
+        assertEquals("00000000000000000017.journal", segments.get(1).getFileName().toString());
+
+        StockJournal reopened = open();
+        List<StockJournal.Entry> replayed = replay(reopened, 0);
+        assertEquals(40, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i + 1, replayed.get(i).getSequence());
+        }
+        assertEquals(41, reopened.append(PRODUCT, 1L, 1, "ORDER_EVENT"));
+        reopened.close();
+    }
+
+    @Test
+    void testReleaseDeletesOnlyFullyAppliedSegments() throws Exception {
+        StockJournal journal = open();
+        long last = 0;
+        for (int i = 0; i < 40; i++) {
+            last = journal.append(PRODUCT, 1L, 1, "ORDER_EVENT");
+        }
+        journal.awaitDurable(last);
+
+        // Первый сегмент (1..16) применен не полностью
+        assertEquals(0, journal.release(15));
+        assertEquals(3, journal.getSegmentCount());
+        assertEquals(1, journal.release(16));
+        // Текущий сегмент не удаляется даже после применения всех записей
+        assertEquals(1, journal.release(40));
+        assertEquals(1, journal.getSegmentCount());
+        journal.close();
+
+        StockJournal reopened = open();
+        assertEquals(List.of(40L), sequences(replay(reopened, 39)));
+        assertEquals(41, reopened.append(PRODUCT, 1L, 1, "ORDER_EVENT"));
+        reopened.close();
+    }
+
+    @Test
+    void testPollDurableReturnsEntriesInOrder() throws Exception {
+        StockJournal journal = open();
+        for (int i = 1; i <= 5; i++) {
+            journal.append(PRODUCT, i, i, "ORDER_EVENT");
+        }
+        journal.awaitDurable(5);
+
+        List<StockJournal.Entry> first = journal.pollDurable(3, 1, TimeUnit.SECONDS);
+        List<StockJournal.Entry> second = journal.pollDurable(3, 1, TimeUnit.SECONDS);
+        assertEquals(List.of(1L, 2L, 3L), sequences(first));
+        assertEquals(List.of(4L, 5L), sequences(second));
+        journal.close();
+    }
+
+    private StockJournal open() {
+        return new StockJournal(directory, SEGMENT_SIZE, 0);
+    }
+
+    private static List<StockJournal.Entry> replay(StockJournal journal, long afterSequence) {
+        List<StockJournal.Entry> entries = new ArrayList<>();
+        journal.replay(afterSequence, entries::add);
+        return entries;
+    }
+
+    private static List<Long> sequences(List<StockJournal.Entry> entries) {
+        return entries.stream().map(StockJournal.Entry::getSequence).collect(Collectors.toList());
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
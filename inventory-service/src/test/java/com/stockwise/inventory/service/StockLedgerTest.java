@@ -0,0 +1,151 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.InventoryHistory;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.LedgerDiscrepancy;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.model.Warehouse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Журнал остатков: проекция после коммита, пересборка по границе снимка, исправление под блокировкой
+class StockLedgerTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final long SNAPSHOT_ID = 7;
+    private static final long WATERMARK = 100;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final VersionedStockCache stockCache = mock(VersionedStockCache.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final StockLedger ledger = new StockLedger(jdbcTemplate, mock(WarehouseService.class), stockCache,
+            transactionManager);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        ResultSet snapshot = mock(ResultSet.class);
+        when(snapshot.getLong(1)).thenReturn(SNAPSHOT_ID);
+        when(snapshot.getLong(2)).thenReturn(WATERMARK);
+        when(snapshot.getTimestamp(3)).thenReturn(new Timestamp(0));
+        when(jdbcTemplate.query(startsWith("SELECT snapshot_id"), any(RowMapper.class))).thenAnswer(invocation ->
+                List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(snapshot, 0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testMovementIsAppliedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.recordAfterCommit(history(1, 10L, 5));
+        assertEquals(0, ledger.currentStock(PRODUCT).getTotalQuantity());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertEquals(5, ledger.currentStock(PRODUCT).getTotalQuantity());
+    }
+
+    @Test
+    void testRebuildReadsTailAfterWatermarkAndDropsBufferedDuplicates() throws Exception {
+        doAnswer(invocation -> {
+            ResultSet row = mock(ResultSet.class);
+            when(row.getLong(1)).thenReturn(10L);
+            when(row.getObject(2, UUID.class)).thenReturn(PRODUCT);
+            when(row.getObject(3)).thenReturn(1L);
+            when(row.getLong(4)).thenReturn(50L);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT inventory_id, product_id"), any(RowCallbackHandler.class),
+                eq(SNAPSHOT_ID));
+        doAnswer(invocation -> {
+            // Движения 101 и 102 закоммичены во время чтения хвоста; 101 в хвост уже попало
+            ledger.recordAfterCommit(history(101, 10L, -5));
+            ledger.recordAfterCommit(history(102, 10L, 3));
+            ResultSet row = mock(ResultSet.class);
+            when(row.getLong(1)).thenReturn(101L);
+            when(row.getLong(2)).thenReturn(10L);
+            when(row.getObject(3, UUID.class)).thenReturn(PRODUCT);
+            when(row.getObject(4)).thenReturn(1L);
+            when(row.getInt(5)).thenReturn(-5);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(contains("history_id > ?"), any(RowCallbackHandler.class), eq(WATERMARK));
+
+        assertEquals(1, ledger.rebuild());
+        assertEquals(48, ledger.currentStock(PRODUCT).getTotalQuantity());
+    }
+
+    @Test
+    void testRepairRecomputesUnderLockAndGuardsVersion() {
+        when(jdbcTemplate.query(contains("FULL JOIN"), any(RowMapper.class), eq(SNAPSHOT_ID), eq(WATERMARK)))
+                .thenReturn(List.of(
+                        new LedgerDiscrepancy(10L, PRODUCT, 1L, 20, 25L),
+                        new LedgerDiscrepancy(11L, PRODUCT, 2L, 5, 9L),
+                        new LedgerDiscrepancy(12L, PRODUCT, 3L, 1, 4L)));
+        lockedRow(10L, 20, 3);
+        lockedRow(11L, 9, 4);
+        lockedRow(12L, 1, 8);
+        ledgerSum(10L, 25L);
+        // Запись успела закоммититься между сверкой и блокировкой: расхождения уже нет
+        ledgerSum(11L, 9L);
+        ledgerSum(12L, 4L);
+        when(jdbcTemplate.update(contains("AND version = ?"), eq(25L), eq(10L), eq(PRODUCT), eq(3L))).thenReturn(1);
+        // Версия позиции 12 изменилась в обход блокировки: UPDATE ничего не меняет
+        when(jdbcTemplate.update(contains("AND version = ?"), eq(4L), eq(12L), eq(PRODUCT), eq(8L))).thenReturn(0);
+
+        List<LedgerDiscrepancy> repaired = ledger.repair();
+
+        assertEquals(1, repaired.size());
+        assertEquals(10L, repaired.get(0).getInventoryId());
+        assertEquals(20, repaired.get(0).getTableQuantity());
+        assertEquals(25L, repaired.get(0).getLedgerQuantity());
+        verify(jdbcTemplate, never()).update(contains("AND version = ?"), any(), eq(11L), any(), any());
+        verify(stockCache).evict(PRODUCT + "@1");
+        verify(stockCache, never()).evict(PRODUCT + "@2");
+        verify(stockCache, never()).evict(PRODUCT + "@3");
+    }
+
+    private void lockedRow(long inventoryId, long quantity, long version) {
+        when(jdbcTemplate.query(contains("FOR UPDATE"), any(RowMapper.class), eq(inventoryId), eq(PRODUCT)))
+                .thenReturn(List.of(new long[]{quantity, version}));
+    }
+
+    private void ledgerSum(long inventoryId, long quantity) {
+        when(jdbcTemplate.queryForObject(contains("COALESCE(SUM(quantity), 0)"), eq(Long.class), eq(SNAPSHOT_ID),
+                eq(inventoryId), eq(PRODUCT), eq(inventoryId), eq(WATERMARK))).thenReturn(quantity);
+    }
+
+    private static InventoryHistory history(long historyId, long inventoryId, int delta) {
+        InventoryItem item = new InventoryItem(new Product(PRODUCT, "Widget", "Tools"), new Warehouse(1L), 0);
+        item.setInventoryId(inventoryId);
+        InventoryHistory history = new InventoryHistory();
+        history.setHistoryId(historyId);
+        history.setInventoryItem(item);
+        history.setDelta(delta);
+        return history;
+    }
+}
@@ -0,0 +1,76 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.exception.InsufficientStockException;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Проекция журнала и прямые записи: резерв, откат и проекция, перечитанная до коммита
+class StockProjectionsTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final StockProjections projections = new StockProjections();
+
+    @Test
+    void testDirectWriteWithoutProjectionIsIgnored() {
+        StockProjections.Change change = projections.reserveDirect(PRODUCT, 1L, -5, true);
+        change.setVersion(3);
+        projections.committed(change);
+
+        assertNull(projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    @Test
+    void testProjectionLoadedBeforeCommitReceivesDelta() {
+        // Прямая запись началась, когда проекции не было
+        StockProjections.Change change = projections.reserveDirect(PRODUCT, 1L, -5, true);
+        change.setVersion(4);
+        // Журнал загрузил позицию до коммита записи: версия 3, остаток без -5
+        projections.reserveJournaled(PRODUCT, 1L, -2, () -> position(20, 3));
+        projections.committed(change);
+
+        assertEquals(13L, projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    @Test
+    void testProjectionLoadedAfterCommitIsNotChangedTwice() {
+        StockProjections.Change change = projections.reserveDirect(PRODUCT, 1L, -5, true);
+        change.setVersion(4);
+        // Загрузка после коммита уже видит запись (версия 4, остаток 15)
+        projections.reserveJournaled(PRODUCT, 1L, -2, () -> position(15, 4));
+        projections.committed(change);
+
+        assertEquals(13L, projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    @Test
+    void testRollbackAfterReloadLeavesNewProjection() {
+        projections.reserveJournaled(PRODUCT, 1L, -2, () -> position(20, 3));
+        StockProjections.Change change = projections.reserveDirect(PRODUCT, 1L, -5, true);
+        // Журнальное движение применено, проекция удалена и загружена заново
+        projections.settleJournaled(PRODUCT, 1L, 0);
+        projections.reserveJournaled(PRODUCT, 1L, -1, () -> position(18, 4));
+        projections.rolledBack(change);
+
+        assertEquals(17L, projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    @Test
+    void testStockCountIsAcceptedBelowProjection() {
+        projections.reserveJournaled(PRODUCT, 1L, -8, () -> position(10, 1));
+
+        assertThrows(InsufficientStockException.class, () -> projections.reserveDirect(PRODUCT, 1L, -5, true));
+        projections.reserveDirect(PRODUCT, 1L, -5, false);
+        assertEquals(-3L, projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    private static InventoryItem position(int quantity, long version) {
+        InventoryItem item = new InventoryItem(new Product(PRODUCT, "Widget", "Tools"), quantity);
+        item.setVersion(version);
+        return item;
+    }
+}
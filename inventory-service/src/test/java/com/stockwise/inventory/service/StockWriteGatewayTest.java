@@ -0,0 +1,183 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.model.TransferLeg;
+import com.stockwise.inventory.model.Warehouse;
+import com.stockwise.inventory.repository.HistoryRepository;
+import com.stockwise.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.stockwise.inventory.exception.InsufficientStockException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// События и запись в кэш шлюза остатков - только после коммита транзакции
+class StockWriteGatewayTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final InventoryRepository repository = mock(InventoryRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private final VersionedStockCache stockCache = mock(VersionedStockCache.class);
+    private final StockProjections projections = new StockProjections();
+    private final WarehouseService warehouseService = mock(WarehouseService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final StockWriteGateway gateway = new StockWriteGateway(repository, mock(HistoryRepository.class),
+            kafkaTemplate, stockCache, warehouseService, mock(StockLedger.class), transactionManager, projections);
+
+    private InventoryItem item;
+
+    @BeforeEach
+    void setUp() {
+        item = new InventoryItem(new Product(PRODUCT, "Widget", "Tools"), 10);
+        when(repository.adjustQuantityIfAvailable(eq(PRODUCT), eq(1L), anyInt(), any())).thenReturn(1);
+        when(repository.findPosition(PRODUCT, 1L)).thenReturn(Optional.of(item));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testEventIsSentAfterCommit() {
+        gateway.adjust(PRODUCT, 1L, 5, "MANUAL_ADJUSTMENT");
+        verifyNoInteractions(kafkaTemplate);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(kafkaTemplate, times(1)).send(eq("inventory-updates"), contains("\"delta\":5"));
+        verify(stockCache).putAllIfNewer(anyList());
+    }
+
+    @Test
+    void testRolledBackWriteSendsNothing() {
+        gateway.adjust(PRODUCT, 1L, -3, "ORDER_EVENT");
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        verifyNoInteractions(kafkaTemplate);
+        verify(stockCache, never()).putAllIfNewer(anyList());
+    }
+
+    @Test
+    void testDirectWriteIsVisibleToJournalProjection() {
+        projections.reserveJournaled(PRODUCT, 1L, -4, () -> item);
+
+        gateway.adjust(PRODUCT, 1L, -5, "MANUAL_ADJUSTMENT");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // 10 - 4 (журнал) - 5 (прямая запись): журнальному пути остается 1
+        assertEquals(1L, projections.projectedQuantity(PRODUCT, 1L));
+        assertThrows(InsufficientStockException.class,
+                () -> projections.reserveJournaled(PRODUCT, 1L, -2, () -> item));
+    }
+
+    @Test
+    void testRolledBackDirectWriteReleasesProjection() {
+        projections.reserveJournaled(PRODUCT, 1L, -4, () -> item);
+
+        gateway.adjust(PRODUCT, 1L, -5, "MANUAL_ADJUSTMENT");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(6L, projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    @Test
+    void testDirectWriteBeyondProjectionIsRejectedBeforeUpdate() {
+        projections.reserveJournaled(PRODUCT, 1L, -8, () -> item);
+
+        assertThrows(InsufficientStockException.class, () -> gateway.adjust(PRODUCT, 1L, -5, "MANUAL_ADJUSTMENT"));
+        verify(repository, never()).adjustQuantityIfAvailable(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testJournaledApplyDoesNotMoveProjectionAgain() {
+        projections.reserveJournaled(PRODUCT, 1L, -4, () -> item);
+        projections.reserveJournaled(PRODUCT, 1L, -1, () -> item);
+
+        gateway.applyJournaled(PRODUCT, 1L, -4, "ORDER_EVENT");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(5L, projections.projectedQuantity(PRODUCT, 1L));
+    }
+
+    @Test
+    void testAllocationSendsOneEventPerPosition() {
+        Warehouse near = new Warehouse(1L, "NEAR", "Near", 55.75, 37.61);
+        Warehouse far = new Warehouse(2L, "FAR", "Far", 59.93, 30.33);
+        InventoryItem nearItem = position(11L, near, 4);
+        InventoryItem farItem = position(12L, far, 10);
+        when(repository.findAllByProductId(PRODUCT)).thenReturn(List.of(nearItem, farItem));
+        when(warehouseService.byDistance(55.75, 37.61)).thenReturn(List.of(near, far));
+        when(repository.adjustPositionIfAvailable(anyLong(), eq(PRODUCT), anyInt(), any())).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        gateway.allocate(PRODUCT, 7, 55.75, 37.61, "ALLOCATION");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(kafkaTemplate, times(2)).send(eq("inventory-updates"), anyString());
+        verify(kafkaTemplate).send(eq("inventory-updates"), contains("\"delta\":-4"));
+        verify(kafkaTemplate).send(eq("inventory-updates"), contains("\"delta\":-3"));
+    }
+
+    @Test
+    void testTransferEventIsSentAfterCommitWithEscapedReason() {
+        stubTransfer();
+
+        gateway.transfer(List.of(new TransferLeg(11L, 12L, 3)), "Re-shelve \"A\"\n");
+        verify(kafkaTemplate, never()).send(eq(StockWriteGateway.TRANSFERS_TOPIC), anyString(), anyString());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        verify(kafkaTemplate).send(eq(StockWriteGateway.TRANSFERS_TOPIC), anyString(),
+                contains("\"reason\":\"Re-shelve \\\"A\\\"\\u000a\""));
+    }
+
+    @Test
+    void testRolledBackTransferSendsNothing() {
+        stubTransfer();
+
+        gateway.transfer(List.of(new TransferLeg(11L, 12L, 3)), "REBALANCE");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private void stubTransfer() {
+        InventoryItem from = position(11L, new Warehouse(1L, "MAIN", "Main", 55.75, 37.61), 10);
+        InventoryItem to = position(12L, new Warehouse(2L, "NORTH", "North", 59.93, 30.33), 0);
+        when(repository.lockAllByInventoryIdIn(any())).thenReturn(List.of(from, to));
+    }
+
+    private static InventoryItem position(long inventoryId, Warehouse warehouse, int quantity) {
+        InventoryItem item = new InventoryItem(new Product(PRODUCT, "Widget", "Tools"), warehouse, quantity);
+        item.setInventoryId(inventoryId);
+        return item;
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.stockwise.inventory.service;
+
+import com.stockwise.inventory.config.RedisConfig;
+import com.stockwise.inventory.model.InventoryItem;
+import com.stockwise.inventory.model.Product;
+import com.stockwise.inventory.model.Warehouse;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Кэш остатков с записью по версии. Аргументы скрипта проверяются на заглушке соединения,
+// сам скрипт - на настоящем Redis: STOCK_TEST_REDIS_HOST=localhost [STOCK_TEST_REDIS_PORT=6379]
+// mvn test -Dtest=VersionedStockCacheTest
+class VersionedStockCacheTest {
+    private static final UUID PRODUCT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final long WAREHOUSE = 3L;
+
+    private final CacheManager cacheManager = cacheManager(mock(RedisConnectionFactory.class));
+    private final StubRedis redis = new StubRedis();
+
+    @Test
+    void testCompareAndSetArgumentsKeepEntryAndVersionInOneSlot() {
+        List<byte[]> keysAndArgs = new ArrayList<>();
+        doAnswer(invocation -> {
+            byte[][] arguments = Arrays.copyOfRange(invocation.getArguments(), 3, invocation.getArguments().length,
+                    byte[][].class);
+            keysAndArgs.addAll(List.of(arguments));
+            assertEquals(2, invocation.<Integer>getArgument(2));
+            assertEquals(ReturnType.INTEGER, invocation.getArgument(1));
+            return 1L;
+        }).when(redis.scripting).eval(any(byte[].class), any(ReturnType.class), anyInt(), any(byte[][].class));
+
+        redis.cache(cacheManager).putIfNewer(item(40, 7));
+
+        assertEquals(5, keysAndArgs.size());
+        String entryKey = ascii(keysAndArgs.get(0));
+        String versionKey = ascii(keysAndArgs.get(1));
+        assertEquals("inventory::" + PRODUCT + "@" + WAREHOUSE, entryKey);
+        assertEquals("{" + entryKey + "}:version", versionKey);
+        assertEquals(SlotHash.getSlot(entryKey), SlotHash.getSlot(versionKey));
+        assertEquals("7", ascii(keysAndArgs.get(2)));
+        InventoryItem written = (InventoryItem) configuration().getValueSerializationPair()
+                .read(ByteBuffer.wrap(keysAndArgs.get(3)));
+        assertEquals(40, written.getQuantity());
+        // TTL кэша inventory - 10 минут
+        assertEquals("600000", ascii(keysAndArgs.get(4)));
+    }
+
+    @Test
+    void testReadsUseOneMgetAndErrorsAreMisses() {
+        UUID missing = new UUID(0, 2);
+        byte[] cached = ByteUtils.getBytes(configuration().getValueSerializationPair().write(item(40, 7)));
+        when(redis.strings.mGet(any(byte[][].class))).thenAnswer(invocation -> Arrays.asList(cached, null));
+
+        Map<UUID, InventoryItem> found = redis.cache(cacheManager).getAll(List.of(PRODUCT, missing), WAREHOUSE);
+
+        assertEquals(1, found.size());
+        assertEquals(40, found.get(PRODUCT).getQuantity());
+        verify(redis.strings, times(1)).mGet(any(byte[][].class));
+
+        when(redis.strings.mGet(any(byte[][].class))).thenThrow(new IllegalStateException("connection reset"));
+        assertTrue(redis.cache(cacheManager).getAll(List.of(PRODUCT), WAREHOUSE).isEmpty());
+    }
+
+    @Test
+    void testWriteFailureIsSwallowed() {
+        when(redis.scripting.eval(any(byte[].class), any(ReturnType.class), anyInt(), any(byte[][].class)))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        assertDoesNotThrow(() -> redis.cache(cacheManager).putAllIfNewer(List.of(item(1, 1), item(2, 2))));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "STOCK_TEST_REDIS_HOST", matches = ".+")
+    void testOlderVersionDoesNotOverwriteNewer() {
+        withRedis((cache, strings) -> {
+            cache.putIfNewer(item(40, 5));
+            cache.putIfNewer(item(10, 3));
+            assertEquals(40, cache.get(PRODUCT, WAREHOUSE).getQuantity());
+
+            // Та же версия перезаписывается: повторная запись того же состояния безопасна
+            cache.putIfNewer(item(41, 5));
+            assertEquals(41, cache.get(PRODUCT, WAREHOUSE).getQuantity());
+
+            cache.putIfNewer(item(12, 8));
+            assertEquals(12, cache.get(PRODUCT, WAREHOUSE).getQuantity());
+            assertEquals("8", strings.opsForValue().get(versionKey()));
+        });
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "STOCK_TEST_REDIS_HOST", matches = ".+")
+    void testEntryAndVersionExpireTogether() {
+        withRedis((cache, strings) -> {
+            cache.putIfNewer(item(40, 5));
+
+            long entryTtl = strings.getExpire(entryKey(), TimeUnit.MILLISECONDS);
+            long versionTtl = strings.getExpire(versionKey(), TimeUnit.MILLISECONDS);
+            assertTrue(entryTtl > 0 && entryTtl <= 600_000, "entry TTL " + entryTtl);
+            assertTrue(versionTtl > 0 && versionTtl <= 600_000, "version TTL " + versionTtl);
+        });
+    }
+
+    private interface RedisTest {
+        void run(VersionedStockCache cache, StringRedisTemplate strings);
+    }
+
+    private static void withRedis(RedisTest test) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(System.getenv("STOCK_TEST_REDIS_HOST"),
+                Integer.parseInt(System.getenv().getOrDefault("STOCK_TEST_REDIS_PORT", "6379")));
+        factory.afterPropertiesSet();
+        try {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(factory);
+            template.afterPropertiesSet();
+            StringRedisTemplate strings = new StringRedisTemplate(factory);
+            strings.delete(List.of(entryKey(), versionKey()));
+            try {
+                test.run(new VersionedStockCache(template, cacheManager(factory)), strings);
+            } finally {
+                strings.delete(List.of(entryKey(), versionKey()));
+            }
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    // Кэши с собственной конфигурацией (формат значений, TTL) создаются при инициализации менеджера
+    private static CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+        RedisCacheManager cacheManager = (RedisCacheManager) new RedisConfig().cacheManager(
+                connectionFactory, new MockEnvironment());
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    private RedisCacheConfiguration configuration() {
+        return ((RedisCache) cacheManager.getCache(VersionedStockCache.CACHE_NAME)).getCacheConfiguration();
+    }
+
+    private static String entryKey() {
+        return "inventory::" + PRODUCT + "@" + WAREHOUSE;
+    }
+
+    private static String versionKey() {
+        return "{" + entryKey() + "}:version";
+    }
+
+    private static InventoryItem item(int quantity, long version) {
+        InventoryItem item = new InventoryItem(new Product(PRODUCT, "Widget", null), new Warehouse(WAREHOUSE), quantity);
+        item.setInventoryId(1L);
+        item.setVersion(version);
+        return item;
+    }
+
+    private static String ascii(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // Заглушка RedisTemplate: обратные вызовы выполняются на заглушке соединения
+    @SuppressWarnings("unchecked")
+    private static class StubRedis {
+        private final RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        private final RedisConnection connection = mock(RedisConnection.class);
+        private final RedisStringCommands strings = mock(RedisStringCommands.class);
+        private final RedisScriptingCommands scripting = mock(RedisScriptingCommands.class);
+
+        StubRedis() {
+            when(connection.stringCommands()).thenReturn(strings);
+            when(connection.scriptingCommands()).thenReturn(scripting);
+            when(template.execute(any(RedisCallback.class))).thenAnswer(invocation ->
+                    invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+            when(template.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+                invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+                return List.of();
+            });
+        }
+
+        VersionedStockCache cache(CacheManager cacheManager) {
+            return new VersionedStockCache(template, cacheManager);
+        }
+    }
+}
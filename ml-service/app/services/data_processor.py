@@ -26,16 +26,20 @@ class DataProcessor:
                 FROM inventory_history 
                 WHERE product_id = :product_id 
                 AND created_at >= :start_date
+                AND created_at < :end_date
                 GROUP BY DATE(created_at), product_id
                 ORDER BY date
             """)
             
-            start_date = datetime.now() - timedelta(days=days_back)
+            # Полуинтервал по created_at без функций над столбцом: читаются только
+            # месячные секции inventory_history, попадающие в период
+            end_date = datetime.now()
+            start_date = end_date - timedelta(days=days_back)
             
             df = pd.read_sql(
                 query, 
                 self.engine, 
-                params={'product_id': product_id, 'start_date': start_date}
+                params={'product_id': product_id, 'start_date': start_date, 'end_date': end_date}
             )
             
             logger.info(f"Extracted {len(df)} records for product {product_id}")
@@ -0,0 +1,158 @@
+package com.stockwise.order.config;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+// Чтение значений, записанных BinaryWriter, в том же порядке
+public final class BinaryReader {
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        if (position >= limit) {
+            throw new SerializationException("Unexpected end of cached value");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in cached value");
+    }
+
+    public long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new SerializationException("Malformed varlong in cached value");
+    }
+
+    public byte[] readBytes(int length) {
+        check(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public Long readLong() {
+        return present() ? readVarLong() : null;
+    }
+
+    public Integer readInt() {
+        return present() ? (int) readVarLong() : null;
+    }
+
+    public Double readDouble() {
+        return present() ? Double.longBitsToDouble(readFixedLong()) : null;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        check(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public BigDecimal readDecimal() {
+        int kind = readByte();
+        if (kind == 0) {
+            return null;
+        }
+        int scale = (int) readVarLong();
+        if (kind == 1) {
+            return BigDecimal.valueOf(readVarLong(), scale);
+        }
+        int length = readVarInt();
+        check(length);
+        BigInteger unscaled = new BigInteger(buffer, position, length);
+        position += length;
+        return new BigDecimal(unscaled, scale);
+    }
+
+    public LocalDateTime readDateTime() {
+        return present() ? LocalDateTime.ofEpochSecond(readVarLong(), readVarInt(), ZoneOffset.UTC) : null;
+    }
+
+    public LocalDate readDate() {
+        return present() ? LocalDate.ofEpochDay(readVarLong()) : null;
+    }
+
+    public Instant readInstant() {
+        return present() ? Instant.ofEpochSecond(readVarLong(), readVarInt()) : null;
+    }
+
+    public UUID readUuid() {
+        return present() ? new UUID(readFixedLong(), readFixedLong()) : null;
+    }
+
+    public <E extends Enum<E>> E readEnum(E[] values) {
+        int ordinal = readVarInt();
+        if (ordinal == 0) {
+            return null;
+        }
+        if (ordinal > values.length) {
+            throw new SerializationException("Unknown enum ordinal in cached value: " + (ordinal - 1));
+        }
+        return values[ordinal - 1];
+    }
+
+    int position() {
+        return position;
+    }
+
+    private boolean present() {
+        return readByte() != 0;
+    }
+
+    private long readFixedLong() {
+        check(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private void check(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new SerializationException("Unexpected end of cached value");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.stockwise.order.config;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+// Запись примитивов в компактном виде: varint для целых, флаг присутствия для nullable-полей
+public final class BinaryWriter {
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    // Беззнаковый varint (длины, счетчики, порядковые номера)
+    public void writeVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    // Знаковый varint (zigzag)
+    public void writeVarLong(long value) {
+        ensure(10);
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        buffer[position++] = (byte) zigzag;
+    }
+
+    public void writeLong(Long value) {
+        if (present(value)) {
+            writeVarLong(value);
+        }
+    }
+
+    public void writeInt(Integer value) {
+        if (present(value)) {
+            writeVarLong(value);
+        }
+    }
+
+    public void writeDouble(Double value) {
+        if (present(value)) {
+            writeFixedLong(Double.doubleToRawLongBits(value));
+        }
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    // BigDecimal: масштаб + немасштабированное значение; до 63 бит - varint, иначе байты BigInteger
+    public void writeDecimal(BigDecimal value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+        if (value.unscaledValue().bitLength() < 63) {
+            writeByte(1);
+            writeVarLong(value.scale());
+            writeVarLong(value.unscaledValue().longValue());
+        } else {
+            byte[] bytes = value.unscaledValue().toByteArray();
+            writeByte(2);
+            writeVarLong(value.scale());
+            writeVarInt(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+    }
+
+    public void writeDateTime(LocalDateTime value) {
+        if (present(value)) {
+            writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarInt(value.getNano());
+        }
+    }
+
+    public void writeDate(LocalDate value) {
+        if (present(value)) {
+            writeVarLong(value.toEpochDay());
+        }
+    }
+
+    public void writeInstant(Instant value) {
+        if (present(value)) {
+            writeVarLong(value.getEpochSecond());
+            writeVarInt(value.getNano());
+        }
+    }
+
+    public void writeUuid(UUID value) {
+        if (present(value)) {
+            writeFixedLong(value.getMostSignificantBits());
+            writeFixedLong(value.getLeastSignificantBits());
+        }
+    }
+
+    // Порядковый номер + 1, 0 означает null
+    public void writeEnum(Enum<?> value) {
+        writeVarInt(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int size() {
+        return position;
+    }
+
+    private boolean present(Object value) {
+        writeByte(value != null ? 1 : 0);
+        return value != null;
+    }
+
+    private void writeFixedLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void ensure(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
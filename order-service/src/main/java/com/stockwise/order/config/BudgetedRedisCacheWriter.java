@@ -0,0 +1,165 @@
+package com.stockwise.order.config;
+
+import com.stockwise.order.model.CacheNamespaceStats;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Обертка над RedisCacheWriter: не записывает значения больше лимита пространства
+// и собирает размеры сериализованных ключей и значений по каждому кэшу
+public class BudgetedRedisCacheWriter implements RedisCacheWriter {
+    private final RedisCacheWriter delegate;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public BudgetedRedisCacheWriter(RedisCacheWriter delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setBudget(String cacheName, Duration ttl, long maxEntryBytes) {
+        budgets.put(cacheName, new Budget(ttl, maxEntryBytes));
+    }
+
+    public List<CacheNamespaceStats> getStats() {
+        List<CacheNamespaceStats> stats = new ArrayList<>();
+        budgets.forEach((name, budget) -> stats.add(counters(name).toStats(name, budget)));
+        return stats;
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return record(name, delegate.get(name, key));
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return record(name, delegate.get(name, key, ttl));
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return delegate.retrieve(name, key, ttl).thenApply(value -> record(name, value));
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        if (admit(name, key, value)) {
+            delegate.put(name, key, value, ttl);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        if (!admit(name, key, value)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return delegate.store(name, key, value, ttl);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        if (!admit(name, key, value)) {
+            return null;
+        }
+        return delegate.putIfAbsent(name, key, value, ttl);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+        counters.remove(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        BudgetedRedisCacheWriter copy = new BudgetedRedisCacheWriter(
+                delegate.withStatisticsCollector(cacheStatisticsCollector));
+        copy.budgets.putAll(budgets);
+        return copy;
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    // Значения больше лимита не кэшируются: такой запрос каждый раз обслуживается из БД,
+    // но не вытесняет из Redis горячие маленькие записи
+    private boolean admit(String name, byte[] key, byte[] value) {
+        Counters c = counters(name);
+        Budget budget = budgets.get(name);
+        if (budget != null && value.length > budget.maxEntryBytes) {
+            c.rejected.incrementAndGet();
+            return false;
+        }
+        c.writes.incrementAndGet();
+        c.keyBytes.addAndGet(key.length);
+        c.valueBytes.addAndGet(value.length);
+        c.maxValueBytes.accumulate(value.length);
+        return true;
+    }
+
+    private byte[] record(String name, byte[] value) {
+        Counters c = counters(name);
+        if (value != null) {
+            c.hits.incrementAndGet();
+        } else {
+            c.misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    private Counters counters(String name) {
+        return counters.computeIfAbsent(name, n -> new Counters());
+    }
+
+    private static class Budget {
+        private final Duration ttl;
+        private final long maxEntryBytes;
+
+        Budget(Duration ttl, long maxEntryBytes) {
+            this.ttl = ttl;
+            this.maxEntryBytes = maxEntryBytes;
+        }
+    }
+
+    private static class Counters {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong writes = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong keyBytes = new AtomicLong();
+        private final AtomicLong valueBytes = new AtomicLong();
+        private final LongAccumulator maxValueBytes = new LongAccumulator(Math::max, 0);
+
+        CacheNamespaceStats toStats(String name, Budget budget) {
+            return new CacheNamespaceStats(name, budget.ttl.getSeconds(), budget.maxEntryBytes, hits.get(),
+                    misses.get(), writes.get(), rejected.get(), keyBytes.get(), valueBytes.get(),
+                    maxValueBytes.get());
+        }
+    }
+}
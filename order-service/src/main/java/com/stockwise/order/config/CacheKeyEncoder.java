@@ -0,0 +1,88 @@
+package com.stockwise.order.config;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Бинарные ключи кэша: "orders-by-id::12345" -> ['o'][тег пространства][varint id].
+// Числовые id занимают 1-9 байт вместо строки с именем кэша; шаблон "<кэш>::*"
+// кодируется как ['o'][тег]['*'], поэтому очистка пространства через SCAN продолжает работать
+public class CacheKeyEncoder implements RedisSerializer<String> {
+    static final byte MARKER = 'o';
+    private static final String SEPARATOR = "::";
+    private static final String WILDCARD = "*";
+
+    @Override
+    public byte[] serialize(String key) throws SerializationException {
+        if (key == null) {
+            return null;
+        }
+        int separator = key.indexOf(SEPARATOR);
+        OrderCacheNamespace namespace = separator > 0
+                ? OrderCacheNamespace.byCacheName(key.substring(0, separator)) : null;
+        if (namespace == null) {
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+
+        String value = key.substring(separator + SEPARATOR.length());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(MARKER);
+        out.write(namespace.getTag());
+        if (WILDCARD.equals(value)) {
+            out.write('*');
+        } else if (namespace.getKeyType() == OrderCacheNamespace.KeyType.LONG) {
+            try {
+                writeVarLong(out, Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                throw new SerializationException("Cache " + namespace.getCacheName() + " expects numeric keys: " + value, e);
+            }
+        } else {
+            out.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null) {
+            return null;
+        }
+        OrderCacheNamespace namespace = bytes.length >= 2 && bytes[0] == MARKER
+                ? OrderCacheNamespace.byTag(bytes[1]) : null;
+        if (namespace == null) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Шаблоны очистки обратно не декодируются, поэтому байт '*' здесь - обычное значение ключа
+        String prefix = namespace.getCacheName() + SEPARATOR;
+        if (namespace.getKeyType() == OrderCacheNamespace.KeyType.LONG) {
+            return prefix + readVarLong(bytes, 2);
+        }
+        return prefix + new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_8);
+    }
+
+    // Беззнаковый LEB128 поверх zigzag: отрицательные ключи тоже кодируются компактно
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private static long readVarLong(byte[] bytes, int offset) {
+        long zigzag = 0;
+        int shift = 0;
+        for (int i = offset; i < bytes.length; i++) {
+            zigzag |= (long) (bytes[i] & 0x7F) << shift;
+            if ((bytes[i] & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            shift += 7;
+        }
+        throw new SerializationException("Truncated numeric cache key");
+    }
+}
@@ -0,0 +1,12 @@
+package com.stockwise.order.config;
+
+// Имена кэшей заказов (константы нужны в аннотациях @Cacheable/@CacheEvict)
+public final class OrderCacheNames {
+    public static final String BY_ID = "orders-by-id";
+    public static final String BY_NUMBER = "orders-by-number";
+    public static final String PAGES = "order-pages";
+    public static final String STATS = "order-stats";
+
+    private OrderCacheNames() {
+    }
+}
@@ -0,0 +1,82 @@
+package com.stockwise.order.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderStats;
+
+import java.time.Duration;
+import java.util.List;
+
+// Раздельные пространства кэша заказов: у каждого свой тип ключа и значения,
+// однобайтовый тег в ключе Redis, TTL и ограничение на размер записи
+public enum OrderCacheNamespace {
+    BY_ID(OrderCacheNames.BY_ID, (byte) 1, KeyType.LONG, Duration.ofMinutes(15), 64 * 1024) {
+        @Override
+        public JavaType valueType(TypeFactory types) {
+            return types.constructType(Order.class);
+        }
+    },
+    BY_NUMBER(OrderCacheNames.BY_NUMBER, (byte) 2, KeyType.STRING, Duration.ofMinutes(15), 64 * 1024) {
+        @Override
+        public JavaType valueType(TypeFactory types) {
+            return types.constructType(Order.class);
+        }
+    },
+    PAGES(OrderCacheNames.PAGES, (byte) 3, KeyType.STRING, Duration.ofMinutes(5), 1024 * 1024) {
+        @Override
+        public JavaType valueType(TypeFactory types) {
+            return types.constructCollectionType(List.class, Order.class);
+        }
+    },
+    STATS(OrderCacheNames.STATS, (byte) 4, KeyType.STRING, Duration.ofMinutes(5), 4 * 1024) {
+        @Override
+        public JavaType valueType(TypeFactory types) {
+            return types.constructType(OrderStats.class);
+        }
+    };
+
+    public enum KeyType {
+        LONG, STRING
+    }
+
+    private final String cacheName;
+    private final byte tag;
+    private final KeyType keyType;
+    private final Duration defaultTtl;
+    private final int defaultMaxEntryBytes;
+
+    OrderCacheNamespace(String cacheName, byte tag, KeyType keyType, Duration defaultTtl, int defaultMaxEntryBytes) {
+        this.cacheName = cacheName;
+        this.tag = tag;
+        this.keyType = keyType;
+        this.defaultTtl = defaultTtl;
+        this.defaultMaxEntryBytes = defaultMaxEntryBytes;
+    }
+
+    public abstract JavaType valueType(TypeFactory types);
+
+    public static OrderCacheNamespace byCacheName(String cacheName) {
+        for (OrderCacheNamespace namespace : values()) {
+            if (namespace.cacheName.equals(cacheName)) {
+                return namespace;
+            }
+        }
+        return null;
+    }
+
+    public static OrderCacheNamespace byTag(byte tag) {
+        for (OrderCacheNamespace namespace : values()) {
+            if (namespace.tag == tag) {
+                return namespace;
+            }
+        }
+        return null;
+    }
+
+    public String getCacheName() { return cacheName; }
+    public byte getTag() { return tag; }
+    public KeyType getKeyType() { return keyType; }
+    public Duration getDefaultTtl() { return defaultTtl; }
+    public int getDefaultMaxEntryBytes() { return defaultMaxEntryBytes; }
+}
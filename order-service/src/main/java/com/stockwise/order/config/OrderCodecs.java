@@ -0,0 +1,121 @@
+package com.stockwise.order.config;
+
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderItem;
+import com.stockwise.order.model.OrderStats;
+
+import java.math.BigDecimal;
+
+// Бинарные схемы кэшируемых типов order-service. При изменении набора или порядка полей
+// нужно увеличить версию схемы: старые записи в Redis станут промахами, а не ошибками
+final class OrderCodecs {
+    static final int ORDER_TAG = 1;
+    static final int ORDER_STATS_TAG = 2;
+
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    static final BinaryCodec<OrderItem> ORDER_ITEM = new BinaryCodec<>() {
+        @Override
+        public void write(OrderItem item, BinaryWriter out) {
+            out.writeLong(item.getId());
+            out.writeString(item.getProductId());
+            out.writeInt(item.getQuantity());
+            out.writeDecimal(item.getUnitPrice());
+            out.writeDecimal(item.getTotalPrice());
+            out.writeString(item.getNotes());
+        }
+
+        @Override
+        public OrderItem read(BinaryReader in) {
+            OrderItem item = new OrderItem();
+            item.setId(in.readLong());
+            item.setProductId(in.readString());
+            Integer quantity = in.readInt();
+            BigDecimal unitPrice = in.readDecimal();
+            // Сеттеры пересчитывают сумму, поэтому сохраненная сумма выставляется последней
+            if (unitPrice != null) {
+                item.setUnitPrice(unitPrice);
+            }
+            if (quantity != null) {
+                item.setQuantity(quantity);
+            }
+            item.setTotalPrice(in.readDecimal());
+            item.setNotes(in.readString());
+            return item;
+        }
+    };
+
+    static final BinaryCodec<Order> ORDER = new BinaryCodec<>() {
+        @Override
+        public void write(Order order, BinaryWriter out) {
+            out.writeLong(order.getId());
+            out.writeString(order.getOrderNumber());
+            out.writeLong(order.getSupplierId());
+            out.writeLong(order.getContractId());
+            out.writeString(order.getProductId());
+            out.writeInt(order.getQuantity());
+            out.writeDecimal(order.getUnitPrice());
+            out.writeDecimal(order.getTotalPrice());
+            out.writeEnum(order.getStatus());
+            out.writeDateTime(order.getOrderDate());
+            out.writeDateTime(order.getExpectedDeliveryDate());
+            out.writeDateTime(order.getActualDeliveryDate());
+            out.writeString(order.getNotes());
+            out.writeString(order.getReason());
+            out.writeVarInt(order.getOrderItems().size());
+            for (OrderItem item : order.getOrderItems()) {
+                ORDER_ITEM.write(item, out);
+            }
+        }
+
+        @Override
+        public Order read(BinaryReader in) {
+            Order order = new Order();
+            order.setId(in.readLong());
+            order.setOrderNumber(in.readString());
+            order.setSupplierId(in.readLong());
+            order.setContractId(in.readLong());
+            order.setProductId(in.readString());
+            order.setQuantity(in.readInt());
+            order.setUnitPrice(in.readDecimal());
+            order.setTotalPrice(in.readDecimal());
+            order.setStatus(in.readEnum(STATUSES));
+            order.setOrderDate(in.readDateTime());
+            order.setExpectedDeliveryDate(in.readDateTime());
+            order.setActualDeliveryDate(in.readDateTime());
+            order.setNotes(in.readString());
+            order.setReason(in.readString());
+            int items = in.readVarInt();
+            for (int i = 0; i < items; i++) {
+                order.addOrderItem(ORDER_ITEM.read(in));
+            }
+            return order;
+        }
+    };
+
+    static final BinaryCodec<OrderStats> ORDER_STATS = new BinaryCodec<>() {
+        @Override
+        public void write(OrderStats stats, BinaryWriter out) {
+            out.writeVarLong(stats.getTotalOrders());
+            out.writeVarLong(stats.getPendingOrders());
+            out.writeVarLong(stats.getConfirmedOrders());
+            out.writeVarLong(stats.getDeliveredOrders());
+            out.writeVarLong(stats.getCancelledOrders());
+        }
+
+        @Override
+        public OrderStats read(BinaryReader in) {
+            return new OrderStats(in.readVarLong(), in.readVarLong(), in.readVarLong(),
+                    in.readVarLong(), in.readVarLong());
+        }
+    };
+
+    private OrderCodecs() {
+    }
+
+    static BinaryRedisSerializer.Builder register(BinaryRedisSerializer.Builder builder) {
+        return builder
+                .register(ORDER_TAG, Order.class, 1, ORDER)
+                .register(ORDER_STATS_TAG, OrderStats.class, 1, ORDER_STATS);
+    }
+}
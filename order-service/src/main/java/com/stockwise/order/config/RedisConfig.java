@@ -1,41 +1,68 @@
 package com.stockwise.order.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderItem;
+import com.stockwise.order.model.OrderStats;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
-    @Value("${spring.redis.host:localhost}")
-    private String redisHost;
+    @Bean
+    public RedisLatencyRecorder redisLatencyRecorder() {
+        return new RedisLatencyRecorder();
+    }
 
-    @Value("${spring.redis.port:6379}")
-    private int redisPort;
+    // Общие потоки ввода-вывода для всех подключений и сбор клиентских задержек команд
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources redisClientResources(RedisLatencyRecorder redisLatencyRecorder) {
+        return ClientResources.builder()
+                .commandLatencyRecorder(redisLatencyRecorder)
+                .build();
+    }
 
-    @Value("${spring.redis.password:}")
-    private String redisPassword;
+    // Топология задается spring.redis.mode: standalone (host/port), sentinel (sentinel.master,
+    // sentinel.nodes) или cluster (cluster.nodes); таймауты - spring.redis.timeout.*
+    @Bean
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory(Environment env, ClientResources redisClientResources) {
+        return RedisConnectionFactories.primary(env, redisClientResources);
+    }
 
+    // Отдельное подключение для кэша: попадания читаются с реплик (spring.redis.cache.read-from)
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        if (redisPassword != null && !redisPassword.isEmpty()) {
-            config.setPassword(redisPassword);
-        }
-        return new LettuceConnectionFactory(config);
+    public RedisConnectionFactory cacheRedisConnectionFactory(Environment env, ClientResources redisClientResources) {
+        return RedisConnectionFactories.cache(env, redisClientResources);
     }
 
     @Bean
@@ -54,20 +81,96 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public BudgetedRedisCacheWriter orderCacheWriter(
+            @Qualifier("cacheRedisConnectionFactory") RedisConnectionFactory connectionFactory, Environment env) {
+        BudgetedRedisCacheWriter writer = new BudgetedRedisCacheWriter(
+                RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory));
+        for (OrderCacheNamespace namespace : OrderCacheNamespace.values()) {
+            writer.setBudget(namespace.getCacheName(), ttl(env, namespace), maxEntryBytes(env, namespace));
+        }
+        return writer;
+    }
+
+    @Bean
+    public CacheManager cacheManager(BudgetedRedisCacheWriter orderCacheWriter, ObjectMapper objectMapper,
+                                     Environment env) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30)) // TTL по умолчанию 30 минут
-                .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeKeysWith(SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(orderCacheWriter)
                 .cacheDefaults(config)
-                .withCacheConfiguration("orders", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(15)))
-                .withCacheConfiguration("order-items", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(10)))
-                .withCacheConfiguration("order-stats", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(5)))
+                .withCacheConfiguration("order-items", config.entryTtl(Duration.ofMinutes(10)));
+
+        // Типизированные пространства заказов: бинарные ключи, значения - бинарные схемы
+        // OrderCodecs (по умолчанию) или типизированный JSON без имен классов
+        ObjectMapper cacheMapper = cacheObjectMapper(objectMapper);
+        for (OrderCacheNamespace namespace : OrderCacheNamespace.values()) {
+            builder.withCacheConfiguration(namespace.getCacheName(), RedisCacheConfiguration.defaultCacheConfig()
+                    .entryTtl(ttl(env, namespace))
+                    .disableCachingNullValues()
+                    .serializeKeysWith(SerializationPair.fromSerializer(new CacheKeyEncoder()))
+                    .serializeValuesWith(SerializationPair.fromSerializer(
+                            valueSerializer(env, namespace, cacheMapper))));
+        }
+        return builder.build();
+    }
+
+    // Кэш читает и пишет поля напрямую: сеттеры сущностей пересчитывают суммы и не должны
+    // вызываться при восстановлении значения из Redis
+    static ObjectMapper cacheObjectMapper(ObjectMapper objectMapper) {
+        return objectMapper.copy()
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .addMixIn(Order.class, OrderCacheMixin.class)
+                .addMixIn(OrderItem.class, OrderItemCacheMixin.class)
+                .addMixIn(OrderStats.class, OrderStatsCacheMixin.class)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    static RedisSerializer<?> valueSerializer(Environment env, OrderCacheNamespace namespace,
+                                              ObjectMapper cacheMapper) {
+        String prefix = "orders.cache." + namespace.getCacheName();
+        String format = env.getProperty(prefix + ".serializer", "binary");
+        if ("json".equalsIgnoreCase(format)) {
+            return new Jackson2JsonRedisSerializer<>(cacheMapper, namespace.valueType(cacheMapper.getTypeFactory()));
+        }
+        return OrderCodecs.register(BinaryRedisSerializer.builder())
+                .compressAbove(env.getProperty(prefix + ".compress-above-bytes", Integer.class, 1024))
                 .build();
     }
+
+    private static Duration ttl(Environment env, OrderCacheNamespace namespace) {
+        return env.getProperty("orders.cache." + namespace.getCacheName() + ".ttl",
+                Duration.class, namespace.getDefaultTtl());
+    }
+
+    private static long maxEntryBytes(Environment env, OrderCacheNamespace namespace) {
+        return env.getProperty("orders.cache." + namespace.getCacheName() + ".max-entry-bytes",
+                Long.class, (long) namespace.getDefaultMaxEntryBytes());
+    }
+
+    // Позиции сериализуются вместе с заказом, обратная ссылка восстанавливается при чтении
+    abstract static class OrderCacheMixin {
+        @JsonManagedReference
+        private List<OrderItem> orderItems;
+    }
+
+    abstract static class OrderItemCacheMixin {
+        @JsonBackReference
+        private Order order;
+    }
+
+    // OrderStats неизменяемый: восстанавливается через конструктор
+    abstract static class OrderStatsCacheMixin {
+        @JsonCreator
+        OrderStatsCacheMixin(@JsonProperty("totalOrders") long totalOrders,
+                             @JsonProperty("pendingOrders") long pendingOrders,
+                             @JsonProperty("confirmedOrders") long confirmedOrders,
+                             @JsonProperty("deliveredOrders") long deliveredOrders,
+                             @JsonProperty("cancelledOrders") long cancelledOrders) {
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.stockwise.order.config;
+
+import com.stockwise.order.model.RedisCommandLatency;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Клиентские задержки команд Redis по типу команды: время до первого ответа и до завершения.
+// Гистограмма по степеням двойки в микросекундах - фиксированная память, без внешних зависимостей
+public class RedisLatencyRecorder implements CommandLatencyRecorder {
+    static final int BUCKETS = 40;
+
+    private final Map<String, Latencies> byCommand = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        byCommand.computeIfAbsent(commandType.name(), name -> new Latencies())
+                .record(firstResponseLatency, completionLatency);
+    }
+
+    public List<RedisCommandLatency> snapshot() {
+        List<RedisCommandLatency> result = new ArrayList<>(byCommand.size());
+        byCommand.forEach((command, latencies) -> result.add(latencies.toStats(command)));
+        result.sort(Comparator.comparingLong(RedisCommandLatency::getCount).reversed());
+        return result;
+    }
+
+    public void reset() {
+        byCommand.clear();
+    }
+
+    static int bucket(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    private static class Latencies {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder firstResponseNanos = new LongAdder();
+        private final LongAdder completionNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void record(long firstResponse, long completion) {
+            count.increment();
+            firstResponseNanos.add(firstResponse);
+            completionNanos.add(completion);
+            maxNanos.accumulate(completion);
+            histogram.incrementAndGet(bucket(completion));
+        }
+
+        RedisCommandLatency toStats(String command) {
+            long total = count.sum();
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+            }
+            return new RedisCommandLatency(command, total,
+                    total > 0 ? firstResponseNanos.sum() / total / 1000 : 0,
+                    total > 0 ? completionNanos.sum() / total / 1000 : 0,
+                    percentile(counts, 0.50), percentile(counts, 0.99),
+                    maxNanos.get() / 1000);
+        }
+
+        // Верхняя граница корзины, в которую попадает заданный процентиль
+        private static long percentile(long[] counts, double percentile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return (2L << i) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
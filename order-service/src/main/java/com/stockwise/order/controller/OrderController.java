@@ -1,7 +1,20 @@
 package com.stockwise.order.controller;
 
+import com.stockwise.order.config.BudgetedRedisCacheWriter;
+import com.stockwise.order.config.RedisLatencyRecorder;
+import com.stockwise.order.model.BulkOrderRequest;
+import com.stockwise.order.model.BulkOrderResult;
+import com.stockwise.order.model.BulkTransitionRequest;
+import com.stockwise.order.model.BulkTransitionResult;
+import com.stockwise.order.model.CacheNamespaceStats;
 import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderView;
+import com.stockwise.order.model.PendingOrderJobStats;
+import com.stockwise.order.model.RedisCommandLatency;
+import com.stockwise.order.service.BulkOrderService;
+import com.stockwise.order.service.OrderLifecycleService;
 import com.stockwise.order.service.OrderService;
+import com.stockwise.order.service.PendingOrderProcessor;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,9 +27,24 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class OrderController {
     private final OrderService orderService;
-
-    public OrderController(OrderService orderService) {
+    private final OrderLifecycleService lifecycleService;
+    private final PendingOrderProcessor pendingOrderProcessor;
+    private final BulkOrderService bulkOrderService;
+    private final BudgetedRedisCacheWriter orderCacheWriter;
+    private final RedisLatencyRecorder redisLatencyRecorder;
+
+    public OrderController(OrderService orderService,
+                           OrderLifecycleService lifecycleService,
+                           PendingOrderProcessor pendingOrderProcessor,
+                           BulkOrderService bulkOrderService,
+                           BudgetedRedisCacheWriter orderCacheWriter,
+                           RedisLatencyRecorder redisLatencyRecorder) {
         this.orderService = orderService;
+        this.lifecycleService = lifecycleService;
+        this.pendingOrderProcessor = pendingOrderProcessor;
+        this.bulkOrderService = bulkOrderService;
+        this.orderCacheWriter = orderCacheWriter;
+        this.redisLatencyRecorder = redisLatencyRecorder;
     }
 
     // CRUD операции для заказов
@@ -25,6 +53,11 @@ public class OrderController {
         return ResponseEntity.ok(orderService.createOrder(order));
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkOrderResult> createOrders(@Valid @RequestBody BulkOrderRequest request) {
+        return ResponseEntity.ok(bulkOrderService.createOrders(request.getOrders()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrder(@PathVariable Long id) {
         return ResponseEntity.ok(orderService.getOrderById(id));
@@ -81,20 +114,26 @@ public class OrderController {
         return ResponseEntity.ok(orderService.cancelOrder(id));
     }
 
+    @PostMapping("/bulk-transition")
+    public ResponseEntity<BulkTransitionResult> bulkTransition(
+            @Valid @RequestBody BulkTransitionRequest request) {
+        return ResponseEntity.ok(lifecycleService.transition(request.getOrderIds(), request.getTargetStatus()));
+    }
+
     // Запросы и фильтрация
     @GetMapping("/supplier/{supplierId}")
-    public ResponseEntity<List<Order>> getOrdersBySupplier(@PathVariable Long supplierId) {
+    public ResponseEntity<List<OrderView>> getOrdersBySupplier(@PathVariable Long supplierId) {
         return ResponseEntity.ok(orderService.getOrdersBySupplier(supplierId));
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable String status) {
+    public ResponseEntity<List<OrderView>> getOrdersByStatus(@PathVariable String status) {
         Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
         return ResponseEntity.ok(orderService.getOrdersByStatus(orderStatus));
     }
 
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<Order>> getOrdersByProduct(@PathVariable String productId) {
+    public ResponseEntity<List<OrderView>> getOrdersByProduct(@PathVariable String productId) {
         return ResponseEntity.ok(orderService.getOrdersByProduct(productId));
     }
 
@@ -111,36 +150,52 @@ public class OrderController {
     }
 
     @GetMapping("/date-range")
-    public ResponseEntity<List<Order>> getOrdersByDateRange(
+    public ResponseEntity<List<OrderView>> getOrdersByDateRange(
             @RequestParam LocalDateTime startDate,
             @RequestParam LocalDateTime endDate) {
         return ResponseEntity.ok(orderService.getOrdersByDateRange(startDate, endDate));
     }
 
+    // Фоновые задачи
+    @PostMapping("/jobs/pending-confirmation")
+    public ResponseEntity<PendingOrderJobStats> runPendingConfirmation() {
+        pendingOrderProcessor.processPendingOrders();
+        return ResponseEntity.ok(pendingOrderProcessor.getStats());
+    }
+
+    @GetMapping("/jobs/pending-confirmation")
+    public ResponseEntity<PendingOrderJobStats> getPendingConfirmationStats() {
+        return ResponseEntity.ok(pendingOrderProcessor.getStats());
+    }
+
     // Статистика
     @GetMapping("/stats")
     public ResponseEntity<OrderStats> getOrderStats() {
-        List<Order> pendingOrders = orderService.getOrdersByStatus(Order.OrderStatus.PENDING);
-        List<Order> confirmedOrders = orderService.getOrdersByStatus(Order.OrderStatus.CONFIRMED);
-        List<Order> inProgressOrders = orderService.getOrdersByStatus(Order.OrderStatus.IN_PROGRESS);
-        List<Order> shippedOrders = orderService.getOrdersByStatus(Order.OrderStatus.SHIPPED);
-        List<Order> deliveredOrders = orderService.getOrdersByStatus(Order.OrderStatus.DELIVERED);
-        List<Order> cancelledOrders = orderService.getOrdersByStatus(Order.OrderStatus.CANCELLED);
-        List<Order> overdueOrders = orderService.getOverdueOrders();
-
+        // Счетчики берутся из индексов read-модели, списки заказов не материализуются
         OrderStats stats = new OrderStats(
-                pendingOrders.size(),
-                confirmedOrders.size(),
-                inProgressOrders.size(),
-                shippedOrders.size(),
-                deliveredOrders.size(),
-                cancelledOrders.size(),
-                overdueOrders.size()
+                (int) orderService.countOrdersByStatus(Order.OrderStatus.PENDING),
+                (int) orderService.countOrdersByStatus(Order.OrderStatus.CONFIRMED),
+                (int) orderService.countOrdersByStatus(Order.OrderStatus.IN_PROGRESS),
+                (int) orderService.countOrdersByStatus(Order.OrderStatus.SHIPPED),
+                (int) orderService.countOrdersByStatus(Order.OrderStatus.DELIVERED),
+                (int) orderService.countOrdersByStatus(Order.OrderStatus.CANCELLED),
+                orderService.getOverdueOrders().size()
         );
 
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheNamespaceStats>> getCacheStats() {
+        return ResponseEntity.ok(orderCacheWriter.getStats());
+    }
+
+    // Клиентские задержки команд Redis по типу команды
+    @GetMapping("/cache/redis-latency")
+    public ResponseEntity<List<RedisCommandLatency>> getRedisLatency() {
+        return ResponseEntity.ok(redisLatencyRecorder.snapshot());
+    }
+
     // Вспомогательный класс для статистики
     public static class OrderStats {
         private int pendingCount;
@@ -0,0 +1,28 @@
+package com.stockwise.order.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BulkOrderRequest {
+    @NotEmpty(message = "Orders are required")
+    @Size(max = 10000, message = "No more than 10000 orders per request")
+    private List<@Valid Order> orders;
+
+    public BulkOrderRequest() {
+    }
+
+    public BulkOrderRequest(List<Order> orders) {
+        this.orders = orders;
+    }
+
+    // Getters and setters
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+}
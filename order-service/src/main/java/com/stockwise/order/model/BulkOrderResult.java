@@ -0,0 +1,46 @@
+package com.stockwise.order.model;
+
+import java.util.List;
+
+public class BulkOrderResult {
+    private final int created;
+    private final int orderItems;
+    private final long durationMillis;
+    private final List<Long> orderIds;
+    private final List<String> orderNumbers;
+
+    public BulkOrderResult(int created, int orderItems, long durationMillis,
+                           List<Long> orderIds, List<String> orderNumbers) {
+        this.created = created;
+        this.orderItems = orderItems;
+        this.durationMillis = durationMillis;
+        this.orderIds = orderIds;
+        this.orderNumbers = orderNumbers;
+    }
+
+    // Getters
+    public int getCreated() {
+        return created;
+    }
+
+    public int getOrderItems() {
+        return orderItems;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public List<String> getOrderNumbers() {
+        return orderNumbers;
+    }
+
+    // Вычисляемые поля
+    public double getOrdersPerSecond() {
+        return durationMillis > 0 ? created * 1000.0 / durationMillis : created;
+    }
+}
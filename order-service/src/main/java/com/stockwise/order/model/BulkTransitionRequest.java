@@ -0,0 +1,40 @@
+package com.stockwise.order.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BulkTransitionRequest {
+    @NotEmpty(message = "Order IDs are required")
+    @Size(max = 10000, message = "No more than 10000 orders per request")
+    private List<Long> orderIds;
+
+    @NotNull(message = "Target status is required")
+    private Order.OrderStatus targetStatus;
+
+    public BulkTransitionRequest() {
+    }
+
+    public BulkTransitionRequest(List<Long> orderIds, Order.OrderStatus targetStatus) {
+        this.orderIds = orderIds;
+        this.targetStatus = targetStatus;
+    }
+
+    // Getters and setters
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public Order.OrderStatus getTargetStatus() {
+        return targetStatus;
+    }
+
+    public void setTargetStatus(Order.OrderStatus targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+}
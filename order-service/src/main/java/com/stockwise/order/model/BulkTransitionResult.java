@@ -0,0 +1,64 @@
+package com.stockwise.order.model;
+
+import java.util.List;
+
+public class BulkTransitionResult {
+    private final Order.OrderStatus targetStatus;
+    private final int requested;
+    private final long durationMillis;
+    private final List<OrderOutcome> outcomes;
+
+    public enum Outcome {
+        APPLIED, ALREADY_IN_STATE, INVALID_TRANSITION, CONFLICT, NOT_FOUND
+    }
+
+    public BulkTransitionResult(Order.OrderStatus targetStatus, int requested,
+                                long durationMillis, List<OrderOutcome> outcomes) {
+        this.targetStatus = targetStatus;
+        this.requested = requested;
+        this.durationMillis = durationMillis;
+        this.outcomes = outcomes;
+    }
+
+    // Getters
+    public Order.OrderStatus getTargetStatus() {
+        return targetStatus;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public List<OrderOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    // Вычисляемые поля
+    public long getApplied() {
+        return outcomes.stream().filter(o -> o.getOutcome() == Outcome.APPLIED).count();
+    }
+
+    public long getRejected() {
+        return outcomes.size() - getApplied();
+    }
+
+    public static class OrderOutcome {
+        private final Long orderId;
+        private final Outcome outcome;
+        private final Order.OrderStatus previousStatus;
+
+        public OrderOutcome(Long orderId, Outcome outcome, Order.OrderStatus previousStatus) {
+            this.orderId = orderId;
+            this.outcome = outcome;
+            this.previousStatus = previousStatus;
+        }
+
+        public Long getOrderId() { return orderId; }
+        public Outcome getOutcome() { return outcome; }
+        public Order.OrderStatus getPreviousStatus() { return previousStatus; }
+    }
+}
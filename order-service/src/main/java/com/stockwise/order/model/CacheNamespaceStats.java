@@ -0,0 +1,55 @@
+package com.stockwise.order.model;
+
+// Размер сериализованных значений и попадания по одному пространству кэша
+public class CacheNamespaceStats {
+    private final String cacheName;
+    private final long ttlSeconds;
+    private final long maxEntryBytes;
+    private final long hits;
+    private final long misses;
+    private final long writes;
+    private final long rejectedOverBudget;
+    private final long keyBytesWritten;
+    private final long valueBytesWritten;
+    private final long maxValueBytes;
+
+    public CacheNamespaceStats(String cacheName, long ttlSeconds, long maxEntryBytes, long hits, long misses,
+                               long writes, long rejectedOverBudget, long keyBytesWritten,
+                               long valueBytesWritten, long maxValueBytes) {
+        this.cacheName = cacheName;
+        this.ttlSeconds = ttlSeconds;
+        this.maxEntryBytes = maxEntryBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.writes = writes;
+        this.rejectedOverBudget = rejectedOverBudget;
+        this.keyBytesWritten = keyBytesWritten;
+        this.valueBytesWritten = valueBytesWritten;
+        this.maxValueBytes = maxValueBytes;
+    }
+
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    public double getAvgKeyBytes() {
+        return writes > 0 ? (double) keyBytesWritten / writes : 0.0;
+    }
+
+    public double getAvgValueBytes() {
+        return writes > 0 ? (double) valueBytesWritten / writes : 0.0;
+    }
+
+    // Getters
+    public String getCacheName() { return cacheName; }
+    public long getTtlSeconds() { return ttlSeconds; }
+    public long getMaxEntryBytes() { return maxEntryBytes; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getWrites() { return writes; }
+    public long getRejectedOverBudget() { return rejectedOverBudget; }
+    public long getKeyBytesWritten() { return keyBytesWritten; }
+    public long getValueBytesWritten() { return valueBytesWritten; }
+    public long getMaxValueBytes() { return maxValueBytes; }
+}
@@ -0,0 +1,64 @@
+package com.stockwise.order.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Компактное представление заказа для запросов (без позиций и без Hibernate)
+public class OrderView {
+    private final Long id;
+    private final String orderNumber;
+    private final Long supplierId;
+    private final Long contractId;
+    private final String productId;
+    private final Integer quantity;
+    private final BigDecimal unitPrice;
+    private final BigDecimal totalPrice;
+    private final Order.OrderStatus status;
+    private final LocalDateTime orderDate;
+    private final LocalDateTime expectedDeliveryDate;
+    private final LocalDateTime actualDeliveryDate;
+
+    public OrderView(Long id, String orderNumber, Long supplierId, Long contractId, String productId,
+                     Integer quantity, BigDecimal unitPrice, BigDecimal totalPrice, Order.OrderStatus status,
+                     LocalDateTime orderDate, LocalDateTime expectedDeliveryDate, LocalDateTime actualDeliveryDate) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.supplierId = supplierId;
+        this.contractId = contractId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.totalPrice = totalPrice;
+        this.status = status;
+        this.orderDate = orderDate;
+        this.expectedDeliveryDate = expectedDeliveryDate;
+        this.actualDeliveryDate = actualDeliveryDate;
+    }
+
+    public static OrderView from(Order order) {
+        return new OrderView(order.getId(), order.getOrderNumber(), order.getSupplierId(), order.getContractId(),
+                order.getProductId(), order.getQuantity(), order.getUnitPrice(), order.getTotalPrice(),
+                order.getStatus(), order.getOrderDate(), order.getExpectedDeliveryDate(),
+                order.getActualDeliveryDate());
+    }
+
+    public OrderView withStatus(Order.OrderStatus newStatus, LocalDateTime changedAt) {
+        LocalDateTime delivered = newStatus == Order.OrderStatus.DELIVERED ? changedAt : actualDeliveryDate;
+        return new OrderView(id, orderNumber, supplierId, contractId, productId, quantity, unitPrice,
+                totalPrice, newStatus, orderDate, expectedDeliveryDate, delivered);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getOrderNumber() { return orderNumber; }
+    public Long getSupplierId() { return supplierId; }
+    public Long getContractId() { return contractId; }
+    public String getProductId() { return productId; }
+    public Integer getQuantity() { return quantity; }
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public BigDecimal getTotalPrice() { return totalPrice; }
+    public Order.OrderStatus getStatus() { return status; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public LocalDateTime getExpectedDeliveryDate() { return expectedDeliveryDate; }
+    public LocalDateTime getActualDeliveryDate() { return actualDeliveryDate; }
+}
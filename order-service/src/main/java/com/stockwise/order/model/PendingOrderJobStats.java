@@ -0,0 +1,81 @@
+package com.stockwise.order.model;
+
+import java.time.LocalDateTime;
+
+public class PendingOrderJobStats {
+    private final boolean running;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final Long resumedFromId;
+    private final Long lastProcessedId;
+    private final long chunks;
+    private final long scanned;
+    private final long eligible;
+    private final long confirmed;
+    private final long elapsedMillis;
+
+    public PendingOrderJobStats(boolean running, LocalDateTime startedAt, LocalDateTime finishedAt,
+                                Long resumedFromId, Long lastProcessedId, long chunks,
+                                long scanned, long eligible, long confirmed, long elapsedMillis) {
+        this.running = running;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.resumedFromId = resumedFromId;
+        this.lastProcessedId = lastProcessedId;
+        this.chunks = chunks;
+        this.scanned = scanned;
+        this.eligible = eligible;
+        this.confirmed = confirmed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters
+    public boolean isRunning() {
+        return running;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Long getResumedFromId() {
+        return resumedFromId;
+    }
+
+    public Long getLastProcessedId() {
+        return lastProcessedId;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getScanned() {
+        return scanned;
+    }
+
+    public long getEligible() {
+        return eligible;
+    }
+
+    public long getConfirmed() {
+        return confirmed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // Вычисляемые поля
+    public double getScannedPerSecond() {
+        return elapsedMillis > 0 ? scanned * 1000.0 / elapsedMillis : 0.0;
+    }
+
+    public double getConfirmedPerSecond() {
+        return elapsedMillis > 0 ? confirmed * 1000.0 / elapsedMillis : 0.0;
+    }
+}
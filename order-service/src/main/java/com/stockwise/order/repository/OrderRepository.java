@@ -1,6 +1,7 @@
 package com.stockwise.order.repository;
 
 import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -39,9 +41,49 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.expectedDeliveryDate <= :date AND o.status IN ('PENDING', 'CONFIRMED', 'IN_PROGRESS')")
     List<Order> findOverdueOrders(@Param("date") LocalDateTime date);
     
+    @Query("SELECT o.id, o.expectedDeliveryDate FROM Order o WHERE o.expectedDeliveryDate IS NOT NULL " +
+           "AND o.status IN ('PENDING', 'CONFIRMED', 'IN_PROGRESS')")
+    List<Object[]> findOpenDeliveryDeadlines();
+    
     @Query("SELECT o FROM Order o WHERE o.status = 'PENDING' ORDER BY o.orderDate ASC")
     Page<Order> findPendingOrders(Pageable pageable);
     
+    // Keyset-пагинация по id: стоимость страницы не зависит от глубины обхода
+    @Query("SELECT o FROM Order o WHERE o.status = 'PENDING' AND o.id > :afterId ORDER BY o.id ASC")
+    List<Order> findPendingAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Проекции для read-модели: только скалярные поля, без сущностей и позиций заказа
+    @Query("SELECT new com.stockwise.order.model.OrderView(o.id, o.orderNumber, o.supplierId, o.contractId, " +
+           "o.productId, o.quantity, o.unitPrice, o.totalPrice, o.status, o.orderDate, " +
+           "o.expectedDeliveryDate, o.actualDeliveryDate) FROM Order o WHERE o.id > :afterId ORDER BY o.id ASC")
+    List<OrderView> findViewsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT new com.stockwise.order.model.OrderView(o.id, o.orderNumber, o.supplierId, o.contractId, " +
+           "o.productId, o.quantity, o.unitPrice, o.totalPrice, o.status, o.orderDate, " +
+           "o.expectedDeliveryDate, o.actualDeliveryDate) FROM Order o WHERE o.id IN :ids")
+    List<OrderView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") Order.OrderStatus status);
+    
+    @Query("SELECT o.id, o.status FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Условный переход: обновляются только заказы, все еще находящиеся в статусе :from.
+    // RETURNING возвращает id именно этих строк: заказы, параллельно переведенные в тот же
+    // статус другим вызовом, в результат не попадают. Запрос нативный, статусы - имена enum
+    @Query(value = "UPDATE orders SET status = :to WHERE id IN (:ids) AND status = :from RETURNING id",
+           nativeQuery = true)
+    List<Long> updateStatusIfCurrent(
+            @Param("ids") Collection<Long> ids,
+            @Param("from") String from,
+            @Param("to") String to);
+    
+    @Query(value = "UPDATE orders SET status = :to, actual_delivery_date = :deliveredAt " +
+           "WHERE id IN (:ids) AND status = :from RETURNING id", nativeQuery = true)
+    List<Long> updateDeliveredIfCurrent(
+            @Param("ids") Collection<Long> ids,
+            @Param("from") String from,
+            @Param("to") String to,
+            @Param("deliveredAt") LocalDateTime deliveredAt);
 }
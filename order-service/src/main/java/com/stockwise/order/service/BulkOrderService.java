@@ -0,0 +1,90 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.config.OrderCacheNames;
+import com.stockwise.order.model.BulkOrderResult;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Массовое создание заказов (EDI-загрузки поставщиков): id берутся из последовательностей
+// пулами по 50, INSERT заказов и позиций уходят JDBC-батчами, события публикуются пачками
+@Service
+@Transactional
+public class BulkOrderService {
+    private final EntityManager entityManager;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderEventPublisher eventPublisher;
+    private final OverdueOrderDetector overdueDetector;
+
+    @Value("${orders.bulk.insert-batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${orders.bulk.chunk-size:1000}")
+    private int eventChunkSize = 1000;
+
+    public BulkOrderService(EntityManager entityManager,
+                            OrderNumberGenerator orderNumberGenerator,
+                            OrderEventPublisher eventPublisher,
+                            OverdueOrderDetector overdueDetector) {
+        this.entityManager = entityManager;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.eventPublisher = eventPublisher;
+        this.overdueDetector = overdueDetector;
+    }
+
+    // Новые заказы не могут быть в кэшах по id и номеру: сбрасываются только списки и статистика
+    @Caching(evict = {
+            @CacheEvict(value = OrderCacheNames.PAGES, allEntries = true),
+            @CacheEvict(value = OrderCacheNames.STATS, allEntries = true)
+    })
+    public BulkOrderResult createOrders(List<Order> orders) {
+        long startedAt = System.nanoTime();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        List<String> orderNumbers = new ArrayList<>(orders.size());
+        int orderItems = 0;
+
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (order.getOrderNumber() == null || order.getOrderNumber().isEmpty()) {
+                order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+            }
+            order.setOrderDate(now);
+            order.setStatus(Order.OrderStatus.PENDING);
+            for (OrderItem item : order.getOrderItems()) {
+                item.setOrder(order);
+                orderItems++;
+            }
+
+            entityManager.persist(order);
+            orderIds.add(order.getId());
+            orderNumbers.add(order.getOrderNumber());
+
+            // Сбрасываем батч и очищаем контекст, чтобы он не рос на тысячах заказов
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        overdueDetector.trackAll(orders);
+        eventPublisher.publishCreatedBatch(orders, eventChunkSize);
+
+        long durationMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        return new BulkOrderResult(orders.size(), orderItems, durationMillis, orderIds, orderNumbers);
+    }
+}
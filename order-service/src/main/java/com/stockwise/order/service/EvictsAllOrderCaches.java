@@ -0,0 +1,22 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.config.OrderCacheNames;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Полная инвалидация кэшей заказов для пакетных операций и удаления
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Caching(evict = {
+        @CacheEvict(value = OrderCacheNames.BY_ID, allEntries = true),
+        @CacheEvict(value = OrderCacheNames.BY_NUMBER, allEntries = true),
+        @CacheEvict(value = OrderCacheNames.PAGES, allEntries = true),
+        @CacheEvict(value = OrderCacheNames.STATS, allEntries = true)
+})
+@interface EvictsAllOrderCaches {
+}
@@ -0,0 +1,23 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.config.OrderCacheNames;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Инвалидация кэшей после изменения одного заказа (метод возвращает измененный Order):
+// точечно по id и номеру, страницы списков и статистика - целиком
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Caching(evict = {
+        @CacheEvict(value = OrderCacheNames.BY_ID, key = "#result.id"),
+        @CacheEvict(value = OrderCacheNames.BY_NUMBER, key = "#result.orderNumber"),
+        @CacheEvict(value = OrderCacheNames.PAGES, allEntries = true),
+        @CacheEvict(value = OrderCacheNames.STATS, allEntries = true)
+})
+@interface EvictsOrderCaches {
+}
@@ -0,0 +1,46 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Внутреннее событие приложения об изменении заказов, из него строится read-модель
+public class OrderChangeEvent {
+    public enum Kind {
+        UPSERT, STATUS_CHANGED, REMOVED
+    }
+
+    private final Kind kind;
+    private final List<OrderView> views;
+    private final List<Long> orderIds;
+    private final Order.OrderStatus status;
+    private final LocalDateTime occurredAt;
+
+    private OrderChangeEvent(Kind kind, List<OrderView> views, List<Long> orderIds, Order.OrderStatus status) {
+        this.kind = kind;
+        this.views = views;
+        this.orderIds = orderIds;
+        this.status = status;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static OrderChangeEvent upserted(List<OrderView> views) {
+        return new OrderChangeEvent(Kind.UPSERT, views, List.of(), null);
+    }
+
+    public static OrderChangeEvent statusChanged(List<Long> orderIds, Order.OrderStatus status) {
+        return new OrderChangeEvent(Kind.STATUS_CHANGED, List.of(), orderIds, status);
+    }
+
+    public static OrderChangeEvent removed(Long orderId) {
+        return new OrderChangeEvent(Kind.REMOVED, List.of(), List.of(orderId), null);
+    }
+
+    public Kind getKind() { return kind; }
+    public List<OrderView> getViews() { return views; }
+    public List<Long> getOrderIds() { return orderIds; }
+    public Order.OrderStatus getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -0,0 +1,136 @@
+package com.stockwise.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Публикация событий заказов в Kafka и в read-модель (OrderChangeEvent внутри приложения)
+@Component
+public class OrderEventPublisher {
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEvents;
+
+    @Value("${kafka.topics.order-events:order-events}")
+    private String orderTopic;
+
+    public OrderEventPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper,
+                               ApplicationEventPublisher applicationEvents) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.applicationEvents = applicationEvents;
+    }
+
+    public void publish(Order order, String eventType) {
+        send(new OrderEvent(eventType, order));
+        applicationEvents.publishEvent("ORDER_DELETED".equals(eventType)
+                ? OrderChangeEvent.removed(order.getId())
+                : OrderChangeEvent.upserted(List.of(OrderView.from(order))));
+    }
+
+    // Одно событие на пачку заказов вместо сообщения на каждый заказ
+    public void publishBatch(String eventType, Order.OrderStatus status, List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        send(new OrderBatchEvent(eventType, status, orderIds, LocalDateTime.now()));
+        applicationEvents.publishEvent(OrderChangeEvent.statusChanged(List.copyOf(orderIds), status));
+    }
+
+    // Созданные пачкой заказы: в Kafka уходят id по чанкам, в read-модель - полные представления
+    public void publishCreatedBatch(List<Order> orders, int chunkSize) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            send(new OrderBatchEvent("ORDER_CREATED_BATCH", Order.OrderStatus.PENDING,
+                    orderIds.subList(from, Math.min(orderIds.size(), from + chunkSize)), LocalDateTime.now()));
+        }
+        applicationEvents.publishEvent(OrderChangeEvent.upserted(
+                orders.stream().map(OrderView::from).collect(Collectors.toList())));
+    }
+
+    // Событие уходит после коммита: read-модели других экземпляров перечитывают заказы из БД
+    // и не должны увидеть состояние до коммита или откаченное изменение
+    private void send(Object event) {
+        String eventJson;
+        try {
+            eventJson = objectMapper.writeValueAsString(event);
+        } catch (Exception e) {
+            System.err.println("Error sending order event: " + e.getMessage());
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                kafkaTemplate.send(orderTopic, eventJson);
+            } catch (Exception e) {
+                System.err.println("Error sending order event: " + e.getMessage());
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Вспомогательные классы для событий
+    public static class OrderEvent {
+        private String eventType;
+        private Order order;
+        
+        public OrderEvent(String eventType, Order order) {
+            this.eventType = eventType;
+            this.order = order;
+        }
+        
+        // Getters and setters
+        public String getEventType() { return eventType; }
+        public void setEventType(String eventType) { this.eventType = eventType; }
+        public Order getOrder() { return order; }
+        public void setOrder(Order order) { this.order = order; }
+    }
+
+    public static class OrderBatchEvent {
+        private String eventType;
+        private Order.OrderStatus status;
+        private List<Long> orderIds;
+        private LocalDateTime occurredAt;
+
+        public OrderBatchEvent(String eventType, Order.OrderStatus status, List<Long> orderIds, LocalDateTime occurredAt) {
+            this.eventType = eventType;
+            this.status = status;
+            this.orderIds = orderIds;
+            this.occurredAt = occurredAt;
+        }
+
+        // Getters and setters
+        public String getEventType() { return eventType; }
+        public void setEventType(String eventType) { this.eventType = eventType; }
+        public Order.OrderStatus getStatus() { return status; }
+        public void setStatus(Order.OrderStatus status) { this.status = status; }
+        public List<Long> getOrderIds() { return orderIds; }
+        public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+        public LocalDateTime getOccurredAt() { return occurredAt; }
+        public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+    }
+}
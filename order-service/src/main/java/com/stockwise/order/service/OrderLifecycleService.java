@@ -0,0 +1,122 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.BulkTransitionResult;
+import com.stockwise.order.model.BulkTransitionResult.OrderOutcome;
+import com.stockwise.order.model.BulkTransitionResult.Outcome;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Пакетные переходы статусов заказов: один условный UPDATE на группу заказов
+// с одинаковым исходным статусом вместо чтения, сохранения и события на каждый заказ
+@Service
+@Transactional
+public class OrderLifecycleService {
+    private final OrderRepository orderRepository;
+    private final OrderEventPublisher eventPublisher;
+    private final OverdueOrderDetector overdueDetector;
+
+    @Value("${orders.bulk.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    public OrderLifecycleService(OrderRepository orderRepository,
+                                 OrderEventPublisher eventPublisher,
+                                 OverdueOrderDetector overdueDetector) {
+        this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+        this.overdueDetector = overdueDetector;
+    }
+
+    @EvictsAllOrderCaches
+    public BulkTransitionResult transition(Collection<Long> orderIds, Order.OrderStatus target) {
+        long startedAt = System.nanoTime();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        Map<Long, Order.OrderStatus> current = loadStatuses(ids);
+
+        Map<Long, OrderOutcome> outcomes = new HashMap<>();
+        Map<Order.OrderStatus, List<Long>> bySource = new EnumMap<>(Order.OrderStatus.class);
+        for (Long id : ids) {
+            Order.OrderStatus status = current.get(id);
+            if (status == null) {
+                outcomes.put(id, new OrderOutcome(id, Outcome.NOT_FOUND, null));
+            } else if (status == target) {
+                outcomes.put(id, new OrderOutcome(id, Outcome.ALREADY_IN_STATE, status));
+            } else if (!OrderStateMachine.canTransition(status, target)) {
+                outcomes.put(id, new OrderOutcome(id, Outcome.INVALID_TRANSITION, status));
+            } else {
+                bySource.computeIfAbsent(status, s -> new ArrayList<>()).add(id);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> applied = new ArrayList<>();
+        bySource.forEach((from, candidates) -> {
+            for (List<Long> chunk : chunks(candidates)) {
+                Set<Long> updated = new HashSet<>(target == Order.OrderStatus.DELIVERED
+                        ? orderRepository.updateDeliveredIfCurrent(chunk, from.name(), target.name(), now)
+                        : orderRepository.updateStatusIfCurrent(chunk, from.name(), target.name()));
+
+                // Обновленными считаются только строки, которые вернул UPDATE этого вызова
+                List<Long> conflicts = new ArrayList<>();
+                for (Long id : chunk) {
+                    if (updated.contains(id)) {
+                        outcomes.put(id, new OrderOutcome(id, Outcome.APPLIED, from));
+                        applied.add(id);
+                    } else {
+                        conflicts.add(id);
+                    }
+                }
+                if (!conflicts.isEmpty()) {
+                    // Заказы изменены параллельно: в результате - их текущий статус
+                    Map<Long, Order.OrderStatus> after = loadStatuses(conflicts);
+                    conflicts.forEach(id -> outcomes.put(id, new OrderOutcome(id, Outcome.CONFLICT, after.get(id))));
+                }
+            }
+        });
+
+        overdueDetector.onStatusChanged(applied, target);
+
+        String eventType = OrderStateMachine.eventType(target) + "_BATCH";
+        for (List<Long> chunk : chunks(applied)) {
+            eventPublisher.publishBatch(eventType, target, chunk);
+        }
+
+        List<OrderOutcome> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ordered.add(outcomes.get(id));
+        }
+        long durationMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        return new BulkTransitionResult(target, ids.size(), durationMillis, ordered);
+    }
+
+    private Map<Long, Order.OrderStatus> loadStatuses(List<Long> ids) {
+        Map<Long, Order.OrderStatus> statuses = new HashMap<>(ids.size() * 2);
+        for (List<Long> chunk : chunks(ids)) {
+            for (Object[] row : orderRepository.findStatusesByIdIn(chunk)) {
+                statuses.put((Long) row[0], (Order.OrderStatus) row[1]);
+            }
+        }
+        return statuses;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,7 @@
+package com.stockwise.order.service;
+
+// Генератор номеров заказов; реализацию можно заменить, объявив свой бин
+public interface OrderNumberGenerator {
+
+    String nextOrderNumber();
+}
@@ -0,0 +1,328 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderView;
+import com.stockwise.order.repository.OrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Денормализованная read-модель заказов (CQRS): компактные OrderView с индексами
+// по поставщику, статусу, продукту и дате заказа. Изменения своего экземпляра приходят событиями
+// OrderChangeEvent после коммита, изменения всех экземпляров - из топика событий заказов
+// (у каждого экземпляра своя группа потребителей): затронутые заказы перечитываются из БД.
+// Объем ограничен max-orders: при превышении модель отключается и запросы идут в репозиторий
+@Component
+public class OrderReadModel {
+    private static final Logger log = LoggerFactory.getLogger(OrderReadModel.class);
+    private static final int BOOTSTRAP_PAGE_SIZE = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${order.read-model.max-orders:2000000}")
+    private int maxOrders = 2_000_000;
+
+    private final Map<Long, OrderView> views = new HashMap<>();
+    private final Map<Long, NavigableSet<Long>> bySupplier = new HashMap<>();
+    private final Map<Order.OrderStatus, NavigableSet<Long>> byStatus = new EnumMap<>(Order.OrderStatus.class);
+    private final Map<String, NavigableSet<Long>> byProduct = new HashMap<>();
+    private final NavigableMap<LocalDateTime, NavigableSet<Long>> byOrderDate = new TreeMap<>();
+
+    // Заказы, измененные во время начальной загрузки: перечитываются после нее
+    private final Set<Long> touchedDuringBootstrap = new HashSet<>();
+    private volatile boolean ready;
+    // Модель превысила max-orders и больше не обновляется
+    private volatile boolean disabled;
+
+    public OrderReadModel(OrderRepository orderRepository, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Начальная загрузка keyset-проходом по id; выбираются только скалярные поля
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        long lastId = 0L;
+        List<OrderView> page;
+        do {
+            page = orderRepository.findViewsAfterId(lastId, PageRequest.of(0, BOOTSTRAP_PAGE_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (OrderView view : page) {
+                    if (!views.containsKey(view.getId()) && !touchedDuringBootstrap.contains(view.getId())) {
+                        put(view);
+                    }
+                }
+                checkCapacity();
+                if (disabled) {
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == BOOTSTRAP_PAGE_SIZE);
+
+        List<Long> touched;
+        lock.writeLock().lock();
+        try {
+            touched = new ArrayList<>(touchedDuringBootstrap);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<OrderView> reloaded = touched.isEmpty() ? List.of() : orderRepository.findViewsByIdIn(touched);
+
+        lock.writeLock().lock();
+        try {
+            if (disabled) {
+                return;
+            }
+            touched.forEach(this::remove);
+            reloaded.forEach(this::put);
+            touchedDuringBootstrap.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangeEvent event) {
+        if (disabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            switch (event.getKind()) {
+                case UPSERT:
+                    for (OrderView view : event.getViews()) {
+                        remove(view.getId());
+                        put(view);
+                        markTouched(view.getId());
+                    }
+                    break;
+                case STATUS_CHANGED:
+                    for (Long id : event.getOrderIds()) {
+                        OrderView current = views.get(id);
+                        if (current != null) {
+                            remove(id);
+                            put(current.withStatus(event.getStatus(), event.getOccurredAt()));
+                        }
+                        markTouched(id);
+                    }
+                    break;
+                case REMOVED:
+                    for (Long id : event.getOrderIds()) {
+                        remove(id);
+                        markTouched(id);
+                    }
+                    break;
+            }
+            checkCapacity();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Событие любого экземпляра (OrderEventPublisher отправляет его после коммита): заказы
+    // из события перечитываются из БД, удаленные пропадают из модели. Свои изменения при этом
+    // применяются второй раз - перечитывание идемпотентно
+    @KafkaListener(topics = "${kafka.topics.order-events:order-events}",
+            groupId = "order-read-model-${HOSTNAME:order-service}", properties = "auto.offset.reset=latest")
+    public void onOrderEvent(String message) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            JsonNode event = objectMapper.readTree(message);
+            if (event.path("order").hasNonNull("id")) {
+                ids.add(event.path("order").get("id").asLong());
+            }
+            for (JsonNode id : event.path("orderIds")) {
+                ids.add(id.asLong());
+            }
+        } catch (Exception e) {
+            log.warn("Skipping unreadable order event: {}", e.getMessage());
+            return;
+        }
+        if (ids.isEmpty() || disabled) {
+            return;
+        }
+        List<OrderView> reloaded = orderRepository.findViewsByIdIn(ids);
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                remove(id);
+                markTouched(id);
+            }
+            reloaded.forEach(this::put);
+            checkCapacity();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<OrderView> findBySupplier(Long supplierId) {
+        if (!ready) {
+            return toViews(orderRepository.findBySupplierId(supplierId));
+        }
+        return read(() -> resolve(bySupplier.get(supplierId)));
+    }
+
+    public List<OrderView> findByStatus(Order.OrderStatus status) {
+        if (!ready) {
+            return toViews(orderRepository.findByStatus(status));
+        }
+        return read(() -> resolve(byStatus.get(status)));
+    }
+
+    public List<OrderView> findByProduct(String productId) {
+        if (!ready) {
+            return toViews(orderRepository.findByProductId(productId));
+        }
+        return read(() -> resolve(byProduct.get(productId)));
+    }
+
+    public List<OrderView> findByOrderDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        if (!ready) {
+            return toViews(orderRepository.findByOrderDateBetween(startDate, endDate));
+        }
+        if (startDate.isAfter(endDate)) {
+            return List.of();
+        }
+        return read(() -> {
+            List<OrderView> result = new ArrayList<>();
+            for (NavigableSet<Long> ids : byOrderDate.subMap(startDate, true, endDate, true).values()) {
+                for (Long id : ids) {
+                    result.add(views.get(id));
+                }
+            }
+            return result;
+        });
+    }
+
+    public long countByStatus(Order.OrderStatus status) {
+        if (!ready) {
+            return orderRepository.countByStatus(status);
+        }
+        return read(() -> {
+            NavigableSet<Long> ids = byStatus.get(status);
+            return (long) (ids != null ? ids.size() : 0);
+        });
+    }
+
+    private void put(OrderView view) {
+        Long id = view.getId();
+        views.put(id, view);
+        if (view.getSupplierId() != null) {
+            bySupplier.computeIfAbsent(view.getSupplierId(), k -> new TreeSet<>()).add(id);
+        }
+        if (view.getStatus() != null) {
+            byStatus.computeIfAbsent(view.getStatus(), k -> new TreeSet<>()).add(id);
+        }
+        if (view.getProductId() != null) {
+            byProduct.computeIfAbsent(view.getProductId(), k -> new TreeSet<>()).add(id);
+        }
+        if (view.getOrderDate() != null) {
+            byOrderDate.computeIfAbsent(view.getOrderDate(), k -> new TreeSet<>()).add(id);
+        }
+    }
+
+    private void remove(Long id) {
+        OrderView view = views.remove(id);
+        if (view == null) {
+            return;
+        }
+        unindex(bySupplier, view.getSupplierId(), id);
+        unindex(byStatus, view.getStatus(), id);
+        unindex(byProduct, view.getProductId(), id);
+        unindex(byOrderDate, view.getOrderDate(), id);
+    }
+
+    private static <K> void unindex(Map<K, NavigableSet<Long>> index, K key, Long id) {
+        if (key == null) {
+            return;
+        }
+        NavigableSet<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    // Вызывается под блокировкой записи
+    private void checkCapacity() {
+        if (views.size() > maxOrders) {
+            disable();
+        }
+    }
+
+    // Модель больше max-orders не держится в памяти: индексы очищаются, запросы идут в репозиторий
+    private void disable() {
+        log.warn("Order read model exceeds {} orders, queries fall back to the repository", maxOrders);
+        ready = false;
+        disabled = true;
+        views.clear();
+        bySupplier.clear();
+        byStatus.clear();
+        byProduct.clear();
+        byOrderDate.clear();
+        touchedDuringBootstrap.clear();
+    }
+
+    private void markTouched(Long id) {
+        if (!ready) {
+            touchedDuringBootstrap.add(id);
+        }
+    }
+
+    private List<OrderView> resolve(Collection<Long> ids) {
+        if (ids == null) {
+            return List.of();
+        }
+        List<OrderView> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(views.get(id));
+        }
+        return result;
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<OrderView> toViews(List<Order> orders) {
+        return orders.stream().map(OrderView::from).collect(Collectors.toList());
+    }
+}
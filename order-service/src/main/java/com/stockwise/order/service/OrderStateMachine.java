@@ -0,0 +1,46 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.Order.OrderStatus;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+// Допустимые переходы между статусами заказа
+public final class OrderStateMachine {
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(OrderStatus.PENDING, EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.IN_PROGRESS, OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.IN_PROGRESS, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED));
+        TRANSITIONS.put(OrderStatus.DELIVERED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(OrderStatus.CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    private OrderStateMachine() {
+    }
+
+    public static boolean canTransition(OrderStatus from, OrderStatus to) {
+        return from != null && to != null && TRANSITIONS.get(from).contains(to);
+    }
+
+    public static void checkTransition(OrderStatus from, OrderStatus to) {
+        if (!canTransition(from, to)) {
+            throw new IllegalStateException("Invalid order status transition: " + from + " -> " + to);
+        }
+    }
+
+    // Заказ еще не отгружен и не закрыт
+    public static boolean isOpen(OrderStatus status) {
+        return status == OrderStatus.PENDING
+                || status == OrderStatus.CONFIRMED
+                || status == OrderStatus.IN_PROGRESS;
+    }
+
+    public static String eventType(OrderStatus to) {
+        return "ORDER_" + to.name();
+    }
+}
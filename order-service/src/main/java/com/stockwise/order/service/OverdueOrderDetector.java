@@ -0,0 +1,187 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.Order;
+import com.stockwise.order.repository.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Отслеживание просроченных заказов: открытые заказы хранятся в упорядоченной по
+// expectedDeliveryDate структуре, которая обновляется при создании и смене статуса заказа.
+// ORDER_OVERDUE отправляется один раз, вскоре после наступления срока, без сканирования таблицы
+@Component
+public class OverdueOrderDetector {
+    private final OrderRepository orderRepository;
+    private final OrderEventPublisher eventPublisher;
+
+    private final NavigableMap<Deadline, Long> deadlines = new TreeMap<>();
+    private final Map<Long, Deadline> deadlineById = new HashMap<>();
+    // Просроченные заказы и срок, по которому уже отправлен ORDER_OVERDUE
+    private final Map<Long, LocalDateTime> overdue = new LinkedHashMap<>();
+
+    public OverdueOrderDetector(OrderRepository orderRepository, OrderEventPublisher eventPublisher) {
+        this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Начальная загрузка открытых заказов со сроком доставки
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        List<Object[]> rows = orderRepository.findOpenDeliveryDeadlines();
+        synchronized (this) {
+            for (Object[] row : rows) {
+                put((Long) row[0], (LocalDateTime) row[1]);
+            }
+        }
+    }
+
+    public void track(Order order) {
+        Long id = order.getId();
+        LocalDateTime expected = order.getExpectedDeliveryDate();
+        boolean open = OrderStateMachine.isOpen(order.getStatus());
+        afterCommit(() -> {
+            synchronized (this) {
+                update(id, open, expected);
+            }
+        });
+    }
+
+    public void trackAll(Collection<Order> orders) {
+        List<Deadline> open = new ArrayList<>();
+        for (Order order : orders) {
+            if (OrderStateMachine.isOpen(order.getStatus()) && order.getExpectedDeliveryDate() != null) {
+                open.add(new Deadline(order.getExpectedDeliveryDate(), order.getId()));
+            }
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                for (Deadline deadline : open) {
+                    update(deadline.orderId, true, deadline.expected);
+                }
+            }
+        });
+    }
+
+    public void untrack(Long orderId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                remove(orderId);
+            }
+        });
+    }
+
+    public void onStatusChanged(Collection<Long> orderIds, Order.OrderStatus status) {
+        if (OrderStateMachine.isOpen(status)) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(orderIds);
+        afterCommit(() -> {
+            synchronized (this) {
+                ids.forEach(this::remove);
+            }
+        });
+    }
+
+    public synchronized List<Long> getOverdueOrderIds() {
+        return new ArrayList<>(overdue.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${orders.overdue.check-interval-ms:15000}")
+    public void fireDueDeadlines() {
+        List<Long> due = new ArrayList<>();
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now();
+            while (!deadlines.isEmpty() && !deadlines.firstKey().expected.isAfter(now)) {
+                Map.Entry<Deadline, Long> head = deadlines.pollFirstEntry();
+                deadlineById.remove(head.getValue());
+                overdue.put(head.getValue(), head.getKey().expected);
+                due.add(head.getValue());
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Перепроверяем статус по первичному ключу: событие могло прийти раньше коммита смены статуса
+        for (Order order : orderRepository.findAllById(due)) {
+            if (OrderStateMachine.isOpen(order.getStatus())) {
+                eventPublisher.publish(order, "ORDER_OVERDUE");
+            } else {
+                synchronized (this) {
+                    overdue.remove(order.getId());
+                }
+            }
+        }
+    }
+
+    // Срок переставляется, только если он изменился или заказ закрыт: изменение уже просроченного
+    // заказа с тем же сроком не должно вернуть его в очередь и повторить ORDER_OVERDUE
+    private void update(Long id, boolean open, LocalDateTime expected) {
+        if (!open || expected == null) {
+            remove(id);
+            return;
+        }
+        Deadline current = deadlineById.get(id);
+        if ((current != null && current.expected.equals(expected)) || expected.equals(overdue.get(id))) {
+            return;
+        }
+        remove(id);
+        put(id, expected);
+    }
+
+    private void put(Long id, LocalDateTime expected) {
+        Deadline deadline = new Deadline(expected, id);
+        deadlines.put(deadline, id);
+        deadlineById.put(id, deadline);
+    }
+
+    private void remove(Long id) {
+        Deadline deadline = deadlineById.remove(id);
+        if (deadline != null) {
+            deadlines.remove(deadline);
+        }
+        overdue.remove(id);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Deadline implements Comparable<Deadline> {
+        private final LocalDateTime expected;
+        private final Long orderId;
+
+        Deadline(LocalDateTime expected, Long orderId) {
+            this.expected = expected;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            int byTime = expected.compareTo(other.expected);
+            return byTime != 0 ? byTime : orderId.compareTo(other.orderId);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.BulkTransitionResult;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.PendingOrderJobStats;
+import com.stockwise.order.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Пакетная автоматическая обработка всех ожидающих заказов: обход по id чанками,
+// параллельная проверка условий автоподтверждения и одно подтверждение на чанк
+@Component
+public class PendingOrderProcessor {
+    static final String CHECKPOINT_KEY = "order-jobs:pending-confirmation:checkpoint";
+    private static final BigDecimal AUTO_CONFIRM_LIMIT = BigDecimal.valueOf(10000);
+
+    private final OrderRepository orderRepository;
+    private final OrderLifecycleService lifecycleService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${orders.pending-job.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    private volatile PendingOrderJobStats lastStats;
+
+    public PendingOrderProcessor(OrderRepository orderRepository,
+                                 OrderLifecycleService lifecycleService,
+                                 RedisTemplate<String, Object> redisTemplate,
+                                 @Value("${orders.pending-job.workers:4}") int workerCount) {
+        this.orderRepository = orderRepository;
+        this.lifecycleService = lifecycleService;
+        this.redisTemplate = redisTemplate;
+        this.workerCount = workerCount;
+        this.workers = Executors.newFixedThreadPool(workerCount);
+    }
+
+    @Scheduled(cron = "0 0 6 * * *") // Ежедневно в 6 утра
+    public void processPendingOrders() {
+        if (!running.compareAndSet(false, true)) {
+            System.err.println("Pending order processing is already running, skipping");
+            return;
+        }
+        try {
+            run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public PendingOrderJobStats getStats() {
+        return lastStats;
+    }
+
+    private void run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        // Продолжаем с контрольной точки, если предыдущий запуск был прерван
+        Long resumedFrom = readCheckpoint();
+        long lastId = resumedFrom != null ? resumedFrom : 0L;
+        long chunks = 0;
+        long scanned = 0;
+        long eligible = 0;
+        long confirmed = 0;
+
+        List<Order> chunk;
+        do {
+            chunk = orderRepository.findPendingAfterId(lastId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            List<Long> toConfirm = selectAutoConfirmable(chunk);
+            if (!toConfirm.isEmpty()) {
+                BulkTransitionResult result = lifecycleService.transition(toConfirm, Order.OrderStatus.CONFIRMED);
+                confirmed += result.getApplied();
+            }
+
+            lastId = chunk.get(chunk.size() - 1).getId();
+            writeCheckpoint(lastId);
+            chunks++;
+            scanned += chunk.size();
+            eligible += toConfirm.size();
+            lastStats = new PendingOrderJobStats(true, startedAt, null, resumedFrom, lastId, chunks,
+                    scanned, eligible, confirmed, (System.nanoTime() - startNanos) / 1_000_000);
+        } while (chunk.size() == chunkSize);
+
+        clearCheckpoint();
+        lastStats = new PendingOrderJobStats(false, startedAt, LocalDateTime.now(), resumedFrom, lastId, chunks,
+                scanned, eligible, confirmed, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    // Проверка условий автоподтверждения распределяется между рабочими потоками
+    private List<Long> selectAutoConfirmable(List<Order> chunk) {
+        int sliceSize = (chunk.size() + workerCount - 1) / workerCount;
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<Order> slice = chunk.subList(from, Math.min(chunk.size(), from + sliceSize));
+            futures.add(workers.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (Order order : slice) {
+                    if (shouldAutoConfirm(order)) {
+                        ids.add(order.getId());
+                    }
+                }
+                return ids;
+            }));
+        }
+
+        List<Long> eligible = new ArrayList<>();
+        try {
+            for (Future<List<Long>> future : futures) {
+                eligible.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Pending order processing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error evaluating pending orders: " + e.getCause().getMessage(), e.getCause());
+        }
+        return eligible;
+    }
+
+    boolean shouldAutoConfirm(Order order) {
+        // Логика для определения, нужно ли автоматически подтверждать заказ
+        // Например, если заказ от проверенного поставщика или сумма заказа меньше определенного лимита
+        return order.getTotalPrice() != null && order.getTotalPrice().compareTo(AUTO_CONFIRM_LIMIT) < 0;
+    }
+
+    private Long readCheckpoint() {
+        try {
+            Object value = redisTemplate.opsForValue().get(CHECKPOINT_KEY);
+            return value instanceof Number ? ((Number) value).longValue() : null;
+        } catch (Exception e) {
+            System.err.println("Error reading pending order checkpoint: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(long lastId) {
+        try {
+            redisTemplate.opsForValue().set(CHECKPOINT_KEY, lastId);
+        } catch (Exception e) {
+            System.err.println("Error writing pending order checkpoint: " + e.getMessage());
+        }
+    }
+
+    private void clearCheckpoint() {
+        try {
+            redisTemplate.delete(CHECKPOINT_KEY);
+        } catch (Exception e) {
+            System.err.println("Error clearing pending order checkpoint: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
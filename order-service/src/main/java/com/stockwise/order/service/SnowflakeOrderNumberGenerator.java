@@ -0,0 +1,95 @@
+package com.stockwise.order.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Номера заказов в стиле Snowflake: 41 бит времени (мс от EPOCH), 10 бит узла, 12 бит счетчика.
+// Номера монотонно растут в пределах узла, уникальны между узлами с разным node-id
+// и выдаются без блокировок и без обращения к БД.
+// node-id задается orders.number.node-id; без него берется порядковый номер пода StatefulSet
+// из HOSTNAME (order-service-3 -> 3). Иначе сервис не стартует: реплики с одинаковым
+// узлом по умолчанию выдавали бы совпадающие номера
+@Component
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ORD-";
+    private static final int ENCODED_LENGTH = 13; // 63 бита по 5 бит на символ
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final Pattern POD_ORDINAL = Pattern.compile("-(\\d+)$");
+
+    private final long nodeId;
+    // Последнее выданное состояние: (время << SEQUENCE_BITS) | счетчик
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(@Value("${orders.number.node-id:}") String nodeId,
+                                         @Value("${HOSTNAME:}") String hostname) {
+        this(resolveNodeId(nodeId, hostname));
+    }
+
+    SnowflakeOrderNumberGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Order number node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    static long resolveNodeId(String nodeId, String hostname) {
+        if (nodeId != null && !nodeId.isBlank()) {
+            return Long.parseLong(nodeId.trim());
+        }
+        Matcher ordinal = POD_ORDINAL.matcher(hostname != null ? hostname : "");
+        if (ordinal.find()) {
+            return Long.parseLong(ordinal.group(1));
+        }
+        throw new IllegalStateException("orders.number.node-id is not set and HOSTNAME '" + hostname
+                + "' has no pod ordinal; each order-service replica needs its own node id");
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long next;
+        long prev;
+        do {
+            prev = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long prevTime = prev >>> SEQUENCE_BITS;
+            if (now > prevTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Та же миллисекунда или часы ушли назад: продолжаем счетчик,
+                // при переполнении занимаем следующую миллисекунду
+                next = prev + 1;
+            }
+        } while (!lastState.compareAndSet(prev, next));
+
+        long time = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return (time << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    // Base32 (алфавит Crockford) фиксированной длины: лексикографический порядок совпадает с числовым
+    static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,134 @@
+package com.stockwise.order.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderItem;
+import com.stockwise.order.model.OrderStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRedisSerializerTest {
+    private final BinaryRedisSerializer serializer = OrderCodecs.register(BinaryRedisSerializer.builder())
+            .compressAbove(1024)
+            .build();
+
+    @Test
+    void testOrderRoundTripKeepsFieldsAndItems() {
+        Order order = sampleOrder(1);
+        Order restored = (Order) serializer.deserialize(serializer.serialize(order));
+
+        assertEquals(order.getId(), restored.getId());
+        assertEquals(order.getOrderNumber(), restored.getOrderNumber());
+        assertEquals(order.getTotalPrice(), restored.getTotalPrice());
+        assertEquals(order.getStatus(), restored.getStatus());
+        assertEquals(order.getOrderDate(), restored.getOrderDate());
+        assertNull(restored.getActualDeliveryDate());
+        assertEquals(2, restored.getOrderItems().size());
+        assertEquals(new BigDecimal("25.00"), restored.getOrderItems().get(1).getTotalPrice());
+        assertSame(restored, restored.getOrderItems().get(0).getOrder());
+    }
+
+    @Test
+    void testListsStatsAndNullValues() {
+        List<?> page = (List<?>) serializer.deserialize(serializer.serialize(List.of(sampleOrder(1), sampleOrder(2))));
+        assertEquals(2, page.size());
+        assertEquals(2L, ((Order) page.get(1)).getId());
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<>())));
+
+        OrderStats stats = (OrderStats) serializer.deserialize(serializer.serialize(new OrderStats(10, 4, 3, 2, 1)));
+        assertEquals(4, stats.getPendingOrders());
+        assertSame(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+    }
+
+    @Test
+    void testLargeValuesAreCompressed() {
+        List<Order> page = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            page.add(sampleOrder(i));
+        }
+        byte[] bytes = serializer.serialize(page);
+        assertEquals(BinaryRedisSerializer.MAGIC_LZ4, bytes[0]);
+        assertEquals(200, ((List<?>) serializer.deserialize(bytes)).size());
+    }
+
+    @Test
+    void testUnregisteredTypesAndLegacyJsonUseFallback() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        Map<String, String> value = new HashMap<>(Map.of("key", "value"));
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        assertEquals("legacy", serializer.deserialize(json.serialize("legacy")));
+    }
+
+    @Test
+    void testSchemaVersionMismatchIsCacheMiss() {
+        BinaryRedisSerializer newer = BinaryRedisSerializer.builder()
+                .register(OrderCodecs.ORDER_TAG, Order.class, 2, OrderCodecs.ORDER)
+                .build();
+        assertNull(newer.deserialize(serializer.serialize(sampleOrder(1))));
+    }
+
+    // Сравнение с GenericJackson2JsonRedisSerializer: размер значения и время кодирования/декодирования
+    @Test
+    void testPayloadSizeAndSpeedReport() {
+        // Прежний формат кэша; JSR-310 и обратная ссылка позиций нужны, чтобы Order вообще сериализовался
+        ObjectMapper mapper = RedisConfig.cacheObjectMapper(new ObjectMapper().findAndRegisterModules());
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer(mapper);
+        List<Order> page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            page.add(sampleOrder(i));
+        }
+
+        report("order", sampleOrder(1), json);
+        report("page(20)", page, json);
+        report("stats", new OrderStats(100_000, 40_000, 30_000, 20_000, 10_000), json);
+
+        assertTrue(serializer.serialize(sampleOrder(1)).length * 2 < json.serialize(sampleOrder(1)).length);
+    }
+
+    private void report(String name, Object value, RedisSerializer<Object> json) {
+        int iterations = 5_000;
+        long binaryNanos = time(serializer, value, iterations);
+        long jsonNanos = time(json, value, iterations);
+        System.out.printf("%-10s binary %6d B %7.2f us | json %6d B %7.2f us%n", name,
+                serializer.serialize(value).length, binaryNanos / 1000.0 / iterations,
+                json.serialize(value).length, jsonNanos / 1000.0 / iterations);
+    }
+
+    private static long time(RedisSerializer<Object> serializer, Object value, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Order sampleOrder(long id) {
+        Order order = new Order("ORD-" + id, 7L, "PROD-" + id, 5);
+        order.setId(id);
+        order.setUnitPrice(new BigDecimal("12.50"));
+        order.setTotalPrice(new BigDecimal("62.50"));
+        order.setOrderDate(LocalDateTime.of(2024, 3, 1, 12, 0));
+        order.setExpectedDeliveryDate(LocalDateTime.of(2024, 3, 8, 12, 0));
+        order.setNotes("Deliver to warehouse 3");
+        order.addOrderItem(new OrderItem("PROD-" + id, 3, new BigDecimal("12.50")));
+        order.addOrderItem(new OrderItem("PROD-X", 2, new BigDecimal("12.50")));
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package com.stockwise.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderItem;
+import com.stockwise.order.model.OrderStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCacheSerializationTest {
+    private final CacheKeyEncoder keyEncoder = new CacheKeyEncoder();
+    private final ObjectMapper mapper = RedisConfig.cacheObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    void testNumericKeysAreEncodedCompactlyAndRoundTrip() {
+        byte[] key = keyEncoder.serialize("orders-by-id::123456");
+        assertEquals(CacheKeyEncoder.MARKER, key[0]);
+        assertEquals(OrderCacheNamespace.BY_ID.getTag(), key[1]);
+        assertTrue(key.length <= 5, "varint id should take at most 3 bytes");
+        assertEquals("orders-by-id::123456", keyEncoder.deserialize(key));
+        assertEquals("orders-by-id::42", keyEncoder.deserialize(keyEncoder.serialize("orders-by-id::42")));
+    }
+
+    @Test
+    void testNamespacesDoNotShareKeys() {
+        // Раньше id заказа и id поставщика попадали в один и тот же ключ "orders::7"
+        assertFalse(Arrays.equals(
+                keyEncoder.serialize("orders-by-id::7"), keyEncoder.serialize("orders-by-number::7")));
+        assertArrayEquals(new byte[]{CacheKeyEncoder.MARKER, OrderCacheNamespace.PAGES.getTag(), '*'},
+                keyEncoder.serialize("order-pages::*"));
+        assertEquals("order-items::5", keyEncoder.deserialize(keyEncoder.serialize("order-items::5")));
+    }
+
+    @Test
+    void testTypedValuesRoundTripWithItems() {
+        Order order = sampleOrder();
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(
+                mapper, OrderCacheNamespace.BY_ID.valueType(mapper.getTypeFactory()));
+
+        Order restored = (Order) serializer.deserialize(serializer.serialize(order));
+        assertEquals(order.getOrderNumber(), restored.getOrderNumber());
+        assertEquals(order.getOrderDate(), restored.getOrderDate());
+        assertEquals(1, restored.getOrderItems().size());
+        assertSame(restored, restored.getOrderItems().get(0).getOrder());
+    }
+
+    @Test
+    void testStatsAndPagesRoundTrip() {
+        Jackson2JsonRedisSerializer<Object> stats = new Jackson2JsonRedisSerializer<>(
+                mapper, OrderCacheNamespace.STATS.valueType(mapper.getTypeFactory()));
+        OrderStats restored = (OrderStats) stats.deserialize(stats.serialize(new OrderStats(10, 4, 3, 2, 1)));
+        assertEquals(10, restored.getTotalOrders());
+        assertEquals(1, restored.getCancelledOrders());
+
+        Jackson2JsonRedisSerializer<Object> pages = new Jackson2JsonRedisSerializer<>(
+                mapper, OrderCacheNamespace.PAGES.valueType(mapper.getTypeFactory()));
+        List<?> page = (List<?>) pages.deserialize(pages.serialize(List.of(sampleOrder(), sampleOrder())));
+        assertEquals(2, page.size());
+        assertInstanceOf(Order.class, page.get(0));
+    }
+
+    private static Order sampleOrder() {
+        Order order = new Order("ORD-0001", 7L, "PROD-1", 5);
+        order.setId(1L);
+        order.setUnitPrice(new BigDecimal("12.50"));
+        order.setTotalPrice(new BigDecimal("62.50"));
+        order.setOrderDate(LocalDateTime.of(2024, 3, 1, 12, 0));
+        OrderItem item = new OrderItem();
+        item.setProductId("PROD-1");
+        item.setQuantity(5);
+        order.addOrderItem(item);
+        return order;
+    }
+}
@@ -0,0 +1,251 @@
+package com.stockwise.order.config;
+
+import com.stockwise.order.model.RedisCommandLatency;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.resource.ClientResources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisConnectionFactoriesTest {
+    private ClientResources resources;
+    private final RedisLatencyRecorder recorder = new RedisLatencyRecorder();
+
+    @BeforeEach
+    void setUp() {
+        resources = ClientResources.builder().commandLatencyRecorder(recorder).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        resources.shutdown();
+    }
+
+    @Test
+    void testTopologyIsSelectedByMode() {
+        MockEnvironment standalone = new MockEnvironment()
+                .withProperty("spring.redis.host", "redis")
+                .withProperty("spring.redis.port", "6380");
+        LettuceConnectionFactory primary = RedisConnectionFactories.primary(standalone, resources);
+        assertInstanceOf(RedisStandaloneConfiguration.class, primary.getStandaloneConfiguration());
+        assertEquals("redis", primary.getHostName());
+        assertEquals(6380, primary.getPort());
+        assertEquals(RedisConnectionFactories.DEFAULT_COMMAND_TIMEOUT,
+                primary.getClientConfiguration().getCommandTimeout());
+        // Без реплик кэш читает с того же узла
+        assertTrue(RedisConnectionFactories.cache(standalone, resources).getClientConfiguration()
+                .getReadFrom().isEmpty());
+
+        MockEnvironment sentinel = new MockEnvironment()
+                .withProperty("spring.redis.mode", "sentinel")
+                .withProperty("spring.redis.sentinel.master", "orders")
+                .withProperty("spring.redis.sentinel.nodes", "s1:26379, s2:26379");
+        LettuceConnectionFactory sentinelCache = RedisConnectionFactories.cache(sentinel, resources);
+        RedisSentinelConfiguration sentinelConfig = sentinelCache.getSentinelConfiguration();
+        assertNotNull(sentinelConfig);
+        assertEquals("orders", sentinelConfig.getMaster().getName());
+        assertEquals(2, sentinelConfig.getSentinels().size());
+        assertEquals(ReadFrom.REPLICA_PREFERRED, sentinelCache.getClientConfiguration().getReadFrom().orElseThrow());
+        assertTrue(RedisConnectionFactories.primary(sentinel, resources).getClientConfiguration()
+                .getReadFrom().isEmpty());
+
+        MockEnvironment cluster = new MockEnvironment()
+                .withProperty("spring.redis.mode", "cluster")
+                .withProperty("spring.redis.cluster.nodes", "c1:7000,c2:7000,c3:7000")
+                .withProperty("spring.redis.cache.read-from", "replica")
+                .withProperty("spring.redis.timeout.command", "250ms");
+        LettuceConnectionFactory clusterCache = RedisConnectionFactories.cache(cluster, resources);
+        RedisClusterConfiguration clusterConfig = clusterCache.getClusterConfiguration();
+        assertNotNull(clusterConfig);
+        assertEquals(3, clusterConfig.getClusterNodes().size());
+        assertEquals(ReadFrom.REPLICA, clusterCache.getClientConfiguration().getReadFrom().orElseThrow());
+        assertEquals(Duration.ofMillis(250), clusterCache.getClientConfiguration().getCommandTimeout());
+    }
+
+    @Test
+    void testMissingNodesFailFast() {
+        MockEnvironment env = new MockEnvironment().withProperty("spring.redis.mode", "cluster");
+        assertThrows(IllegalStateException.class, () -> RedisConnectionFactories.primary(env, resources));
+    }
+
+    // Встроенная заглушка Redis: проверяем таймауты по типу команды и сбор задержек на реальном клиенте
+    @Test
+    void testPerCommandTimeoutAndLatencyAgainstStandIn() throws Exception {
+        try (RespStandIn redis = new RespStandIn()) {
+            MockEnvironment env = new MockEnvironment()
+                    .withProperty("spring.redis.port", String.valueOf(redis.getPort()))
+                    .withProperty("spring.redis.timeout.command", "2s")
+                    .withProperty("spring.redis.timeout.per-command", "get=200ms");
+            LettuceConnectionFactory factory = RedisConnectionFactories.primary(env, resources);
+            factory.afterPropertiesSet();
+            try {
+                StringRedisTemplate template = new StringRedisTemplate(factory);
+                template.opsForValue().set("order:1", "PENDING");
+                assertEquals("PENDING", template.opsForValue().get("order:1"));
+
+                // Заглушка не отвечает на GET "slow": общий таймаут 2s, но для GET действует 200ms
+                long startedAt = System.nanoTime();
+                assertThrows(QueryTimeoutException.class, () -> template.opsForValue().get("slow"));
+                long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+                assertTrue(elapsedMillis < 1500, "GET should time out by its own limit, took " + elapsedMillis);
+            } finally {
+                factory.destroy();
+            }
+        }
+
+        List<RedisCommandLatency> latencies = recorder.snapshot();
+        RedisCommandLatency set = latencies.stream()
+                .filter(latency -> latency.getCommand().equals("SET")).findFirst().orElseThrow();
+        assertEquals(1, set.getCount());
+        assertTrue(set.getP99Micros() >= set.getP50Micros());
+        assertTrue(set.getMaxMicros() > 0);
+    }
+
+    @Test
+    void testPercentilesUsePowerOfTwoBuckets() {
+        for (int i = 0; i < 99; i++) {
+            recorder.recordCommandLatency(null, null, io.lettuce.core.protocol.CommandType.GET, 50_000, 100_000);
+        }
+        recorder.recordCommandLatency(null, null, io.lettuce.core.protocol.CommandType.GET, 50_000, 40_000_000);
+
+        RedisCommandLatency get = recorder.snapshot().get(0);
+        assertEquals(100, get.getCount());
+        assertEquals(127, get.getP50Micros()); // 100µs попадает в корзину [64, 128)
+        assertEquals(127, get.getP99Micros());
+        assertEquals(40_000, get.getMaxMicros());
+        assertEquals(50, get.getAvgFirstResponseMicros());
+    }
+
+    // Минимальный сервер RESP2: HELLO отклоняется (клиент переходит на RESP2), поддерживаются
+    // PING, SET и GET; на GET ключа "slow" сервер не отвечает
+    private static class RespStandIn implements AutoCloseable {
+        private final ServerSocket server = new ServerSocket(0);
+        private final Map<String, String> data = new ConcurrentHashMap<>();
+        private final List<Socket> clients = new ArrayList<>();
+        private final Thread acceptor;
+
+        RespStandIn() throws IOException {
+            acceptor = new Thread(this::acceptLoop, "resp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            try {
+                while (!server.isClosed()) {
+                    Socket socket = server.accept();
+                    synchronized (clients) {
+                        clients.add(socket);
+                    }
+                    Thread handler = new Thread(() -> serve(socket), "resp-stand-in-client");
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+            } catch (IOException e) {
+                // Сервер закрыт
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream());
+                 OutputStream out = socket.getOutputStream()) {
+                List<String> command;
+                while ((command = readCommand(in)) != null) {
+                    String reply = reply(command);
+                    if (reply != null) {
+                        out.write(reply.getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                // Клиент отключился
+            }
+        }
+
+        private String reply(List<String> command) {
+            String name = command.get(0).toUpperCase();
+            switch (name) {
+                case "PING":
+                    return "+PONG\r\n";
+                case "SET":
+                    data.put(command.get(1), command.get(2));
+                    return "+OK\r\n";
+                case "GET":
+                    if (command.get(1).equals("slow")) {
+                        return null;
+                    }
+                    String value = data.get(command.get(1));
+                    return value == null ? "$-1\r\n" : "$" + value.length() + "\r\n" + value + "\r\n";
+                case "CLIENT":
+                case "SELECT":
+                    return "+OK\r\n";
+                default:
+                    return "-ERR unknown command '" + name + "'\r\n";
+            }
+        }
+
+        private static List<String> readCommand(InputStream in) throws IOException {
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            int count = Integer.parseInt(header.substring(1));
+            List<String> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = Integer.parseInt(readLine(in).substring(1));
+                byte[] bytes = in.readNBytes(length + 2);
+                parts.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+            return parts;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\r') {
+                    in.read();
+                    return line.toString();
+                }
+                line.append((char) b);
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            synchronized (clients) {
+                for (Socket socket : clients) {
+                    socket.close();
+                }
+            }
+        }
+    }
+}
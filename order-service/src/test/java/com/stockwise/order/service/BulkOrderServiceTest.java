@@ -0,0 +1,141 @@
+package com.stockwise.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.order.model.BulkOrderResult;
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Массовое создание заказов: батчи INSERT с очисткой контекста, события пачками после коммита
+class BulkOrderServiceTest {
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final Session session = mock(Session.class);
+    private final OrderNumberGenerator orderNumberGenerator = mock(OrderNumberGenerator.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private final ApplicationEventPublisher applicationEvents = mock(ApplicationEventPublisher.class);
+    private final OrderEventPublisher eventPublisher = spy(new OrderEventPublisher(kafkaTemplate,
+            new ObjectMapper().findAndRegisterModules(), applicationEvents));
+    private final OverdueOrderDetector overdueDetector = mock(OverdueOrderDetector.class);
+    private final BulkOrderService service = new BulkOrderService(entityManager, orderNumberGenerator,
+            eventPublisher, overdueDetector);
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "eventChunkSize", 2);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        doAnswer(invocation -> {
+            invocation.<Order>getArgument(0).setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Order.class));
+        when(orderNumberGenerator.nextOrderNumber()).thenReturn("ORD-A", "ORD-B", "ORD-C", "ORD-D", "ORD-E");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testOrdersArePersistedInBatchesAndContextIsCleared() {
+        List<Order> orders = orders(5);
+
+        BulkOrderResult result = service.createOrders(orders);
+
+        verify(session).setJdbcBatchSize(2);
+        verify(entityManager, times(5)).persist(any(Order.class));
+        // Два полных батча и остаток
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+        assertEquals(5, result.getCreated());
+        assertEquals(10, result.getOrderItems());
+        assertEquals(List.of(101L, 102L, 103L, 104L, 105L), result.getOrderIds());
+    }
+
+    @Test
+    void testOrdersArePreparedBeforePersist() {
+        List<Order> orders = orders(2);
+        orders.get(0).setOrderNumber("EDI-7");
+        orders.get(1).setStatus(Order.OrderStatus.DELIVERED);
+
+        BulkOrderResult result = service.createOrders(orders);
+
+        assertEquals(List.of("EDI-7", "ORD-A"), result.getOrderNumbers());
+        for (Order order : orders) {
+            assertEquals(Order.OrderStatus.PENDING, order.getStatus());
+            assertNotNull(order.getOrderDate());
+            order.getOrderItems().forEach(item -> assertSame(order, item.getOrder()));
+        }
+        verify(orderNumberGenerator, times(1)).nextOrderNumber();
+    }
+
+    @Test
+    void testEventsAreChunkedAndSentAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        List<Order> orders = orders(5);
+
+        service.createOrders(orders);
+
+        InOrder inOrder = inOrder(entityManager, overdueDetector, eventPublisher);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(overdueDetector).trackAll(orders);
+        inOrder.verify(eventPublisher).publishCreatedBatch(orders, 2);
+        verifyNoInteractions(kafkaTemplate);
+        verify(applicationEvents, times(1)).publishEvent(any(OrderChangeEvent.class));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate, times(3)).send(any(), captor.capture());
+        List<String> sent = captor.getAllValues();
+        assertTrue(sent.get(0).contains("\"orderIds\":[101,102]"));
+        assertTrue(sent.get(2).contains("\"orderIds\":[105]"));
+        sent.forEach(json -> assertTrue(json.contains("ORDER_CREATED_BATCH")));
+    }
+
+    @Test
+    void testRolledBackBatchSendsNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createOrders(orders(3));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order(null, 7L, "PROD-" + i, 5);
+            order.addOrderItem(new OrderItem("PROD-" + i, 3, new BigDecimal("12.50")));
+            order.addOrderItem(new OrderItem("PROD-X", 2, new BigDecimal("12.50")));
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,61 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.BulkTransitionResult;
+import com.stockwise.order.model.BulkTransitionResult.OrderOutcome;
+import com.stockwise.order.model.BulkTransitionResult.Outcome;
+import com.stockwise.order.model.Order.OrderStatus;
+import com.stockwise.order.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Пакетный переход: применены только заказы, которые вернул UPDATE ... RETURNING этого вызова
+class OrderLifecycleServiceTest {
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderEventPublisher eventPublisher = mock(OrderEventPublisher.class);
+    private final OverdueOrderDetector overdueDetector = mock(OverdueOrderDetector.class);
+    private final OrderLifecycleService service = new OrderLifecycleService(orderRepository, eventPublisher,
+            overdueDetector);
+
+    @Test
+    void testOrderMovedToTargetByConcurrentCallIsConflictNotApplied() {
+        when(orderRepository.findStatusesByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new Object[]{1L, OrderStatus.PENDING},
+                new Object[]{2L, OrderStatus.PENDING},
+                new Object[]{3L, OrderStatus.DELIVERED}));
+        // Заказ 2 параллельно подтвержден другим вызовом: после него статус тот же, но обновил его не этот вызов
+        when(orderRepository.updateStatusIfCurrent(List.of(1L, 2L), "PENDING", "CONFIRMED")).thenReturn(List.of(1L));
+        when(orderRepository.findStatusesByIdIn(List.of(2L))).thenReturn(List.<Object[]>of(
+                new Object[]{2L, OrderStatus.CONFIRMED}));
+
+        BulkTransitionResult result = service.transition(List.of(1L, 2L, 3L), OrderStatus.CONFIRMED);
+
+        List<OrderOutcome> outcomes = result.getOutcomes();
+        assertEquals(Outcome.APPLIED, outcomes.get(0).getOutcome());
+        assertEquals(Outcome.CONFLICT, outcomes.get(1).getOutcome());
+        assertEquals(OrderStatus.CONFIRMED, outcomes.get(1).getPreviousStatus());
+        assertEquals(Outcome.INVALID_TRANSITION, outcomes.get(2).getOutcome());
+        assertEquals(1, result.getApplied());
+        verify(eventPublisher).publishBatch("ORDER_CONFIRMED_BATCH", OrderStatus.CONFIRMED, List.of(1L));
+        verify(overdueDetector).onStatusChanged(List.of(1L), OrderStatus.CONFIRMED);
+    }
+
+    @Test
+    void testDeliveryStampsDeliveryDateAndSkipsStatusReloadWhenAllApplied() {
+        when(orderRepository.findStatusesByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new Object[]{1L, OrderStatus.SHIPPED},
+                new Object[]{2L, OrderStatus.SHIPPED}));
+        when(orderRepository.updateDeliveredIfCurrent(eq(List.of(1L, 2L)), eq("SHIPPED"), eq("DELIVERED"), any()))
+                .thenReturn(List.of(2L, 1L));
+
+        BulkTransitionResult result = service.transition(List.of(1L, 2L), OrderStatus.DELIVERED);
+
+        assertEquals(2, result.getApplied());
+        verify(orderRepository, times(1)).findStatusesByIdIn(anyCollection());
+        verify(orderRepository, never()).updateStatusIfCurrent(anyCollection(), anyString(), anyString());
+    }
+}
@@ -0,0 +1,120 @@
+package com.stockwise.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.order.model.Order.OrderStatus;
+import com.stockwise.order.model.OrderView;
+import com.stockwise.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OrderReadModelTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private OrderRepository orderRepository;
+    private OrderReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        when(orderRepository.findViewsAfterId(anyLong(), any()))
+                .thenReturn(List.of(view(1L, 10L, "P-1", OrderStatus.PENDING, DAY)));
+        readModel = new OrderReadModel(orderRepository, new ObjectMapper());
+        readModel.bootstrap();
+    }
+
+    @Test
+    void testQueriesServedFromIndexesWithoutRepository() {
+        readModel.onOrderChanged(OrderChangeEvent.upserted(List.of(
+                view(2L, 10L, "P-2", OrderStatus.PENDING, DAY.plusDays(1)),
+                view(3L, 20L, "P-1", OrderStatus.CONFIRMED, DAY.plusDays(2)))));
+
+        assertEquals(List.of(1L, 2L), ids(readModel.findBySupplier(10L)));
+        assertEquals(List.of(1L, 3L), ids(readModel.findByProduct("P-1")));
+        assertEquals(List.of(1L, 2L), ids(readModel.findByStatus(OrderStatus.PENDING)));
+        assertEquals(List.of(2L, 3L), ids(readModel.findByOrderDateBetween(DAY.plusDays(1), DAY.plusDays(2))));
+        assertEquals(1, readModel.countByStatus(OrderStatus.CONFIRMED));
+        verify(orderRepository, never()).findBySupplierId(anyLong());
+        verify(orderRepository, never()).findByStatus(any());
+    }
+
+    @Test
+    void testStatusChangeMovesOrderBetweenStatusIndexes() {
+        readModel.onOrderChanged(OrderChangeEvent.statusChanged(List.of(1L, 99L), OrderStatus.DELIVERED));
+
+        assertTrue(readModel.findByStatus(OrderStatus.PENDING).isEmpty());
+        OrderView delivered = readModel.findByStatus(OrderStatus.DELIVERED).get(0);
+        assertEquals(1L, delivered.getId());
+        assertNotNull(delivered.getActualDeliveryDate());
+        assertEquals(List.of(1L), ids(readModel.findBySupplier(10L)));
+    }
+
+    @Test
+    void testRemovalClearsAllIndexes() {
+        readModel.onOrderChanged(OrderChangeEvent.removed(1L));
+
+        assertTrue(readModel.findBySupplier(10L).isEmpty());
+        assertTrue(readModel.findByProduct("P-1").isEmpty());
+        assertEquals(0, readModel.countByStatus(OrderStatus.PENDING));
+        assertTrue(readModel.findByOrderDateBetween(DAY.minusDays(1), DAY.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testOrderEventReloadsOrdersChangedByOtherInstances() {
+        when(orderRepository.findViewsByIdIn(List.of(1L, 5L))).thenReturn(List.of(
+                view(1L, 10L, "P-1", OrderStatus.CONFIRMED, DAY),
+                view(5L, 30L, "P-5", OrderStatus.CONFIRMED, DAY.plusDays(3))));
+
+        readModel.onOrderEvent("{\"eventType\":\"ORDER_CONFIRMED\",\"status\":\"CONFIRMED\","
+                + "\"orderIds\":[1,5],\"occurredAt\":\"2024-03-04T10:00:00\"}");
+
+        assertEquals(List.of(1L, 5L), ids(readModel.findByStatus(OrderStatus.CONFIRMED)));
+        assertEquals(List.of(5L), ids(readModel.findBySupplier(30L)));
+        assertEquals(0, readModel.countByStatus(OrderStatus.PENDING));
+    }
+
+    @Test
+    void testOrderEventForDeletedOrderRemovesIt() {
+        when(orderRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of());
+
+        readModel.onOrderEvent("{\"eventType\":\"ORDER_DELETED\",\"order\":{\"id\":1,\"supplierId\":10}}");
+
+        assertTrue(readModel.findBySupplier(10L).isEmpty());
+        verify(orderRepository, never()).findBySupplierId(anyLong());
+    }
+
+    @Test
+    void testModelOverCapacityFallsBackToRepository() {
+        ReflectionTestUtils.setField(readModel, "maxOrders", 2);
+        readModel.onOrderChanged(OrderChangeEvent.upserted(List.of(
+                view(2L, 10L, "P-2", OrderStatus.PENDING, DAY),
+                view(3L, 10L, "P-3", OrderStatus.PENDING, DAY))));
+        when(orderRepository.findBySupplierId(10L)).thenReturn(List.of());
+
+        assertTrue(readModel.findBySupplier(10L).isEmpty());
+        verify(orderRepository).findBySupplierId(10L);
+
+        // Отключенная модель больше не обновляется и не перечитывает заказы
+        readModel.onOrderEvent("{\"eventType\":\"ORDER_DELETED\",\"order\":{\"id\":2}}");
+        verify(orderRepository, never()).findViewsByIdIn(any());
+    }
+
+    private static OrderView view(Long id, Long supplierId, String productId, OrderStatus status,
+                                  LocalDateTime orderDate) {
+        return new OrderView(id, "ORD-" + id, supplierId, null, productId, 1, BigDecimal.ONE, BigDecimal.ONE,
+                status, orderDate, null, null);
+    }
+
+    private static List<Long> ids(List<OrderView> views) {
+        return views.stream().map(OrderView::getId).toList();
+    }
+}
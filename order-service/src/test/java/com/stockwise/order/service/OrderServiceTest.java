@@ -8,8 +8,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -26,7 +26,16 @@ class OrderServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OrderEventPublisher eventPublisher;
+
+    @Mock
+    private OverdueOrderDetector overdueDetector;
+
+    @Mock
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Mock
+    private OrderReadModel readModel;
 
     @InjectMocks
     private OrderService orderService;
@@ -38,8 +47,9 @@ class OrderServiceTest {
         order.setSupplierId(1L);
         order.setProductId("test-product");
         order.setQuantity(10);
-        order.setUnitPrice(100.0);
+        order.setUnitPrice(new BigDecimal("100.0"));
 
+        when(orderNumberGenerator.nextOrderNumber()).thenReturn("ORD-1");
         when(orderRepository.save(any(Order.class))).thenReturn(order);
 
         // When
@@ -47,10 +57,11 @@ class OrderServiceTest {
 
         // Then
         assertNotNull(result);
-        assertNotNull(result.getOrderNumber());
+        assertEquals("ORD-1", result.getOrderNumber());
         assertEquals(Order.OrderStatus.PENDING, result.getStatus());
         verify(orderRepository).save(any(Order.class));
-        verify(kafkaTemplate).send(anyString(), anyString(), anyString());
+        verify(overdueDetector).track(order);
+        verify(eventPublisher).publish(order, "ORDER_CREATED");
     }
 
     @Test
@@ -0,0 +1,39 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.Order.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStateMachineTest {
+
+    @Test
+    void testForwardTransitionsAllowed() {
+        assertTrue(OrderStateMachine.canTransition(OrderStatus.PENDING, OrderStatus.CONFIRMED));
+        assertTrue(OrderStateMachine.canTransition(OrderStatus.CONFIRMED, OrderStatus.IN_PROGRESS));
+        assertTrue(OrderStateMachine.canTransition(OrderStatus.IN_PROGRESS, OrderStatus.SHIPPED));
+        assertTrue(OrderStateMachine.canTransition(OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+    }
+
+    @Test
+    void testCancellationOnlyBeforeShipping() {
+        assertTrue(OrderStateMachine.canTransition(OrderStatus.PENDING, OrderStatus.CANCELLED));
+        assertTrue(OrderStateMachine.canTransition(OrderStatus.IN_PROGRESS, OrderStatus.CANCELLED));
+        assertFalse(OrderStateMachine.canTransition(OrderStatus.SHIPPED, OrderStatus.CANCELLED));
+        assertFalse(OrderStateMachine.canTransition(OrderStatus.DELIVERED, OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void testInvalidTransitionRejected() {
+        assertFalse(OrderStateMachine.canTransition(OrderStatus.PENDING, OrderStatus.SHIPPED));
+        assertFalse(OrderStateMachine.canTransition(OrderStatus.CANCELLED, OrderStatus.PENDING));
+        assertThrows(IllegalStateException.class,
+                () -> OrderStateMachine.checkTransition(OrderStatus.DELIVERED, OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void testEventTypeMatchesExistingNames() {
+        assertEquals("ORDER_CONFIRMED", OrderStateMachine.eventType(OrderStatus.CONFIRMED));
+        assertEquals("ORDER_IN_PROGRESS", OrderStateMachine.eventType(OrderStatus.IN_PROGRESS));
+    }
+}
@@ -0,0 +1,77 @@
+package com.stockwise.order.service;
+
+import com.stockwise.order.model.Order;
+import com.stockwise.order.model.Order.OrderStatus;
+import com.stockwise.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// ORDER_OVERDUE отправляется один раз на срок; обновление заказа без смены срока его не повторяет
+class OverdueOrderDetectorTest {
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderEventPublisher eventPublisher = mock(OrderEventPublisher.class);
+    private final OverdueOrderDetector detector = new OverdueOrderDetector(orderRepository, eventPublisher);
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order("ORD-1", 1L, "P-1", 10);
+        order.setId(1L);
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setExpectedDeliveryDate(LocalDateTime.now().minusHours(1));
+        when(orderRepository.findAllById(anyIterable())).thenReturn(List.of(order));
+    }
+
+    @Test
+    void testUpdatingOverdueOrderWithSameDeadlineDoesNotFireAgain() {
+        detector.track(order);
+        detector.fireDueDeadlines();
+        verify(eventPublisher, times(1)).publish(order, "ORDER_OVERDUE");
+
+        // Смена заметок/количества: заказ открыт, срок прежний
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        detector.track(order);
+        detector.fireDueDeadlines();
+
+        verify(eventPublisher, times(1)).publish(order, "ORDER_OVERDUE");
+        assertEquals(List.of(1L), detector.getOverdueOrderIds());
+    }
+
+    @Test
+    void testChangedDeadlineIsRearmed() {
+        detector.track(order);
+        detector.fireDueDeadlines();
+
+        order.setExpectedDeliveryDate(LocalDateTime.now().plusDays(1));
+        detector.track(order);
+        detector.fireDueDeadlines();
+
+        verify(eventPublisher, times(1)).publish(order, "ORDER_OVERDUE");
+        assertTrue(detector.getOverdueOrderIds().isEmpty());
+
+        order.setExpectedDeliveryDate(LocalDateTime.now().minusMinutes(5));
+        detector.track(order);
+        detector.fireDueDeadlines();
+
+        verify(eventPublisher, times(2)).publish(order, "ORDER_OVERDUE");
+    }
+
+    @Test
+    void testClosedOrderIsRemoved() {
+        detector.track(order);
+        detector.fireDueDeadlines();
+
+        order.setStatus(OrderStatus.CANCELLED);
+        detector.track(order);
+
+        assertTrue(detector.getOverdueOrderIds().isEmpty());
+    }
+}
@@ -0,0 +1,8 @@
+package com.stockwise.supplier.config;
+
+// Схема бинарной сериализации одного типа: поля пишутся в фиксированном порядке, без имен
+public interface BinaryCodec<T> {
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in);
+}
@@ -0,0 +1,96 @@
+package com.stockwise.supplier.config;
+
+import com.stockwise.supplier.model.Contract;
+import com.stockwise.supplier.model.Supplier;
+
+// Бинарные схемы кэшируемых типов supplier-service. При изменении набора или порядка полей
+// нужно увеличить версию схемы: старые записи в Redis станут промахами, а не ошибками
+final class SupplierCodecs {
+    static final int SUPPLIER_TAG = 1;
+    static final int CONTRACT_TAG = 2;
+
+    private static final Supplier.SupplierStatus[] SUPPLIER_STATUSES = Supplier.SupplierStatus.values();
+    private static final Contract.ContractStatus[] CONTRACT_STATUSES = Contract.ContractStatus.values();
+
+    // Контракты поставщика в запись не входят: у них отдельный кэш "contracts"
+    static final BinaryCodec<Supplier> SUPPLIER = new BinaryCodec<>() {
+        @Override
+        public void write(Supplier supplier, BinaryWriter out) {
+            out.writeLong(supplier.getId());
+            out.writeString(supplier.getName());
+            out.writeString(supplier.getContactEmail());
+            out.writeString(supplier.getPhoneNumber());
+            out.writeString(supplier.getAddress());
+            out.writeString(supplier.getTaxId());
+            out.writeEnum(supplier.getStatus());
+            out.writeDouble(supplier.getRating());
+            out.writeInt(supplier.getDeliveryTimeAvg());
+        }
+
+        @Override
+        public Supplier read(BinaryReader in) {
+            Supplier supplier = new Supplier();
+            supplier.setId(in.readLong());
+            supplier.setName(in.readString());
+            supplier.setContactEmail(in.readString());
+            supplier.setPhoneNumber(in.readString());
+            supplier.setAddress(in.readString());
+            supplier.setTaxId(in.readString());
+            supplier.setStatus(in.readEnum(SUPPLIER_STATUSES));
+            supplier.setRating(in.readDouble());
+            supplier.setDeliveryTimeAvg(in.readInt());
+            return supplier;
+        }
+    };
+
+    // Вместо поставщика хранится только его id
+    static final BinaryCodec<Contract> CONTRACT = new BinaryCodec<>() {
+        @Override
+        public void write(Contract contract, BinaryWriter out) {
+            out.writeLong(contract.getId());
+            out.writeLong(contract.getSupplier() != null ? contract.getSupplier().getId() : null);
+            out.writeString(contract.getContractNumber());
+            out.writeDate(contract.getStartDate());
+            out.writeDate(contract.getEndDate());
+            out.writeDecimal(contract.getTerms());
+            out.writeVarLong(contract.getDeliveryDays());
+            out.writeString(contract.getPaymentConditions());
+            out.writeBoolean(contract.isActive());
+            out.writeEnum(contract.getStatus());
+            out.writeInt(contract.getMinOrderQuantity());
+            out.writeInt(contract.getMaxOrderQuantity());
+        }
+
+        @Override
+        public Contract read(BinaryReader in) {
+            Contract contract = new Contract();
+            contract.setId(in.readLong());
+            Long supplierId = in.readLong();
+            if (supplierId != null) {
+                Supplier supplier = new Supplier();
+                supplier.setId(supplierId);
+                contract.setSupplier(supplier);
+            }
+            contract.setContractNumber(in.readString());
+            contract.setStartDate(in.readDate());
+            contract.setEndDate(in.readDate());
+            contract.setTerms(in.readDecimal());
+            contract.setDeliveryDays((int) in.readVarLong());
+            contract.setPaymentConditions(in.readString());
+            contract.setActive(in.readBoolean());
+            contract.setStatus(in.readEnum(CONTRACT_STATUSES));
+            contract.setMinOrderQuantity(in.readInt());
+            contract.setMaxOrderQuantity(in.readInt());
+            return contract;
+        }
+    };
+
+    private SupplierCodecs() {
+    }
+
+    static BinaryRedisSerializer.Builder register(BinaryRedisSerializer.Builder builder) {
+        return builder
+                .register(SUPPLIER_TAG, Supplier.class, 1, SUPPLIER)
+                .register(CONTRACT_TAG, Contract.class, 1, CONTRACT);
+    }
+}
@@ -1,7 +1,10 @@
 package com.stockwise.supplier.controller;
 
+import com.stockwise.supplier.config.RedisLatencyRecorder;
 import com.stockwise.supplier.model.Supplier;
 import com.stockwise.supplier.model.Contract;
+import com.stockwise.supplier.model.RatingSummary;
+import com.stockwise.supplier.model.RedisCommandLatency;
 import com.stockwise.supplier.service.SupplierService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -14,9 +17,11 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class SupplierController {
     private final SupplierService supplierService;
+    private final RedisLatencyRecorder redisLatencyRecorder;
 
-    public SupplierController(SupplierService supplierService) {
+    public SupplierController(SupplierService supplierService, RedisLatencyRecorder redisLatencyRecorder) {
         this.supplierService = supplierService;
+        this.redisLatencyRecorder = redisLatencyRecorder;
     }
 
     // CRUD операции для поставщиков
@@ -82,6 +87,17 @@ public class SupplierController {
         return ResponseEntity.ok(supplierService.getSupplierRating(id));
     }
 
+    @GetMapping("/{id}/rating/summary")
+    public ResponseEntity<RatingSummary> getSupplierRatingSummary(@PathVariable Long id) {
+        return ResponseEntity.ok(supplierService.getSupplierRatingSummary(id));
+    }
+
+    @GetMapping("/top-rated")
+    public ResponseEntity<List<Supplier>> getTopRatedSuppliers(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(supplierService.getTopRatedSuppliers(limit));
+    }
+
     @PostMapping("/{id}/rate")
     public ResponseEntity<Void> rateSupplier(
             @PathVariable Long id,
@@ -120,10 +136,28 @@ public class SupplierController {
         return ResponseEntity.ok().build();
     }
 
+    // Пакет заказов пополнения, уже распределенных по контрактам (формат replenishment-orders);
+    // в ответе - число отправленных заказов
+    @PostMapping("/auto-order/batch")
+    public ResponseEntity<Integer> createAutomaticOrders(
+            @RequestBody List<SupplierService.ConsolidatedOrderRequest> orders) {
+        try {
+            return ResponseEntity.ok(supplierService.createAutomaticOrders(orders));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{supplierId}/expiring-contracts")
     public ResponseEntity<List<Contract>> getExpiringContracts(
             @PathVariable Long supplierId,
             @RequestParam(defaultValue = "30") int daysBeforeExpiration) {
         return ResponseEntity.ok(supplierService.getExpiringContracts(supplierId, daysBeforeExpiration));
     }
-}
\ No newline at end of file
+
+    // Клиентские задержки команд Redis по типу команды
+    @GetMapping("/cache/redis-latency")
+    public ResponseEntity<List<RedisCommandLatency>> getRedisLatency() {
+        return ResponseEntity.ok(redisLatencyRecorder.snapshot());
+    }
+}
@@ -141,6 +141,30 @@ public class Contract {
         isActive = active;
     }
 
+    public ContractStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ContractStatus status) {
+        this.status = status;
+    }
+
+    public Integer getMinOrderQuantity() {
+        return minOrderQuantity;
+    }
+
+    public void setMinOrderQuantity(Integer minOrderQuantity) {
+        this.minOrderQuantity = minOrderQuantity;
+    }
+
+    public Integer getMaxOrderQuantity() {
+        return maxOrderQuantity;
+    }
+
+    public void setMaxOrderQuantity(Integer maxOrderQuantity) {
+        this.maxOrderQuantity = maxOrderQuantity;
+    }
+
     public boolean isCurrentlyActive() {
         LocalDate today = LocalDate.now();
         return isActive &&
@@ -0,0 +1,43 @@
+package com.stockwise.supplier.model;
+
+public class RatingSummary {
+    private final Long supplierId;
+    private final long count;
+    private final double mean;
+    private final double decayedMean;
+    private final double variance;
+
+    public RatingSummary(Long supplierId, long count, double mean, double decayedMean, double variance) {
+        this.supplierId = supplierId;
+        this.count = count;
+        this.mean = mean;
+        this.decayedMean = decayedMean;
+        this.variance = variance;
+    }
+
+    // Getters
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getDecayedMean() {
+        return decayedMean;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    // Вычисляемые поля
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+}
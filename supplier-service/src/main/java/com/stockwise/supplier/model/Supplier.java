@@ -101,6 +101,38 @@ public class Supplier {
         this.address = address;
     }
 
+    public String getTaxId() {
+        return taxId;
+    }
+
+    public void setTaxId(String taxId) {
+        this.taxId = taxId;
+    }
+
+    public SupplierStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SupplierStatus status) {
+        this.status = status;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+
+    public void setRating(Double rating) {
+        this.rating = rating;
+    }
+
+    public Integer getDeliveryTimeAvg() {
+        return deliveryTimeAvg;
+    }
+
+    public void setDeliveryTimeAvg(Integer deliveryTimeAvg) {
+        this.deliveryTimeAvg = deliveryTimeAvg;
+    }
+
     public List<Contract> getContracts() {
         return contracts;
     }
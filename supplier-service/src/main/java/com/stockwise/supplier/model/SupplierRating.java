@@ -0,0 +1,94 @@
+package com.stockwise.supplier.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Запись журнала оценок поставщика (только добавление, без изменений)
+@Entity
+@Table(name = "supplier_ratings",
+       indexes = @Index(name = "idx_supplier_ratings_supplier", columnList = "supplier_id"))
+public class SupplierRating {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "Supplier ID is required")
+    @Column(name = "supplier_id", nullable = false, updatable = false)
+    private Long supplierId;
+
+    @NotNull(message = "Rating is required")
+    @DecimalMin(value = "0.0", message = "Rating must be between 0 and 5")
+    @DecimalMax(value = "5.0", message = "Rating must be between 0 and 5")
+    @Column(nullable = false, updatable = false)
+    private Double rating;
+
+    @Column(name = "rated_at", nullable = false, updatable = false)
+    private LocalDateTime ratedAt = LocalDateTime.now();
+
+    public SupplierRating() {
+    }
+
+    public SupplierRating(Long supplierId, Double rating) {
+        this.supplierId = supplierId;
+        this.rating = rating;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+
+    public void setRating(Double rating) {
+        this.rating = rating;
+    }
+
+    public LocalDateTime getRatedAt() {
+        return ratedAt;
+    }
+
+    public void setRatedAt(LocalDateTime ratedAt) {
+        this.ratedAt = ratedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SupplierRating that = (SupplierRating) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "SupplierRating{" +
+                "id=" + id +
+                ", supplierId=" + supplierId +
+                ", rating=" + rating +
+                ", ratedAt=" + ratedAt +
+                '}';
+    }
+}
@@ -5,13 +5,29 @@ public class SupplierStats {
     private final long activeSuppliers;
     private final long inactiveSuppliers;
     private final long highRatedSuppliers;
+    private final long[] ratingHistogram;
+    private final Integer deliveryTimeP50;
+    private final Integer deliveryTimeP90;
+    private final Integer deliveryTimeP99;
 
-    public SupplierStats(long totalSuppliers, long activeSuppliers, 
+    public SupplierStats(long totalSuppliers, long activeSuppliers,
                         long inactiveSuppliers, long highRatedSuppliers) {
+        this(totalSuppliers, activeSuppliers, inactiveSuppliers, highRatedSuppliers,
+                new long[0], null, null, null);
+    }
+
+    public SupplierStats(long totalSuppliers, long activeSuppliers,
+                        long inactiveSuppliers, long highRatedSuppliers,
+                        long[] ratingHistogram, Integer deliveryTimeP50,
+                        Integer deliveryTimeP90, Integer deliveryTimeP99) {
         this.totalSuppliers = totalSuppliers;
         this.activeSuppliers = activeSuppliers;
         this.inactiveSuppliers = inactiveSuppliers;
         this.highRatedSuppliers = highRatedSuppliers;
+        this.ratingHistogram = ratingHistogram;
+        this.deliveryTimeP50 = deliveryTimeP50;
+        this.deliveryTimeP90 = deliveryTimeP90;
+        this.deliveryTimeP99 = deliveryTimeP99;
     }
 
     // Getters
@@ -31,6 +47,23 @@ public class SupplierStats {
         return highRatedSuppliers;
     }
 
+    // Количество поставщиков по корзинам рейтинга: [0,1), [1,2), [2,3), [3,4), [4,5]
+    public long[] getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public Integer getDeliveryTimeP50() {
+        return deliveryTimeP50;
+    }
+
+    public Integer getDeliveryTimeP90() {
+        return deliveryTimeP90;
+    }
+
+    public Integer getDeliveryTimeP99() {
+        return deliveryTimeP99;
+    }
+
     // Вычисляемые поля
     public double getActiveRate() {
         return totalSuppliers > 0 ? (double) activeSuppliers / totalSuppliers * 100 : 0.0;
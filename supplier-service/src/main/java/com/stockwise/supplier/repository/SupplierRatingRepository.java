@@ -0,0 +1,18 @@
+package com.stockwise.supplier.repository;
+
+import com.stockwise.supplier.model.SupplierRating;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SupplierRatingRepository extends JpaRepository<SupplierRating, Long> {
+    
+    @Query("SELECT r FROM SupplierRating r WHERE r.id > :afterId AND r.id <= :untilId ORDER BY r.id ASC")
+    List<SupplierRating> findBetweenIds(@Param("afterId") Long afterId, @Param("untilId") Long untilId,
+                                        Pageable pageable);
+}
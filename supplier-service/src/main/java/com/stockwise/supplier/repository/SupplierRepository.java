@@ -38,4 +38,18 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     
     @Query("SELECT COUNT(s) FROM Supplier s WHERE s.rating >= :minRating")
     Long countByRatingGreaterThanEqual(@Param("minRating") Double minRating);
+    
+    @Query("SELECT s.id, s.status, s.rating, s.deliveryTimeAvg FROM Supplier s")
+    List<Object[]> findStatsProjection();
+    
+    // Блокировка строки поставщика до пересчета рейтинга: пересчеты по одному поставщику идут по очереди
+    @Query(value = "SELECT id FROM suppliers WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+    
+    // suppliers.rating - среднее по журналу supplier_ratings. Запрос нативный, RETURNING
+    // возвращает записанное значение
+    @Query(value = "UPDATE suppliers SET rating = " +
+           "(SELECT AVG(r.rating) FROM supplier_ratings r WHERE r.supplier_id = :id) " +
+           "WHERE id = :id RETURNING rating", nativeQuery = true)
+    Double updateRatingFromJournal(@Param("id") Long id);
 }
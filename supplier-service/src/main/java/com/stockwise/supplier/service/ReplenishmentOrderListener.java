@@ -0,0 +1,31 @@
+package com.stockwise.supplier.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockwise.supplier.service.SupplierService.ConsolidatedOrderRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Заказы пополнения из inventory-service: консолидация по контрактам выполнена там
+// (ReplenishmentConsolidator), здесь каждый заказ проверяется и отправляется поставщику.
+// Заказ, не прошедший проверку контракта, не отправляется
+@Component
+public class ReplenishmentOrderListener {
+    private final SupplierService supplierService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ReplenishmentOrderListener(SupplierService supplierService) {
+        this.supplierService = supplierService;
+    }
+
+    @KafkaListener(topics = "${kafka.topics.replenishment-orders:replenishment-orders}", groupId = "supplier-service")
+    public void onReplenishmentOrder(String message) {
+        try {
+            ConsolidatedOrderRequest order = objectMapper.readValue(message, ConsolidatedOrderRequest.class);
+            supplierService.createAutomaticOrders(List.of(order));
+        } catch (Exception e) {
+            System.err.println("Error processing replenishment order: " + e.getMessage());
+        }
+    }
+}
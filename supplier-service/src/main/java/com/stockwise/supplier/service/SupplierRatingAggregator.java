@@ -0,0 +1,184 @@
+package com.stockwise.supplier.service;
+
+import com.stockwise.supplier.model.RatingSummary;
+import com.stockwise.supplier.model.SupplierRating;
+import com.stockwise.supplier.repository.SupplierRatingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Потоковые агрегаты оценок поставщиков: O(1) памяти на поставщика,
+// история оценок хранится в журнале supplier_ratings и читается только при старте.
+// Каждая оценка учитывается ровно один раз: журнал читается до границы по порядку коммитов,
+// а после коммита применяются только оценки с id выше границы - в любом порядке id
+@Component
+public class SupplierRatingAggregator {
+    private static final int REPLAY_PAGE_SIZE = 10_000;
+
+    private final SupplierRatingRepository ratingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate watermarkTransaction;
+    private final double decayPerMilli;
+    private final Object rebuildLock = new Object();
+    private volatile Map<Long, Aggregate> aggregates = new ConcurrentHashMap<>();
+    // Оценки с id до границы уже прочитаны из журнала при восстановлении
+    private long loadedUntil;
+    // Оценки, закоммиченные во время восстановления; null - восстановление не идет
+    private List<SupplierRating> pendingDuringRebuild;
+
+    @Value("${supplier.rating.watermark-lock-timeout-ms:5000}")
+    private long watermarkLockTimeoutMs = 5000;
+
+    public SupplierRatingAggregator(SupplierRatingRepository ratingRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${supplier.rating.half-life-days:90}") double halfLifeDays) {
+        this.ratingRepository = ratingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.watermarkTransaction = new TransactionTemplate(transactionManager);
+        this.decayPerMilli = Math.log(2) / (halfLifeDays * 24 * 60 * 60 * 1000);
+    }
+
+    // Добавляет оценку в журнал; агрегат обновляется после коммита
+    public SupplierRating record(Long supplierId, double rating) {
+        SupplierRating saved = ratingRepository.save(new SupplierRating(supplierId, rating));
+        TransactionCallbacks.afterCommit(() -> apply(saved));
+        return saved;
+    }
+
+    public RatingSummary getSummary(Long supplierId) {
+        Aggregate aggregate = aggregates.get(supplierId);
+        if (aggregate == null) {
+            return null;
+        }
+        return aggregate.toSummary(supplierId);
+    }
+
+    // Рейтинг для ранжирования: экспоненциально затухающее среднее, свежие оценки весят больше
+    public Double getScore(Long supplierId) {
+        RatingSummary summary = getSummary(supplierId);
+        return summary != null ? summary.getDecayedMean() : null;
+    }
+
+    public List<RatingSummary> getTopRated(int limit) {
+        return aggregates.entrySet().stream()
+                .map(entry -> entry.getValue().toSummary(entry.getKey()))
+                .sorted(Comparator.comparingDouble(RatingSummary::getDecayedMean).reversed()
+                        .thenComparing(Comparator.comparingLong(RatingSummary::getCount).reversed()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // Восстановление агрегатов из журнала при старте: журнал читается до границы, оценки,
+    // закоммиченные во время чтения, дописываются из буфера, если их id выше границы
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pendingDuringRebuild = new ArrayList<>();
+            }
+            try {
+                long watermark = watermarkTransaction.execute(status -> captureWatermark());
+                Map<Long, Aggregate> rebuilt = new ConcurrentHashMap<>();
+                replay(rebuilt, watermark);
+
+                synchronized (this) {
+                    for (SupplierRating rating : pendingDuringRebuild) {
+                        if (rating.getId() > watermark) {
+                            add(rebuilt, rating);
+                        }
+                    }
+                    aggregates = rebuilt;
+                    loadedUntil = watermark;
+                }
+            } finally {
+                synchronized (this) {
+                    pendingDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    // Граница журнала по порядку коммитов: SHARE ROW EXCLUSIVE ждет транзакции, уже вставившие
+    // оценки, и не пускает новые вставки, пока читается MAX(id). Оценки, закоммиченные позже,
+    // получат id больше границы. Блокировка снимается с коммитом короткой транзакции
+    private long captureWatermark() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + Math.max(1, watermarkLockTimeoutMs));
+        jdbcTemplate.execute("LOCK TABLE supplier_ratings IN SHARE ROW EXCLUSIVE MODE");
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM supplier_ratings", Long.class);
+    }
+
+    private void replay(Map<Long, Aggregate> target, long untilId) {
+        long lastId = 0L;
+        List<SupplierRating> page;
+        do {
+            page = ratingRepository.findBetweenIds(lastId, untilId, PageRequest.of(0, REPLAY_PAGE_SIZE));
+            for (SupplierRating rating : page) {
+                add(target, rating);
+                lastId = rating.getId();
+            }
+        } while (page.size() == REPLAY_PAGE_SIZE);
+    }
+
+    // Вызывается после коммита оценки, ровно один раз на оценку
+    private synchronized void apply(SupplierRating rating) {
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(rating);
+        }
+        if (rating.getId() > loadedUntil) {
+            add(aggregates, rating);
+        }
+    }
+
+    private void add(Map<Long, Aggregate> target, SupplierRating rating) {
+        target.computeIfAbsent(rating.getSupplierId(), id -> new Aggregate()).add(rating, decayPerMilli);
+    }
+
+    private static class Aggregate {
+        private long count;
+        private double mean;
+        private double m2;
+        private double decayedSum;
+        private double decayedWeight;
+        private long lastRatedAtMillis;
+
+        synchronized void add(SupplierRating rating, double decayPerMilli) {
+            double value = rating.getRating();
+
+            // Алгоритм Уэлфорда для среднего и дисперсии
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+
+            long ratedAt = rating.getRatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+            if (count == 1) {
+                lastRatedAtMillis = ratedAt;
+            }
+            long elapsed = Math.max(0, ratedAt - lastRatedAtMillis);
+            double factor = Math.exp(-decayPerMilli * elapsed);
+            decayedSum = decayedSum * factor + value;
+            decayedWeight = decayedWeight * factor + 1;
+            lastRatedAtMillis = Math.max(lastRatedAtMillis, ratedAt);
+        }
+
+        synchronized RatingSummary toSummary(Long supplierId) {
+            double variance = count > 1 ? m2 / (count - 1) : 0.0;
+            double decayedMean = decayedWeight > 0 ? decayedSum / decayedWeight : 0.0;
+            return new RatingSummary(supplierId, count, mean, decayedMean, variance);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.stockwise.supplier.service;
+
+import com.stockwise.supplier.model.Supplier;
+import com.stockwise.supplier.repository.SupplierRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Запись среднего по журналу оценок в suppliers.rating. Вызывается после коммита оценки,
+// поэтому в отдельной транзакции: под блокировкой строки поставщика среднее читается
+// следующим оператором и видит все оценки, закоммиченные до получения блокировки
+@Component
+public class SupplierRatingWriter {
+    private final SupplierRepository supplierRepository;
+    private final SupplierStatsAggregator statsAggregator;
+
+    public SupplierRatingWriter(SupplierRepository supplierRepository,
+                                SupplierStatsAggregator statsAggregator) {
+        this.supplierRepository = supplierRepository;
+        this.statsAggregator = statsAggregator;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refresh(Supplier supplier) {
+        if (supplierRepository.lockById(supplier.getId()) == null) {
+            return;
+        }
+        supplier.setRating(supplierRepository.updateRatingFromJournal(supplier.getId()));
+        // Статистика обновляется после коммита этой транзакции
+        statsAggregator.onSupplierSaved(supplier);
+    }
+}
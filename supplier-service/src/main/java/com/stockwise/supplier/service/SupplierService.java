@@ -2,6 +2,7 @@ package com.stockwise.supplier.service;
 
 import com.stockwise.supplier.model.Supplier;
 import com.stockwise.supplier.model.Contract;
+import com.stockwise.supplier.model.RatingSummary;
 import com.stockwise.supplier.model.SupplierStats;
 import com.stockwise.supplier.repository.SupplierRepository;
 import com.stockwise.supplier.repository.ContractRepository;
@@ -17,11 +18,16 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.client.RestTemplate;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -31,6 +37,9 @@ public class SupplierService {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final SupplierStatsAggregator statsAggregator;
+    private final SupplierRatingAggregator ratingAggregator;
+    private final SupplierRatingWriter ratingWriter;
 
     @Value("${kafka.topics.supplier-events:supplier-events}")
     private String supplierTopic;
@@ -41,18 +50,25 @@ public class SupplierService {
     public SupplierService(SupplierRepository supplierRepository,
                           ContractRepository contractRepository,
                           KafkaTemplate<String, String> kafkaTemplate,
-                          RestTemplate restTemplate) {
+                          RestTemplate restTemplate,
+                          SupplierStatsAggregator statsAggregator,
+                          SupplierRatingAggregator ratingAggregator,
+                          SupplierRatingWriter ratingWriter) {
         this.supplierRepository = supplierRepository;
         this.contractRepository = contractRepository;
         this.kafkaTemplate = kafkaTemplate;
         this.restTemplate = restTemplate;
         this.objectMapper = new ObjectMapper();
+        this.statsAggregator = statsAggregator;
+        this.ratingAggregator = ratingAggregator;
+        this.ratingWriter = ratingWriter;
     }
 
     // CRUD операции для поставщиков
     @CacheEvict(value = "suppliers", allEntries = true)
     public Supplier createSupplier(Supplier supplier) {
         Supplier savedSupplier = supplierRepository.save(supplier);
+        statsAggregator.onSupplierSaved(savedSupplier);
         sendSupplierEvent(savedSupplier, "SUPPLIER_CREATED");
         return savedSupplier;
     }
@@ -80,6 +96,7 @@ public class SupplierService {
         supplier.setStatus(supplierDetails.getStatus());
         
         Supplier updatedSupplier = supplierRepository.save(supplier);
+        statsAggregator.onSupplierSaved(updatedSupplier);
         sendSupplierEvent(updatedSupplier, "SUPPLIER_UPDATED");
         return updatedSupplier;
     }
@@ -88,6 +105,7 @@ public class SupplierService {
     public void deleteSupplier(Long id) {
         Supplier supplier = getSupplierById(id);
         supplierRepository.delete(supplier);
+        statsAggregator.onSupplierDeleted(id);
         sendSupplierEvent(supplier, "SUPPLIER_DELETED");
     }
 
@@ -134,15 +152,45 @@ public class SupplierService {
 
     // Дополнительные операции
     public Double getSupplierRating(Long id) {
-        Supplier supplier = getSupplierById(id);
-        return supplier.getRating();
+        RatingSummary summary = ratingAggregator.getSummary(id);
+        if (summary != null) {
+            return summary.getMean();
+        }
+        return getSupplierById(id).getRating();
     }
 
+    public RatingSummary getSupplierRatingSummary(Long id) {
+        RatingSummary summary = ratingAggregator.getSummary(id);
+        return summary != null ? summary : new RatingSummary(id, 0, 0.0, 0.0, 0.0);
+    }
+
+    @CacheEvict(value = "suppliers", allEntries = true)
     public void rateSupplier(Long id, Double rating) {
+        if (rating == null || rating < 0.0 || rating > 5.0) {
+            throw new IllegalArgumentException("Rating must be between 0 and 5: " + rating);
+        }
         Supplier supplier = getSupplierById(id);
-        supplier.setRating(rating);
-        supplierRepository.save(supplier);
-        sendSupplierEvent(supplier, "SUPPLIER_RATED");
+        ratingAggregator.record(id, rating);
+        // В suppliers.rating хранится среднее по журналу, а не последняя оценка. Среднее
+        // пересчитывается после коммита: до него параллельные оценки не видят друг друга
+        // и записанное среднее теряло бы одну из них
+        TransactionCallbacks.afterCommit(() -> {
+            ratingWriter.refresh(supplier);
+            sendSupplierEvent(supplier, "SUPPLIER_RATED");
+        });
+    }
+
+    // Ранжирование по потоковым агрегатам без чтения истории оценок
+    public List<Supplier> getTopRatedSuppliers(int limit) {
+        List<RatingSummary> top = ratingAggregator.getTopRated(limit);
+        Map<Long, Supplier> suppliers = supplierRepository.findAllById(
+                        top.stream().map(RatingSummary::getSupplierId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Supplier::getId, Function.identity()));
+        return top.stream()
+                .map(summary -> suppliers.get(summary.getSupplierId()))
+                .filter(supplier -> supplier != null)
+                .collect(Collectors.toList());
     }
 
     public List<Supplier> searchSuppliers(String query, int page, int size) {
@@ -152,15 +200,8 @@ public class SupplierService {
     }
 
     // Статистика поставщиков
-    @Cacheable(value = "supplier-stats", key = "'total_stats'")
     public SupplierStats getSupplierStats() {
-        long totalSuppliers = supplierRepository.count();
-        long activeSuppliers = supplierRepository.countByStatus(SupplierStatus.ACTIVE);
-        long inactiveSuppliers = supplierRepository.countByStatus(SupplierStatus.INACTIVE);
-        long highRatedSuppliers = supplierRepository.countByRatingGreaterThanEqual(4.0);
-        
-        return new SupplierStats(totalSuppliers, activeSuppliers, inactiveSuppliers, highRatedSuppliers);
-    }
+        return statsAggregator.getStats();
     }
 
     // Интеграция с системой пополнения
@@ -212,10 +253,10 @@ public class SupplierService {
                 throw new RuntimeException("No available suppliers for product: " + productId);
             }
             
-            // Выбираем лучшего поставщика (по рейтингу)
+            // Выбираем лучшего поставщика (по агрегированному рейтингу)
             Supplier bestSupplier = availableSuppliers.stream()
-                    .filter(s -> s.getRating() != null && s.getRating() >= 4.0)
-                    .max((s1, s2) -> Double.compare(s1.getRating(), s2.getRating()))
+                    .filter(s -> ratingScore(s) >= 4.0)
+                    .max(Comparator.comparingDouble(this::ratingScore))
                     .orElse(availableSuppliers.get(0));
             
             // Получаем лучший контракт
@@ -230,6 +271,60 @@ public class SupplierService {
         }
     }
 
+    // Заказы пополнения, собранные inventory-service (ReplenishmentConsolidator): строки там уже
+    // распределены по контрактам с учетом цены и min/max объема, здесь заказ только проверяется
+    // по своему контракту и отправляется как есть, с orderId инициатора. Пакет проверяется целиком
+    // до отправки первого заказа. Возвращает число заказов
+    public int createAutomaticOrders(List<ConsolidatedOrderRequest> orders) {
+        for (ConsolidatedOrderRequest order : orders) {
+            Contract contract = replenishmentContract(order);
+            order.setSupplierId(contract.getSupplier().getId());
+            if (order.getReason() == null) {
+                order.setReason("AUTO_GENERATED");
+            }
+        }
+        for (ConsolidatedOrderRequest order : orders) {
+            sendConsolidatedOrderEvent(order, "ORDER_CREATED");
+        }
+        return orders.size();
+    }
+
+    // Контракт заказа должен быть активен, принадлежать поставщику заказа и допускать объем каждой строки
+    private Contract replenishmentContract(ConsolidatedOrderRequest order) {
+        if (order.getLines() == null || order.getLines().isEmpty()) {
+            throw new IllegalArgumentException("Replenishment order has no lines: " + order.getOrderId());
+        }
+        if (order.getContractId() == null) {
+            throw new IllegalArgumentException("Replenishment order has no contract: " + order.getOrderId());
+        }
+        Contract contract = contractRepository.findById(order.getContractId())
+                .orElseThrow(() -> new IllegalArgumentException("Contract not found: " + order.getContractId()));
+        if (!contract.isActive() || contract.getStatus() != Contract.ContractStatus.ACTIVE) {
+            throw new IllegalArgumentException("Contract is not active: " + contract.getId());
+        }
+        if (order.getSupplierId() != null && !order.getSupplierId().equals(contract.getSupplier().getId())) {
+            throw new IllegalArgumentException("Contract " + contract.getId() + " does not belong to supplier "
+                    + order.getSupplierId());
+        }
+        int min = contract.getMinOrderQuantity() != null ? contract.getMinOrderQuantity() : 1;
+        int max = contract.getMaxOrderQuantity() != null ? contract.getMaxOrderQuantity() : Integer.MAX_VALUE;
+        for (OrderLine line : order.getLines()) {
+            if (line.getProductId() == null || line.getQuantity() < Math.max(1, min) || line.getQuantity() > max) {
+                throw new IllegalArgumentException("Order line " + line.getProductId() + " x " + line.getQuantity()
+                        + " is outside contract " + contract.getId() + " bounds [" + min + ", " + max + "]");
+            }
+        }
+        return contract;
+    }
+
+    private double ratingScore(Supplier supplier) {
+        Double score = ratingAggregator.getScore(supplier.getId());
+        if (score == null) {
+            score = supplier.getRating();
+        }
+        return score != null ? score : 0.0;
+    }
+
     private void createOrder(Supplier supplier, Contract contract, String productId, int quantity) {
         // Создаем заказ и отправляем событие
         OrderRequest orderRequest = new OrderRequest(
@@ -284,6 +379,16 @@ public class SupplierService {
         }
     }
 
+    private void sendConsolidatedOrderEvent(ConsolidatedOrderRequest orderRequest, String eventType) {
+        try {
+            ConsolidatedOrderEvent event = new ConsolidatedOrderEvent(eventType, orderRequest);
+            String eventJson = objectMapper.writeValueAsString(event);
+            kafkaTemplate.send("orders", String.valueOf(orderRequest.getSupplierId()), eventJson);
+        } catch (Exception e) {
+            System.err.println("Error sending order event: " + e.getMessage());
+        }
+    }
+
     // Вспомогательные классы для событий
     public static class SupplierEvent {
         private String eventType;
@@ -345,6 +450,76 @@ public class SupplierService {
         public void setReason(String reason) { this.reason = reason; }
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class OrderLine {
+        private String productId;
+        private int quantity;
+
+        public OrderLine() {
+        }
+
+        public OrderLine(String productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        // Getters and setters
+        public String getProductId() { return productId; }
+        public void setProductId(String productId) { this.productId = productId; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+    }
+
+    // Заказ по одному контракту со всеми его строками; формат события replenishment-orders
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ConsolidatedOrderRequest {
+        private String orderId;
+        private Long supplierId;
+        private Long contractId;
+        private List<OrderLine> lines;
+        private String reason;
+
+        public ConsolidatedOrderRequest() {
+        }
+
+        public ConsolidatedOrderRequest(String orderId, Long supplierId, Long contractId, List<OrderLine> lines,
+                                        String reason) {
+            this.orderId = orderId;
+            this.supplierId = supplierId;
+            this.contractId = contractId;
+            this.lines = lines;
+            this.reason = reason;
+        }
+
+        // Getters and setters
+        public String getOrderId() { return orderId; }
+        public void setOrderId(String orderId) { this.orderId = orderId; }
+        public Long getSupplierId() { return supplierId; }
+        public void setSupplierId(Long supplierId) { this.supplierId = supplierId; }
+        public Long getContractId() { return contractId; }
+        public void setContractId(Long contractId) { this.contractId = contractId; }
+        public List<OrderLine> getLines() { return lines; }
+        public void setLines(List<OrderLine> lines) { this.lines = lines; }
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+    }
+
+    public static class ConsolidatedOrderEvent {
+        private String eventType;
+        private ConsolidatedOrderRequest orderRequest;
+
+        public ConsolidatedOrderEvent(String eventType, ConsolidatedOrderRequest orderRequest) {
+            this.eventType = eventType;
+            this.orderRequest = orderRequest;
+        }
+
+        // Getters and setters
+        public String getEventType() { return eventType; }
+        public void setEventType(String eventType) { this.eventType = eventType; }
+        public ConsolidatedOrderRequest getOrderRequest() { return orderRequest; }
+        public void setOrderRequest(ConsolidatedOrderRequest orderRequest) { this.orderRequest = orderRequest; }
+    }
+
     public static class OrderEvent {
         private String eventType;
         private OrderRequest orderRequest;
@@ -0,0 +1,185 @@
+package com.stockwise.supplier.service;
+
+import com.stockwise.supplier.model.Supplier;
+import com.stockwise.supplier.model.SupplierStats;
+import com.stockwise.supplier.repository.SupplierRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Материализованная статистика поставщиков: счетчики обновляются по событиям
+// создания/изменения/удаления/оценки и периодически сверяются с БД
+@Component
+public class SupplierStatsAggregator {
+    static final double HIGH_RATING_THRESHOLD = 4.0;
+    static final int RATING_BUCKETS = 5;
+    static final int MAX_DELIVERY_DAYS = 365;
+
+    private final SupplierRepository supplierRepository;
+    // Сверки выполняются по одной: у каждой свой буфер изменений
+    private final Object reconcileLock = new Object();
+    private Counters counters = new Counters();
+    private volatile boolean loaded;
+    // Изменения, примененные во время чтения БД сверкой; null - сверка не идет
+    private List<Consumer<Counters>> pendingDuringRebuild;
+
+    public SupplierStatsAggregator(SupplierRepository supplierRepository) {
+        this.supplierRepository = supplierRepository;
+    }
+
+    public void onSupplierSaved(Supplier supplier) {
+        SupplierSnapshot snapshot = new SupplierSnapshot(
+                supplier.getStatus(), supplier.getRating(), supplier.getDeliveryTimeAvg());
+        Long id = supplier.getId();
+        TransactionCallbacks.afterCommit(() -> apply(id, snapshot));
+    }
+
+    public void onSupplierDeleted(Long id) {
+        TransactionCallbacks.afterCommit(() -> remove(id));
+    }
+
+    public SupplierStats getStats() {
+        if (!loaded) {
+            reconcile();
+        }
+        synchronized (this) {
+            return counters.toStats();
+        }
+    }
+
+    // Полная сверка с БД: исправляет расхождения после откатов транзакций и записей в обход сервиса.
+    // Изменения, закоммиченные во время чтения, могли не попасть в прочитанные строки: они
+    // буферизуются и повторяются на новых счетчиках перед заменой (put и remove идемпотентны)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${supplier.stats.reconcile-interval-ms:600000}",
+               initialDelayString = "${supplier.stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                pendingDuringRebuild = new ArrayList<>();
+            }
+            try {
+                List<Object[]> rows = supplierRepository.findStatsProjection();
+                Counters rebuilt = new Counters();
+                for (Object[] row : rows) {
+                    rebuilt.put((Long) row[0], new SupplierSnapshot(
+                            (Supplier.SupplierStatus) row[1], (Double) row[2], (Integer) row[3]));
+                }
+
+                synchronized (this) {
+                    pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    counters = rebuilt;
+                    loaded = true;
+                }
+            } finally {
+                synchronized (this) {
+                    pendingDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    private synchronized void apply(Long id, SupplierSnapshot snapshot) {
+        change(target -> target.put(id, snapshot));
+    }
+
+    private synchronized void remove(Long id) {
+        change(target -> target.remove(id));
+    }
+
+    // Вызывается под монитором this
+    private void change(Consumer<Counters> change) {
+        change.accept(counters);
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(change);
+        }
+    }
+
+    private static class SupplierSnapshot {
+        private final Supplier.SupplierStatus status;
+        private final Double rating;
+        private final Integer deliveryTimeAvg;
+
+        SupplierSnapshot(Supplier.SupplierStatus status, Double rating, Integer deliveryTimeAvg) {
+            this.status = status;
+            this.rating = rating;
+            this.deliveryTimeAvg = deliveryTimeAvg;
+        }
+    }
+
+    private static class Counters {
+        private final Map<Long, SupplierSnapshot> snapshots = new HashMap<>();
+        private final long[] statusCounts = new long[Supplier.SupplierStatus.values().length];
+        private final long[] ratingHistogram = new long[RATING_BUCKETS];
+        private final long[] deliveryDays = new long[MAX_DELIVERY_DAYS + 1];
+        private long highRated;
+        private long deliverySamples;
+
+        void put(Long id, SupplierSnapshot snapshot) {
+            SupplierSnapshot previous = snapshots.put(id, snapshot);
+            if (previous != null) {
+                account(previous, -1);
+            }
+            account(snapshot, 1);
+        }
+
+        void remove(Long id) {
+            SupplierSnapshot previous = snapshots.remove(id);
+            if (previous != null) {
+                account(previous, -1);
+            }
+        }
+
+        private void account(SupplierSnapshot snapshot, int sign) {
+            if (snapshot.status != null) {
+                statusCounts[snapshot.status.ordinal()] += sign;
+            }
+            if (snapshot.rating != null) {
+                int bucket = (int) Math.floor(snapshot.rating);
+                ratingHistogram[Math.max(0, Math.min(RATING_BUCKETS - 1, bucket))] += sign;
+                if (snapshot.rating >= HIGH_RATING_THRESHOLD) {
+                    highRated += sign;
+                }
+            }
+            if (snapshot.deliveryTimeAvg != null) {
+                deliveryDays[Math.max(0, Math.min(MAX_DELIVERY_DAYS, snapshot.deliveryTimeAvg))] += sign;
+                deliverySamples += sign;
+            }
+        }
+
+        SupplierStats toStats() {
+            return new SupplierStats(
+                    snapshots.size(),
+                    statusCounts[Supplier.SupplierStatus.ACTIVE.ordinal()],
+                    statusCounts[Supplier.SupplierStatus.INACTIVE.ordinal()],
+                    highRated,
+                    ratingHistogram.clone(),
+                    deliveryPercentile(0.50),
+                    deliveryPercentile(0.90),
+                    deliveryPercentile(0.99)
+            );
+        }
+
+        private Integer deliveryPercentile(double percentile) {
+            if (deliverySamples == 0) {
+                return null;
+            }
+            long rank = (long) Math.ceil(percentile * deliverySamples);
+            long seen = 0;
+            for (int days = 0; days < deliveryDays.length; days++) {
+                seen += deliveryDays[days];
+                if (seen >= rank) {
+                    return days;
+                }
+            }
+            return MAX_DELIVERY_DAYS;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.stockwise.supplier.config;
+
+import com.stockwise.supplier.model.Contract;
+import com.stockwise.supplier.model.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRedisSerializerTest {
+    private final BinaryRedisSerializer serializer = SupplierCodecs.register(BinaryRedisSerializer.builder())
+            .compressAbove(1024)
+            .build();
+
+    @Test
+    void testSupplierRoundTripKeepsFields() {
+        Supplier supplier = sampleSupplier(1);
+        Supplier restored = (Supplier) serializer.deserialize(serializer.serialize(supplier));
+
+        assertEquals(supplier.getId(), restored.getId());
+        assertEquals(supplier.getName(), restored.getName());
+        assertEquals(supplier.getContactEmail(), restored.getContactEmail());
+        assertNull(restored.getPhoneNumber());
+        assertEquals(supplier.getStatus(), restored.getStatus());
+        assertEquals(4.25, restored.getRating());
+        assertEquals(6, restored.getDeliveryTimeAvg());
+    }
+
+    @Test
+    void testContractKeepsOnlySupplierId() {
+        Contract contract = new Contract("CTR-1", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31),
+                new BigDecimal("1250.75"), 5, "NET 30");
+        contract.setId(11L);
+        contract.setSupplier(sampleSupplier(1));
+        contract.setStatus(Contract.ContractStatus.ACTIVE);
+        contract.setMinOrderQuantity(10);
+
+        Contract restored = (Contract) serializer.deserialize(serializer.serialize(contract));
+
+        assertEquals(11L, restored.getId());
+        assertEquals(1L, restored.getSupplier().getId());
+        assertNull(restored.getSupplier().getName());
+        assertEquals(LocalDate.of(2024, 12, 31), restored.getEndDate());
+        assertEquals(new BigDecimal("1250.75"), restored.getTerms());
+        assertEquals(5, restored.getDeliveryDays());
+        assertEquals(Contract.ContractStatus.ACTIVE, restored.getStatus());
+        assertEquals(10, restored.getMinOrderQuantity());
+        assertNull(restored.getMaxOrderQuantity());
+    }
+
+    @Test
+    void testListsAndNullValues() {
+        List<?> page = (List<?>) serializer.deserialize(serializer.serialize(List.of(sampleSupplier(1), sampleSupplier(2))));
+        assertEquals(2, page.size());
+        assertEquals(2L, ((Supplier) page.get(1)).getId());
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<>())));
+        assertSame(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+    }
+
+    @Test
+    void testLargeValuesAreCompressed() {
+        List<Supplier> page = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            page.add(sampleSupplier(i));
+        }
+        byte[] bytes = serializer.serialize(page);
+        assertEquals(BinaryRedisSerializer.MAGIC_LZ4, bytes[0]);
+        assertEquals(200, ((List<?>) serializer.deserialize(bytes)).size());
+    }
+
+    @Test
+    void testUnregisteredTypesAndLegacyJsonUseFallback() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        Map<String, String> value = new HashMap<>(Map.of("key", "value"));
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        assertEquals("legacy", serializer.deserialize(json.serialize("legacy")));
+    }
+
+    @Test
+    void testSchemaVersionMismatchIsCacheMiss() {
+        BinaryRedisSerializer newer = BinaryRedisSerializer.builder()
+                .register(SupplierCodecs.SUPPLIER_TAG, Supplier.class, 2, SupplierCodecs.SUPPLIER)
+                .build();
+        assertNull(newer.deserialize(serializer.serialize(sampleSupplier(1))));
+    }
+
+    private static Supplier sampleSupplier(long id) {
+        Supplier supplier = new Supplier();
+        supplier.setId(id);
+        supplier.setName("Supplier " + id);
+        supplier.setContactEmail("supplier" + id + "@example.com");
+        supplier.setStatus(Supplier.SupplierStatus.ACTIVE);
+        supplier.setRating(4.25);
+        supplier.setDeliveryTimeAvg(6);
+        return supplier;
+    }
+}
@@ -0,0 +1,114 @@
+package com.stockwise.supplier.controller;
+
+import com.stockwise.supplier.config.RedisLatencyRecorder;
+import com.stockwise.supplier.model.Contract;
+import com.stockwise.supplier.model.Supplier;
+import com.stockwise.supplier.repository.ContractRepository;
+import com.stockwise.supplier.repository.SupplierRepository;
+import com.stockwise.supplier.service.SupplierRatingAggregator;
+import com.stockwise.supplier.service.SupplierRatingWriter;
+import com.stockwise.supplier.service.SupplierService;
+import com.stockwise.supplier.service.SupplierStatsAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Пакет заказов пополнения: заказ уходит по контракту, выбранному inventory-service, после проверки контракта
+class SupplierControllerTest {
+    private static final String PRODUCT = "00000000-0000-0000-0000-000000000001";
+
+    private final ContractRepository contractRepository = mock(ContractRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        SupplierService supplierService = new SupplierService(mock(SupplierRepository.class), contractRepository,
+                kafkaTemplate, mock(RestTemplate.class), mock(SupplierStatsAggregator.class),
+                mock(SupplierRatingAggregator.class), mock(SupplierRatingWriter.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new SupplierController(supplierService, mock(RedisLatencyRecorder.class))).build();
+        when(contractRepository.findById(10L)).thenReturn(Optional.of(contract(10L, 1L, 5, 100)));
+        when(contractRepository.findById(11L)).thenReturn(Optional.of(contract(11L, 2L, null, null)));
+    }
+
+    @Test
+    void testOrdersAreSentWithTheirContractAndOrderId() throws Exception {
+        mockMvc.perform(post("/api/suppliers/auto-order/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + order("a1", 1L, 10L, 20) + "," + order("a2", null, 11L, 500) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        verify(kafkaTemplate).send(eq("orders"), eq("1"), argThat(json -> json.contains("\"orderId\":\"a1\"")
+                && json.contains("\"contractId\":10") && json.contains("\"quantity\":20")
+                && json.contains("\"reason\":\"AUTO_REPLENISHMENT\"")));
+        // Поставщик не указан - берется из контракта
+        verify(kafkaTemplate).send(eq("orders"), eq("2"), argThat(json -> json.contains("\"orderId\":\"a2\"")
+                && json.contains("\"supplierId\":2") && json.contains("\"contractId\":11")));
+    }
+
+    @Test
+    void testLineOutsideContractBoundsRejectsWholeBatch() throws Exception {
+        mockMvc.perform(post("/api/suppliers/auto-order/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + order("a1", 1L, 11L, 20) + "," + order("a2", 1L, 10L, 101) + "]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void testContractOfAnotherSupplierIsRejected() throws Exception {
+        mockMvc.perform(post("/api/suppliers/auto-order/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + order("a1", 2L, 10L, 20) + "]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void testInactiveOrMissingContractIsRejected() throws Exception {
+        Contract expired = contract(12L, 1L, null, null);
+        expired.setStatus(Contract.ContractStatus.EXPIRED);
+        when(contractRepository.findById(12L)).thenReturn(Optional.of(expired));
+
+        for (Long contractId : new Long[]{12L, 13L, null}) {
+            mockMvc.perform(post("/api/suppliers/auto-order/batch").contentType(MediaType.APPLICATION_JSON)
+                            .content("[" + order("a1", null, contractId, 20) + "]"))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static Contract contract(Long id, Long supplierId, Integer min, Integer max) {
+        Supplier supplier = new Supplier();
+        supplier.setId(supplierId);
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setSupplier(supplier);
+        contract.setActive(true);
+        contract.setStatus(Contract.ContractStatus.ACTIVE);
+        contract.setMinOrderQuantity(min);
+        contract.setMaxOrderQuantity(max);
+        return contract;
+    }
+
+    // Формат события replenishment-orders из inventory-service, включая поля, которые здесь не нужны
+    private static String order(String orderId, Long supplierId, Long contractId, int quantity) {
+        return String.format("{\"orderId\":\"%s\",\"supplierId\":%s,\"contractId\":%s,\"reason\":\"AUTO_REPLENISHMENT\","
+                + "\"createdAt\":\"2024-01-01T00:00:00Z\",\"lines\":[{\"productId\":\"%s\",\"productName\":\"Widget\","
+                + "\"quantity\":%d}]}", orderId, supplierId, contractId, PRODUCT, quantity);
+    }
+}
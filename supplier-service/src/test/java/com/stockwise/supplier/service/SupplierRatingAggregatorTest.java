@@ -0,0 +1,166 @@
+package com.stockwise.supplier.service;
+
+import com.stockwise.supplier.model.RatingSummary;
+import com.stockwise.supplier.model.SupplierRating;
+import com.stockwise.supplier.repository.SupplierRatingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Потоковые агрегаты оценок: применение после коммита, восстановление из журнала до границы
+// по порядку коммитов, каждая оценка учитывается один раз при любом порядке id
+class SupplierRatingAggregatorTest {
+    private static final Long SUPPLIER = 7L;
+    private static final long WATERMARK = 5;
+
+    private final SupplierRatingRepository ratingRepository = mock(SupplierRatingRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SupplierRatingAggregator aggregator = new SupplierRatingAggregator(
+            ratingRepository, jdbcTemplate, transactionManager, 90);
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COALESCE(MAX(id)"), eq(Long.class))).thenReturn(WATERMARK);
+        when(ratingRepository.findBetweenIds(anyLong(), anyLong(), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRecordIsAppliedOnlyAfterCommit() {
+        when(ratingRepository.save(any(SupplierRating.class))).thenReturn(rating(6, 4.0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        aggregator.record(SUPPLIER, 4.0);
+        assertNull(aggregator.getSummary(SUPPLIER));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, aggregator.getSummary(SUPPLIER).getCount());
+        assertEquals(4.0, aggregator.getScore(SUPPLIER), 1e-9);
+    }
+
+    @Test
+    void testRolledBackRecordIsNotApplied() {
+        when(ratingRepository.save(any(SupplierRating.class))).thenReturn(rating(6, 1.0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        aggregator.record(SUPPLIER, 1.0);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertNull(aggregator.getSummary(SUPPLIER));
+    }
+
+    @Test
+    void testRebuildReadsJournalUpToWatermark() {
+        when(ratingRepository.findBetweenIds(eq(0L), eq(WATERMARK), any(Pageable.class))).thenReturn(List.of(
+                rating(1, 2.0), rating(2, 4.0), rating(3, 6.0)));
+
+        aggregator.rebuild();
+
+        verify(jdbcTemplate).execute("LOCK TABLE supplier_ratings IN SHARE ROW EXCLUSIVE MODE");
+        RatingSummary summary = aggregator.getSummary(SUPPLIER);
+        assertEquals(3, summary.getCount());
+        assertEquals(4.0, summary.getMean(), 1e-9);
+        assertEquals(4.0, summary.getVariance(), 1e-9);
+    }
+
+    @Test
+    void testRatingsCommittedOutOfIdOrderAreAllCounted() {
+        aggregator.rebuild();
+
+        // Параллельные оценки: id 8 закоммичена раньше id 7
+        when(ratingRepository.save(any(SupplierRating.class))).thenReturn(rating(8, 5.0), rating(7, 3.0));
+        aggregator.record(SUPPLIER, 5.0);
+        aggregator.record(SUPPLIER, 3.0);
+
+        RatingSummary summary = aggregator.getSummary(SUPPLIER);
+        assertEquals(2, summary.getCount());
+        assertEquals(4.0, summary.getMean(), 1e-9);
+    }
+
+    @Test
+    void testRatingsCommittedDuringRebuildAreCountedOnce() {
+        when(ratingRepository.findBetweenIds(eq(0L), eq(WATERMARK), any(Pageable.class))).thenAnswer(invocation -> {
+            // Во время чтения журнала: коммит оценки выше границы и запоздалый коммит-хук оценки до границы
+            when(ratingRepository.save(any(SupplierRating.class))).thenReturn(rating(6, 5.0), rating(4, 1.0));
+            aggregator.record(SUPPLIER, 5.0);
+            aggregator.record(SUPPLIER, 1.0);
+            return List.of(rating(1, 3.0), rating(4, 1.0));
+        });
+
+        aggregator.rebuild();
+
+        RatingSummary summary = aggregator.getSummary(SUPPLIER);
+        assertEquals(3, summary.getCount());
+        assertEquals(3.0, summary.getMean(), 1e-9);
+    }
+
+    @Test
+    void testLateHookForReplayedRatingIsIgnored() {
+        when(ratingRepository.findBetweenIds(eq(0L), eq(WATERMARK), any(Pageable.class)))
+                .thenReturn(List.of(rating(5, 3.0)));
+        aggregator.rebuild();
+
+        when(ratingRepository.save(any(SupplierRating.class))).thenReturn(rating(5, 3.0));
+        aggregator.record(SUPPLIER, 3.0);
+
+        assertEquals(1, aggregator.getSummary(SUPPLIER).getCount());
+    }
+
+    @Test
+    void testDecayedMeanFavoursRecentRatings() {
+        when(ratingRepository.findBetweenIds(eq(0L), eq(WATERMARK), any(Pageable.class))).thenReturn(List.of(
+                rating(1, SUPPLIER, 1.0, now.minusDays(180)), rating(2, SUPPLIER, 5.0, now)));
+
+        aggregator.rebuild();
+
+        RatingSummary summary = aggregator.getSummary(SUPPLIER);
+        assertEquals(3.0, summary.getMean(), 1e-9);
+        // Два периода полураспада: вес старой оценки 1/4
+        assertEquals((0.25 * 1.0 + 5.0) / 1.25, summary.getDecayedMean(), 1e-6);
+    }
+
+    @Test
+    void testTopRatedOrdersByDecayedMean() {
+        when(ratingRepository.findBetweenIds(eq(0L), eq(WATERMARK), any(Pageable.class))).thenReturn(List.of(
+                rating(1, 1L, 2.0, now), rating(2, 2L, 5.0, now), rating(3, 3L, 4.0, now)));
+
+        aggregator.rebuild();
+
+        List<RatingSummary> top = aggregator.getTopRated(2);
+        assertEquals(List.of(2L, 3L), top.stream().map(RatingSummary::getSupplierId).toList());
+    }
+
+    private SupplierRating rating(long id, double value) {
+        return rating(id, SUPPLIER, value, now);
+    }
+
+    private static SupplierRating rating(long id, Long supplierId, double value, LocalDateTime ratedAt) {
+        SupplierRating rating = new SupplierRating(supplierId, value);
+        rating.setId(id);
+        rating.setRatedAt(ratedAt);
+        return rating;
+    }
+}
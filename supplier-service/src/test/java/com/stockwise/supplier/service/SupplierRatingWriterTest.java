@@ -0,0 +1,90 @@
+package com.stockwise.supplier.service;
+
+import com.stockwise.supplier.model.Supplier;
+import com.stockwise.supplier.repository.ContractRepository;
+import com.stockwise.supplier.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Среднее по журналу записывается в suppliers.rating только после коммита оценки
+class SupplierRatingWriterTest {
+    private static final Long SUPPLIER = 7L;
+
+    private final SupplierRepository supplierRepository = mock(SupplierRepository.class);
+    private final SupplierStatsAggregator statsAggregator = mock(SupplierStatsAggregator.class);
+    private final SupplierRatingAggregator ratingAggregator = mock(SupplierRatingAggregator.class);
+    private final SupplierRatingWriter ratingWriter = new SupplierRatingWriter(supplierRepository, statsAggregator);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SupplierService supplierService = new SupplierService(supplierRepository,
+            mock(ContractRepository.class), kafkaTemplate, mock(RestTemplate.class), statsAggregator,
+            ratingAggregator, ratingWriter);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRatingIsRecomputedAfterCommit() {
+        Supplier supplier = supplier();
+        when(supplierRepository.findById(SUPPLIER)).thenReturn(Optional.of(supplier));
+        when(supplierRepository.lockById(SUPPLIER)).thenReturn(SUPPLIER);
+        when(supplierRepository.updateRatingFromJournal(SUPPLIER)).thenReturn(3.5);
+        TransactionSynchronizationManager.initSynchronization();
+
+        supplierService.rateSupplier(SUPPLIER, 4.0);
+
+        verify(ratingAggregator).record(SUPPLIER, 4.0);
+        verify(supplierRepository, never()).updateRatingFromJournal(any());
+        verify(supplierRepository, never()).save(any(Supplier.class));
+        verifyNoInteractions(kafkaTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        InOrder inOrder = inOrder(supplierRepository, statsAggregator);
+        inOrder.verify(supplierRepository).lockById(SUPPLIER);
+        inOrder.verify(supplierRepository).updateRatingFromJournal(SUPPLIER);
+        inOrder.verify(statsAggregator).onSupplierSaved(supplier);
+        assertEquals(3.5, supplier.getRating());
+        verify(kafkaTemplate).send(any(), argThat((String json) ->
+                json.contains("SUPPLIER_RATED") && json.contains("\"rating\":3.5")));
+    }
+
+    @Test
+    void testDeletedSupplierIsSkipped() {
+        Supplier supplier = supplier();
+        when(supplierRepository.lockById(SUPPLIER)).thenReturn(null);
+
+        ratingWriter.refresh(supplier);
+
+        verify(supplierRepository, never()).updateRatingFromJournal(any());
+        verifyNoInteractions(statsAggregator);
+    }
+
+    @Test
+    void testRatingOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> supplierService.rateSupplier(SUPPLIER, 5.5));
+        verifyNoInteractions(ratingAggregator);
+    }
+
+    private static Supplier supplier() {
+        Supplier supplier = new Supplier();
+        supplier.setId(SUPPLIER);
+        supplier.setStatus(Supplier.SupplierStatus.ACTIVE);
+        return supplier;
+    }
+}
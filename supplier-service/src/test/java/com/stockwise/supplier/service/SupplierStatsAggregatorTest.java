@@ -0,0 +1,84 @@
+package com.stockwise.supplier.service;
+
+import com.stockwise.supplier.model.Supplier;
+import com.stockwise.supplier.model.SupplierStats;
+import com.stockwise.supplier.repository.SupplierRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Сверка статистики с БД: изменения, пришедшие во время чтения, не теряются при замене счетчиков
+class SupplierStatsAggregatorTest {
+    private final SupplierRepository supplierRepository = mock(SupplierRepository.class);
+    private final SupplierStatsAggregator aggregator = new SupplierStatsAggregator(supplierRepository);
+
+    @Test
+    void testReconcileRebuildsFromDatabase() {
+        when(supplierRepository.findStatsProjection()).thenReturn(rows(
+                row(1L, Supplier.SupplierStatus.ACTIVE, 4.5, 10),
+                row(2L, Supplier.SupplierStatus.INACTIVE, 2.0, 30)));
+
+        SupplierStats stats = aggregator.getStats();
+
+        assertEquals(2, stats.getTotalSuppliers());
+        assertEquals(1, stats.getActiveSuppliers());
+        assertEquals(1, stats.getHighRatedSuppliers());
+    }
+
+    @Test
+    void testChangesDuringReconcileAreReplayedOntoRebuiltCounters() {
+        when(supplierRepository.findStatsProjection()).thenReturn(rows(
+                row(1L, Supplier.SupplierStatus.ACTIVE, 4.5, 10),
+                row(2L, Supplier.SupplierStatus.ACTIVE, 3.0, 20)));
+        aggregator.reconcile();
+
+        // Снимок БД прочитан до коммитов, события которых пришли во время чтения
+        when(supplierRepository.findStatsProjection()).thenAnswer(invocation -> {
+            List<Object[]> snapshot = rows(
+                    row(1L, Supplier.SupplierStatus.ACTIVE, 4.5, 10),
+                    row(2L, Supplier.SupplierStatus.ACTIVE, 3.0, 20));
+            aggregator.onSupplierSaved(supplier(3L, Supplier.SupplierStatus.ACTIVE, 5.0));
+            aggregator.onSupplierDeleted(1L);
+            return snapshot;
+        });
+        aggregator.reconcile();
+
+        SupplierStats stats = aggregator.getStats();
+        assertEquals(2, stats.getTotalSuppliers());
+        assertEquals(2, stats.getActiveSuppliers());
+        assertEquals(1, stats.getHighRatedSuppliers());
+    }
+
+    @Test
+    void testChangesAfterReconcileAreNotBuffered() {
+        when(supplierRepository.findStatsProjection()).thenReturn(rows());
+        aggregator.reconcile();
+        aggregator.onSupplierSaved(supplier(1L, Supplier.SupplierStatus.ACTIVE, 4.0));
+
+        // Следующая сверка видит удаление в БД и не возвращает поставщика из старого буфера
+        aggregator.reconcile();
+
+        assertEquals(0, aggregator.getStats().getTotalSuppliers());
+    }
+
+    private static Supplier supplier(Long id, Supplier.SupplierStatus status, Double rating) {
+        Supplier supplier = new Supplier();
+        supplier.setId(id);
+        supplier.setStatus(status);
+        supplier.setRating(rating);
+        supplier.setDeliveryTimeAvg(7);
+        return supplier;
+    }
+
+    private static Object[] row(Long id, Supplier.SupplierStatus status, Double rating, Integer deliveryTime) {
+        return new Object[]{id, status, rating, deliveryTime};
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}